@@ -0,0 +1,223 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Сравнение {@link MyLinkedHashSet} с {@link LinkedHashSet} и {@link HashSet}.
+ * <p>
+ * Операции {@code containsHit}, {@code containsMiss} и {@code removeAndAdd} измеряются
+ * в пересчёте на один вызов (пакетами по {@code BATCH} ключей в случайном порядке).
+ * Операции {@code add}, {@code addAll} и {@code iterate} измеряются целиком для
+ * коллекции из {@code size} элементов; время на элемент получается делением на {@code size}.
+ * Ключи {@code cheap} — {@code Integer}, ключи {@code expensive} — объекты, которые
+ * вычисляют хеш-код и сравнивают содержимое по 64 символам при каждом вызове.
+ * <p>
+ * Запуск: {@code mvn -Pjmh package && java -jar target/benchmarks.jar SetBenchmark -prof gc}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SetBenchmark {
+
+    /** Количество операций поиска и удаления за один вызов */
+    private static final int BATCH = 1024;
+
+    /** Реализация множества */
+    @Param({"MyLinkedHashSet", "LinkedHashSet", "HashSet"})
+    String impl;
+
+    /** Количество элементов */
+    @Param({"1000", "100000", "1000000", "10000000"})
+    int size;
+
+    /** Тип ключей: {@code cheap} или {@code expensive} */
+    @Param({"cheap", "expensive"})
+    String keyType;
+
+    /** Ключи, находящиеся в множестве, в порядке добавления */
+    private List<Object> _present;
+
+    /** Ключи, находящиеся в множестве, в случайном порядке */
+    private Object[] _hits;
+
+    /** Ключи, отсутствующие в множестве, в случайном порядке */
+    private Object[] _misses;
+
+    /** Заполненное множество */
+    private Set<Object> _filled;
+
+    /** Позиция следующего пакета ключей */
+    private int _cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+
+        _present = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            _present.add(key(i));
+        }
+
+        List<Object> hits = new ArrayList<>(_present);
+        Collections.shuffle(hits, random);
+        _hits = hits.toArray();
+
+        _misses = new Object[size];
+        for (int i = 0; i < size; i++) {
+            _misses[i] = key(size + i);
+        }
+        Collections.shuffle(Arrays.asList(_misses), random);
+
+        _filled = newSet();
+        _filled.addAll(_present);
+        _cursor = 0;
+    }
+
+    @Benchmark
+    public Set<Object> add() {
+        Set<Object> set = newSet();
+        for (Object o : _present) {
+            set.add(o);
+        }
+        return set;
+    }
+
+    @Benchmark
+    public Set<Object> addAll() {
+        Set<Object> set = newSet();
+        set.addAll(_present);
+        return set;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void containsHit(Blackhole blackhole) {
+        int cursor = _cursor;
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(_filled.contains(_hits[cursor]));
+            cursor = (cursor + 1 < size) ? cursor + 1 : 0;
+        }
+        _cursor = cursor;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void containsMiss(Blackhole blackhole) {
+        int cursor = _cursor;
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(_filled.contains(_misses[cursor]));
+            cursor = (cursor + 1 < size) ? cursor + 1 : 0;
+        }
+        _cursor = cursor;
+    }
+
+    /**
+     * Удаление ключа и его повторное добавление; размер множества не меняется
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void removeAndAdd(Blackhole blackhole) {
+        int cursor = _cursor;
+        for (int i = 0; i < BATCH; i++) {
+            Object o = _hits[cursor];
+            blackhole.consume(_filled.remove(o));
+            blackhole.consume(_filled.add(o));
+            cursor = (cursor + 1 < size) ? cursor + 1 : 0;
+        }
+        _cursor = cursor;
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        for (Object o : _filled) {
+            blackhole.consume(o);
+        }
+    }
+
+    /**
+     * Создание пустого множества выбранной реализации
+     *
+     * @return пустое множество
+     */
+    private Set<Object> newSet() {
+        switch (impl) {
+            case "MyLinkedHashSet":
+                return new MyLinkedHashSet<>();
+            case "LinkedHashSet":
+                return new LinkedHashSet<>();
+            case "HashSet":
+                return new HashSet<>();
+            default:
+                throw new IllegalArgumentException("Unknown set implementation: " + impl);
+        }
+    }
+
+    /**
+     * Создание ключа выбранного типа
+     *
+     * @param i - номер ключа
+     * @return ключ
+     */
+    private Object key(int i) {
+        return "cheap".equals(keyType) ? Integer.valueOf(i) : new ExpensiveKey(i);
+    }
+
+    /**
+     * Ключ, хеш-код и сравнение которого требуют обхода 64 символов при каждом вызове
+     */
+    static final class ExpensiveKey {
+
+        /** Длина содержимого ключа */
+        private static final int LENGTH = 64;
+
+        /** Содержимое ключа */
+        private final char[] _chars;
+
+        ExpensiveKey(int value) {
+            _chars = new char[LENGTH];
+            Arrays.fill(_chars, 'k');
+            String digits = Integer.toString(value);
+            digits.getChars(0, digits.length(), _chars, LENGTH - digits.length());
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 0;
+            for (char c : _chars) {
+                hash = 31 * hash + c;
+            }
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return (o instanceof ExpensiveKey) && Arrays.equals(_chars, ((ExpensiveKey) o)._chars);
+        }
+    } // ExpensiveKey
+}
@@ -0,0 +1,66 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Объём памяти на один элемент, занимаемый самой коллекцией (без ключей), для
+ * {@link MyLinkedHashSet}, {@link MyCompactLinkedHashSet}, {@link LinkedHashSet}
+ * и {@link HashSet}. Объём определяется по разности занятой памяти кучи после сборки мусора.
+ * <p>
+ * Запуск: {@code java -Xmx4g -cp target/benchmarks.jar ru.spbstu.telematics.malyarenko.lab_2.SetFootprint 1000000}
+ */
+public class SetFootprint {
+
+    /** Количество элементов по умолчанию */
+    private static final int DEFAULT_SIZE = 1_000_000;
+
+    public static void main(String[] args) {
+        int size = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+
+        Integer[] keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i;
+        }
+
+        System.out.printf("%-24s %12s%n", "set", "bytes/element");
+        report("MyLinkedHashSet", MyLinkedHashSet::new, keys);
+        report("MyCompactLinkedHashSet", MyCompactLinkedHashSet::new, keys);
+        report("LinkedHashSet", LinkedHashSet::new, keys);
+        report("HashSet", HashSet::new, keys);
+    }
+
+    /**
+     * Заполнение коллекции и вывод объёма памяти на один элемент
+     *
+     * @param name    - название коллекции
+     * @param factory - создание пустой коллекции
+     * @param keys    - ключи
+     */
+    private static void report(String name, Supplier<Set<Integer>> factory, Integer[] keys) {
+        long before = usedMemory();
+
+        Set<Integer> set = factory.get();
+        for (Integer key : keys) {
+            set.add(key);
+        }
+
+        long after = usedMemory();
+        System.out.printf("%-24s %12.1f%n", name, (double) (after - before) / set.size());
+    }
+
+    /**
+     * Занятая память кучи после нескольких сборок мусора
+     *
+     * @return объём занятой памяти в байтах
+     */
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,214 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Множество с сохранением порядка добавления для сценариев «много читателей, редкие изменения».
+ * <p>
+ * Текущее содержимое — неизменяемый снимок {@link FrozenLinkedHashSet}, ссылка на который
+ * хранится в {@code volatile} поле. Чтение сводится к одному чтению этого поля и поиску
+ * в снимке без блокировок. Изменение выполняется под блокировкой писателей: строится новый
+ * снимок, который затем атомарно заменяет текущий. Итераторы обходят снимок, актуальный
+ * на момент их создания, и не поддерживают удаление.
+ * <p>
+ * Каждое изменение копирует содержимое, поэтому серии изменений следует выполнять через
+ * {@link #update(Consumer)} или {@link #replace(Collection)}
+ */
+public class CopyOnWriteLinkedHashSet<T> implements Set<T> {
+
+    /** Текущий снимок */
+    private volatile FrozenLinkedHashSet<T> _snapshot;
+
+    /** Блокировка писателей */
+    private final Object _writeLock = new Object();
+
+    /**
+     * Конструктор. Создаёт пустое множество
+     */
+    public CopyOnWriteLinkedHashSet() {
+        this(new MyLinkedHashSet<T>().freeze());
+    }
+
+    /**
+     * Конструктор. Создаёт множество с содержимым заданного снимка
+     *
+     * @param snapshot - снимок
+     */
+    public CopyOnWriteLinkedHashSet(FrozenLinkedHashSet<T> snapshot) {
+        _snapshot = snapshot;
+    }
+
+    /**
+     * Текущий снимок содержимого
+     *
+     * @return неизменяемый снимок
+     */
+    public FrozenLinkedHashSet<T> snapshot() {
+        return _snapshot;
+    }
+
+    /**
+     * Замена содержимого элементами заданной коллекции. Новый снимок строится до захвата
+     * блокировки писателей. Снимок коллекции {@code MyLinkedHashSet} сохраняет её способ
+     * хеширования, элементы другой коллекции хешируются способом текущего снимка
+     *
+     * @param c - коллекция
+     */
+    @SuppressWarnings("unchecked")
+    public void replace(Collection<? extends T> c) {
+        FrozenLinkedHashSet<T> snapshot;
+
+        if (c instanceof MyLinkedHashSet) {
+            snapshot = ((MyLinkedHashSet<T>) c).freeze();
+        } else {
+            MyLinkedHashSet<T> set = _snapshot.newEmpty(c.size());
+            set.addAll(c);
+            snapshot = set.freeze();
+        }
+
+        synchronized (_writeLock) {
+            _snapshot = snapshot;
+        }
+    }
+
+    /**
+     * Серия изменений с одной публикацией нового снимка. Изменения выполняются над
+     * изменяемой копией текущего содержимого; читатели видят либо старое, либо новое
+     * содержимое целиком
+     *
+     * @param mutation - изменения копии
+     */
+    public void update(Consumer<? super MyLinkedHashSet<T>> mutation) {
+        synchronized (_writeLock) {
+            MyLinkedHashSet<T> copy = _snapshot.thaw();
+            mutation.accept(copy);
+            _snapshot = copy.freeze();
+        }
+    }
+
+    /**
+     * Добавление нового элемента
+     *
+     * @param data - данные
+     * @return {@code true}, если новые данные добавлены; {@code false}, если данные
+     *         не были добавлены
+     */
+    @Override
+    public boolean add(T data) {
+        synchronized (_writeLock) {
+            FrozenLinkedHashSet<T> snapshot = _snapshot;
+            if (snapshot.contains(data)) {
+                return false;
+            }
+            _snapshot = snapshot.with(data);
+            return true;
+        }
+    }
+
+    /**
+     * Добавление всех элементов заданной коллекции
+     *
+     * @param c - коллекция, элементы которой должны быть добавлены
+     * @return {@code true}, если хотя бы отдин элемент был добавлен; {@code false}
+     *         в обратном случае
+     */
+    @Override
+    public boolean addAll(Collection<? extends T> c) {
+        boolean[] changed = {false};
+        update(set -> changed[0] = set.addAll(c));
+        return changed[0];
+    }
+
+    /**
+     * Удаление всех элементов
+     */
+    @Override
+    public void clear() {
+        synchronized (_writeLock) {
+            _snapshot = _snapshot.newEmpty(0).freeze();
+        }
+    }
+
+    /**
+     * Удаление элемента в случае, если он присутствовал
+     *
+     * @param o - элемент подлежащий удалению
+     * @return {@code true}, если элемент был удалён; {@code false} в обратном случае
+     */
+    @Override
+    public boolean remove(Object o) {
+        synchronized (_writeLock) {
+            FrozenLinkedHashSet<T> snapshot = _snapshot;
+            if (!snapshot.contains(o)) {
+                return false;
+            }
+            _snapshot = snapshot.without(o);
+            return true;
+        }
+    }
+
+    /**
+     * Удаление всех вхождений элементов заданной коллекции
+     *
+     * @param c - коллекция
+     * @return {@code true}, если  хотя бы один элемент был удалён; {@code false} в обратном случае
+     */
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        boolean[] changed = {false};
+        update(set -> changed[0] = set.removeAll(c));
+        return changed[0];
+    }
+
+    /**
+     * Удаление всех элемнтов, которое не входят в заданную коллекцию
+     *
+     * @param c - коллекция
+     * @return {@code true}, если был удалён хотя бы один элемент; {@code false} в обратном случае
+     */
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        boolean[] changed = {false};
+        update(set -> changed[0] = set.retainAll(c));
+        return changed[0];
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return _snapshot.contains(o);
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        return _snapshot.containsAll(c);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return _snapshot.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return _snapshot.size();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return _snapshot.iterator();
+    }
+
+    @Override
+    public Object[] toArray() {
+        return _snapshot.toArray();
+    }
+
+    @Override
+    public <U> U[] toArray(U[] a) {
+        return _snapshot.toArray(a);
+    }
+
+}
@@ -0,0 +1,51 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Двоичное представление элементов коллекции для записи в снимок
+ *
+ * @see MyLinkedHashSetSnapshot
+ */
+public interface ElementCodec<T> {
+
+    /**
+     * Кодирование элемента
+     *
+     * @param element - элемент
+     * @return двоичное представление элемента
+     */
+    byte[] encode(T element);
+
+    /**
+     * Декодирование элемента. Хеш-код декодированного элемента должен совпадать
+     * с хеш-кодом исходного, иначе восстановленная коллекция будет некорректной
+     *
+     * @param buffer - буфер, текущая позиция которого указывает на начало элемента
+     * @param length - длина двоичного представления элемента
+     * @return элемент
+     */
+    T decode(ByteBuffer buffer, int length);
+
+    /**
+     * Кодек строк в UTF-8
+     *
+     * @return кодек строк
+     */
+    static ElementCodec<String> utf8() {
+        return new ElementCodec<String>() {
+            @Override
+            public byte[] encode(String element) {
+                return element.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String decode(ByteBuffer buffer, int length) {
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+}
@@ -0,0 +1,300 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Неизменяемый снимок множества с сохранением порядка добавления.
+ * <p>
+ * Элементы и их хеш-коды хранятся в плотных массивах в порядке добавления, поиск
+ * выполняется по индексу {@code int[]} с открытой адресацией, заполненному не более чем
+ * наполовину. Все поля неизменяемы и объявлены {@code final}, поэтому снимок можно
+ * передавать между потоками без синхронизации и читать из любого числа потоков.
+ * Методы изменения завершаются исключением {@code UnsupportedOperationException}
+ *
+ * @see MyLinkedHashSet#freeze()
+ * @see CopyOnWriteLinkedHashSet
+ */
+public final class FrozenLinkedHashSet<T> implements Set<T> {
+
+    /** Ячейка индекса, которая не занята */
+    private static final int EMPTY = 0;
+
+    /** Элементы в порядке добавления */
+    private final Object[] _elements;
+
+    /** Хеш-коды элементов */
+    private final int[] _hashes;
+
+    /** Индекс с открытой адресацией: номер элемента, увеличенный на единицу, или {@code EMPTY} */
+    private final int[] _index;
+
+    /** Способ хеширования и сравнения элементов или {@code null} */
+    private final HashingStrategy<? super T> _strategy;
+
+    /**
+     * Конструктор. Создаёт снимок по элементам и их хеш-кодам, которые заведомо различны.
+     * Массивы переходят во владение снимка
+     *
+     * @param elements - элементы в порядке добавления
+     * @param hashes   - хеш-коды элементов
+     * @param strategy - способ хеширования и сравнения элементов или {@code null}
+     */
+    FrozenLinkedHashSet(Object[] elements, int[] hashes, HashingStrategy<? super T> strategy) {
+        _elements = elements;
+        _hashes = hashes;
+        _strategy = strategy;
+        _index = new int[Integer.highestOneBit(Math.max(1, elements.length)) << 2];
+
+        int mask = _index.length - 1;
+        for (int i = 0; i < elements.length; i++) {
+            int position = spread(hashes[i]) & mask;
+            while (_index[position] != EMPTY) {
+                position = (position + 1) & mask;
+            }
+            _index[position] = i + 1;
+        }
+    }
+
+    /**
+     * Создание снимка, к элементам которого добавлен заданный элемент
+     *
+     * @param data - добавляемый элемент, отсутствующий в снимке
+     * @return новый снимок
+     */
+    FrozenLinkedHashSet<T> with(T data) {
+        Object[] elements = Arrays.copyOf(_elements, _elements.length + 1);
+        int[] hashes = Arrays.copyOf(_hashes, _hashes.length + 1);
+        elements[_elements.length] = data;
+        hashes[_hashes.length] = hash(data);
+
+        return new FrozenLinkedHashSet<T>(elements, hashes, _strategy);
+    }
+
+    /**
+     * Создание снимка без заданного элемента
+     *
+     * @param o - удаляемый элемент, присутствующий в снимке
+     * @return новый снимок
+     */
+    FrozenLinkedHashSet<T> without(Object o) {
+        int removed = indexOf(o);
+        int size = _elements.length - 1;
+
+        Object[] elements = new Object[size];
+        int[] hashes = new int[size];
+        System.arraycopy(_elements, 0, elements, 0, removed);
+        System.arraycopy(_hashes, 0, hashes, 0, removed);
+        System.arraycopy(_elements, removed + 1, elements, removed, size - removed);
+        System.arraycopy(_hashes, removed + 1, hashes, removed, size - removed);
+
+        return new FrozenLinkedHashSet<T>(elements, hashes, _strategy);
+    }
+
+    /**
+     * Создание пустой изменяемой коллекции с тем же способом хеширования
+     *
+     * @param expectedSize - ожидаемое количество элементов
+     * @return пустая коллекция
+     */
+    MyLinkedHashSet<T> newEmpty(int expectedSize) {
+        return new MyLinkedHashSet<T>(MyLinkedHashSet.hashTableSizeFor(expectedSize), false, _strategy);
+    }
+
+    /**
+     * Создание изменяемой коллекции с элементами снимка в том же порядке
+     * без повторного вычисления хеш-кодов
+     *
+     * @return новая коллекция
+     */
+    @SuppressWarnings("unchecked")
+    public MyLinkedHashSet<T> thaw() {
+        MyLinkedHashSet<T> set = newEmpty(_elements.length);
+
+        for (int i = 0; i < _elements.length; i++) {
+            set.appendUnchecked((T) _elements[i], _hashes[i]);
+        }
+
+        return set;
+    }
+
+    /**
+     * Проверка на наличие элемента в снимке
+     *
+     * @param o - проверяемый элемент
+     * @return {@code true}, если элемент находится в снимке; {@code false} в
+     *         обратном случае
+     */
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * Проверка на наличие всех элементов заданной колеекции в снимке.
+     * Проверка прекращается на первом отсутствующем элементе
+     *
+     * @param c - коллекция
+     * @return {@code true}, если все элементы коллекции {@code c} находятся в
+     *         снимке; {@code false} в обратном случае
+     */
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        for (Object o : c) {
+            if (!contains(o)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Количество элементов в снимке
+     * @return {@code int} размер снимка
+     */
+    @Override
+    public int size() {
+        return _elements.length;
+    }
+
+    /** Проверка на пустой снимок
+     *
+     * @return {@code true}, если снимок пуст; {@code false} в обратном случае
+     */
+    @Override
+    public boolean isEmpty() {
+        return _elements.length == 0;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            /** Номер следующего элемента */
+            private int _next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return _next < _elements.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (_next >= _elements.length) {
+                    throw new NoSuchElementException();
+                }
+                return (T) _elements[_next++];
+            }
+        };
+    }
+
+    /**
+     * Преобразование в массив
+     *
+     * @return массив {@code Object[]} из элементов снимка в порядке их добавления
+     */
+    @Override
+    public Object[] toArray() {
+        return _elements.clone();
+    }
+
+    /**
+     * Запись элементов снимка в массив
+     *
+     * @param U - параметр типа
+     * @return массив {@code U[]} из элементов снимка в порядке их добавления
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <U> U[] toArray(U[] a) {
+        U[] array = (a.length >= _elements.length)
+            ? a
+            : (U[]) Array.newInstance(a.getClass().getComponentType(), _elements.length);
+
+        System.arraycopy(_elements, 0, array, 0, _elements.length);
+        if (array.length > _elements.length) {
+            array[_elements.length] = null;
+        }
+
+        return array;
+    }
+
+    @Override
+    public boolean add(T data) {
+        throw new UnsupportedOperationException("FrozenLinkedHashSet is immutable");
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends T> c) {
+        throw new UnsupportedOperationException("FrozenLinkedHashSet is immutable");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("FrozenLinkedHashSet is immutable");
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException("FrozenLinkedHashSet is immutable");
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw new UnsupportedOperationException("FrozenLinkedHashSet is immutable");
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw new UnsupportedOperationException("FrozenLinkedHashSet is immutable");
+    }
+
+    /**
+     * Перемешивание битов хеш-кода перед вычислением ячейки индекса
+     *
+     * @param hash - хеш-код
+     * @return хеш-код с перемешанными старшими битами
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Хеш-код элемента
+     *
+     * @param o - элемент
+     * @return хеш-код, вычисленный способом хеширования снимка
+     */
+    @SuppressWarnings("unchecked")
+    private int hash(Object o) {
+        return (_strategy == null) ? o.hashCode() : _strategy.hash((T) o);
+    }
+
+    /**
+     * Номер элемента в порядке добавления
+     *
+     * @param o - искомый элемент
+     * @return номер элемента или {@code -1}, если элемент не найден
+     */
+    @SuppressWarnings("unchecked")
+    private int indexOf(Object o) {
+        int hash = hash(o);
+        int mask = _index.length - 1;
+        int position = spread(hash) & mask;
+
+        for (int entry = _index[position]; entry != EMPTY; entry = _index[position]) {
+            int i = entry - 1;
+            if (_hashes[i] == hash
+                && ((_strategy == null) ? o.equals(_elements[i]) : _strategy.equals((T) o, (T) _elements[i]))) {
+                return i;
+            }
+            position = (position + 1) & mask;
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,131 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Встроенные способы хеширования
+ */
+final class HashingStrategies {
+
+    /** Множитель перемешивания хеш-кода */
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /** Чтение восьми байт массива как {@code long} */
+    private static final VarHandle LONG_VIEW =
+        MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    static final HashingStrategy<byte[]> BYTE_ARRAYS = new HashingStrategy<byte[]>() {
+        @Override
+        public int hash(byte[] element) {
+            long hash = element.length;
+            int i = 0;
+
+            for (; i + Long.BYTES <= element.length; i += Long.BYTES) {
+                hash = mix(hash, (long) LONG_VIEW.get(element, i));
+            }
+
+            long tail = 0;
+            for (int shift = 0; i < element.length; i++, shift += Byte.SIZE) {
+                tail |= (element[i] & 0xffL) << shift;
+            }
+
+            return finish(mix(hash, tail));
+        }
+
+        @Override
+        public boolean equals(byte[] a, byte[] b) {
+            return Arrays.equals(a, b);
+        }
+    };
+
+    static final HashingStrategy<char[]> CHAR_ARRAYS = new HashingStrategy<char[]>() {
+        @Override
+        public int hash(char[] element) {
+            long hash = element.length;
+            int i = 0;
+
+            for (; i + 4 <= element.length; i += 4) {
+                hash = mix(hash, element[i]
+                    | (long) element[i + 1] << 16
+                    | (long) element[i + 2] << 32
+                    | (long) element[i + 3] << 48);
+            }
+
+            long tail = 0;
+            for (int shift = 0; i < element.length; i++, shift += Character.SIZE) {
+                tail |= (long) element[i] << shift;
+            }
+
+            return finish(mix(hash, tail));
+        }
+
+        @Override
+        public boolean equals(char[] a, char[] b) {
+            return Arrays.equals(a, b);
+        }
+    };
+
+    static final HashingStrategy<CharSequence> CASE_INSENSITIVE = new HashingStrategy<CharSequence>() {
+        @Override
+        public int hash(CharSequence element) {
+            int hash = 0;
+            for (int i = 0; i < element.length(); i++) {
+                hash = 31 * hash + fold(element.charAt(i));
+            }
+            return hash;
+        }
+
+        @Override
+        public boolean equals(CharSequence a, CharSequence b) {
+            if (a.length() != b.length()) {
+                return false;
+            }
+            for (int i = 0; i < a.length(); i++) {
+                char ca = a.charAt(i);
+                char cb = b.charAt(i);
+                if (ca != cb && fold(ca) != fold(cb)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    };
+
+    private HashingStrategies() {
+    }
+
+    /**
+     * Добавление слова к хеш-коду
+     *
+     * @param hash - текущий хеш-код
+     * @param word - слово
+     * @return новый хеш-код
+     */
+    static long mix(long hash, long word) {
+        return (Long.rotateLeft(hash, 5) ^ word) * MULTIPLIER;
+    }
+
+    /**
+     * Свёртка 64-битного хеш-кода в 32-битный
+     *
+     * @param hash - 64-битный хеш-код
+     * @return 32-битный хеш-код
+     */
+    static int finish(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Приведение символа к регистру, в котором сравниваются символы
+     * в {@link String#equalsIgnoreCase(String)}
+     *
+     * @param c - символ
+     * @return символ в нижнем регистре
+     */
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+} // HashingStrategies
@@ -0,0 +1,58 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+/**
+ * Способ вычисления хеш-кода и сравнения элементов коллекции, заменяющий
+ * {@code hashCode()} и {@code equals()} самих элементов. Позволяет хранить в коллекции
+ * массивы и другие объекты без классов-обёрток
+ *
+ * @see MyLinkedHashSet#MyLinkedHashSet(HashingStrategy)
+ */
+public interface HashingStrategy<T> {
+
+    /**
+     * Хеш-код элемента
+     *
+     * @param element - элемент
+     * @return хеш-код
+     */
+    int hash(T element);
+
+    /**
+     * Сравнение элементов. Равные элементы должны иметь равные хеш-коды
+     *
+     * @param a - первый элемент
+     * @param b - второй элемент
+     * @return {@code true}, если элементы равны
+     */
+    boolean equals(T a, T b);
+
+    /**
+     * Сравнение массивов {@code byte[]} по содержимому. Хеш-код вычисляется по восемь байт
+     * за шаг
+     *
+     * @return способ хеширования массивов байт
+     */
+    static HashingStrategy<byte[]> byteArrays() {
+        return HashingStrategies.BYTE_ARRAYS;
+    }
+
+    /**
+     * Сравнение массивов {@code char[]} по содержимому. Хеш-код вычисляется по четыре символа
+     * за шаг
+     *
+     * @return способ хеширования массивов символов
+     */
+    static HashingStrategy<char[]> charArrays() {
+        return HashingStrategies.CHAR_ARRAYS;
+    }
+
+    /**
+     * Сравнение последовательностей символов без учёта регистра, по тем же правилам,
+     * что и {@link String#equalsIgnoreCase(String)}
+     *
+     * @return способ хеширования последовательностей символов без учёта регистра
+     */
+    static HashingStrategy<CharSequence> caseInsensitive() {
+        return HashingStrategies.CASE_INSENSITIVE;
+    }
+}
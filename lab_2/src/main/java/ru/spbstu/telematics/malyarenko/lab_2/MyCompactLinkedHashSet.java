@@ -0,0 +1,558 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Компактная реализация множества с сохранением порядка добавления.
+ * <p>
+ * Элементы хранятся в плотном массиве {@code Object[]} в порядке добавления, рядом
+ * хранятся их хеш-коды. Поиск выполняется по индексу {@code int[]} с открытой адресацией
+ * (линейное пробирование), в ячейках которого записаны номера позиций в массиве элементов.
+ * Удалённый элемент оставляет в массиве пустую позицию («надгробие»), которые убираются
+ * уплотнением массива, когда их становится больше половины.
+ * <p>
+ * В отличие от {@link MyLinkedHashSet} на элемент не создаётся узел: накладные расходы
+ * составляют ссылку и хеш-код в массивах плюс две ячейки индекса, а обход коллекции —
+ * последовательный просмотр массива
+ */
+public class MyCompactLinkedHashSet<T> implements Set<T> {
+
+    /** Вместимость массива элементов по умолчанию */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** Максимальная вместимость массива элементов */
+    private static final int MAX_CAPACITY = 1 << 29;
+
+    /** Ячейка индекса, которая никогда не была занята */
+    private static final int EMPTY = 0;
+
+    /** Ячейка индекса, элемент которой был удалён */
+    private static final int DELETED = -1;
+
+    /** Элементы в порядке добавления; {@code null} обозначает удалённый элемент */
+    private Object[] _elements;
+
+    /** Хеш-коды элементов, вычисленные при добавлении */
+    private int[] _hashes;
+
+    /**
+     * Индекс с открытой адресацией. Ячейка содержит номер позиции в {@code _elements},
+     * увеличенный на единицу, {@code EMPTY} или {@code DELETED}
+     */
+    private int[] _index;
+
+    /** Количество занятых позиций массива элементов, включая удалённые */
+    private int _end;
+
+    /** Размер коллекции */
+    private int _size;
+
+    /** Счётчик структурных изменений коллекции */
+    private int _modCount;
+
+    /**
+     * Конструктор. Создаёт пустую коллекцию
+     */
+    public MyCompactLinkedHashSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Конструктор. Создаёт пустую коллекцию, рассчитанную на заданное число элементов
+     *
+     * @param expectedSize - ожидаемое количество элементов
+     * @throws IllegalArgumentException если количество элементов отрицательно
+     */
+    public MyCompactLinkedHashSet(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+        }
+
+        allocate(Math.max(DEFAULT_CAPACITY, Math.min(expectedSize, MAX_CAPACITY)));
+    }
+
+    /**
+     * Конструктор. Создаёт коллекцию с содержимым заданной коллекции
+     *
+     * @param c - коллекция
+     */
+    public MyCompactLinkedHashSet(Collection<? extends T> c) {
+        this(c.size());
+
+        for (T t : c) {
+            add(t);
+        }
+    }
+
+    /**
+     * Добавление нового элемента в коллекцию
+     *
+     * @param data - данные
+     * @return {@code true}, если новые данные добавлены; {@code false}, если данные
+     *         не были добавлены
+     */
+    @Override
+    public boolean add(T data) {
+        int hash = data.hashCode();
+
+        if (_end == _elements.length) {
+            makeRoom();
+        }
+
+        int mask = _index.length - 1;
+        int position = spread(hash) & mask;
+        int freePosition = -1;
+
+        for (int entry = _index[position]; entry != EMPTY; entry = _index[position]) {
+            if (entry == DELETED) {
+                if (freePosition < 0) {
+                    freePosition = position;
+                }
+            } else if (_hashes[entry - 1] == hash && data.equals(_elements[entry - 1])) {
+                return false;
+            }
+            position = (position + 1) & mask;
+        }
+
+        _elements[_end] = data;
+        _hashes[_end] = hash;
+        _end++;
+        _index[(freePosition < 0) ? position : freePosition] = _end;
+        _size++;
+        _modCount++;
+
+        return true;
+    }
+
+    /**
+     * Добавление всех элементов заданной коллекции в данную коллекцию
+     *
+     * @param c - коллекция, элементы которой должны быть добавлены
+     * @return {@code true}, если хотя бы отдин элемент был добавлен; {@code false}
+     *         в обратном случае
+     */
+    @Override
+    public boolean addAll(Collection<? extends T> c) {
+        int sizeOld = _size;
+
+        for (T t : c) {
+            add(t);
+        }
+
+        return sizeOld < _size;
+    }
+
+    /**
+     * Удаление всех элементов коллекции. Вместимость массивов сохраняется
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(_elements, 0, _end, null);
+        Arrays.fill(_index, EMPTY);
+        _end = 0;
+        _size = 0;
+        _modCount++;
+    }
+
+    /**
+     * Проверка на наличие элемента в коллекции
+     *
+     * @param o - проверяемый элемент
+     * @return {@code true}, если элемент находится в коллекции; {@code false} в
+     *         обратном случае
+     */
+    @Override
+    public boolean contains(Object o) {
+        return findPosition(o) >= 0;
+    }
+
+    /**
+     * Проверка на наличие всех элементов заданной колеекции в коллекции.
+     * Проверка прекращается на первом отсутствующем элементе
+     *
+     * @param c - коллекция
+     * @return {@code true}, если все элементы коллекции {@code c} находятся в
+     *         коллекции; {@code false} в обратном случае
+     */
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        for (Object o : c) {
+            if (!contains(o)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Проверка на пустую коллекцию
+     *
+     * @return {@code true}, если коллекция пуста; {@code false} в обратном случае
+     */
+    @Override
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new CompactSetIterator();
+    }
+
+    /**
+     * Удаление элемента из коллекции в случае, если он там присутствовал.
+     * Позиция элемента в массиве становится пустой до ближайшего уплотнения
+     *
+     * @param o - элемент подлежащий удалению
+     * @return {@code true}, если элемент был удалён из коллекции; {@code false} в обратном случае
+     */
+    @Override
+    public boolean remove(Object o) {
+        int position = findPosition(o);
+
+        if (position < 0) {
+            return false;
+        }
+
+        removeAt(position);
+        if (_end - _size > (_end >>> 1)) {
+            compact(_elements.length);
+        }
+
+        return true;
+    }
+
+    /**
+     * Удаление всех вхождений элементов заданной коллекции из данной коллекции
+     *
+     * @param c - коллекция
+     * @return {@code true}, если  хотя бы один элемент был удалён из коллекции; {@code false} в обратном случае
+     */
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        int sizeOld = _size;
+
+        if (c instanceof Set && c.size() > _size) {
+            Iterator<T> it = iterator();
+            while (it.hasNext()) {
+                if (c.contains(it.next())) {
+                    it.remove();
+                }
+            }
+        } else {
+            for (Object o : c) {
+                remove(o);
+            }
+        }
+
+        return sizeOld > _size;
+    }
+
+    /**
+     * Удаление всех элемнтов данной коллекции, которое не входят в заданную коллекцию
+     *
+     * @param c - коллекция
+     * @return {@code true}, если был удалён хотя бы один элемент; {@code false} в обратном случае
+     */
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        int sizeOld = _size;
+        Collection<?> lookup = (c instanceof Set) ? c : new HashSet<Object>(c);
+
+        Iterator<T> it = iterator();
+        while (it.hasNext()) {
+            if (!lookup.contains(it.next())) {
+                it.remove();
+            }
+        }
+
+        return sizeOld > _size;
+    }
+
+    /**
+     * Количество элементов в коллекции
+     * @return {@code int} размер коллекции
+     */
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    /**
+     * Преобразование в массив
+     *
+     * @return массив {@code Object[]} из элементов коллекции в порядке их добавления
+     */
+    @Override
+    public Object[] toArray() {
+        if (_size == _end) {
+            return Arrays.copyOf(_elements, _end);
+        }
+
+        Object[] array = new Object[_size];
+        int count = 0;
+        for (int i = 0; i < _end; i++) {
+            if (_elements[i] != null) {
+                array[count++] = _elements[i];
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Запись элементов коллекции в массив
+     *
+     * @param U - параметр типа
+     * @return массив {@code U[]} из элементов коллекции в порядке их добавления
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <U> U[] toArray(U[] a) {
+        U[] array = (a.length >= _size)
+            ? a
+            : (U[]) Array.newInstance(a.getClass().getComponentType(), _size);
+
+        int count = 0;
+        for (int i = 0; i < _end; i++) {
+            if (_elements[i] != null) {
+                array[count++] = (U) _elements[i];
+            }
+        }
+        if (array.length > _size) {
+            array[_size] = null;
+        }
+
+        return array;
+    }
+
+    /**
+     * Количество пустых позиций массива элементов, оставшихся после удаления
+     *
+     * @return количество «надгробий»
+     */
+    int tombstones() {
+        return _end - _size;
+    }
+
+    /**
+     * Перемешивание битов хеш-кода перед вычислением ячейки индекса
+     *
+     * @param hash - хеш-код
+     * @return хеш-код с перемешанными старшими битами
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Размер индекса для заданной вместимости массива элементов:
+     * степень двойки, не меньшая удвоенной вместимости
+     *
+     * @param capacity - вместимость массива элементов
+     * @return размер индекса
+     */
+    private static int indexSizeFor(int capacity) {
+        return Integer.highestOneBit(Math.max(1, capacity - 1)) << 2;
+    }
+
+    /**
+     * Создание пустых массивов заданной вместимости
+     *
+     * @param capacity - вместимость массива элементов
+     */
+    private void allocate(int capacity) {
+        _elements = new Object[capacity];
+        _hashes = new int[capacity];
+        _index = new int[indexSizeFor(capacity)];
+        _end = 0;
+        _size = 0;
+    }
+
+    /**
+     * Поиск ячейки индекса, указывающей на заданный элемент
+     *
+     * @param o - искомый элемент
+     * @return номер ячейки индекса или {@code -1}, если элемент не найден
+     */
+    private int findPosition(Object o) {
+        int hash = o.hashCode();
+        int mask = _index.length - 1;
+        int position = spread(hash) & mask;
+
+        for (int entry = _index[position]; entry != EMPTY; entry = _index[position]) {
+            if (entry != DELETED && _hashes[entry - 1] == hash && o.equals(_elements[entry - 1])) {
+                return position;
+            }
+            position = (position + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Поиск ячейки индекса, указывающей на заданную позицию массива элементов
+     *
+     * @param slot - позиция в массиве элементов
+     * @return номер ячейки индекса
+     */
+    private int positionOfSlot(int slot) {
+        int mask = _index.length - 1;
+        int position = spread(_hashes[slot]) & mask;
+
+        while (_index[position] != slot + 1) {
+            position = (position + 1) & mask;
+        }
+
+        return position;
+    }
+
+    /**
+     * Удаление элемента по ячейке индекса без уплотнения массива
+     *
+     * @param position - ячейка индекса
+     */
+    private void removeAt(int position) {
+        _elements[_index[position] - 1] = null;
+        _index[position] = DELETED;
+        _size--;
+        _modCount++;
+    }
+
+    /**
+     * Освобождение места в заполненном массиве элементов: уплотнение, если удалённых
+     * элементов не меньше четверти, иначе увеличение вместимости вдвое
+     */
+    private void makeRoom() {
+        if (_end - _size >= (_end >>> 2) && _end > 0) {
+            compact(_elements.length);
+        } else {
+            if (_elements.length >= MAX_CAPACITY) {
+                throw new IllegalStateException("Collection is too large");
+            }
+            compact(Math.min(_elements.length << 1, MAX_CAPACITY));
+        }
+    }
+
+    /**
+     * Уплотнение массива элементов с сохранением порядка и перестроение индекса
+     * по сохранённым хеш-кодам
+     *
+     * @param capacity - новая вместимость массива элементов
+     */
+    private void compact(int capacity) {
+        Object[] elements = (capacity == _elements.length) ? _elements : new Object[capacity];
+        int[] hashes = (capacity == _hashes.length) ? _hashes : new int[capacity];
+
+        int count = 0;
+        for (int i = 0; i < _end; i++) {
+            if (_elements[i] != null) {
+                elements[count] = _elements[i];
+                hashes[count] = _hashes[i];
+                count++;
+            }
+        }
+        if (elements == _elements) {
+            Arrays.fill(elements, count, _end, null);
+        }
+
+        int[] index = (indexSizeFor(capacity) == _index.length) ? _index : new int[indexSizeFor(capacity)];
+        if (index == _index) {
+            Arrays.fill(index, EMPTY);
+        }
+
+        int mask = index.length - 1;
+        for (int i = 0; i < count; i++) {
+            int position = spread(hashes[i]) & mask;
+            while (index[position] != EMPTY) {
+                position = (position + 1) & mask;
+            }
+            index[position] = i + 1;
+        }
+
+        _elements = elements;
+        _hashes = hashes;
+        _index = index;
+        _end = count;
+        _modCount++;
+    }
+
+    /**
+     * Класс итератора <code>MyCompactLinkedHashSet</code>: последовательный просмотр массива
+     * элементов с пропуском удалённых позиций
+     */
+    private class CompactSetIterator implements Iterator<T> {
+        /** Позиция следующего элемента */
+        private int _slot;
+
+        /** Позиция элемента, возвращённого последним вызовом {@code next()} */
+        private int _lastReturned;
+
+        /** Ожидаемое значение счётчика изменений коллекции */
+        private int _expectedModCount;
+
+        public CompactSetIterator() {
+            _slot = skipRemoved(0);
+            _lastReturned = -1;
+            _expectedModCount = _modCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _slot < _end;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (_modCount != _expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (_slot >= _end) {
+                throw new NoSuchElementException();
+            }
+
+            _lastReturned = _slot;
+            _slot = skipRemoved(_slot + 1);
+
+            return (T) _elements[_lastReturned];
+        }
+
+        /**
+         * Удаление элемента, возвращённого последним вызовом {@code next()}.
+         * Массив при этом не уплотняется, чтобы не сдвигать позицию итератора
+         */
+        @Override
+        public void remove() {
+            if (_lastReturned < 0) {
+                throw new IllegalStateException();
+            }
+            if (_modCount != _expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            removeAt(positionOfSlot(_lastReturned));
+            _lastReturned = -1;
+            _expectedModCount = _modCount;
+        }
+
+        /**
+         * Первая непустая позиция массива элементов, начиная с заданной
+         *
+         * @param slot - начальная позиция
+         * @return позиция элемента или {@code _end}
+         */
+        private int skipRemoved(int slot) {
+            while (slot < _end && _elements[slot] == null) {
+                slot++;
+            }
+            return slot;
+        }
+    } // CompactSetIterator
+
+} // MyCompactLinkedHashSet
@@ -0,0 +1,246 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Мультимножество с сохранением порядка первого появления элементов.
+ * <p>
+ * Построено на узлах и списке порядка добавления {@link MyLinkedHashSet}: количество
+ * вхождений хранится в узле элемента как {@code long}, поэтому добавление находит
+ * элемент и увеличивает его счётчик за один проход по цепочке, без второй хеш-таблицы
+ * и без упаковки счётчиков. Как {@code Set} коллекция содержит различные элементы;
+ * {@link #remove(Object)} удаляет элемент вместе со всеми вхождениями
+ */
+public class MyLinkedHashMultiset<T> extends MyLinkedHashSet<T> {
+
+    /**
+     * Узел с количеством вхождений элемента
+     */
+    static class CountedNode<V> extends MySetNode<V> {
+        /** Количество вхождений */
+        long _count;
+
+        public CountedNode(V data, int hash) {
+            super(data, hash);
+            _count = 0;
+        }
+    } // CountedNode
+
+    /**
+     * Конструктор. Создаёт пустое мультимножество
+     */
+    public MyLinkedHashMultiset() {
+        super();
+    }
+
+    /**
+     * Конструктор. Создаёт пустое мультимножество с заданным размером хеш-таблицы
+     *
+     * @param hashTableSize - размер хеш-таблицы
+     * @throws IllegalArgumentException если размер хеш-таблицы не положителен
+     */
+    public MyLinkedHashMultiset(int hashTableSize) {
+        super(hashTableSize);
+    }
+
+    /**
+     * Конструктор. Создаёт пустое мультимножество с заданным размером хеш-таблицы
+     * и способом хеширования элементов
+     *
+     * @param hashTableSize - размер хеш-таблицы
+     * @param strategy      - способ хеширования и сравнения элементов или {@code null}
+     * @throws IllegalArgumentException если размер хеш-таблицы не положителен
+     */
+    public MyLinkedHashMultiset(int hashTableSize, HashingStrategy<? super T> strategy) {
+        super(hashTableSize, false, strategy);
+    }
+
+    /**
+     * Добавление одного вхождения элемента
+     *
+     * @param data - данные
+     * @return {@code true}, если элемент встретился впервые; {@code false} в обратном случае
+     */
+    @Override
+    public boolean add(T data) {
+        return add(data, 1) == 1;
+    }
+
+    /**
+     * Добавление заданного количества вхождений элемента
+     *
+     * @param data        - данные
+     * @param occurrences - количество вхождений
+     * @return количество вхождений элемента после добавления
+     * @throws IllegalArgumentException если количество вхождений не положительно
+     * @throws ArithmeticException      если счётчик переполняется
+     */
+    public long add(T data, long occurrences) {
+        if (occurrences <= 0) {
+            throw new IllegalArgumentException("Occurrences must be positive: " + occurrences);
+        }
+
+        CountedNode<T> node = (CountedNode<T>) addNode(data, hash(data));
+        node._count = Math.addExact(node._count, occurrences);
+        return node._count;
+    }
+
+    /**
+     * Количество вхождений элемента
+     *
+     * @param o - элемент
+     * @return количество вхождений или {@code 0}, если элемента нет
+     */
+    public long count(Object o) {
+        CountedNode<T> node = (CountedNode<T>) findNode(o);
+        return (node == null) ? 0 : node._count;
+    }
+
+    /**
+     * Удаление заданного количества вхождений элемента. Элемент удаляется, когда
+     * количество его вхождений становится равным нулю
+     *
+     * @param o           - элемент
+     * @param occurrences - количество удаляемых вхождений
+     * @return количество вхождений элемента после удаления
+     * @throws IllegalArgumentException если количество вхождений не положительно
+     */
+    public long remove(Object o, long occurrences) {
+        if (occurrences <= 0) {
+            throw new IllegalArgumentException("Occurrences must be positive: " + occurrences);
+        }
+
+        CountedNode<T> node = (CountedNode<T>) findNode(o);
+        if (node == null) {
+            return 0;
+        }
+
+        if (node._count <= occurrences) {
+            unlinkNode(node);
+            return 0;
+        }
+
+        node._count -= occurrences;
+        return node._count;
+    }
+
+    /**
+     * Обход элементов в порядке первого появления вместе с количеством их вхождений
+     *
+     * @param action - действие над элементом и количеством его вхождений
+     */
+    public void forEachEntry(ObjLongConsumer<? super T> action) {
+        forEachNode(node -> action.accept(node._data, ((CountedNode<T>) node)._count));
+    }
+
+    /**
+     * Добавление всех вхождений элементов другого мультимножества. Сохранённые хеш-коды
+     * используются повторно, если способы хеширования совпадают
+     *
+     * @param other - мультимножество
+     */
+    public void addAllOccurrences(MyLinkedHashMultiset<? extends T> other) {
+        ensureCapacity(size() + other.size());
+        boolean sameHashes = hashesLike(other);
+
+        other.forEachNode(node -> {
+            T data = node._data;
+            CountedNode<T> counted = (CountedNode<T>) addNode(data, sameHashes ? node._hash : hash(data));
+            counted._count = Math.addExact(counted._count, ((CountedNode<?>) node)._count);
+        });
+    }
+
+    /**
+     * Индекс порядковых номеров не поддерживается мультимножеством
+     *
+     * @return {@code false}
+     */
+    @Override
+    public boolean supportsRankIndex() {
+        return false;
+    }
+
+    @Override
+    MySetNode<T> newNode(T data, int hash) {
+        return new CountedNode<T>(data, hash);
+    }
+
+    /**
+     * Слияние мультимножеств в общем пуле потоков
+     *
+     * @see #merge(List, ForkJoinPool)
+     */
+    public static <T> MyLinkedHashMultiset<T> merge(List<? extends MyLinkedHashMultiset<T>> parts) {
+        return merge(parts, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Слияние мультимножеств, например собранных отдельными потоками по частям потока данных.
+     * Количества вхождений складываются; порядок элементов результата — порядок первого появления
+     * при просмотре частей в порядке списка. Части сливаются попарно деревом задач
+     * {@link ForkJoinPool} и не изменяются; во время слияния их нельзя изменять
+     *
+     * @param parts - части
+     * @param pool  - пул потоков
+     * @return новое мультимножество со способом хеширования первой части
+     */
+    public static <T> MyLinkedHashMultiset<T> merge(List<? extends MyLinkedHashMultiset<T>> parts, ForkJoinPool pool) {
+        if (parts.isEmpty()) {
+            return new MyLinkedHashMultiset<T>();
+        }
+        return pool.invoke(new MergeTask<T>(parts, 0, parts.size()));
+    }
+
+    /**
+     * Копия мультимножества с тем же способом хеширования
+     *
+     * @param source - мультимножество
+     * @return копия
+     */
+    private static <T> MyLinkedHashMultiset<T> copyOf(MyLinkedHashMultiset<T> source) {
+        MyLinkedHashMultiset<T> copy = new MyLinkedHashMultiset<T>(
+            hashTableSizeFor(source.size()), source.strategy());
+        copy.addAllOccurrences(source);
+        return copy;
+    }
+
+    /**
+     * Задача слияния части списка мультимножеств
+     */
+    private static class MergeTask<T> extends RecursiveTask<MyLinkedHashMultiset<T>> {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Мультимножества */
+        private final List<? extends MyLinkedHashMultiset<T>> _parts;
+
+        /** Начало части списка */
+        private final int _from;
+
+        /** Конец части списка (не включая) */
+        private final int _to;
+
+        MergeTask(List<? extends MyLinkedHashMultiset<T>> parts, int from, int to) {
+            _parts = parts;
+            _from = from;
+            _to = to;
+        }
+
+        @Override
+        protected MyLinkedHashMultiset<T> compute() {
+            if (_to - _from == 1) {
+                return copyOf(_parts.get(_from));
+            }
+
+            int middle = (_from + _to) >>> 1;
+            MergeTask<T> right = new MergeTask<T>(_parts, middle, _to);
+            right.fork();
+            MyLinkedHashMultiset<T> result = new MergeTask<T>(_parts, _from, middle).compute();
+            result.addAllOccurrences(right.join());
+            return result;
+        }
+    } // MergeTask
+}
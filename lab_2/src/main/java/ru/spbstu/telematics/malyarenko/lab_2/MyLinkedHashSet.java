@@ -1,19 +1,67 @@
 package ru.spbstu.telematics.malyarenko.lab_2;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 import java.util.Vector;
-
-import static java.lang.Math.abs;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 
 public class MyLinkedHashSet<T> implements Set<T> {
 
     /** Хеш-таблица */
     private Vector<MySetNode<T>> _hashTable;
 
-    /** Размер хеш-таблицы */
-    private final int HASH_TABLE_SIZE = 30;
+    /** Размер хеш-таблицы по умолчанию */
+    private static final int HASH_TABLE_SIZE = 30;
+
+    /** Размер хеш-таблицы, заданный при создании коллекции */
+    private final int _initialHashTableSize;
+
+    /** Текущий размер хеш-таблицы */
+    private int _hashTableSize;
+
+    /** Коэффициент заполнения, при превышении которого хеш-таблица увеличивается вдвое */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /** Максимальный размер хеш-таблицы */
+    private static final int MAX_HASH_TABLE_SIZE = 1 << 30;
+
+    /** Количество непустых ячеек, переносимых за одну операцию при постепенном рехешировании */
+    private static final int REHASH_STEP = 4;
+
+    /** Количество элементов, при превышении которого хеш-таблица увеличивается */
+    private int _threshold;
+
+    /**
+     * Режим постепенного рехеширования: при увеличении хеш-таблицы старая таблица
+     * сохраняется, а её ячейки переносятся в новую по {@code REHASH_STEP} за каждую
+     * операцию добавления или удаления
+     */
+    private final boolean _incrementalRehash;
+
+    /**
+     * Хеш-таблица, ячейки которой ещё не перенесены в {@code _hashTable};
+     * {@code null}, если рехеширование не выполняется
+     */
+    private Vector<MySetNode<T>> _oldHashTable;
+
+    /** Размер хеш-таблицы {@code _oldHashTable} */
+    private int _oldHashTableSize;
+
+    /** Индекс первой не перенесённой ячейки {@code _oldHashTable} */
+    private int _rehashIndex;
+
+    /**
+     * Способ хеширования и сравнения элементов; {@code null}, если используются
+     * {@code hashCode()} и {@code equals()} самих элементов
+     */
+    private final HashingStrategy<? super T> _strategy;
 
     /** Фиктивный первый узел */
     private MySetNode<T> _root;
@@ -24,13 +72,28 @@ public class MyLinkedHashSet<T> implements Set<T> {
     /** Размер коллекции */
     private int _size;
 
+    /**
+     * Счётчик структурных изменений коллекции.
+     * Используется итераторами для обнаружения одновременной модификации
+     */
+    private int _modCount;
+
+    /** Статистика хеш-таблицы или {@code null}, если сбор статистики не включён */
+    private MyLinkedHashSetStats _stats;
+
+    /** Индекс порядковых номеров элементов или {@code null}, если индекс не построен */
+    private MyLinkedHashSetRankIndex _rankIndex;
+
     /**
      * Класс узла <code>MyLinkedHashSet</code>
      */
-    private class MySetNode<V> {
+    static class MySetNode<V> {
         /** Ссылка на данные типа <T> */
         V _data;
 
+        /** Хеш-код данных, вычисленный при добавлении узла */
+        final int _hash;
+
         /** Ссылка на узел, добавленный после <code>this</code> */
         MySetNode<V> _next;
 
@@ -43,24 +106,106 @@ public class MyLinkedHashSet<T> implements Set<T> {
          */
         MySetNode<V> _nextInHashTable;
 
-        public MySetNode(V data) {
+        public MySetNode(V data, int hash) {
             _data = data;
+            _hash = hash;
             _next = null;
             _prev = null;
             _nextInHashTable = null;
         }
+
+        /**
+         * Данные узла. Узлы, хранящие данные по ссылке, переопределяют этот метод
+         *
+         * @return данные или {@code null}, если данные уже недоступны
+         */
+        V data() {
+            return _data;
+        }
     } // MySetNode
 
+    /**
+     * Узел с позицией в индексе порядковых номеров
+     * @see MyLinkedHashSetRankIndex
+     */
+    static class RankedNode<V> extends MySetNode<V> {
+        /** Позиция узла в индексе порядковых номеров */
+        int _slot;
+
+        public RankedNode(V data, int hash) {
+            super(data, hash);
+        }
+    } // RankedNode
+
     /** 
      * Конструктор. Создаёт пустую коллекуию {@code MyLinkedHasSet} 
      */
     public MyLinkedHashSet() {
-        _size = 0;
-        _hashTable = new Vector<MySetNode<T>>(HASH_TABLE_SIZE);
-        for (int i = 0; i < HASH_TABLE_SIZE; i++) {
-            _hashTable.add(null);
+        this(HASH_TABLE_SIZE);
+    }
+
+    /**
+     * Конструктор. Создаёт пустую коллекцию {@code MyLinkedHasSet} с заданным размером хеш-таблицы
+     *
+     * @param hashTableSize - размер хеш-таблицы
+     * @throws IllegalArgumentException если размер хеш-таблицы не положителен
+     */
+    public MyLinkedHashSet(int hashTableSize) {
+        this(hashTableSize, false);
+    }
+
+    /**
+     * Конструктор. Создаёт пустую коллекцию {@code MyLinkedHasSet} с заданным размером хеш-таблицы
+     * и режимом её увеличения.
+     * <p>
+     * При постепенном рехешировании добавление, вызвавшее увеличение хеш-таблицы, не переносит
+     * все элементы сразу: обе таблицы существуют одновременно, каждая следующая операция добавления
+     * или удаления переносит ограниченное число ячеек, а поиск выполняется в той таблице, где
+     * находится ячейка элемента. Операции чтения таблицу не изменяют
+     *
+     * @param hashTableSize      - размер хеш-таблицы
+     * @param incrementalRehash  - {@code true}, если хеш-таблица должна увеличиваться постепенно
+     * @throws IllegalArgumentException если размер хеш-таблицы не положителен
+     */
+    public MyLinkedHashSet(int hashTableSize, boolean incrementalRehash) {
+        this(hashTableSize, incrementalRehash, null);
+    }
+
+    /**
+     * Конструктор. Создаёт пустую коллекцию {@code MyLinkedHasSet}, элементы которой
+     * хешируются и сравниваются заданным способом
+     *
+     * @param strategy - способ хеширования и сравнения элементов
+     */
+    public MyLinkedHashSet(HashingStrategy<? super T> strategy) {
+        this(HASH_TABLE_SIZE, false, strategy);
+    }
+
+    /**
+     * Конструктор. Создаёт пустую коллекцию {@code MyLinkedHasSet} с заданным размером хеш-таблицы,
+     * режимом её увеличения и способом хеширования элементов.
+     * <p>
+     * Если способ хеширования задан, методы, принимающие {@code Object}, приводят аргумент
+     * к типу элементов и завершаются исключением {@code ClassCastException} для аргумента
+     * другого типа
+     *
+     * @param hashTableSize      - размер хеш-таблицы
+     * @param incrementalRehash  - {@code true}, если хеш-таблица должна увеличиваться постепенно
+     * @param strategy           - способ хеширования и сравнения элементов или {@code null}
+     * @throws IllegalArgumentException если размер хеш-таблицы не положителен
+     */
+    public MyLinkedHashSet(int hashTableSize, boolean incrementalRehash, HashingStrategy<? super T> strategy) {
+        if (hashTableSize <= 0) {
+            throw new IllegalArgumentException("Hash table size must be positive: " + hashTableSize);
         }
-        _root = new MySetNode<T>(null);
+
+        _initialHashTableSize = Math.min(hashTableSize, MAX_HASH_TABLE_SIZE);
+        _incrementalRehash = incrementalRehash;
+        _strategy = strategy;
+        _size = 0;
+        _modCount = 0;
+        allocateHashTable(_initialHashTableSize);
+        _root = new MySetNode<T>(null, 0);
         _last = _root;
     }
 
@@ -70,13 +215,7 @@ public class MyLinkedHashSet<T> implements Set<T> {
      * @param c - коллекция
      */
     public MyLinkedHashSet(Collection<? extends T> c) {
-        _size = 0;
-        _hashTable = new Vector<MySetNode<T>>(HASH_TABLE_SIZE);
-        for (int i = 0; i < HASH_TABLE_SIZE; i++) {
-            _hashTable.add(null);
-        }
-        _root = new MySetNode<T>(null);
-        _last = _root;
+        this(hashTableSizeFor(c.size()));
 
         for (T t : c) {
             add(t);
@@ -92,37 +231,68 @@ public class MyLinkedHashSet<T> implements Set<T> {
      */
     @Override
     public boolean add(T data) {
-        if (!contains(data)) {
-            int index = abs(data.hashCode()) % HASH_TABLE_SIZE;
-            MySetNode<T> node = _hashTable.get(index);
-
-            if (node == null) {
-                node = new MySetNode<T>(data);
-                _hashTable.set(index, node);
-            } else {
-                while (node._nextInHashTable != null) {
-                    node = node._nextInHashTable;
-                }
+        int sizeOld = _size;
+        addNode(data, hash(data));
+        return _size > sizeOld;
+    }
+
+    /**
+     * Поиск узла с заданным элементом и, если элемент не найден, добавление нового узла
+     * в конец коллекции. Поиск и определение места в цепочке выполняются за один проход
+     *
+     * @param data - данные
+     * @param hash - хеш-код данных
+     * @return найденный или добавленный узел
+     */
+    MySetNode<T> addNode(T data, int hash) {
+        rehashStep();
 
-                MySetNode<T> nodeTmp = new MySetNode<T>(data);
-                node._nextInHashTable = nodeTmp;
-                node = nodeTmp;
+        MySetNode<T> node = bucketHead(hash);
+        MySetNode<T> tail = null;
+        int probes = 0;
+
+        // Поиск элемента и последнего узла цепочки за один проход
+        while (node != null) {
+            probes++;
+            if (node._hash == hash && isEqual(data, node.data())) {
+                break;
             }
+            tail = node;
+            node = node._nextInHashTable;
+        }
 
-            _last._next = node;
-            node._prev = _last;
-            _last = node;
-            _size++;
+        if (_stats != null) {
+            _stats.recordLookup(probes);
+        }
+        if (node != null) {
+            return node;
+        }
 
-            return true;
+        node = newNode(data, hash);
+
+        if (tail == null) {
+            setBucketHead(hash, node);
         } else {
-            return false;
+            tail._nextInHashTable = node;
         }
+
+        _last._next = node;
+        node._prev = _last;
+        _last = node;
+        _size++;
+        _modCount++;
+
+        if (_size > _threshold) {
+            growHashTable();
+        }
+
+        return node;
     }
 
     /**
-     * Добавление всех элементов заданной коллекции в данную коллекцию
-     * 
+     * Добавление всех элементов заданной коллекции в данную коллекцию.
+     * Хеш-таблица заранее увеличивается до размера, достаточного для всех элементов
+     *
      * @param c - коллекция, элементы которой должны быть добавлены
      * @return {@code true}, если хотя бы отдин элемент был добавлен; {@code false}
      *         в обратном случае
@@ -131,6 +301,8 @@ public class MyLinkedHashSet<T> implements Set<T> {
     public boolean addAll(Collection<? extends T> c) {
         int sizeOld = _size;
 
+        ensureCapacity(_size + c.size());
+
         for (T t : c) {
             add(t);
         }
@@ -139,15 +311,39 @@ public class MyLinkedHashSet<T> implements Set<T> {
     }
 
     /**
-     * Удаление всех элементов коллекции
+     * Удаление всех элементов коллекции. Размер хеш-таблицы сохраняется
     */
     @Override
     public void clear() {
-       for (T t : this) {
-           remove(t);
-       }
+        clear(true);
+    }
+
+    /**
+     * Удаление всех элементов коллекции за один проход по хеш-таблице
+     *
+     * @param keepCapacity - {@code true}, если текущий размер хеш-таблицы нужно сохранить;
+     *                       {@code false}, если хеш-таблицу нужно вернуть к размеру,
+     *                       заданному при создании коллекции
+     */
+    public void clear(boolean keepCapacity) {
+        _oldHashTable = null;
+
+        if (keepCapacity || _hashTableSize == _initialHashTableSize) {
+            for (int i = 0; i < _hashTableSize; i++) {
+                _hashTable.set(i, null);
+            }
+        } else {
+            allocateHashTable(_initialHashTableSize);
+        }
+
         _root._next = null;
         _last = _root;
+        _size = 0;
+        _modCount++;
+
+        if (_rankIndex != null) {
+            _rankIndex = new MyLinkedHashSetRankIndex(0);
+        }
     }
 
     /**
@@ -159,42 +355,26 @@ public class MyLinkedHashSet<T> implements Set<T> {
      */
     @Override
     public boolean contains(Object o) {
-        int index = abs(o.hashCode()) % HASH_TABLE_SIZE;
-        MySetNode<T> node = _hashTable.get(index);
-
-        if (node == null) {
-            return false;
-        } 
-        else {
-            while (node != null) {
-                if (o.equals(node._data)) {
-                    return true;
-                } else {
-                    node = node._nextInHashTable;
-                }
-            }
-            return false;
-        }
+        return findNode(o) != null;
     }
 
     /**
-     * Проверка на наличие всех элементов заданной колеекции в коллекции
-     * 
+     * Проверка на наличие всех элементов заданной колеекции в коллекции.
+     * Проверка прекращается на первом отсутствующем элементе
+     *
      * @param c - коллекция
      * @return {@code true}, если все элементы коллекции {@code c} находятся в
      *         коллекции; {@code false} в обратном случае
      */
     @Override
     public boolean containsAll(Collection<?> c) {
-        int count = 0;
-
         for (Object o : c) {
-            if(contains(o)) {
-                count++;
+            if (!contains(o)) {
+                return false;
             }
         }
 
-        return (count == c.size()) ? true : false;
+        return true;
     }
 
     /** Проверка на пустую коллекцию
@@ -208,7 +388,103 @@ public class MyLinkedHashSet<T> implements Set<T> {
 
     @Override
     public Iterator<T> iterator() {
-        return new MySetIterator();
+        return new MySetIterator(_root._next);
+    }
+
+    /**
+     * Итератор по элементам коллекции, начиная с элемента с заданным номером в порядке добавления.
+     * С индексом порядковых номеров начальный элемент находится за O(log n)
+     *
+     * @param fromRank - номер первого элемента от нуля до размера коллекции включительно
+     * @return итератор
+     * @throws IndexOutOfBoundsException если номер вне допустимого диапазона
+     * @see #enableRankIndex()
+     */
+    public Iterator<T> iterator(int fromRank) {
+        Objects.checkIndex(fromRank, _size + 1);
+        return new MySetIterator((fromRank == _size) ? null : nodeAt(fromRank));
+    }
+
+    /**
+     * Элемент с заданным номером в порядке добавления. С индексом порядковых номеров
+     * выполняется за O(log n), без него — обходом списка от ближайшего конца
+     *
+     * @param rank - номер элемента от нуля
+     * @return элемент
+     * @throws IndexOutOfBoundsException если номер вне допустимого диапазона
+     * @see #enableRankIndex()
+     */
+    public T get(int rank) {
+        Objects.checkIndex(rank, _size);
+        return nodeAt(rank).data();
+    }
+
+    /**
+     * Номер элемента в порядке добавления. С индексом порядковых номеров выполняется
+     * за O(log n), без него — обходом списка
+     *
+     * @param o - искомый элемент
+     * @return номер элемента от нуля или {@code -1}, если элемент не найден
+     * @see #enableRankIndex()
+     */
+    public int indexOf(Object o) {
+        MySetNode<T> node = findNode(o);
+
+        if (node == null) {
+            return -1;
+        }
+        if (_rankIndex != null) {
+            return _rankIndex.rankOf((RankedNode<T>) node);
+        }
+
+        int rank = -1;
+        for (; node != _root; node = node._prev) {
+            rank++;
+        }
+        return rank;
+    }
+
+    /**
+     * Проверка возможности построения индекса порядковых номеров. Подклассы, узлы которых
+     * не являются {@code RankedNode}, возвращают {@code false}; для них {@link #get(int)},
+     * {@link #indexOf(Object)} и {@link #iterator(int)} выполняются за линейное время
+     *
+     * @return {@code true}, если {@link #enableRankIndex()} поддерживается
+     */
+    public boolean supportsRankIndex() {
+        return true;
+    }
+
+    /**
+     * Построение индекса порядковых номеров, после которого {@link #get(int)},
+     * {@link #indexOf(Object)} и {@link #iterator(int)} выполняются за O(log n),
+     * а добавление и удаление дополнительно обновляют индекс за O(log n).
+     * Построение выполняется за линейное время; повторный вызов ничего не делает
+     *
+     * @throws UnsupportedOperationException, если коллекция не поддерживает индекс
+     * @see #supportsRankIndex()
+     */
+    public void enableRankIndex() {
+        if (!supportsRankIndex()) {
+            throw new UnsupportedOperationException("Rank index is not supported by " + getClass().getSimpleName());
+        }
+        if (_rankIndex != null) {
+            return;
+        }
+
+        // Узлы пересоздаются как RankedNode в прежнем порядке с сохранёнными хеш-кодами
+        Object[] elements = new Object[_size];
+        int[] hashes = new int[_size];
+        int count = copyTo(elements, hashes);
+
+        clear(true);
+        _rankIndex = new MyLinkedHashSetRankIndex(count);
+
+        for (int i = 0; i < count; i++) {
+            @SuppressWarnings("unchecked")
+            T data = (T) elements[i];
+            appendUnchecked(data, hashes[i]);
+        }
     }
 
     /** 
@@ -219,35 +495,11 @@ public class MyLinkedHashSet<T> implements Set<T> {
      */
     @Override
     public boolean remove(Object o) {
-        if(contains(o)) {
-            int index = abs(o.hashCode()) % HASH_TABLE_SIZE;
-            MySetNode<T> node = _hashTable.get(index);
-            MySetNode<T> nodePrevInHashTable = null;
-
-            while (!o.equals(node._data)) {
-                nodePrevInHashTable = node;
-                node = node._nextInHashTable;
-            }
-
-            if (node._prev != null) {
-                node._prev._next = node._next;
-                if(_last == node) {
-                    _last = node._prev;
-                }
-            }  
-            if (node._next != null) {
-                node._next._prev = node._prev;
-            }
-
-            if (_hashTable.get(index) == node) {
-                _hashTable.set(index, node._nextInHashTable);
-            }
-            else {
-                nodePrevInHashTable._nextInHashTable = (node == null) ? null : node._nextInHashTable;
-            }
-
-            _size--;
+        rehashStep();
+        MySetNode<T> node = findNode(o);
 
+        if (node != null) {
+            unlinkNode(node);
             return true;
         }
         else {
@@ -256,17 +508,27 @@ public class MyLinkedHashSet<T> implements Set<T> {
     }
 
     /** 
-     * Удаление всех вхождений элементов заданной коллекции из данной коллекции
+     * Удаление всех вхождений элементов заданной коллекции из данной коллекции.
+     * Обходится меньшая из коллекций, если заданная коллекция является множеством
      * 
-     * @param o - коллекция
+     * @param c - коллекция
      * @return {@code true}, если  хотя бы один элемент был удалён из коллекции; {@code false} в обратном случае
      */
     @Override
     public boolean removeAll(Collection<?> c) {
         int sizeOld = _size;
 
-        for (Object o : c) {
-            remove(o);
+        if (c instanceof Set && c.size() > _size) {
+            Iterator<T> it = iterator();
+            while (it.hasNext()) {
+                if (c.contains(it.next())) {
+                    it.remove();
+                }
+            }
+        } else {
+            for (Object o : c) {
+                remove(o);
+            }
         }
 
         return (sizeOld > _size) ? true : false;
@@ -283,11 +545,16 @@ public class MyLinkedHashSet<T> implements Set<T> {
     public boolean retainAll(Collection<?> c) {
         int sizeOld = _size;
 
-        for (Object o : this) {
-            if (!c.contains(o)) {
-                remove(o);
+        // Поиск в списке линеен, поэтому проверка выполняется по его хеш-копии
+        Collection<?> lookup = (c instanceof Set) ? c : new HashSet<Object>(c);
+
+        Iterator<T> it = iterator();
+        while (it.hasNext()) {
+            if (!lookup.contains(it.next())) {
+                it.remove();
             }
         }
+
         return (sizeOld > _size) ? true : false;
     }
 
@@ -300,6 +567,67 @@ public class MyLinkedHashSet<T> implements Set<T> {
         return _size;
     }
 
+    /**
+     * Создание неизменяемого снимка коллекции с тем же порядком элементов и способом хеширования.
+     * Снимок не зависит от коллекции и может без синхронизации читаться из любых потоков
+     *
+     * @return неизменяемый снимок
+     */
+    public FrozenLinkedHashSet<T> freeze() {
+        Object[] elements = new Object[_size];
+        int[] hashes = new int[_size];
+        int count = copyTo(elements, hashes);
+
+        if (count < _size) {
+            elements = Arrays.copyOf(elements, count);
+            hashes = Arrays.copyOf(hashes, count);
+        }
+
+        return new FrozenLinkedHashSet<T>(elements, hashes, _strategy);
+    }
+
+    /**
+     * Включение сбора статистики хеш-таблицы. Повторный вызов возвращает ту же статистику
+     *
+     * @return статистика коллекции
+     */
+    public MyLinkedHashSetStats enableStats() {
+        if (_stats == null) {
+            _stats = new MyLinkedHashSetStats(this);
+        }
+        return _stats;
+    }
+
+    /**
+     * Отключение сбора статистики хеш-таблицы. Ранее полученная статистика перестаёт обновляться
+     */
+    public void disableStats() {
+        _stats = null;
+    }
+
+    /**
+     * Статистика хеш-таблицы
+     *
+     * @return статистика или {@code null}, если сбор статистики не включён
+     */
+    public MyLinkedHashSetStats stats() {
+        return _stats;
+    }
+
+    /**
+     * Увеличение хеш-таблицы до размера, достаточного для хранения заданного числа элементов.
+     * В режиме постепенного рехеширования перенос элементов только начинается
+     *
+     * @param expectedSize - ожидаемое количество элементов
+     */
+    public void ensureCapacity(int expectedSize) {
+        int hashTableSize = hashTableSizeFor(expectedSize);
+
+        if (hashTableSize > _hashTableSize) {
+            resizeHashTable(hashTableSize);
+        }
+    }
+
     /** 
      * Преобразование в массив
      * 
@@ -315,7 +643,7 @@ public class MyLinkedHashSet<T> implements Set<T> {
             count++;
         }
 
-        return array;
+        return (count == array.length) ? array : Arrays.copyOf(array, count);
     }
 
     /**
@@ -346,14 +674,609 @@ public class MyLinkedHashSet<T> implements Set<T> {
     }
 
     /**
-     * Класс итератора <code>MyLinkedHashSet</code>
+     * Добавление элемента с известным хеш-кодом в конец коллекции без проверки на наличие.
+     * Используется при восстановлении коллекции, элементы которой заведомо различны
+     *
+     * @param data - данные
+     * @param hash - хеш-код данных
+     */
+    void appendUnchecked(T data, int hash) {
+        rehashStep();
+
+        MySetNode<T> node = newNode(data, hash);
+        node._nextInHashTable = bucketHead(hash);
+        setBucketHead(hash, node);
+
+        _last._next = node;
+        node._prev = _last;
+        _last = node;
+        _size++;
+        _modCount++;
+
+        if (_size > _threshold) {
+            growHashTable();
+        }
+    }
+
+    /**
+     * Перенос в конец коллекции узлов другой коллекции, элементов которых здесь нет.
+     * Узлы не создаются заново: они включаются в цепочки хеш-таблицы по сохранённым
+     * хеш-кодам и в список порядка добавления. Другая коллекция становится пустой
+     *
+     * @param other - коллекция {@code MyLinkedHashSet} без индекса порядковых номеров
+     *                с тем же способом хеширования
+     */
+    void spliceAfter(MyLinkedHashSet<T> other) {
+        MySetNode<T> node = other._root._next;
+        ensureCapacity(_size + other._size);
+        other.clear(false);
+
+        while (node != null) {
+            MySetNode<T> next = node._next;
+
+            if (findNode(node._data, node._hash) == null) {
+                node._nextInHashTable = bucketHead(node._hash);
+                setBucketHead(node._hash, node);
+
+                node._next = null;
+                node._prev = _last;
+                _last._next = node;
+                _last = node;
+                _size++;
+            }
+
+            node = next;
+        }
+
+        _modCount++;
+    }
+
+    /**
+     * Перенос в начало коллекции всех узлов другой коллекции. Узлы данной коллекции
+     * с теми же элементами удаляются, после чего список порядка добавления другой коллекции
+     * присоединяется перед списком данной за O(1). Время переноса пропорционально размеру
+     * другой коллекции. Другая коллекция становится пустой
+     *
+     * @param other - коллекция {@code MyLinkedHashSet} без индекса порядковых номеров
+     *                с тем же способом хеширования
+     */
+    void spliceBefore(MyLinkedHashSet<T> other) {
+        if (other._size == 0) {
+            return;
+        }
+
+        MySetNode<T> first = other._root._next;
+        MySetNode<T> last = other._last;
+        ensureCapacity(_size + other._size);
+        other.clear(false);
+
+        for (MySetNode<T> node = first; node != null; node = node._next) {
+            MySetNode<T> duplicate = findNode(node._data, node._hash);
+            if (duplicate != null) {
+                unlinkNode(duplicate);
+            }
+
+            node._nextInHashTable = bucketHead(node._hash);
+            setBucketHead(node._hash, node);
+            _size++;
+        }
+
+        last._next = _root._next;
+        if (_root._next != null) {
+            _root._next._prev = last;
+        } else {
+            _last = last;
+        }
+        _root._next = first;
+        first._prev = _root;
+
+        _modCount++;
+    }
+
+    /**
+     * Обход элементов в порядке добавления вместе с их сохранёнными хеш-кодами
+     *
+     * @param action - действие над элементом и его хеш-кодом
+     */
+    void forEachWithHash(ObjIntConsumer<? super T> action) {
+        for (MySetNode<T> node = _root._next; node != null; node = node._next) {
+            T data = node.data();
+            if (data != null) {
+                action.accept(data, node._hash);
+            }
+        }
+    }
+
+    /**
+     * Обход узлов в порядке добавления
+     *
+     * @param action - действие над узлом
+     */
+    void forEachNode(Consumer<? super MySetNode<T>> action) {
+        for (MySetNode<T> node = _root._next; node != null; node = node._next) {
+            action.accept(node);
+        }
+    }
+
+    /**
+     * Создание пустой коллекции с тем же способом хеширования и режимом увеличения хеш-таблицы
+     *
+     * @param expectedSize - ожидаемое количество элементов
+     * @return пустая коллекция
+     */
+    MyLinkedHashSet<T> emptyCopy(int expectedSize) {
+        return new MyLinkedHashSet<T>(hashTableSizeFor(expectedSize), _incrementalRehash, _strategy);
+    }
+
+    /**
+     * Проверка, что коллекции хешируют и сравнивают элементы одинаково,
+     * то есть сохранённые хеш-коды одной коллекции пригодны для другой
+     *
+     * @param other - другая коллекция
+     * @return {@code true}, если способы хеширования совпадают
+     */
+    boolean hashesLike(MyLinkedHashSet<?> other) {
+        return _strategy == other._strategy;
+    }
+
+    /**
+     * Способ хеширования и сравнения элементов
+     *
+     * @return способ хеширования или {@code null}, если используются {@code hashCode()}
+     *         и {@code equals()} самих элементов
+     */
+    HashingStrategy<? super T> strategy() {
+        return _strategy;
+    }
+
+    /**
+     * Копирование элементов и их сохранённых хеш-кодов в массивы в порядке добавления.
+     * Узлы, данные которых уже недоступны, пропускаются
+     *
+     * @param elements - массив для элементов, не короче размера коллекции
+     * @param hashes   - массив для хеш-кодов, не короче размера коллекции
+     * @return количество скопированных элементов
+     */
+    int copyTo(Object[] elements, int[] hashes) {
+        int count = 0;
+        for (MySetNode<T> node = _root._next; node != null; node = node._next) {
+            T data = node.data();
+            if (data != null) {
+                elements[count] = data;
+                hashes[count] = node._hash;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Размер хеш-таблицы, достаточный для хранения заданного числа элементов без увеличения
+     *
+     * @param expectedSize - ожидаемое количество элементов
+     * @return размер хеш-таблицы
+     */
+    static int hashTableSizeFor(int expectedSize) {
+        long size = (long) (expectedSize / LOAD_FACTOR) + 1;
+        return (int) Math.max(HASH_TABLE_SIZE, Math.min(size, MAX_HASH_TABLE_SIZE));
+    }
+
+    /**
+     * Текущий размер хеш-таблицы
+     *
+     * @return количество ячеек хеш-таблицы
+     */
+    int hashTableSize() {
+        return _hashTableSize;
+    }
+
+    /**
+     * Проверка, выполняется ли постепенное рехеширование
+     *
+     * @return {@code true}, если старая хеш-таблица ещё не перенесена полностью
+     */
+    boolean isRehashing() {
+        return _oldHashTable != null;
+    }
+
+    /**
+     * Гистограмма длин цепочек по всем ячейкам хеш-таблицы, а во время рехеширования —
+     * и по не перенесённым ячейкам старой таблицы. Вызывается только потоком-владельцем коллекции
+     *
+     * @param bins - количество столбцов; последний столбец учитывает все более длинные цепочки
+     * @return количество ячеек с цепочкой каждой длины
+     */
+    long[] chainLengthHistogram(int bins) {
+        long[] histogram = new long[bins];
+        Vector<MySetNode<T>> oldHashTable = _oldHashTable;
+
+        for (int i = 0; i < _hashTableSize; i++) {
+            histogram[Math.min(chainLength(_hashTable.get(i)), bins - 1)]++;
+        }
+        if (oldHashTable != null) {
+            for (int i = _rehashIndex; i < _oldHashTableSize; i++) {
+                histogram[Math.min(chainLength(oldHashTable.get(i)), bins - 1)]++;
+            }
+        }
+
+        return histogram;
+    }
+
+    /**
+     * Длина самой длинной цепочки. Вызывается только потоком-владельцем коллекции
+     *
+     * @return количество узлов в самой длинной цепочке
+     */
+    int maxChainLength() {
+        int max = 0;
+        Vector<MySetNode<T>> oldHashTable = _oldHashTable;
+
+        for (int i = 0; i < _hashTableSize; i++) {
+            max = Math.max(max, chainLength(_hashTable.get(i)));
+        }
+        if (oldHashTable != null) {
+            for (int i = _rehashIndex; i < _oldHashTableSize; i++) {
+                max = Math.max(max, chainLength(oldHashTable.get(i)));
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Длина цепочки
+     *
+     * @param node - первый узел цепочки
+     * @return количество узлов цепочки
+     */
+    private static int chainLength(MySetNode<?> node) {
+        int length = 0;
+        for (; node != null; node = node._nextInHashTable) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Создание пустой хеш-таблицы заданного размера
+     *
+     * @param hashTableSize - размер хеш-таблицы
+     */
+    private void allocateHashTable(int hashTableSize) {
+        _hashTable = new Vector<MySetNode<T>>(hashTableSize);
+        _hashTable.setSize(hashTableSize);
+        _hashTableSize = hashTableSize;
+        _threshold = (hashTableSize < MAX_HASH_TABLE_SIZE)
+            ? (int) (hashTableSize * LOAD_FACTOR)
+            : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Индекс ячейки хеш-таблицы для заданного хеш-кода
+     *
+     * @param hash          - хеш-код элемента
+     * @param hashTableSize - размер хеш-таблицы
+     * @return индекс ячейки хеш-таблицы
+     */
+    private static int indexFor(int hash, int hashTableSize) {
+        return (hash & 0x7fffffff) % hashTableSize;
+    }
+
+    /**
+     * Первый узел цепочки, в которой находится (или должен находиться) элемент с заданным хеш-кодом.
+     * Во время рехеширования это ячейка старой хеш-таблицы, если она ещё не перенесена
+     *
+     * @param hash - хеш-код элемента
+     * @return первый узел цепочки или {@code null}
+     */
+    private MySetNode<T> bucketHead(int hash) {
+        if (_oldHashTable != null) {
+            int oldIndex = indexFor(hash, _oldHashTableSize);
+            if (oldIndex >= _rehashIndex) {
+                return _oldHashTable.get(oldIndex);
+            }
+        }
+        return _hashTable.get(indexFor(hash, _hashTableSize));
+    }
+
+    /**
+     * Замена первого узла цепочки, в которой находится элемент с заданным хеш-кодом
+     *
+     * @param hash - хеш-код элемента
+     * @param node - новый первый узел цепочки
+     */
+    private void setBucketHead(int hash, MySetNode<T> node) {
+        if (_oldHashTable != null) {
+            int oldIndex = indexFor(hash, _oldHashTableSize);
+            if (oldIndex >= _rehashIndex) {
+                _oldHashTable.set(oldIndex, node);
+                return;
+            }
+        }
+        _hashTable.set(indexFor(hash, _hashTableSize), node);
+    }
+
+    /**
+     * Увеличение хеш-таблицы вдвое
+     */
+    private void growHashTable() {
+        if (_hashTableSize >= MAX_HASH_TABLE_SIZE) {
+            _threshold = Integer.MAX_VALUE;
+            return;
+        }
+
+        resizeHashTable((int) Math.min(2L * _hashTableSize, MAX_HASH_TABLE_SIZE));
+    }
+
+    /**
+     * Замена хеш-таблицы таблицей большего размера. В режиме постепенного рехеширования
+     * перенос элементов только начинается, иначе выполняется полностью
+     *
+     * @param hashTableSize - новый размер хеш-таблицы
+     */
+    private void resizeHashTable(int hashTableSize) {
+        long start = (_stats != null) ? System.nanoTime() : 0;
+
+        // Предыдущий перенос должен быть завершён до начала следующего
+        if (_oldHashTable != null) {
+            finishRehash();
+        }
+
+        _oldHashTable = _hashTable;
+        _oldHashTableSize = _hashTableSize;
+        _rehashIndex = 0;
+        allocateHashTable(hashTableSize);
+
+        if (!_incrementalRehash) {
+            finishRehash();
+        }
+
+        if (_stats != null) {
+            _stats.recordResize(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Перенос не более {@code REHASH_STEP} непустых ячеек старой хеш-таблицы.
+     * Число просматриваемых пустых ячеек также ограничено, чтобы время операции не зависело
+     * от размера таблицы
+     */
+    private void rehashStep() {
+        if (_oldHashTable == null) {
+            return;
+        }
+
+        int moved = 0;
+        int visited = 0;
+        while (moved < REHASH_STEP && visited < 10 * REHASH_STEP && _rehashIndex < _oldHashTableSize) {
+            if (moveBucket(_rehashIndex)) {
+                moved++;
+            }
+            _rehashIndex++;
+            visited++;
+        }
+
+        if (_rehashIndex == _oldHashTableSize) {
+            _oldHashTable = null;
+        }
+    }
+
+    /**
+     * Перенос всех оставшихся ячеек старой хеш-таблицы
+     */
+    private void finishRehash() {
+        while (_rehashIndex < _oldHashTableSize) {
+            moveBucket(_rehashIndex);
+            _rehashIndex++;
+        }
+        _oldHashTable = null;
+    }
+
+    /**
+     * Перенос цепочки ячейки старой хеш-таблицы в текущую по сохранённым хеш-кодам
+     *
+     * @param oldIndex - индекс ячейки старой хеш-таблицы
+     * @return {@code true}, если ячейка была непустой
+     */
+    private boolean moveBucket(int oldIndex) {
+        MySetNode<T> node = _oldHashTable.get(oldIndex);
+        if (node == null) {
+            return false;
+        }
+
+        _oldHashTable.set(oldIndex, null);
+        while (node != null) {
+            MySetNode<T> next = node._nextInHashTable;
+            int index = indexFor(node._hash, _hashTableSize);
+            node._nextInHashTable = _hashTable.get(index);
+            _hashTable.set(index, node);
+            node = next;
+        }
+
+        return true;
+    }
+
+    /**
+     * Хеш-код элемента
+     *
+     * @param o - элемент
+     * @return хеш-код, вычисленный способом хеширования коллекции
+     */
+    @SuppressWarnings("unchecked")
+    int hash(Object o) {
+        return (_strategy == null) ? o.hashCode() : _strategy.hash((T) o);
+    }
+
+    /**
+     * Сравнение элемента с данными узла. Узел, элемент которого уже собран сборщиком
+     * мусора, не равен никакому элементу и не передаётся способу хеширования
+     *
+     * @param o    - элемент
+     * @param data - данные узла или {@code null}, если элемент собран
+     * @return {@code true}, если элементы равны
+     */
+    @SuppressWarnings("unchecked")
+    private boolean isEqual(Object o, T data) {
+        if (data == null) {
+            return false;
+        }
+        if (_stats != null) {
+            _stats.recordEquals();
+        }
+        return (_strategy == null) ? o.equals(data) : _strategy.equals((T) o, data);
+    }
+
+    /**
+     * Создание узла; при построенном индексе порядковых номеров узел добавляется в индекс.
+     * Наследники, хранящие в узлах дополнительные данные, переопределяют этот метод
+     *
+     * @param data - данные
+     * @param hash - хеш-код данных
+     * @return новый узел
+     */
+    MySetNode<T> newNode(T data, int hash) {
+        if (_rankIndex == null) {
+            return new MySetNode<T>(data, hash);
+        }
+
+        RankedNode<T> node = new RankedNode<T>(data, hash);
+        _rankIndex.append(node);
+        return node;
+    }
+
+    /**
+     * Узел с заданным номером в порядке добавления
+     *
+     * @param rank - номер узла от нуля до размера коллекции (не включая)
+     * @return узел
+     */
+    @SuppressWarnings("unchecked")
+    private MySetNode<T> nodeAt(int rank) {
+        if (_rankIndex != null) {
+            return (MySetNode<T>) _rankIndex.nodeAt(rank);
+        }
+
+        MySetNode<T> node;
+        if (rank < _size / 2) {
+            node = _root._next;
+            for (int i = 0; i < rank; i++) {
+                node = node._next;
+            }
+        } else {
+            node = _last;
+            for (int i = _size - 1; i > rank; i--) {
+                node = node._prev;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Поиск узла, содержащего заданный элемент
+     *
+     * @param o - искомый элемент
+     * @return узел с элементом или {@code null}, если элемент не найден
+     */
+    MySetNode<T> findNode(Object o) {
+        return findNode(o, hash(o));
+    }
+
+    /**
+     * Поиск узла, содержащего заданный элемент с известным хеш-кодом
+     *
+     * @param o    - искомый элемент
+     * @param hash - хеш-код элемента
+     * @return узел с элементом или {@code null}, если элемент не найден
+     */
+    private MySetNode<T> findNode(Object o, int hash) {
+        MySetNode<T> node = bucketHead(hash);
+        int probes = 0;
+
+        while (node != null) {
+            probes++;
+            if (node._hash == hash && isEqual(o, node.data())) {
+                break;
+            }
+            node = node._nextInHashTable;
+        }
+
+        if (_stats != null) {
+            _stats.recordLookup(probes);
+        }
+
+        return node;
+    }
+
+    /**
+     * Исключение узла из цепочки хеш-таблицы и из списка порядка добавления.
+     * Из списка порядка добавления узел исключается за O(1), поиск в цепочке
+     * выполняется по сохранённому в узле хеш-коду без повторного вычисления {@code hashCode()}
+     *
+     * @param node - исключаемый узел
+     */
+    void unlinkNode(MySetNode<T> node) {
+        detachNode(node);
+        _modCount++;
+    }
+
+    /**
+     * Исключение узла без учёта изменения коллекции итераторами. Используется для узлов,
+     * которые итераторы и так пропускают, например узлов собранных элементов
+     *
+     * @param node - исключаемый узел
+     */
+    void detachNode(MySetNode<T> node) {
+        MySetNode<T> nodeInHashTable = bucketHead(node._hash);
+
+        if (nodeInHashTable == node) {
+            setBucketHead(node._hash, node._nextInHashTable);
+        } else {
+            while (nodeInHashTable._nextInHashTable != node) {
+                nodeInHashTable = nodeInHashTable._nextInHashTable;
+            }
+            nodeInHashTable._nextInHashTable = node._nextInHashTable;
+        }
+
+        node._prev._next = node._next;
+        if (node._next != null) {
+            node._next._prev = node._prev;
+        }
+        if (_last == node) {
+            _last = node._prev;
+        }
+
+        if (_rankIndex != null) {
+            _rankIndex.remove((RankedNode<T>) node);
+        }
+
+        node._nextInHashTable = null;
+        _size--;
+    }
+
+    /**
+     * Класс итератора <code>MyLinkedHashSet</code>.
+     * Итератор завершается исключением {@code ConcurrentModificationException},
+     * если коллекция была изменена не через этот итератор.
+     * Узлы, данные которых уже недоступны, пропускаются
      */
     private class MySetIterator implements Iterator<T> {
-        /** Текущий узел */
+        /** Следующий узел */
         private MySetNode<T> _node;
 
-        public MySetIterator() {
-            _node = _root._next;
+        /** Данные следующего узла, удерживаемые до вызова {@code next()} */
+        private T _nextData;
+
+        /** Узел, возвращённый последним вызовом {@code next()} */
+        private MySetNode<T> _lastReturned;
+
+        /** Ожидаемое значение счётчика изменений коллекции */
+        private int _expectedModCount;
+
+        public MySetIterator(MySetNode<T> first) {
+            _node = first;
+            _lastReturned = null;
+            _expectedModCount = _modCount;
+            skipCleared();
         }
 
         @Override
@@ -363,13 +1286,45 @@ public class MyLinkedHashSet<T> implements Set<T> {
 
         @Override
         public T next() {
-            T data = _node._data;
+            if (_modCount != _expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (_node == null) {
+                throw new NoSuchElementException();
+            }
+
+            T data = _nextData;
+            _lastReturned = _node;
+            _node = _node._next;
+            skipCleared();
 
-            if (hasNext()) {
+            return data;
+        }
+
+        /**
+         * Переход к первому узлу, начиная с текущего, данные которого доступны
+         */
+        private void skipCleared() {
+            while (_node != null && (_nextData = _node.data()) == null) {
                 _node = _node._next;
             }
+        }
 
-            return data;
+        /**
+         * Удаление элемента, возвращённого последним вызовом {@code next()}
+         */
+        @Override
+        public void remove() {
+            if (_lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (_modCount != _expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            unlinkNode(_lastReturned);
+            _lastReturned = null;
+            _expectedModCount = _modCount;
         }
 
     } // MySetIterator
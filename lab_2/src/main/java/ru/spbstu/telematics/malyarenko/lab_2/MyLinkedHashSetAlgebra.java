@@ -0,0 +1,274 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Операции над множествами {@link MyLinkedHashSet}, возвращающие новое множество.
+ * <p>
+ * Порядок элементов результата — порядок добавления в левом операнде (для объединения
+ * за ним следуют новые элементы правого операнда в его порядке). Результат создаётся
+ * с хеш-таблицей нужного размера и способом хеширования левого операнда и заполняется
+ * по сохранённым хеш-кодам без проверки на наличие. Если левый операнд содержит не менее
+ * {@code PARALLEL_THRESHOLD} элементов, проверки принадлежности распределяются по частям
+ * между задачами {@link ForkJoinPool}.
+ * <p>
+ * Операнды не должны изменяться во время выполнения операции
+ */
+public final class MyLinkedHashSetAlgebra {
+
+    /** Размер операнда, начиная с которого проверки выполняются параллельно */
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /** Количество элементов, проверяемых одной задачей */
+    private static final int CHUNK_SIZE = 1 << 12;
+
+    private MyLinkedHashSetAlgebra() {
+    }
+
+    /**
+     * Объединение множеств в общем пуле потоков
+     *
+     * @see #union(MyLinkedHashSet, Set, ForkJoinPool)
+     */
+    public static <T> MyLinkedHashSet<T> union(MyLinkedHashSet<T> a, Set<? extends T> b) {
+        return union(a, b, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Объединение множеств: элементы {@code a}, за которыми следуют отсутствующие
+     * в {@code a} элементы {@code b}
+     *
+     * @param a    - левый операнд
+     * @param b    - правый операнд
+     * @param pool - пул потоков для параллельной проверки
+     * @return новое множество
+     */
+    public static <T> MyLinkedHashSet<T> union(MyLinkedHashSet<T> a, Set<? extends T> b, ForkJoinPool pool) {
+        MyLinkedHashSet<T> result = a.emptyCopy(a.size() + b.size());
+        a.forEachWithHash(result::appendUnchecked);
+
+        if (hashesLike(a, b)) {
+            @SuppressWarnings("unchecked")
+            MyLinkedHashSet<T> other = (MyLinkedHashSet<T>) b;
+            appendFiltered(result, other, a, false, pool);
+        } else {
+            for (T t : b) {
+                if (!a.contains(t)) {
+                    result.add(t);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Пересечение множеств в общем пуле потоков
+     *
+     * @see #intersection(MyLinkedHashSet, Set, ForkJoinPool)
+     */
+    public static <T> MyLinkedHashSet<T> intersection(MyLinkedHashSet<T> a, Set<?> b) {
+        return intersection(a, b, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Пересечение множеств: элементы {@code a}, которые содержатся в {@code b}.
+     * Если {@code b} — {@link MyLinkedHashSet} с тем же способом хеширования, при последовательном
+     * обходе {@code a} проверки прекращаются, как только найдены все элементы {@code b}
+     *
+     * @param a    - левый операнд
+     * @param b    - правый операнд
+     * @param pool - пул потоков для параллельной проверки
+     * @return новое множество
+     */
+    public static <T> MyLinkedHashSet<T> intersection(MyLinkedHashSet<T> a, Set<?> b, ForkJoinPool pool) {
+        int expectedSize = Math.min(a.size(), b.size());
+        MyLinkedHashSet<T> result = a.emptyCopy(expectedSize);
+
+        if (expectedSize == 0) {
+            return result;
+        }
+
+        if (a.size() >= PARALLEL_THRESHOLD) {
+            appendFiltered(result, a, b, true, pool);
+            return result;
+        }
+
+        int limit = hashesLike(a, b) ? expectedSize : Integer.MAX_VALUE;
+        a.forEachWithHash((element, hash) -> {
+            if (result.size() < limit && b.contains(element)) {
+                result.appendUnchecked(element, hash);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Разность множеств в общем пуле потоков
+     *
+     * @see #difference(MyLinkedHashSet, Set, ForkJoinPool)
+     */
+    public static <T> MyLinkedHashSet<T> difference(MyLinkedHashSet<T> a, Set<?> b) {
+        return difference(a, b, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Разность множеств: элементы {@code a}, которые не содержатся в {@code b}.
+     * Если {@code b} — {@link MyLinkedHashSet} с тем же способом хеширования, после того
+     * как в {@code a} найдены все элементы {@code b}, оставшиеся элементы добавляются без проверки
+     *
+     * @param a    - левый операнд
+     * @param b    - правый операнд
+     * @param pool - пул потоков для параллельной проверки
+     * @return новое множество
+     */
+    public static <T> MyLinkedHashSet<T> difference(MyLinkedHashSet<T> a, Set<?> b, ForkJoinPool pool) {
+        MyLinkedHashSet<T> result = a.emptyCopy(a.size());
+
+        if (b.isEmpty()) {
+            a.forEachWithHash(result::appendUnchecked);
+            return result;
+        }
+
+        if (a.size() >= PARALLEL_THRESHOLD) {
+            appendFiltered(result, a, b, false, pool);
+            return result;
+        }
+
+        int[] found = {0};
+        int otherSize = hashesLike(a, b) ? b.size() : -1;
+        a.forEachWithHash((element, hash) -> {
+            if (found[0] == otherSize || !b.contains(element)) {
+                result.appendUnchecked(element, hash);
+            } else {
+                found[0]++;
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Проверка, что множества не имеют общих элементов. Обходится меньшее множество,
+     * проверка прекращается на первом общем элементе
+     *
+     * @param a - первое множество
+     * @param b - второе множество
+     * @return {@code true}, если общих элементов нет
+     */
+    public static boolean isDisjoint(Set<?> a, Set<?> b) {
+        Set<?> smaller = (a.size() <= b.size()) ? a : b;
+        Set<?> larger = (smaller == a) ? b : a;
+
+        for (Object o : smaller) {
+            if (larger.contains(o)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Проверка, что каждому элементу {@code a} равен не более чем один элемент {@code b} и
+     * наоборот. Только тогда количество найденных в {@code a} элементов {@code b} позволяет
+     * прекратить проверки: множество с более грубым равенством, например без учёта регистра
+     * или с компаратором, содержит один элемент для нескольких элементов {@code a}
+     *
+     * @param a - левый операнд
+     * @param b - правый операнд
+     * @return {@code true}, если {@code b} — {@link MyLinkedHashSet} с тем же способом хеширования
+     */
+    private static boolean hashesLike(MyLinkedHashSet<?> a, Set<?> b) {
+        return b instanceof MyLinkedHashSet && a.hashesLike((MyLinkedHashSet<?>) b);
+    }
+
+    /**
+     * Добавление в результат элементов {@code source}, принадлежность которых {@code other}
+     * равна {@code expected}, в порядке {@code source}. При большом {@code source} проверки
+     * выполняются параллельно, а добавление — последовательно
+     *
+     * @param result   - множество-результат
+     * @param source   - множество, элементы которого проверяются
+     * @param other    - множество, принадлежность которому проверяется
+     * @param expected - требуемый результат проверки
+     * @param pool     - пул потоков
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void appendFiltered(MyLinkedHashSet<T> result, MyLinkedHashSet<T> source,
+        Set<?> other, boolean expected, ForkJoinPool pool) {
+
+        int size = source.size();
+
+        if (size < PARALLEL_THRESHOLD) {
+            source.forEachWithHash((element, hash) -> {
+                if (other.contains(element) == expected) {
+                    result.appendUnchecked(element, hash);
+                }
+            });
+            return;
+        }
+
+        Object[] elements = new Object[size];
+        int[] hashes = new int[size];
+        size = source.copyTo(elements, hashes);
+
+        boolean[] matches = new boolean[size];
+        pool.invoke(new ContainsTask(elements, other, matches, 0, size));
+
+        for (int i = 0; i < size; i++) {
+            if (matches[i] == expected) {
+                result.appendUnchecked((T) elements[i], hashes[i]);
+            }
+        }
+    }
+
+    /**
+     * Задача параллельной проверки принадлежности части массива элементов множеству
+     */
+    private static class ContainsTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Проверяемые элементы */
+        private final Object[] _elements;
+
+        /** Множество, принадлежность которому проверяется */
+        private final Set<?> _other;
+
+        /** Результаты проверки */
+        private final boolean[] _matches;
+
+        /** Начало части массива */
+        private final int _from;
+
+        /** Конец части массива (не включая) */
+        private final int _to;
+
+        ContainsTask(Object[] elements, Set<?> other, boolean[] matches, int from, int to) {
+            _elements = elements;
+            _other = other;
+            _matches = matches;
+            _from = from;
+            _to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (_to - _from <= CHUNK_SIZE) {
+                for (int i = _from; i < _to; i++) {
+                    _matches[i] = _other.contains(_elements[i]);
+                }
+                return;
+            }
+
+            int middle = (_from + _to) >>> 1;
+            invokeAll(
+                new ContainsTask(_elements, _other, _matches, _from, middle),
+                new ContainsTask(_elements, _other, _matches, middle, _to));
+        }
+    } // ContainsTask
+}
@@ -0,0 +1,62 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import java.util.stream.Collector;
+
+/**
+ * Сборка {@link MyLinkedHashSet} из потоков {@code java.util.stream} с сохранением порядка
+ * следования элементов.
+ * <p>
+ * В параллельном потоке каждая часть собирается в отдельную коллекцию. При объединении
+ * частей узлы меньшей коллекции переносятся в большую без пересоздания: если левая часть
+ * не меньше правой, узлы правой добавляются в её конец, иначе узлы левой присоединяются
+ * перед узлами правой вместе с их списком порядка добавления. Хеш-таблица результата
+ * заранее увеличивается до размера обеих частей, поэтому объединение занимает время,
+ * пропорциональное размеру меньшей части, и не выделяет память под узлы
+ */
+public final class MyLinkedHashSetCollectors {
+
+    private MyLinkedHashSetCollectors() {
+    }
+
+    /**
+     * Сборка элементов потока в {@code MyLinkedHashSet} в порядке их следования
+     *
+     * @return коллектор
+     */
+    public static <T> Collector<T, ?, MyLinkedHashSet<T>> toMyLinkedHashSet() {
+        return toMyLinkedHashSet(null);
+    }
+
+    /**
+     * Сборка элементов потока в {@code MyLinkedHashSet} с заданным способом хеширования
+     * в порядке их следования
+     *
+     * @param strategy - способ хеширования и сравнения элементов или {@code null}
+     * @return коллектор
+     */
+    public static <T> Collector<T, ?, MyLinkedHashSet<T>> toMyLinkedHashSet(HashingStrategy<? super T> strategy) {
+        return Collector.of(
+            () -> new MyLinkedHashSet<T>(MyLinkedHashSet.hashTableSizeFor(0), false, strategy),
+            MyLinkedHashSet::add,
+            MyLinkedHashSetCollectors::combine,
+            Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Объединение частей с сохранением порядка: элементы левой части, затем новые
+     * элементы правой
+     *
+     * @param left  - левая часть
+     * @param right - правая часть
+     * @return объединённая коллекция (одна из частей)
+     */
+    private static <T> MyLinkedHashSet<T> combine(MyLinkedHashSet<T> left, MyLinkedHashSet<T> right) {
+        if (left.size() >= right.size()) {
+            left.spliceAfter(right);
+            return left;
+        }
+
+        right.spliceBefore(left);
+        return right;
+    }
+}
@@ -0,0 +1,152 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import ru.spbstu.telematics.malyarenko.lab_2.MyLinkedHashSet.RankedNode;
+
+/**
+ * Индекс порядковых номеров элементов {@link MyLinkedHashSet}.
+ * <p>
+ * Каждый узел при добавлении получает очередную позицию; позиции возрастают в порядке
+ * добавления. Над позициями построено дерево Фенвика из нулей и единиц (единица — позиция
+ * занята узлом), поэтому номер узла — это префиксная сумма до его позиции, а узел с заданным
+ * номером находится спуском по дереву. Обе операции, как и добавление и удаление, выполняются
+ * за O(log n). Когда позиции заканчиваются, занятые позиции уплотняются, а если занято больше
+ * половины — их число удваивается; дерево при этом строится заново за линейное время
+ */
+class MyLinkedHashSetRankIndex {
+
+    /** Начальное количество позиций */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Дерево Фенвика, нумерация с единицы */
+    private int[] _tree;
+
+    /** Узлы по позициям; {@code null} для освобождённых позиций */
+    private RankedNode<?>[] _nodes;
+
+    /** Первая свободная позиция */
+    private int _nextSlot;
+
+    /** Количество занятых позиций */
+    private int _count;
+
+    /**
+     * Конструктор. Создаёт пустой индекс с заданным начальным количеством позиций
+     *
+     * @param expectedSize - ожидаемое количество элементов
+     */
+    MyLinkedHashSetRankIndex(int expectedSize) {
+        int capacity = Math.max(INITIAL_CAPACITY, expectedSize);
+        _tree = new int[capacity + 1];
+        _nodes = new RankedNode<?>[capacity];
+        _nextSlot = 0;
+        _count = 0;
+    }
+
+    /**
+     * Добавление узла в конец порядка добавления
+     *
+     * @param node - узел, позиция которого записывается в {@code node._slot}
+     */
+    void append(RankedNode<?> node) {
+        if (_nextSlot == _nodes.length) {
+            rebuild((_count <= _nodes.length / 2) ? _nodes.length : 2 * _nodes.length);
+        }
+
+        node._slot = _nextSlot++;
+        _nodes[node._slot] = node;
+        _count++;
+        update(node._slot, 1);
+    }
+
+    /**
+     * Удаление узла
+     *
+     * @param node - узел
+     */
+    void remove(RankedNode<?> node) {
+        _nodes[node._slot] = null;
+        _count--;
+        update(node._slot, -1);
+    }
+
+    /**
+     * Номер узла в порядке добавления
+     *
+     * @param node - узел
+     * @return номер узла, начиная с нуля
+     */
+    int rankOf(RankedNode<?> node) {
+        int sum = 0;
+        for (int i = node._slot + 1; i > 0; i -= i & -i) {
+            sum += _tree[i];
+        }
+        return sum - 1;
+    }
+
+    /**
+     * Узел с заданным номером
+     *
+     * @param rank - номер узла от нуля до количества узлов (не включая)
+     * @return узел
+     */
+    RankedNode<?> nodeAt(int rank) {
+        int capacity = _nodes.length;
+        int position = 0;
+        int remaining = rank + 1;
+
+        for (int step = Integer.highestOneBit(capacity); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= capacity && _tree[next] < remaining) {
+                position = next;
+                remaining -= _tree[next];
+            }
+        }
+
+        return _nodes[position];
+    }
+
+    /**
+     * Изменение значения позиции
+     *
+     * @param slot  - позиция
+     * @param delta - изменение
+     */
+    private void update(int slot, int delta) {
+        for (int i = slot + 1; i < _tree.length; i += i & -i) {
+            _tree[i] += delta;
+        }
+    }
+
+    /**
+     * Уплотнение занятых позиций с сохранением порядка и построение дерева заново
+     *
+     * @param capacity - новое количество позиций, не меньше количества узлов
+     */
+    private void rebuild(int capacity) {
+        RankedNode<?>[] nodes = new RankedNode<?>[capacity];
+        int[] tree = new int[capacity + 1];
+
+        int slot = 0;
+        for (int i = 0; i < _nextSlot; i++) {
+            RankedNode<?> node = _nodes[i];
+            if (node != null) {
+                node._slot = slot;
+                nodes[slot] = node;
+                tree[slot + 1] = 1;
+                slot++;
+            }
+        }
+
+        // Построение дерева Фенвика за линейное время
+        for (int i = 1; i <= capacity; i++) {
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                tree[parent] += tree[i];
+            }
+        }
+
+        _nodes = nodes;
+        _tree = tree;
+        _nextSlot = slot;
+    }
+}
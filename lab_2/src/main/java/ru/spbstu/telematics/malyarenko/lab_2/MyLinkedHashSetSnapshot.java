@@ -0,0 +1,234 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Двоичный снимок {@link MyLinkedHashSet}.
+ * <p>
+ * Формат файла: заголовок (сигнатура, версия формата, количество элементов), за которым
+ * в порядке добавления следуют записи элементов: сохранённый хеш-код, длина двоичного
+ * представления и само представление, полученное {@link ElementCodec}.
+ * <p>
+ * При загрузке файл отображается в память, коллекция создаётся с хеш-таблицей нужного
+ * размера, а элементы добавляются по сохранённым хеш-кодам без вызова {@code hashCode()}
+ * и без проверки на наличие, поэтому время загрузки определяется скоростью чтения файла
+ * и декодирования элементов
+ */
+public final class MyLinkedHashSetSnapshot {
+
+    /** Сигнатура файла снимка */
+    private static final int MAGIC = 0x4D4C4853;
+
+    /** Версия формата */
+    private static final int VERSION = 1;
+
+    /** Размер заголовка файла */
+    private static final int HEADER_SIZE = 12;
+
+    /** Смещение количества элементов в заголовке файла */
+    private static final int SIZE_OFFSET = 8;
+
+    /** Размер заголовка записи элемента: хеш-код и длина */
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    /** Размер буфера записи */
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    /** Размер отображаемого в память окна файла */
+    private static final long MAP_WINDOW_SIZE = 1L << 30;
+
+    private MyLinkedHashSetSnapshot() {
+    }
+
+    /**
+     * Запись снимка коллекции в файл. Снимок сначала записывается во временный файл с
+     * уникальным именем в том же каталоге, который затем атомарно заменяет заданный, поэтому
+     * одновременные записи в один файл не портят друг друга. При ошибке временный файл удаляется.
+     * Количество элементов в заголовке - количество записанных записей: оно записывается после
+     * обхода, так как обход пропускает элементы, собранные сборщиком мусора, которые ещё
+     * учитываются в {@code size()}
+     *
+     * @param set   - коллекция
+     * @param path  - путь к файлу снимка
+     * @param codec - кодек элементов
+     * @throws IOException при ошибке записи
+     */
+    public static <T> void write(MyLinkedHashSet<T> set, Path path, ElementCodec<? super T> codec)
+        throws IOException {
+
+        Path tmpPath = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName() + ".", ".tmp");
+        boolean moved = false;
+
+        try {
+            try (FileChannel channel = FileChannel.open(tmpPath, WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+                buffer.putInt(MAGIC).putInt(VERSION).putInt(0);
+                int[] count = {0};
+
+                try {
+                    set.forEachWithHash((element, hash) -> {
+                        byte[] bytes = codec.encode(element);
+                        count[0]++;
+
+                        if (buffer.remaining() < RECORD_HEADER_SIZE + bytes.length) {
+                            flush(channel, buffer);
+                        }
+                        buffer.putInt(hash).putInt(bytes.length);
+
+                        if (buffer.remaining() >= bytes.length) {
+                            buffer.put(bytes);
+                        } else {
+                            // Элемент больше буфера записывается напрямую
+                            flush(channel, buffer);
+                            writeFully(channel, ByteBuffer.wrap(bytes));
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+
+                flush(channel, buffer);
+                ByteBuffer size = ByteBuffer.allocate(Integer.BYTES).putInt(0, count[0]);
+                while (size.hasRemaining()) {
+                    channel.write(size, SIZE_OFFSET + size.position());
+                }
+                channel.force(false);
+            }
+
+            Files.move(tmpPath, path, REPLACE_EXISTING, ATOMIC_MOVE);
+            moved = true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(tmpPath);
+            }
+        }
+    }
+
+    /**
+     * Загрузка коллекции из файла снимка
+     *
+     * @param path  - путь к файлу снимка
+     * @param codec - кодек элементов
+     * @return коллекция с элементами снимка в исходном порядке
+     * @throws IOException при ошибке чтения или повреждённом файле
+     */
+    public static <T> MyLinkedHashSet<T> read(Path path, ElementCodec<T> codec) throws IOException {
+        return read(path, codec, null);
+    }
+
+    /**
+     * Загрузка коллекции, элементы которой хешируются заданным способом, из файла снимка.
+     * Способ хеширования должен совпадать со способом хеширования записанной коллекции,
+     * так как хеш-коды берутся из снимка
+     *
+     * @param path     - путь к файлу снимка
+     * @param codec    - кодек элементов
+     * @param strategy - способ хеширования и сравнения элементов или {@code null}
+     * @return коллекция с элементами снимка в исходном порядке
+     * @throws IOException при ошибке чтения или повреждённом файле
+     */
+    public static <T> MyLinkedHashSet<T> read(Path path, ElementCodec<T> codec, HashingStrategy<? super T> strategy)
+        throws IOException {
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("Not a MyLinkedHashSet snapshot: " + path);
+            }
+
+            long windowStart = 0;
+            ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, Math.min(fileSize, MAP_WINDOW_SIZE));
+
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a MyLinkedHashSet snapshot: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + path);
+            }
+            int size = buffer.getInt();
+            if (size < 0) {
+                throw new IOException("Corrupted snapshot header: " + path);
+            }
+
+            MyLinkedHashSet<T> set = new MyLinkedHashSet<>(MyLinkedHashSet.hashTableSizeFor(size), false, strategy);
+
+            for (int i = 0; i < size; i++) {
+                if (!containsRecord(buffer)) {
+                    // Запись пересекает границу окна: окно сдвигается на начало записи
+                    windowStart += buffer.position();
+                    buffer = channel.map(MapMode.READ_ONLY, windowStart,
+                        Math.min(fileSize - windowStart, MAP_WINDOW_SIZE));
+
+                    if (!containsRecord(buffer)) {
+                        throw new IOException("Snapshot is truncated or corrupted at element " + i + ": " + path);
+                    }
+                }
+
+                int hash = buffer.getInt();
+                int length = buffer.getInt();
+                int recordEnd = buffer.position() + length;
+
+                T element = codec.decode(buffer, length);
+                buffer.position(recordEnd);
+
+                set.appendUnchecked(element, hash);
+            }
+
+            return set;
+        }
+    }
+
+    /**
+     * Проверка, что буфер целиком содержит запись, начинающуюся с его текущей позиции
+     *
+     * @param buffer - буфер
+     * @return {@code true}, если запись помещается в буфер
+     */
+    private static boolean containsRecord(ByteBuffer buffer) {
+        if (buffer.remaining() < RECORD_HEADER_SIZE) {
+            return false;
+        }
+
+        int length = buffer.getInt(buffer.position() + 4);
+        return length >= 0 && buffer.remaining() - RECORD_HEADER_SIZE >= length;
+    }
+
+    /**
+     * Запись содержимого буфера в канал и очистка буфера
+     *
+     * @param channel - канал
+     * @param buffer  - буфер
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer) {
+        buffer.flip();
+        writeFully(channel, buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Запись всего содержимого буфера в канал
+     *
+     * @param channel - канал
+     * @param buffer  - буфер
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) {
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Статистика хеш-таблицы {@link MyLinkedHashSet}: количество поисков и просмотренных
+ * узлов цепочек, количество вызовов {@code equals()}, количество и длительность увеличений
+ * хеш-таблицы.
+ * <p>
+ * Счётчики обновляются коллекцией только после {@link MyLinkedHashSet#enableStats()};
+ * пока статистика не включена, каждая операция коллекции проверяет лишь одно поле на {@code null}.
+ * Счётчики можно читать из любого потока. Заполненность хеш-таблицы и гистограмма длин
+ * цепочек вычисляются обходом таблицы, поэтому {@link #snapshot()} вызывается только
+ * потоком-владельцем коллекции. Снимок публикуется, и MBean возвращает размер хеш-таблицы,
+ * заполненность и длины цепочек по последнему снимку или, до первого снимка, на момент
+ * включения статистики; обход таблицы из потока MBean не выполняется. Количество элементов
+ * MBean читает из коллекции, поэтому во время её изменения оно приблизительно
+ */
+public final class MyLinkedHashSetStats implements MyLinkedHashSetStatsMBean {
+
+    /** Количество столбцов гистограммы длин цепочек */
+    static final int HISTOGRAM_BINS = 16;
+
+    /** Коллекция */
+    private final MyLinkedHashSet<?> _set;
+
+    /** Количество поисков элемента */
+    private final LongAdder _lookups = new LongAdder();
+
+    /** Количество просмотренных узлов цепочек */
+    private final LongAdder _probes = new LongAdder();
+
+    /** Наибольшее количество просмотренных узлов за один поиск */
+    private final LongAccumulator _maxProbes = new LongAccumulator(Math::max, 0);
+
+    /** Количество вызовов {@code equals()} */
+    private final LongAdder _equalsCalls = new LongAdder();
+
+    /** Количество увеличений хеш-таблицы */
+    private final LongAdder _resizes = new LongAdder();
+
+    /** Суммарное время увеличений хеш-таблицы */
+    private final LongAdder _resizeNanos = new LongAdder();
+
+    /** Наибольшее время одного увеличения хеш-таблицы */
+    private final LongAccumulator _maxResizeNanos = new LongAccumulator(Math::max, 0);
+
+    /** Имя, под которым статистика зарегистрирована как MBean, или {@code null} */
+    private volatile ObjectName _objectName;
+
+    /** Последний снимок, по которому MBean возвращает состояние хеш-таблицы */
+    private volatile Snapshot _published;
+
+    /**
+     * Конструктор. Вызывается потоком-владельцем коллекции
+     *
+     * @param set - коллекция, статистика которой собирается
+     */
+    MyLinkedHashSetStats(MyLinkedHashSet<?> set) {
+        _set = set;
+        _published = new Snapshot(this);
+    }
+
+    /**
+     * Учёт поиска элемента
+     *
+     * @param probes - количество просмотренных узлов цепочки
+     */
+    void recordLookup(int probes) {
+        _lookups.increment();
+        _probes.add(probes);
+        _maxProbes.accumulate(probes);
+    }
+
+    /**
+     * Учёт вызова {@code equals()}
+     */
+    void recordEquals() {
+        _equalsCalls.increment();
+    }
+
+    /**
+     * Учёт увеличения хеш-таблицы
+     *
+     * @param nanos - длительность увеличения
+     */
+    void recordResize(long nanos) {
+        _resizes.increment();
+        _resizeNanos.add(nanos);
+        _maxResizeNanos.accumulate(nanos);
+    }
+
+    /**
+     * Снимок статистики на текущий момент. Вызывается только потоком-владельцем коллекции;
+     * снимок становится состоянием хеш-таблицы, которое возвращает MBean
+     *
+     * @return неизменяемый снимок
+     */
+    public Snapshot snapshot() {
+        Snapshot snapshot = new Snapshot(this);
+        _published = snapshot;
+        return snapshot;
+    }
+
+    /**
+     * Регистрация статистики в платформенном {@link MBeanServer}
+     *
+     * @param name - имя MBean
+     * @throws JMException если регистрация не удалась
+     */
+    public void registerMBean(ObjectName name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        _objectName = name;
+    }
+
+    /**
+     * Отмена регистрации статистики в платформенном {@link MBeanServer}, если она была
+     * зарегистрирована
+     *
+     * @throws JMException если отмена регистрации не удалась
+     */
+    public void unregisterMBean() throws JMException {
+        ObjectName name = _objectName;
+        if (name != null) {
+            _objectName = null;
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return _set.size();
+    }
+
+    @Override
+    public int getHashTableSize() {
+        return _published.hashTableSize();
+    }
+
+    @Override
+    public double getOccupancy() {
+        return _published.occupancy();
+    }
+
+    @Override
+    public int getMaxChainLength() {
+        return _published.maxChainLength();
+    }
+
+    @Override
+    public long[] getChainLengthHistogram() {
+        return _published.chainLengthHistogram();
+    }
+
+    @Override
+    public long getLookups() {
+        return _lookups.sum();
+    }
+
+    @Override
+    public double getAverageProbes() {
+        return averageProbes(_lookups.sum(), _probes.sum());
+    }
+
+    @Override
+    public long getMaxProbes() {
+        return _maxProbes.get();
+    }
+
+    @Override
+    public long getEqualsCalls() {
+        return _equalsCalls.sum();
+    }
+
+    @Override
+    public long getResizes() {
+        return _resizes.sum();
+    }
+
+    @Override
+    public long getResizeNanos() {
+        return _resizeNanos.sum();
+    }
+
+    @Override
+    public long getMaxResizeNanos() {
+        return _maxResizeNanos.get();
+    }
+
+    @Override
+    public void reset() {
+        _lookups.reset();
+        _probes.reset();
+        _maxProbes.reset();
+        _equalsCalls.reset();
+        _resizes.reset();
+        _resizeNanos.reset();
+        _maxResizeNanos.reset();
+    }
+
+    /**
+     * Доля непустых ячеек по гистограмме длин цепочек
+     *
+     * @param histogram - гистограмма длин цепочек
+     * @return доля непустых ячеек
+     */
+    private static double occupancy(long[] histogram) {
+        long buckets = 0;
+        for (long count : histogram) {
+            buckets += count;
+        }
+        return (buckets == 0) ? 0 : (double) (buckets - histogram[0]) / buckets;
+    }
+
+    /**
+     * Среднее количество просмотренных узлов на один поиск
+     *
+     * @param lookups - количество поисков
+     * @param probes  - количество просмотренных узлов
+     * @return среднее количество просмотренных узлов
+     */
+    private static double averageProbes(long lookups, long probes) {
+        return (lookups == 0) ? 0 : (double) probes / lookups;
+    }
+
+    /**
+     * Неизменяемый снимок статистики
+     */
+    public static final class Snapshot {
+
+        /** Количество элементов коллекции */
+        private final int _size;
+
+        /** Размер хеш-таблицы */
+        private final int _hashTableSize;
+
+        /** Гистограмма длин цепочек */
+        private final long[] _chainLengthHistogram;
+
+        /** Длина самой длинной цепочки */
+        private final int _maxChainLength;
+
+        /** Количество поисков элемента */
+        private final long _lookups;
+
+        /** Количество просмотренных узлов цепочек */
+        private final long _probes;
+
+        /** Наибольшее количество просмотренных узлов за один поиск */
+        private final long _maxProbes;
+
+        /** Количество вызовов {@code equals()} */
+        private final long _equalsCalls;
+
+        /** Количество увеличений хеш-таблицы */
+        private final long _resizes;
+
+        /** Суммарное время увеличений хеш-таблицы */
+        private final long _resizeNanos;
+
+        /** Наибольшее время одного увеличения хеш-таблицы */
+        private final long _maxResizeNanos;
+
+        private Snapshot(MyLinkedHashSetStats stats) {
+            _size = stats._set.size();
+            _hashTableSize = stats._set.hashTableSize();
+            _chainLengthHistogram = stats._set.chainLengthHistogram(HISTOGRAM_BINS);
+            _maxChainLength = stats._set.maxChainLength();
+            _lookups = stats._lookups.sum();
+            _probes = stats._probes.sum();
+            _maxProbes = stats._maxProbes.get();
+            _equalsCalls = stats._equalsCalls.sum();
+            _resizes = stats._resizes.sum();
+            _resizeNanos = stats._resizeNanos.sum();
+            _maxResizeNanos = stats._maxResizeNanos.get();
+        }
+
+        /** @return количество элементов коллекции */
+        public int size() {
+            return _size;
+        }
+
+        /** @return размер хеш-таблицы */
+        public int hashTableSize() {
+            return _hashTableSize;
+        }
+
+        /** @return доля непустых ячеек хеш-таблицы */
+        public double occupancy() {
+            return MyLinkedHashSetStats.occupancy(_chainLengthHistogram);
+        }
+
+        /**
+         * @return гистограмма длин цепочек: элемент {@code i} — количество ячеек с цепочкой
+         *         длины {@code i}, последний элемент — количество ячеек с цепочкой не короче его номера
+         */
+        public long[] chainLengthHistogram() {
+            return _chainLengthHistogram.clone();
+        }
+
+        /** @return длина самой длинной цепочки */
+        public int maxChainLength() {
+            return _maxChainLength;
+        }
+
+        /** @return количество поисков элемента */
+        public long lookups() {
+            return _lookups;
+        }
+
+        /** @return среднее количество просмотренных узлов цепочки на один поиск */
+        public double averageProbes() {
+            return MyLinkedHashSetStats.averageProbes(_lookups, _probes);
+        }
+
+        /** @return наибольшее количество просмотренных узлов цепочки за один поиск */
+        public long maxProbes() {
+            return _maxProbes;
+        }
+
+        /** @return количество вызовов {@code equals()} */
+        public long equalsCalls() {
+            return _equalsCalls;
+        }
+
+        /** @return количество увеличений хеш-таблицы */
+        public long resizes() {
+            return _resizes;
+        }
+
+        /** @return суммарное время увеличений хеш-таблицы в наносекундах */
+        public long resizeNanos() {
+            return _resizeNanos;
+        }
+
+        /** @return наибольшее время одного увеличения хеш-таблицы в наносекундах */
+        public long maxResizeNanos() {
+            return _maxResizeNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "size=%d, hashTableSize=%d, occupancy=%.3f, maxChainLength=%d, chainLengths=%s, "
+                    + "lookups=%d, averageProbes=%.3f, maxProbes=%d, equalsCalls=%d, "
+                    + "resizes=%d, resizeNanos=%d, maxResizeNanos=%d",
+                _size, _hashTableSize, occupancy(), _maxChainLength, Arrays.toString(_chainLengthHistogram),
+                _lookups, averageProbes(), _maxProbes, _equalsCalls,
+                _resizes, _resizeNanos, _maxResizeNanos);
+        }
+    } // Snapshot
+}
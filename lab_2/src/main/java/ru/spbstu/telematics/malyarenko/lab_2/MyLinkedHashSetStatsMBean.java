@@ -0,0 +1,54 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+/**
+ * Интерфейс управления статистикой хеш-таблицы {@link MyLinkedHashSet}
+ *
+ * @see MyLinkedHashSetStats#registerMBean(javax.management.ObjectName)
+ */
+public interface MyLinkedHashSetStatsMBean {
+
+    /** @return количество элементов коллекции */
+    int getSize();
+
+    /** @return размер хеш-таблицы по последнему снимку {@link MyLinkedHashSetStats#snapshot()} */
+    int getHashTableSize();
+
+    /** @return доля непустых ячеек хеш-таблицы по последнему снимку */
+    double getOccupancy();
+
+    /** @return длина самой длинной цепочки по последнему снимку */
+    int getMaxChainLength();
+
+    /**
+     * @return гистограмма длин цепочек по последнему снимку: элемент {@code i} — количество ячеек
+     *         с цепочкой длины {@code i}, последний элемент — количество ячеек с цепочкой не короче
+     *         его номера
+     */
+    long[] getChainLengthHistogram();
+
+    /** @return количество поисков элемента */
+    long getLookups();
+
+    /** @return среднее количество просмотренных узлов цепочки на один поиск */
+    double getAverageProbes();
+
+    /** @return наибольшее количество просмотренных узлов цепочки за один поиск */
+    long getMaxProbes();
+
+    /** @return количество вызовов {@code equals()} */
+    long getEqualsCalls();
+
+    /** @return количество увеличений хеш-таблицы */
+    long getResizes();
+
+    /** @return суммарное время увеличений хеш-таблицы в наносекундах */
+    long getResizeNanos();
+
+    /** @return наибольшее время одного увеличения хеш-таблицы в наносекундах */
+    long getMaxResizeNanos();
+
+    /**
+     * Сброс счётчиков
+     */
+    void reset();
+}
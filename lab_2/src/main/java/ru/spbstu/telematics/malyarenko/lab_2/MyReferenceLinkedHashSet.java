@@ -0,0 +1,218 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+
+/**
+ * Множество с сохранением порядка добавления, которое хранит элементы по слабым
+ * или мягким ссылкам и не препятствует их сборке мусора.
+ * <p>
+ * Ссылка на элемент регистрируется в {@link ReferenceQueue}; очередь просматривается
+ * при каждом изменении коллекции, а также при вызове {@link #contains(Object)} и
+ * {@link #iterator()}. Узлы собранных элементов исключаются из цепочки хеш-таблицы
+ * по сохранённому хеш-коду и из списка порядка добавления за O(1). Поэтому объём
+ * коллекции определяется элементами, которые ещё используются, а не всеми когда-либо
+ * добавленными.
+ * <p>
+ * Итераторы и операции над копиями элементов пропускают собранные элементы. Размер
+ * коллекции и позиции элементов ({@link #get(int)}, {@link #indexOf(Object)}) учитывают
+ * узлы собранных элементов до ближайшего просмотра очереди. {@link #size()} и
+ * {@link #isEmpty()} очередь не просматривают и коллекцию не изменяют, поэтому размер
+ * можно читать из другого потока, например из MBean статистики {@link MyLinkedHashSetStats}.
+ * Просмотр очереди не завершает открытые итераторы, поэтому {@link #contains(Object)}
+ * можно вызывать при обходе коллекции.
+ * Индекс порядковых номеров не поддерживается
+ */
+public class MyReferenceLinkedHashSet<T> extends MyLinkedHashSet<T> {
+
+    /**
+     * Вид ссылок на элементы
+     */
+    public enum Strength {
+        /** Слабые ссылки: элемент собирается, как только на него нет сильных ссылок */
+        WEAK,
+
+        /** Мягкие ссылки: элемент собирается только при нехватке памяти */
+        SOFT
+    }
+
+    /** Вид ссылок на элементы */
+    private final Strength _strength;
+
+    /** Очередь ссылок на собранные элементы */
+    private ReferenceQueue<T> _queue;
+
+    /**
+     * Ссылка на элемент, знающая свой узел
+     */
+    interface NodeReference<V> {
+        /** @return узел, хранящий ссылку */
+        ReferenceNode<V> node();
+    }
+
+    /**
+     * Слабая ссылка на элемент узла
+     */
+    private static final class WeakNodeReference<V> extends WeakReference<V> implements NodeReference<V> {
+        /** Узел, хранящий ссылку */
+        private final ReferenceNode<V> _node;
+
+        WeakNodeReference(V data, ReferenceQueue<? super V> queue, ReferenceNode<V> node) {
+            super(data, queue);
+            _node = node;
+        }
+
+        @Override
+        public ReferenceNode<V> node() {
+            return _node;
+        }
+    } // WeakNodeReference
+
+    /**
+     * Мягкая ссылка на элемент узла
+     */
+    private static final class SoftNodeReference<V> extends SoftReference<V> implements NodeReference<V> {
+        /** Узел, хранящий ссылку */
+        private final ReferenceNode<V> _node;
+
+        SoftNodeReference(V data, ReferenceQueue<? super V> queue, ReferenceNode<V> node) {
+            super(data, queue);
+            _node = node;
+        }
+
+        @Override
+        public ReferenceNode<V> node() {
+            return _node;
+        }
+    } // SoftNodeReference
+
+    /**
+     * Узел, хранящий элемент по ссылке
+     */
+    static class ReferenceNode<V> extends MySetNode<V> {
+        /** Ссылка на данные */
+        final Reference<V> _ref;
+
+        /** Узел уже исключён из коллекции */
+        boolean _unlinked;
+
+        public ReferenceNode(V data, int hash, Strength strength, ReferenceQueue<? super V> queue) {
+            super(null, hash);
+            _ref = (strength == Strength.WEAK)
+                ? new WeakNodeReference<V>(data, queue, this)
+                : new SoftNodeReference<V>(data, queue, this);
+            _unlinked = false;
+        }
+
+        @Override
+        V data() {
+            return _ref.get();
+        }
+    } // ReferenceNode
+
+    /**
+     * Конструктор. Создаёт пустую коллекцию с заданным видом ссылок на элементы
+     *
+     * @param strength - вид ссылок
+     */
+    public MyReferenceLinkedHashSet(Strength strength) {
+        this(MyLinkedHashSet.hashTableSizeFor(0), strength, null);
+    }
+
+    /**
+     * Конструктор. Создаёт пустую коллекцию с заданным размером хеш-таблицы, видом ссылок
+     * на элементы и способом хеширования элементов
+     *
+     * @param hashTableSize - размер хеш-таблицы
+     * @param strength      - вид ссылок
+     * @param strategy      - способ хеширования и сравнения элементов или {@code null}
+     * @throws IllegalArgumentException если размер хеш-таблицы не положителен
+     */
+    public MyReferenceLinkedHashSet(int hashTableSize, Strength strength, HashingStrategy<? super T> strategy) {
+        super(hashTableSize, false, strategy);
+        _strength = strength;
+        _queue = new ReferenceQueue<T>();
+    }
+
+    @Override
+    public boolean add(T data) {
+        expungeStaleEntries();
+        return super.add(data);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        expungeStaleEntries();
+        return super.remove(o);
+    }
+
+    /**
+     * Удаление всех элементов. Ссылки удалённых узлов, которые будут очищены позже,
+     * попадают в прежнюю очередь и не просматриваются
+     *
+     * @param keepCapacity - {@code true}, если текущий размер хеш-таблицы нужно сохранить
+     */
+    @Override
+    public void clear(boolean keepCapacity) {
+        super.clear(keepCapacity);
+        _queue = new ReferenceQueue<T>();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        expungeStaleEntries();
+        return super.contains(o);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        expungeStaleEntries();
+        return super.iterator();
+    }
+
+    /**
+     * Индекс порядковых номеров не поддерживается
+     *
+     * @return {@code false}
+     */
+    @Override
+    public boolean supportsRankIndex() {
+        return false;
+    }
+
+    /**
+     * Исключение узлов, ссылки которых поставлены в очередь. Итераторы пропускают узлы
+     * собранных элементов, поэтому их исключение не считается изменением коллекции и не
+     * завершает открытые итераторы исключением {@code ConcurrentModificationException}
+     */
+    @SuppressWarnings("unchecked")
+    public void expungeStaleEntries() {
+        Reference<? extends T> ref;
+        while ((ref = _queue.poll()) != null) {
+            detachNode(((NodeReference<T>) ref).node());
+        }
+    }
+
+    @Override
+    MySetNode<T> newNode(T data, int hash) {
+        return new ReferenceNode<T>(data, hash, _strength, _queue);
+    }
+
+    /**
+     * Исключение узла. Узел, уже исключённый при просмотре очереди, повторно не исключается:
+     * так удаление через итератор элемента, собранного после его возврата, ничего не делает
+     *
+     * @param node - исключаемый узел
+     */
+    @Override
+    void detachNode(MySetNode<T> node) {
+        ReferenceNode<T> referenceNode = (ReferenceNode<T>) node;
+        if (!referenceNode._unlinked) {
+            super.detachNode(node);
+            referenceNode._unlinked = true;
+        }
+    }
+}
@@ -0,0 +1,851 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.function.Consumer;
+
+/**
+ * Множество двоичных ключей фиксированной длины с сохранением порядка добавления,
+ * данные которого хранятся вне кучи.
+ * <p>
+ * Записи ключей (хеш-код, ссылки на предыдущую и следующую запись в порядке добавления,
+ * байты ключа) лежат подряд в сегментах прямых {@link ByteBuffer} или отображённого
+ * в память файла; индекс с открытой адресацией и линейным пробированием хранит номера
+ * записей в отдельных сегментах и заполнен не более чем наполовину. Сегменты не превышают
+ * 1 ГБ, поэтому число ключей ограничено лишь размером индекса (до 2<sup>29</sup>).
+ * Операции {@code add}, {@code contains}, {@code remove} и обход не создают объектов.
+ * Хеш-код ключа совпадает с {@link HashingStrategy#byteArrays()} для тех же байт.
+ * <p>
+ * Ключи передаются в {@code ByteBuffer}: используются {@code keySize} байт начиная с позиции
+ * буфера, позиция буфера не изменяется. Записи удалённых ключей образуют список свободных
+ * записей, связанный через ссылку на следующую запись, и занимаются новыми ключами раньше,
+ * чем добавляется новая запись, поэтому объём записей не превышает наибольшего размера множества.
+ * <p>
+ * Множество, открытое методом {@link #open(Path, int)}, хранится в трёх файлах каталога
+ * и может превышать объём оперативной памяти. Состояние файлов согласовано после
+ * {@link #sync()} и {@link #close()}. Коллекция не является потокобезопасной
+ */
+public final class OffHeapLinkedHashSet implements Closeable {
+
+    /** Сигнатура файла заголовка */
+    private static final int MAGIC = 0x4F484C53;
+
+    /** Версия формата */
+    private static final int VERSION = 1;
+
+    /** Размер заголовка */
+    private static final int HEADER_SIZE = 64;
+
+    /** Смещения полей заголовка */
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_KEY_SIZE = 8;
+    private static final int HEADER_SIZE_FIELD = 12;
+    private static final int HEADER_ENTRY_COUNT = 16;
+    private static final int HEADER_TOMBSTONES = 20;
+    private static final int HEADER_HEAD = 24;
+    private static final int HEADER_TAIL = 28;
+    private static final int HEADER_INDEX_CAPACITY = 32;
+    private static final int HEADER_FREE = 36;
+
+    /** Смещения полей записи ключа */
+    private static final int ENTRY_HASH = 0;
+    private static final int ENTRY_PREV = 4;
+    private static final int ENTRY_NEXT = 8;
+    private static final int ENTRY_KEY = 16;
+
+    /** Наибольший размер сегмента */
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+
+    /** Двоичный логарифм количества ячеек индекса в сегменте */
+    private static final int INDEX_SEGMENT_SHIFT = 28;
+
+    /** Маска номера ячейки индекса внутри сегмента */
+    private static final int INDEX_SEGMENT_MASK = (1 << INDEX_SEGMENT_SHIFT) - 1;
+
+    /** Наименьший размер индекса */
+    private static final int MIN_INDEX_CAPACITY = 16;
+
+    /** Наибольший размер индекса */
+    private static final int MAX_INDEX_CAPACITY = 1 << 30;
+
+    /** Ячейка индекса, которая не занята */
+    private static final int EMPTY = 0;
+
+    /** Ячейка индекса удалённого ключа */
+    private static final int DELETED = -1;
+
+    /** Отсутствующая ссылка на запись */
+    private static final int NONE = -1;
+
+    /** Чтение и запись восьми байт буфера как {@code long} */
+    private static final VarHandle LONG_VIEW =
+        MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /** Длина ключа */
+    private final int _keySize;
+
+    /** Размер записи ключа */
+    private final int _entrySize;
+
+    /** Двоичный логарифм количества записей в сегменте */
+    private final int _entryShift;
+
+    /** Сегменты записей */
+    private final Region _entries;
+
+    /** Сегменты индекса */
+    private Region _index;
+
+    /** Количество ячеек индекса, степень двойки */
+    private int _indexCapacity;
+
+    /** Заголовок в файле или {@code null} для множества в прямых буферах */
+    private final ByteBuffer _header;
+
+    /** Каталог файлов или {@code null} для множества в прямых буферах */
+    private final Path _directory;
+
+    /** Количество ключей */
+    private int _size;
+
+    /** Количество записей, включая записи удалённых ключей */
+    private int _entryCount;
+
+    /** Первая свободная запись */
+    private int _free;
+
+    /** Количество ячеек индекса удалённых ключей */
+    private int _tombstones;
+
+    /** Первая запись в порядке добавления */
+    private int _head;
+
+    /** Последняя запись в порядке добавления */
+    private int _tail;
+
+    /** Счётчик изменений для обнаружения изменения во время обхода */
+    private int _modCount;
+
+    /** Буфер, через который ключи передаются при обходе */
+    private final ByteBuffer _scratch;
+
+    private OffHeapLinkedHashSet(int keySize, Region entries, Region index, ByteBuffer header, Path directory) {
+        _keySize = keySize;
+        _entrySize = entrySize(keySize);
+        _entryShift = Integer.numberOfTrailingZeros(entriesPerSegment(keySize));
+        _entries = entries;
+        _index = index;
+        _header = header;
+        _directory = directory;
+        _scratch = ByteBuffer.allocate(keySize);
+    }
+
+    /**
+     * Создание пустого множества в прямых буферах
+     *
+     * @param keySize      - длина ключа в байтах
+     * @param expectedSize - ожидаемое количество ключей
+     * @return пустое множество
+     * @throws IllegalArgumentException если длина ключа не положительна
+     */
+    public static OffHeapLinkedHashSet allocateDirect(int keySize, int expectedSize) {
+        checkKeySize(keySize);
+
+        int indexCapacity = indexCapacityFor(expectedSize);
+        OffHeapLinkedHashSet set = new OffHeapLinkedHashSet(keySize,
+            new DirectRegion(segmentBytes(keySize)),
+            new DirectRegion(MAX_SEGMENT_BYTES),
+            null, null);
+
+        set.initialize(indexCapacity, expectedSize);
+        return set;
+    }
+
+    /**
+     * Открытие множества, хранящегося в файлах заданного каталога, или создание
+     * пустого множества, если каталог не содержит файлов множества
+     *
+     * @param directory - каталог
+     * @param keySize   - длина ключа в байтах
+     * @return множество
+     * @throws IOException              при ошибке чтения или записи файлов
+     * @throws IllegalArgumentException если длина ключа не положительна или не совпадает
+     *                                  с длиной ключа сохранённого множества
+     */
+    public static OffHeapLinkedHashSet open(Path directory, int keySize) throws IOException {
+        checkKeySize(keySize);
+        Files.createDirectories(directory);
+
+        ByteBuffer header;
+        boolean created;
+        try (FileChannel channel = FileChannel.open(headerPath(directory), CREATE, READ, WRITE)) {
+            created = channel.size() == 0;
+            header = channel.map(MapMode.READ_WRITE, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        if (!created) {
+            if (header.getInt(HEADER_MAGIC) != MAGIC) {
+                throw new IOException("Not an OffHeapLinkedHashSet: " + directory);
+            }
+            if (header.getInt(HEADER_VERSION) != VERSION) {
+                throw new IOException("Unsupported OffHeapLinkedHashSet version "
+                    + header.getInt(HEADER_VERSION) + ": " + directory);
+            }
+            if (header.getInt(HEADER_KEY_SIZE) != keySize) {
+                throw new IllegalArgumentException("Key size " + keySize + " does not match stored key size "
+                    + header.getInt(HEADER_KEY_SIZE));
+            }
+        }
+
+        OffHeapLinkedHashSet set = new OffHeapLinkedHashSet(keySize,
+            new MappedRegion(FileChannel.open(directory.resolve("entries"), CREATE, READ, WRITE), segmentBytes(keySize)),
+            new MappedRegion(FileChannel.open(directory.resolve("index"), CREATE, READ, WRITE), MAX_SEGMENT_BYTES),
+            header, directory);
+
+        if (created) {
+            header.putInt(HEADER_MAGIC, MAGIC).putInt(HEADER_VERSION, VERSION).putInt(HEADER_KEY_SIZE, keySize);
+            set.initialize(MIN_INDEX_CAPACITY, 0);
+        } else {
+            set.load();
+        }
+
+        return set;
+    }
+
+    /**
+     * Добавление ключа
+     *
+     * @param key - буфер, содержащий ключ начиная со своей позиции
+     * @return {@code true}, если ключ добавлен; {@code false}, если ключ уже был в множестве
+     */
+    public boolean add(ByteBuffer key) {
+        int position = checkKey(key);
+        int hash = hash(key, position);
+
+        if ((long) (_size + _tombstones + 1) * 2 > _indexCapacity) {
+            growIndex();
+        }
+
+        int mask = _indexCapacity - 1;
+        int slot = spread(hash) & mask;
+        int freeSlot = -1;
+
+        for (int value = slot(_index, slot); value != EMPTY; value = slot(_index, slot)) {
+            if (value == DELETED) {
+                if (freeSlot < 0) {
+                    freeSlot = slot;
+                }
+            } else if (entryHash(value - 1) == hash && keyEquals(value - 1, key, position)) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (freeSlot >= 0) {
+            slot = freeSlot;
+            _tombstones--;
+        }
+
+        int id = appendEntry(key, position, hash);
+        setSlot(_index, slot, id + 1);
+        _size++;
+        _modCount++;
+        writeHeader();
+
+        return true;
+    }
+
+    /**
+     * Проверка на наличие ключа
+     *
+     * @param key - буфер, содержащий ключ начиная со своей позиции
+     * @return {@code true}, если ключ находится в множестве
+     */
+    public boolean contains(ByteBuffer key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Удаление ключа
+     *
+     * @param key - буфер, содержащий ключ начиная со своей позиции
+     * @return {@code true}, если ключ был удалён
+     */
+    public boolean remove(ByteBuffer key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return false;
+        }
+
+        int id = slot(_index, slot) - 1;
+        setSlot(_index, slot, DELETED);
+        _tombstones++;
+
+        int prev = entryInt(id, ENTRY_PREV);
+        int next = entryInt(id, ENTRY_NEXT);
+        if (prev != NONE) {
+            setEntryInt(prev, ENTRY_NEXT, next);
+        } else {
+            _head = next;
+        }
+        if (next != NONE) {
+            setEntryInt(next, ENTRY_PREV, prev);
+        } else {
+            _tail = prev;
+        }
+
+        setEntryInt(id, ENTRY_NEXT, _free);
+        _free = id;
+
+        _size--;
+        _modCount++;
+        writeHeader();
+
+        return true;
+    }
+
+    /**
+     * Обход ключей в порядке добавления. Ключ передаётся в одном и том же буфере
+     * длины {@code keySize}, содержимое которого действительно только во время вызова действия
+     *
+     * @param action - действие над ключом
+     * @throws ConcurrentModificationException если множество изменено во время обхода
+     */
+    public void forEachKey(Consumer<? super ByteBuffer> action) {
+        int expectedModCount = _modCount;
+
+        for (int id = _head; id != NONE; id = entryInt(id, ENTRY_NEXT)) {
+            ByteBuffer segment = entrySegment(id);
+            int offset = entryOffset(id) + ENTRY_KEY;
+
+            _scratch.clear();
+            copy(segment, offset, _scratch, 0, _keySize);
+            action.accept(_scratch);
+
+            if (_modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Количество ключей
+     *
+     * @return размер множества
+     */
+    public int size() {
+        return _size;
+    }
+
+    /**
+     * Проверка на пустое множество
+     *
+     * @return {@code true}, если множество пусто
+     */
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /**
+     * Количество записей, включая свободные записи удалённых ключей
+     *
+     * @return количество записей
+     */
+    int entryCount() {
+        return _entryCount;
+    }
+
+    /**
+     * Длина ключа
+     *
+     * @return длина ключа в байтах
+     */
+    public int keySize() {
+        return _keySize;
+    }
+
+    /**
+     * Запись изменений отображённых в память файлов на диск. Для множества в прямых
+     * буферах ничего не делает
+     */
+    public void sync() {
+        if (_header != null) {
+            _entries.sync();
+            _index.sync();
+            ((MappedByteBuffer) _header).force();
+        }
+    }
+
+    /**
+     * Запись изменений на диск и освобождение ресурсов. После закрытия множество
+     * использовать нельзя
+     *
+     * @throws IOException при ошибке закрытия файлов
+     */
+    @Override
+    public void close() throws IOException {
+        sync();
+        _entries.close();
+        _index.close();
+    }
+
+    /**
+     * Инициализация пустого множества
+     *
+     * @param indexCapacity - размер индекса
+     * @param expectedSize  - ожидаемое количество ключей
+     */
+    private void initialize(int indexCapacity, int expectedSize) {
+        _size = 0;
+        _entryCount = 0;
+        _free = NONE;
+        _tombstones = 0;
+        _head = NONE;
+        _tail = NONE;
+        _indexCapacity = indexCapacity;
+        _index.ensureCapacity((long) indexCapacity * Integer.BYTES);
+        _entries.ensureCapacity((long) Math.max(1, expectedSize) * _entrySize);
+        writeHeader();
+    }
+
+    /**
+     * Загрузка состояния из заголовка файла
+     */
+    private void load() {
+        _size = _header.getInt(HEADER_SIZE_FIELD);
+        _entryCount = _header.getInt(HEADER_ENTRY_COUNT);
+        // Первая свободная запись хранится как номер плюс один, как в ячейках индекса:
+        // ноль в заголовке, записанном без списка свободных записей, означает его отсутствие
+        _free = _header.getInt(HEADER_FREE) - 1;
+        _tombstones = _header.getInt(HEADER_TOMBSTONES);
+        _head = _header.getInt(HEADER_HEAD);
+        _tail = _header.getInt(HEADER_TAIL);
+        _indexCapacity = _header.getInt(HEADER_INDEX_CAPACITY);
+        _index.ensureCapacity((long) _indexCapacity * Integer.BYTES);
+        _entries.ensureCapacity((long) Math.max(1, _entryCount) * _entrySize);
+    }
+
+    /**
+     * Запись состояния в заголовок файла
+     */
+    private void writeHeader() {
+        if (_header != null) {
+            _header.putInt(HEADER_SIZE_FIELD, _size)
+                .putInt(HEADER_ENTRY_COUNT, _entryCount)
+                .putInt(HEADER_TOMBSTONES, _tombstones)
+                .putInt(HEADER_HEAD, _head)
+                .putInt(HEADER_TAIL, _tail)
+                .putInt(HEADER_INDEX_CAPACITY, _indexCapacity)
+                .putInt(HEADER_FREE, _free + 1);
+        }
+    }
+
+    /**
+     * Добавление записи ключа в конец порядка добавления. Занимается первая свободная запись,
+     * а если свободных записей нет - новая
+     *
+     * @param key      - буфер с ключом
+     * @param position - позиция ключа в буфере
+     * @param hash     - хеш-код ключа
+     * @return номер записи
+     */
+    private int appendEntry(ByteBuffer key, int position, int hash) {
+        int id;
+        if (_free != NONE) {
+            id = _free;
+            _free = entryInt(id, ENTRY_NEXT);
+        } else {
+            if (_entryCount == Integer.MAX_VALUE) {
+                throw new IllegalStateException("OffHeapLinkedHashSet entry space is exhausted");
+            }
+            id = _entryCount;
+            _entries.ensureCapacity((long) (id + 1) * _entrySize);
+            _entryCount++;
+        }
+
+        setEntryInt(id, ENTRY_HASH, hash);
+        setEntryInt(id, ENTRY_PREV, _tail);
+        setEntryInt(id, ENTRY_NEXT, NONE);
+        copy(key, position, entrySegment(id), entryOffset(id) + ENTRY_KEY, _keySize);
+
+        if (_tail != NONE) {
+            setEntryInt(_tail, ENTRY_NEXT, id);
+        } else {
+            _head = id;
+        }
+        _tail = id;
+
+        return id;
+    }
+
+    /**
+     * Поиск ячейки индекса, содержащей ключ
+     *
+     * @param key - буфер с ключом
+     * @return номер ячейки или {@code -1}, если ключ не найден
+     */
+    private int findSlot(ByteBuffer key) {
+        int position = checkKey(key);
+        int hash = hash(key, position);
+        int mask = _indexCapacity - 1;
+        int slot = spread(hash) & mask;
+
+        for (int value = slot(_index, slot); value != EMPTY; value = slot(_index, slot)) {
+            if (value != DELETED && entryHash(value - 1) == hash && keyEquals(value - 1, key, position)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Увеличение индекса вдвое или, если он заполнен в основном удалёнными ключами,
+     * построение индекса того же размера без них
+     */
+    private void growIndex() {
+        int capacity = ((long) (_size + 1) * 4 > _indexCapacity) ? _indexCapacity * 2 : _indexCapacity;
+        if (capacity > MAX_INDEX_CAPACITY) {
+            throw new IllegalStateException("OffHeapLinkedHashSet index is full");
+        }
+
+        Region index;
+        Path tmpPath = null;
+        try {
+            if (_directory == null) {
+                index = new DirectRegion(MAX_SEGMENT_BYTES);
+            } else {
+                tmpPath = _directory.resolve("index.tmp");
+                index = new MappedRegion(FileChannel.open(tmpPath, CREATE, READ, WRITE, TRUNCATE_EXISTING),
+                    MAX_SEGMENT_BYTES);
+            }
+            index.ensureCapacity((long) capacity * Integer.BYTES);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int mask = capacity - 1;
+        for (int id = _head; id != NONE; id = entryInt(id, ENTRY_NEXT)) {
+            int slot = spread(entryHash(id)) & mask;
+            while (slot(index, slot) != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            setSlot(index, slot, id + 1);
+        }
+
+        try {
+            if (tmpPath != null) {
+                // Новый индекс заменяет старый файл только после записи на диск
+                index.sync();
+                _index.close();
+                Files.move(tmpPath, _directory.resolve("index"), REPLACE_EXISTING, ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        _index = index;
+        _indexCapacity = capacity;
+        _tombstones = 0;
+        writeHeader();
+    }
+
+    /**
+     * Хеш-код ключа, совпадающий с {@link HashingStrategy#byteArrays()}
+     *
+     * @param key      - буфер с ключом
+     * @param position - позиция ключа в буфере
+     * @return хеш-код
+     */
+    private int hash(ByteBuffer key, int position) {
+        long hash = _keySize;
+        int i = 0;
+
+        for (; i + Long.BYTES <= _keySize; i += Long.BYTES) {
+            hash = HashingStrategies.mix(hash, (long) LONG_VIEW.get(key, position + i));
+        }
+
+        long tail = 0;
+        for (int shift = 0; i < _keySize; i++, shift += Byte.SIZE) {
+            tail |= (key.get(position + i) & 0xffL) << shift;
+        }
+
+        return HashingStrategies.finish(HashingStrategies.mix(hash, tail));
+    }
+
+    /**
+     * Сравнение ключа записи с заданным ключом
+     *
+     * @param id       - номер записи
+     * @param key      - буфер с ключом
+     * @param position - позиция ключа в буфере
+     * @return {@code true}, если ключи совпадают
+     */
+    private boolean keyEquals(int id, ByteBuffer key, int position) {
+        ByteBuffer segment = entrySegment(id);
+        int offset = entryOffset(id) + ENTRY_KEY;
+        int i = 0;
+
+        for (; i + Long.BYTES <= _keySize; i += Long.BYTES) {
+            if ((long) LONG_VIEW.get(segment, offset + i) != (long) LONG_VIEW.get(key, position + i)) {
+                return false;
+            }
+        }
+        for (; i < _keySize; i++) {
+            if (segment.get(offset + i) != key.get(position + i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Проверка, что буфер содержит ключ
+     *
+     * @param key - буфер
+     * @return позиция ключа в буфере
+     * @throws IllegalArgumentException если в буфере меньше {@code keySize} байт
+     */
+    private int checkKey(ByteBuffer key) {
+        if (key.remaining() < _keySize) {
+            throw new IllegalArgumentException("Key must have " + _keySize + " bytes, got " + key.remaining());
+        }
+        return key.position();
+    }
+
+    private ByteBuffer entrySegment(int id) {
+        return _entries.segment(id >>> _entryShift);
+    }
+
+    private int entryOffset(int id) {
+        return (id & ((1 << _entryShift) - 1)) * _entrySize;
+    }
+
+    private int entryHash(int id) {
+        return entryInt(id, ENTRY_HASH);
+    }
+
+    private int entryInt(int id, int field) {
+        return entrySegment(id).getInt(entryOffset(id) + field);
+    }
+
+    private void setEntryInt(int id, int field, int value) {
+        entrySegment(id).putInt(entryOffset(id) + field, value);
+    }
+
+    private static int slot(Region index, int slot) {
+        return index.segment(slot >>> INDEX_SEGMENT_SHIFT).getInt((slot & INDEX_SEGMENT_MASK) << 2);
+    }
+
+    private static void setSlot(Region index, int slot, int value) {
+        index.segment(slot >>> INDEX_SEGMENT_SHIFT).putInt((slot & INDEX_SEGMENT_MASK) << 2, value);
+    }
+
+    /**
+     * Копирование байт между буферами без изменения их позиций
+     *
+     * @param src       - исходный буфер
+     * @param srcOffset - смещение в исходном буфере
+     * @param dst       - буфер назначения
+     * @param dstOffset - смещение в буфере назначения
+     * @param length    - количество байт
+     */
+    private static void copy(ByteBuffer src, int srcOffset, ByteBuffer dst, int dstOffset, int length) {
+        int i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            LONG_VIEW.set(dst, dstOffset + i, (long) LONG_VIEW.get(src, srcOffset + i));
+        }
+        for (; i < length; i++) {
+            dst.put(dstOffset + i, src.get(srcOffset + i));
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static void checkKeySize(int keySize) {
+        if (keySize <= 0 || keySize > MAX_SEGMENT_BYTES / 2 - ENTRY_KEY) {
+            throw new IllegalArgumentException("Invalid key size: " + keySize);
+        }
+    }
+
+    /**
+     * Размер записи ключа, кратный восьми байтам
+     */
+    private static int entrySize(int keySize) {
+        return (ENTRY_KEY + keySize + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    /**
+     * Количество записей в сегменте: наибольшая степень двойки, при которой сегмент
+     * не превышает {@code MAX_SEGMENT_BYTES}
+     */
+    private static int entriesPerSegment(int keySize) {
+        return Integer.highestOneBit(MAX_SEGMENT_BYTES / entrySize(keySize));
+    }
+
+    private static int segmentBytes(int keySize) {
+        return entriesPerSegment(keySize) * entrySize(keySize);
+    }
+
+    /**
+     * Размер индекса, при котором заданное количество ключей заполняет его не более чем на четверть
+     */
+    private static int indexCapacityFor(int expectedSize) {
+        long capacity = Math.max(MIN_INDEX_CAPACITY, (long) expectedSize * 4);
+        if (capacity > MAX_INDEX_CAPACITY) {
+            throw new IllegalArgumentException("Expected size is too large: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) capacity - 1) << 1;
+    }
+
+    private static Path headerPath(Path directory) {
+        return directory.resolve("header");
+    }
+
+    /**
+     * Непрерывная область байт, разбитая на сегменты одинакового размера. Последний
+     * сегмент может быть меньше и увеличивается по мере необходимости
+     */
+    private abstract static class Region {
+
+        /** Размер полного сегмента */
+        private final int _segmentBytes;
+
+        /** Сегменты */
+        private ByteBuffer[] _segments = new ByteBuffer[0];
+
+        Region(int segmentBytes) {
+            _segmentBytes = segmentBytes;
+        }
+
+        ByteBuffer segment(int index) {
+            return _segments[index];
+        }
+
+        /**
+         * Увеличение области до заданного размера. Размер последнего сегмента
+         * увеличивается не менее чем вдвое
+         *
+         * @param bytes - размер области
+         */
+        void ensureCapacity(long bytes) {
+            int count = (int) ((bytes + _segmentBytes - 1) / _segmentBytes);
+            if (count > _segments.length) {
+                _segments = Arrays.copyOf(_segments, count);
+            }
+
+            for (int i = 0; i < count; i++) {
+                long required = Math.min(_segmentBytes, bytes - (long) i * _segmentBytes);
+                ByteBuffer segment = _segments[i];
+
+                if (segment == null || segment.capacity() < required) {
+                    int size = (i < count - 1)
+                        ? _segmentBytes
+                        : (int) Math.min(_segmentBytes,
+                            Math.max(required, (segment == null) ? 0 : 2L * segment.capacity()));
+                    _segments[i] = resize(i, segment, size).order(ByteOrder.LITTLE_ENDIAN);
+                }
+            }
+        }
+
+        /**
+         * Замена сегмента сегментом большего размера с тем же содержимым
+         *
+         * @param index   - номер сегмента
+         * @param segment - текущий сегмент или {@code null}
+         * @param size    - новый размер
+         * @return новый сегмент, дополненный нулями
+         */
+        abstract ByteBuffer resize(int index, ByteBuffer segment, int size);
+
+        void sync() {
+            for (ByteBuffer segment : _segments) {
+                if (segment instanceof MappedByteBuffer) {
+                    ((MappedByteBuffer) segment).force();
+                }
+            }
+        }
+
+        void close() throws IOException {
+            _segments = new ByteBuffer[0];
+        }
+    } // Region
+
+    /**
+     * Область в прямых буферах
+     */
+    private static final class DirectRegion extends Region {
+
+        DirectRegion(int segmentBytes) {
+            super(segmentBytes);
+        }
+
+        @Override
+        ByteBuffer resize(int index, ByteBuffer segment, int size) {
+            ByteBuffer resized = ByteBuffer.allocateDirect(size);
+            if (segment != null) {
+                resized.put(segment.duplicate().clear());
+                resized.clear();
+            }
+            return resized;
+        }
+    } // DirectRegion
+
+    /**
+     * Область в отображённом в память файле. Сегмент с номером {@code i} отображает часть
+     * файла, начинающуюся с {@code i * segmentBytes}; увеличение сегмента увеличивает файл
+     */
+    private static final class MappedRegion extends Region {
+
+        /** Канал файла */
+        private final FileChannel _channel;
+
+        /** Размер полного сегмента */
+        private final long _segmentBytes;
+
+        MappedRegion(FileChannel channel, int segmentBytes) {
+            super(segmentBytes);
+            _channel = channel;
+            _segmentBytes = segmentBytes;
+        }
+
+        @Override
+        ByteBuffer resize(int index, ByteBuffer segment, int size) {
+            try {
+                return _channel.map(MapMode.READ_WRITE, index * _segmentBytes, size);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        void close() throws IOException {
+            super.close();
+            _channel.close();
+        }
+    } // MappedRegion
+}
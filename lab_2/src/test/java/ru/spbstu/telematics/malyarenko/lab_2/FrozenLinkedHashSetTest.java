@@ -0,0 +1,123 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+public class FrozenLinkedHashSetTest
+{
+    @Test
+    public void freezeTest() {
+        MyLinkedHashSet<Integer> set = new MyLinkedHashSet<>();
+        for (int i = 100; i > 0; i--) {
+            set.add(i * 7);
+        }
+
+        FrozenLinkedHashSet<Integer> frozen = set.freeze();
+        set.clear();
+
+        assertEquals(100, frozen.size());
+        assertTrue(set.isEmpty());
+        assertEquals(Integer.valueOf(700), frozen.iterator().next());
+
+        for (int i = 1; i <= 100; i++) {
+            assertTrue(frozen.contains(i * 7));
+            assertFalse(frozen.contains(i * 7 + 1));
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutableAddTest() {
+        new MyLinkedHashSet<>(Arrays.asList("a", "b")).freeze().add("c");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutableRemoveTest() {
+        new MyLinkedHashSet<>(Arrays.asList("a", "b")).freeze().remove("a");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutableIteratorRemoveTest() {
+        Iterator<String> iterator = new MyLinkedHashSet<>(Arrays.asList("a", "b")).freeze().iterator();
+        iterator.next();
+        iterator.remove();
+    }
+
+    @Test
+    public void thawTest() {
+        MyLinkedHashSet<CharSequence> set = new MyLinkedHashSet<>(HashingStrategy.caseInsensitive());
+        set.add("Diesel");
+        set.add("Petrol");
+
+        FrozenLinkedHashSet<CharSequence> frozen = set.freeze();
+        assertTrue(frozen.contains("DIESEL"));
+
+        MyLinkedHashSet<CharSequence> thawed = frozen.thaw();
+        assertFalse(thawed.add("petrol"));
+        assertTrue(thawed.add("Gas"));
+        assertArrayEquals(new Object[] {"Diesel", "Petrol", "Gas"}, thawed.toArray());
+        assertEquals(2, frozen.size());
+    }
+
+    @Test
+    public void copyOnWriteTest() {
+        CopyOnWriteLinkedHashSet<Integer> set = new CopyOnWriteLinkedHashSet<>();
+
+        assertTrue(set.add(3));
+        assertTrue(set.add(1));
+        assertFalse(set.add(3));
+        assertTrue(set.add(2));
+
+        FrozenLinkedHashSet<Integer> before = set.snapshot();
+        Iterator<Integer> iterator = set.iterator();
+
+        assertTrue(set.remove(1));
+        assertFalse(set.remove(1));
+        set.update(copy -> {
+            copy.add(4);
+            copy.add(5);
+        });
+
+        assertArrayEquals(new Integer[] {3, 2, 4, 5}, set.toArray(new Integer[0]));
+        assertArrayEquals(new Integer[] {3, 1, 2}, before.toArray(new Integer[0]));
+        assertEquals(Integer.valueOf(3), iterator.next());
+        assertEquals(Integer.valueOf(1), iterator.next());
+
+        assertTrue(set.retainAll(Arrays.asList(4, 5, 6)));
+        assertArrayEquals(new Integer[] {4, 5}, set.toArray(new Integer[0]));
+
+        set.replace(Arrays.asList(9, 8, 9));
+        assertArrayEquals(new Integer[] {9, 8}, set.toArray(new Integer[0]));
+
+        set.clear();
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void copyOnWriteConcurrentReadTest() throws InterruptedException {
+        CopyOnWriteLinkedHashSet<Integer> set = new CopyOnWriteLinkedHashSet<>();
+        set.add(0);
+
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i < 2000; i++) {
+                set.add(i);
+            }
+        });
+        writer.start();
+
+        while (writer.isAlive()) {
+            FrozenLinkedHashSet<Integer> snapshot = set.snapshot();
+            int expected = 0;
+            for (Integer i : snapshot) {
+                assertEquals(expected++, i.intValue());
+            }
+            assertEquals(snapshot.size(), expected);
+        }
+        writer.join();
+
+        assertEquals(2000, set.size());
+    }
+}
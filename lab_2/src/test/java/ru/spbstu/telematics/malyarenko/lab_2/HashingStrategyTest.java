@@ -0,0 +1,66 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HashingStrategyTest
+{
+    @Test
+    public void byteArraysTest() {
+        MyLinkedHashSet<byte[]> set = new MyLinkedHashSet<>(HashingStrategy.byteArrays());
+        Random random = new Random(1);
+
+        for (int length = 0; length < 40; length++) {
+            byte[] key = new byte[length];
+            random.nextBytes(key);
+
+            assertTrue(set.add(key));
+            assertFalse(set.add(key.clone()));
+            assertTrue(set.contains(key.clone()));
+        }
+
+        assertEquals(40, set.size());
+        assertTrue(set.remove(new byte[0]));
+        assertFalse(set.contains(new byte[0]));
+    }
+
+    @Test
+    public void byteArraysHashTest() {
+        HashingStrategy<byte[]> strategy = HashingStrategy.byteArrays();
+
+        byte[] a = {1, 2, 3, 4, 5, 6, 7, 8, 9};
+        byte[] b = {1, 2, 3, 4, 5, 6, 7, 8, 10};
+
+        assertEquals(strategy.hash(a), strategy.hash(a.clone()));
+        assertNotEquals(strategy.hash(a), strategy.hash(b));
+        assertNotEquals(strategy.hash(new byte[1]), strategy.hash(new byte[2]));
+    }
+
+    @Test
+    public void charArraysTest() {
+        MyLinkedHashSet<char[]> set = new MyLinkedHashSet<>(HashingStrategy.charArrays());
+
+        assertTrue(set.add("fuel".toCharArray()));
+        assertTrue(set.add("pump station".toCharArray()));
+        assertFalse(set.add("fuel".toCharArray()));
+        assertTrue(set.contains("pump station".toCharArray()));
+        assertFalse(set.contains("pump".toCharArray()));
+    }
+
+    @Test
+    public void caseInsensitiveTest() {
+        MyLinkedHashSet<CharSequence> set = new MyLinkedHashSet<>(HashingStrategy.caseInsensitive());
+
+        assertTrue(set.add("Diesel"));
+        assertFalse(set.add("DIESEL"));
+        assertFalse(set.add(new StringBuilder("diesel")));
+        assertTrue(set.contains("dIeSeL"));
+        assertTrue(set.add("Дизель"));
+        assertTrue(set.contains("ДИЗЕЛЬ"));
+
+        assertArrayEquals(new Object[] {"Diesel", "Дизель"}, set.toArray());
+    }
+}
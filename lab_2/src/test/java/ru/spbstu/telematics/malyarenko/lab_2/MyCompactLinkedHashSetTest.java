@@ -0,0 +1,103 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class MyCompactLinkedHashSetTest
+{
+    private MyCompactLinkedHashSet<Integer> set;
+    private Integer[] array = {
+        2, 3, 5, 7, 11, 13, 17, 19,
+        23, 29, 31, 37, 41, 43, 47,
+        53, 59, 61, 67, 71, 73, 79,
+        83, 89, 97, 101, 103, 107};
+
+    @Before
+    public void setUp() {
+        set = new MyCompactLinkedHashSet<>(Arrays.asList(array));
+    }
+
+    @Test
+    public void orderTest() {
+        assertEquals(array.length, set.size());
+        assertArrayEquals(array, set.toArray());
+        assertArrayEquals(array, set.toArray(new Integer[0]));
+        assertFalse(set.add(53));
+    }
+
+    @Test
+    public void removeAndCompactTest() {
+        for (int i = 0; i < array.length; i += 2) {
+            assertTrue(set.remove(array[i]));
+            assertFalse(set.remove(array[i]));
+        }
+
+        assertTrue(set.tombstones() <= set.size());
+        for (int i = 0; i < array.length; i++) {
+            assertEquals(i % 2 == 1, set.contains(array[i]));
+        }
+
+        set.add(array[0]);
+        Object[] arrayObj = set.toArray();
+        assertEquals(array[0], arrayObj[arrayObj.length - 1]);
+    }
+
+    @Test
+    public void iteratorRemoveTest() {
+        Iterator<Integer> it = set.iterator();
+        while (it.hasNext()) {
+            if (it.next() > 50) {
+                it.remove();
+            }
+        }
+
+        assertEquals(15, set.size());
+        assertArrayEquals(Arrays.copyOf(array, 15), set.toArray());
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void iteratorFailFastTest() {
+        for (Integer i : set) {
+            set.add(i + 1000);
+        }
+    }
+
+    @Test
+    public void clearTest() {
+        set.clear();
+
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(2));
+        assertFalse(set.iterator().hasNext());
+
+        set.add(5);
+        assertArrayEquals(new Object[] {5}, set.toArray());
+    }
+
+    @Test
+    public void randomOperationsTest() {
+        MyCompactLinkedHashSet<Integer> compact = new MyCompactLinkedHashSet<>();
+        LinkedHashSet<Integer> expected = new LinkedHashSet<>();
+        Random random = new Random(1);
+
+        for (int i = 0; i < 100000; i++) {
+            Integer value = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), compact.remove(value));
+            } else {
+                assertEquals(expected.add(value), compact.add(value));
+            }
+        }
+
+        assertEquals(expected.size(), compact.size());
+        assertArrayEquals(expected.toArray(), compact.toArray());
+    }
+}
@@ -0,0 +1,115 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MyLinkedHashMultisetTest
+{
+    @Test
+    public void countTest() {
+        MyLinkedHashMultiset<String> multiset = new MyLinkedHashMultiset<>();
+
+        assertTrue(multiset.add("diesel"));
+        assertTrue(multiset.add("petrol"));
+        assertFalse(multiset.add("diesel"));
+        assertEquals(5, multiset.add("petrol", 4));
+
+        assertEquals(2, multiset.size());
+        assertEquals(2, multiset.count("diesel"));
+        assertEquals(5, multiset.count("petrol"));
+        assertEquals(0, multiset.count("gas"));
+        assertArrayEquals(new Object[] {"diesel", "petrol"}, multiset.toArray());
+    }
+
+    @Test
+    public void removeTest() {
+        MyLinkedHashMultiset<String> multiset = new MyLinkedHashMultiset<>();
+        multiset.add("diesel", 3);
+        multiset.add("petrol", 2);
+
+        assertEquals(1, multiset.remove("diesel", 2));
+        assertEquals(0, multiset.remove("diesel", 5));
+        assertFalse(multiset.contains("diesel"));
+        assertEquals(0, multiset.remove("gas", 1));
+
+        assertTrue(multiset.remove("petrol"));
+        assertTrue(multiset.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveOccurrencesTest() {
+        new MyLinkedHashMultiset<String>().add("diesel", 0);
+    }
+
+    @Test
+    public void forEachEntryTest() {
+        MyLinkedHashMultiset<Integer> multiset = new MyLinkedHashMultiset<>();
+        Map<Integer, Long> expected = new LinkedHashMap<>();
+        Random random = new Random(3);
+
+        for (int i = 0; i < 10000; i++) {
+            int value = random.nextInt(500);
+            multiset.add(value);
+            expected.merge(value, 1L, Long::sum);
+        }
+
+        Map<Integer, Long> actual = new LinkedHashMap<>();
+        multiset.forEachEntry(actual::put);
+
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(actual.entrySet()));
+    }
+
+    @Test
+    public void mergeTest() {
+        List<MyLinkedHashMultiset<Integer>> parts = new ArrayList<>();
+        Map<Integer, Long> expected = new LinkedHashMap<>();
+        Random random = new Random(5);
+
+        for (int part = 0; part < 7; part++) {
+            MyLinkedHashMultiset<Integer> multiset = new MyLinkedHashMultiset<>();
+            for (int i = 0; i < 3000; i++) {
+                int value = random.nextInt(2000);
+                multiset.add(value);
+                expected.merge(value, 1L, Long::sum);
+            }
+            parts.add(multiset);
+        }
+
+        MyLinkedHashMultiset<Integer> merged = MyLinkedHashMultiset.merge(parts);
+
+        Map<Integer, Long> actual = new LinkedHashMap<>();
+        merged.forEachEntry(actual::put);
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(actual.entrySet()));
+
+        // Части при слиянии не изменяются
+        long[] total = {0};
+        parts.get(0).forEachEntry((value, count) -> total[0] += count);
+        assertEquals(3000, total[0]);
+    }
+
+    @Test
+    public void rankIndexUnsupportedTest() {
+        MyLinkedHashMultiset<String> multiset = new MyLinkedHashMultiset<>();
+        multiset.add("diesel");
+        multiset.add("petrol", 3);
+        assertFalse(multiset.supportsRankIndex());
+
+        // Без индекса порядковые номера вычисляются обходом списка
+        assertEquals("petrol", multiset.get(1));
+        assertEquals(0, multiset.indexOf("diesel"));
+
+        try {
+            multiset.enableRankIndex();
+            fail();
+        } catch (UnsupportedOperationException e) {
+            assertEquals(3, multiset.count("petrol"));
+        }
+    }
+}
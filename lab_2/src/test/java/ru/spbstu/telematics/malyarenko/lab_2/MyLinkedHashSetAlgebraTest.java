@@ -0,0 +1,96 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class MyLinkedHashSetAlgebraTest
+{
+    /**
+     * Заполнение множеств случайными числами из заданного диапазона
+     */
+    private static void fill(Set<Integer> set, Set<Integer> expected, int count, int bound, long seed) {
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            Integer value = random.nextInt(bound);
+            set.add(value);
+            expected.add(value);
+        }
+    }
+
+    private static void check(int countA, int countB, int bound) {
+        MyLinkedHashSet<Integer> a = new MyLinkedHashSet<>();
+        MyLinkedHashSet<Integer> b = new MyLinkedHashSet<>();
+        LinkedHashSet<Integer> expectedA = new LinkedHashSet<>();
+        LinkedHashSet<Integer> expectedB = new LinkedHashSet<>();
+        fill(a, expectedA, countA, bound, 1);
+        fill(b, expectedB, countB, bound, 2);
+
+        LinkedHashSet<Integer> union = new LinkedHashSet<>(expectedA);
+        union.addAll(expectedB);
+        LinkedHashSet<Integer> intersection = new LinkedHashSet<>(expectedA);
+        intersection.retainAll(expectedB);
+        LinkedHashSet<Integer> difference = new LinkedHashSet<>(expectedA);
+        difference.removeAll(expectedB);
+
+        assertArrayEquals(union.toArray(), MyLinkedHashSetAlgebra.union(a, b).toArray());
+        assertArrayEquals(union.toArray(), MyLinkedHashSetAlgebra.union(a, new LinkedHashSet<>(b)).toArray());
+        assertArrayEquals(intersection.toArray(), MyLinkedHashSetAlgebra.intersection(a, b).toArray());
+        assertArrayEquals(difference.toArray(), MyLinkedHashSetAlgebra.difference(a, b).toArray());
+        assertEquals(intersection.isEmpty(), MyLinkedHashSetAlgebra.isDisjoint(a, b));
+    }
+
+    @Test
+    public void smallSetsTest() {
+        check(1000, 300, 2000);
+        check(300, 1000, 2000);
+        check(0, 100, 200);
+        check(100, 0, 200);
+    }
+
+    @Test
+    public void parallelSetsTest() {
+        check(3 * MyLinkedHashSetAlgebra.PARALLEL_THRESHOLD, MyLinkedHashSetAlgebra.PARALLEL_THRESHOLD, 500000);
+    }
+
+    @Test
+    public void resultIsIndependentTest() {
+        MyLinkedHashSet<Integer> a = new MyLinkedHashSet<>();
+        a.add(1);
+        a.add(2);
+        MyLinkedHashSet<Integer> b = new MyLinkedHashSet<>();
+        b.add(2);
+
+        MyLinkedHashSet<Integer> difference = MyLinkedHashSetAlgebra.difference(a, b);
+        difference.add(3);
+        assertTrue(difference.remove(1));
+
+        assertArrayEquals(new Object[] {1, 2}, a.toArray());
+        assertArrayEquals(new Object[] {3}, difference.toArray());
+    }
+
+    @Test
+    public void coarserEqualityTest() {
+        MyLinkedHashSet<String> a = new MyLinkedHashSet<>();
+        a.add("abc");
+        a.add("ABC");
+        a.add("fuel");
+
+        // Один элемент b равен двум элементам a: проверки нельзя прекращать по количеству найденных
+        MyLinkedHashSet<CharSequence> caseInsensitive = new MyLinkedHashSet<>(HashingStrategy.caseInsensitive());
+        caseInsensitive.add("Abc");
+        TreeSet<String> comparator = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        comparator.add("Abc");
+
+        for (Set<?> b : Arrays.asList(caseInsensitive, comparator)) {
+            assertArrayEquals(new Object[] {"abc", "ABC"}, MyLinkedHashSetAlgebra.intersection(a, b).toArray());
+            assertArrayEquals(new Object[] {"fuel"}, MyLinkedHashSetAlgebra.difference(a, b).toArray());
+        }
+    }
+}
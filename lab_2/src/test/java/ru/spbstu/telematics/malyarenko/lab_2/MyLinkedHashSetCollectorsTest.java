@@ -0,0 +1,66 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import static org.junit.Assert.*;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+public class MyLinkedHashSetCollectorsTest
+{
+    @Test
+    public void parallelOrderTest() {
+        int[] values = new Random(11).ints(200000, 0, 50000).toArray();
+
+        LinkedHashSet<Integer> expected = IntStream.of(values).boxed()
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        MyLinkedHashSet<Integer> actual = IntStream.of(values).boxed().parallel()
+            .collect(MyLinkedHashSetCollectors.toMyLinkedHashSet());
+
+        assertEquals(expected.size(), actual.size());
+        assertArrayEquals(expected.toArray(), actual.toArray());
+        for (int i = 0; i < 50000; i++) {
+            assertEquals(expected.contains(i), actual.contains(i));
+        }
+    }
+
+    @Test
+    public void spliceTest() {
+        MyLinkedHashSet<Integer> left = new MyLinkedHashSet<>();
+        MyLinkedHashSet<Integer> right = new MyLinkedHashSet<>();
+        for (int i = 0; i < 10; i++) {
+            left.add(i);
+        }
+        for (int i = 5; i < 100; i++) {
+            right.add(i);
+        }
+
+        // Левая часть меньше: её узлы присоединяются перед узлами правой
+        right.spliceBefore(left);
+
+        assertTrue(left.isEmpty());
+        assertEquals(100, right.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(i), right.get(i));
+            assertTrue(right.contains(i));
+        }
+
+        right.remove(0);
+        right.remove(99);
+        assertEquals(Integer.valueOf(1), right.iterator().next());
+        assertEquals(Integer.valueOf(98), right.get(97));
+    }
+
+    @Test
+    public void strategyTest() {
+        MyLinkedHashSet<CharSequence> actual = Stream.of("Diesel", "petrol", "DIESEL", "Gas", "PETROL")
+            .parallel()
+            .collect(MyLinkedHashSetCollectors.toMyLinkedHashSet(HashingStrategy.caseInsensitive()));
+
+        assertArrayEquals(new Object[] {"Diesel", "petrol", "Gas"}, actual.toArray());
+    }
+}
@@ -0,0 +1,162 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MyLinkedHashSetSnapshotTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MyLinkedHashSet<String> set;
+    private Path path;
+
+    @Before
+    public void setUp() throws IOException {
+        set = new MyLinkedHashSet<>();
+        for (int i = 0; i < 10000; i++) {
+            set.add("element-" + (i * 7919 % 10007));
+        }
+        set.remove("element-0");
+        set.add("");
+        set.add("элемент");
+
+        path = folder.getRoot().toPath().resolve("set.snapshot");
+    }
+
+    @Test
+    public void writeReadTest() throws IOException {
+        MyLinkedHashSetSnapshot.write(set, path, ElementCodec.utf8());
+        MyLinkedHashSet<String> loaded = MyLinkedHashSetSnapshot.read(path, ElementCodec.utf8());
+
+        assertEquals(set.size(), loaded.size());
+        assertArrayEquals(set.toArray(), loaded.toArray());
+        assertTrue(loaded.contains("элемент"));
+        assertFalse(loaded.contains("element-0"));
+        assertFalse(loaded.add("element-7919"));
+        assertTrue(loaded.remove(""));
+    }
+
+    @Test
+    public void emptySetTest() throws IOException {
+        MyLinkedHashSetSnapshot.write(new MyLinkedHashSet<String>(), path, ElementCodec.utf8());
+
+        assertTrue(MyLinkedHashSetSnapshot.read(path, ElementCodec.utf8()).isEmpty());
+    }
+
+    @Test
+    public void clearedElementsSkippedTest() throws IOException {
+        MyReferenceLinkedHashSet<String> references = new MyReferenceLinkedHashSet<>(MyReferenceLinkedHashSet.Strength.WEAK);
+        String[] elements = {"diesel", "petrol", "gas"};
+        for (String element : elements) {
+            references.add(element);
+        }
+
+        // Ссылка очищена, но ещё не поставлена в очередь: узел учитывается в size()
+        references.forEachNode(node -> {
+            if ("petrol".equals(node.data())) {
+                ((MyReferenceLinkedHashSet.ReferenceNode<String>) node)._ref.clear();
+            }
+        });
+
+        MyLinkedHashSetSnapshot.write(references, path, ElementCodec.utf8());
+        MyLinkedHashSet<String> loaded = MyLinkedHashSetSnapshot.read(path, ElementCodec.utf8());
+
+        assertArrayEquals(new Object[] {"diesel", "gas"}, loaded.toArray());
+        assertEquals(2, loaded.size());
+    }
+
+    @Test
+    public void failedWriteLeavesNoTempFileTest() throws IOException {
+        MyLinkedHashSetSnapshot.write(set, path, ElementCodec.utf8());
+        byte[] written = Files.readAllBytes(path);
+
+        // Кодек отказывает на середине обхода: прежний снимок не изменяется, временный файл удалён
+        ElementCodec<String> failing = new ElementCodec<String>() {
+            @Override
+            public byte[] encode(String element) {
+                if (element.isEmpty()) {
+                    throw new IllegalStateException("Cannot encode an empty element");
+                }
+                return ElementCodec.utf8().encode(element);
+            }
+
+            @Override
+            public String decode(ByteBuffer buffer, int length) {
+                return ElementCodec.utf8().decode(buffer, length);
+            }
+        };
+        try {
+            MyLinkedHashSetSnapshot.write(set, path, failing);
+            fail();
+        } catch (IllegalStateException e) {
+            // ожидаемое исключение кодека
+        }
+
+        assertArrayEquals(written, Files.readAllBytes(path));
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void concurrentWritesTest() throws Exception {
+        MyLinkedHashSet<String> other = new MyLinkedHashSet<>();
+        for (int i = 0; i < 20000; i++) {
+            other.add("other-" + i);
+        }
+
+        // Каждая запись идёт в свой временный файл: файл снимка - один из двух целых снимков
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 20; round++) {
+                Future<?> first = executor.submit(() -> {
+                    MyLinkedHashSetSnapshot.write(set, path, ElementCodec.utf8());
+                    return null;
+                });
+                Future<?> second = executor.submit(() -> {
+                    MyLinkedHashSetSnapshot.write(other, path, ElementCodec.utf8());
+                    return null;
+                });
+                first.get();
+                second.get();
+
+                Object[] loaded = MyLinkedHashSetSnapshot.read(path, ElementCodec.utf8()).toArray();
+                assertTrue(Arrays.equals(set.toArray(), loaded) || Arrays.equals(other.toArray(), loaded));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedSnapshotTest() throws IOException {
+        MyLinkedHashSetSnapshot.write(set, path, ElementCodec.utf8());
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) - 3);
+        }
+
+        MyLinkedHashSetSnapshot.read(path, ElementCodec.utf8());
+    }
+}
@@ -0,0 +1,164 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class MyLinkedHashSetStatsTest
+{
+    /** Ключ с постоянным хеш-кодом */
+    private static class BadKey {
+        private final int _value;
+
+        BadKey(int value) {
+            _value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return (o instanceof BadKey) && ((BadKey) o)._value == _value;
+        }
+    }
+
+    @Test
+    public void disabledTest() {
+        MyLinkedHashSet<Integer> set = new MyLinkedHashSet<>();
+        assertNull(set.stats());
+
+        MyLinkedHashSetStats stats = set.enableStats();
+        assertSame(stats, set.enableStats());
+
+        set.disableStats();
+        set.add(1);
+        assertNull(set.stats());
+        assertEquals(0, stats.getLookups());
+    }
+
+    @Test
+    public void badHashCodeTest() {
+        MyLinkedHashSet<BadKey> set = new MyLinkedHashSet<>();
+        MyLinkedHashSetStats stats = set.enableStats();
+
+        for (int i = 0; i < 10; i++) {
+            set.add(new BadKey(i));
+        }
+        assertTrue(set.contains(new BadKey(9)));
+        assertFalse(set.contains(new BadKey(10)));
+
+        MyLinkedHashSetStats.Snapshot snapshot = stats.snapshot();
+        long[] histogram = snapshot.chainLengthHistogram();
+
+        assertEquals(10, snapshot.maxChainLength());
+        assertEquals(1, histogram[10]);
+        assertEquals(snapshot.hashTableSize() - 1, histogram[0]);
+        assertEquals(1.0 / snapshot.hashTableSize(), snapshot.occupancy(), 1e-9);
+
+        // 0 + 1 + ... + 9 узлов при добавлении и по 10 при двух поисках
+        assertEquals(12, snapshot.lookups());
+        assertEquals(65, snapshot.averageProbes() * 12, 1e-9);
+        assertEquals(10, snapshot.maxProbes());
+        assertEquals(65, snapshot.equalsCalls());
+    }
+
+    @Test
+    public void resizeTest() {
+        MyLinkedHashSet<Integer> set = new MyLinkedHashSet<>(4);
+        MyLinkedHashSetStats stats = set.enableStats();
+
+        for (int i = 0; i < 100; i++) {
+            set.add(i);
+        }
+
+        assertEquals(6, stats.getResizes());
+        assertTrue(stats.getMaxResizeNanos() <= stats.getResizeNanos());
+
+        // Состояние хеш-таблицы MBean возвращает по последнему снимку
+        assertEquals(4, stats.getHashTableSize());
+        assertEquals(1, stats.snapshot().maxChainLength());
+        assertEquals(1, stats.getMaxChainLength());
+        assertEquals(set.hashTableSize(), stats.getHashTableSize());
+
+        stats.reset();
+        assertEquals(0, stats.getResizes());
+        assertEquals(0, stats.getLookups());
+    }
+
+    @Test
+    public void concurrentReadTest() throws InterruptedException {
+        MyLinkedHashSet<Integer> set = new MyLinkedHashSet<>(4, true);
+        MyLinkedHashSetStats stats = set.enableStats();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger reads = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        // Поток MBean читает статистику, пока владелец увеличивает, рехеширует и очищает таблицу
+        // и публикует снимки
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                try {
+                    long[] histogram = stats.getChainLengthHistogram();
+                    assertEquals(MyLinkedHashSetStats.HISTOGRAM_BINS, histogram.length);
+                    assertTrue(stats.getMaxChainLength() >= 0);
+                    assertTrue(stats.getSize() >= 0);
+                    reads.incrementAndGet();
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    return;
+                }
+            }
+        });
+        reader.start();
+
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 20000; i++) {
+                set.add(i);
+                if (i % 1000 == 0) {
+                    stats.snapshot();
+                }
+            }
+            set.clear(round % 2 == 0);
+        }
+        done.set(true);
+        reader.join();
+
+        assertNull(failure.get());
+        assertTrue(reads.get() > 0);
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    public void mbeanTest() throws Exception {
+        MyLinkedHashSet<Integer> set = new MyLinkedHashSet<>();
+        MyLinkedHashSetStats stats = set.enableStats();
+        set.add(1);
+        set.add(2);
+
+        ObjectName name = new ObjectName("ru.spbstu.telematics.malyarenko.lab_2:type=MyLinkedHashSetStats,name=test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        stats.registerMBean(name);
+        try {
+            assertEquals(2, server.getAttribute(name, "Size"));
+            assertEquals(2L, server.getAttribute(name, "Lookups"));
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, server.getAttribute(name, "Lookups"));
+        } finally {
+            stats.unregisterMBean();
+        }
+
+        assertFalse(server.isRegistered(name));
+    }
+}
@@ -5,6 +5,10 @@ import org.junit.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Random;
 import java.util.Vector;
 
 import org.junit.Test;
@@ -150,5 +154,178 @@ public class MyLinkedHashSetTest
         Object[] arrayObj = set.toArray();
 
         assertArrayEquals(array, arrayObj);
-    } 
+    }
+
+    @Test
+    public void clearKeepsOrderListConsistentTest() {
+        setFilled.clear(false);
+
+        assertTrue(setFilled.isEmpty());
+        assertFalse(setFilled.contains(2));
+        assertFalse(setFilled.iterator().hasNext());
+
+        setFilled.add(7);
+        setFilled.add(3);
+
+        assertArrayEquals(new Object[] {7, 3}, setFilled.toArray());
+    }
+
+    @Test
+    public void iteratorRemoveTest() {
+        Iterator<Integer> it = setFilled.iterator();
+        while (it.hasNext()) {
+            if (it.next() % 10 == 3) {
+                it.remove();
+            }
+        }
+
+        for (Integer i : array) {
+            assertEquals(i % 10 != 3, setFilled.contains(i));
+        }
+
+        Iterator<Integer> itLast = setFilled.iterator();
+        Integer last = null;
+        while (itLast.hasNext()) {
+            last = itLast.next();
+        }
+        itLast.remove();
+        setFilled.add(last);
+
+        Object[] arrayObj = setFilled.toArray();
+        assertEquals(last, arrayObj[arrayObj.length - 1]);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void iteratorRemoveTwiceTest() {
+        Iterator<Integer> it = setFilled.iterator();
+        it.next();
+        it.remove();
+        it.remove();
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void iteratorFailFastTest() {
+        for (Integer i : setFilled) {
+            setFilled.remove(i);
+        }
+    }
+
+    @Test
+    public void retainAllTest() {
+        list.add(107);
+        list.add(2);
+        list.add(53);
+        list.add(1000);
+
+        assertTrue(setFilled.retainAll(list));
+        assertArrayEquals(new Object[] {2, 53, 107}, setFilled.toArray());
+        assertFalse(setFilled.retainAll(list));
+    }
+
+    @Test
+    public void growTest() {
+        MyLinkedHashSet<Integer> grown = new MyLinkedHashSet<>(4);
+
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(grown.add(i * 31));
+        }
+
+        assertEquals(10000, grown.size());
+        assertTrue(grown.hashTableSize() > 10000);
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(grown.contains(i * 31));
+        }
+
+        grown.clear(false);
+        assertEquals(4, grown.hashTableSize());
+    }
+
+    @Test
+    public void incrementalRehashTest() {
+        MyLinkedHashSet<Integer> grown = new MyLinkedHashSet<>(4, true);
+        LinkedHashSet<Integer> expected = new LinkedHashSet<>();
+        boolean rehashObserved = false;
+
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(grown.add(i));
+            assertFalse(grown.add(i));
+            expected.add(i);
+            rehashObserved |= grown.isRehashing();
+
+            if (i % 3 == 0) {
+                assertTrue(grown.remove(i / 2));
+                expected.remove(i / 2);
+            }
+        }
+
+        assertTrue(rehashObserved);
+        assertArrayEquals(expected.toArray(), grown.toArray());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(expected.contains(i), grown.contains(i));
+        }
+    }
+
+    @Test
+    public void rankWithoutIndexTest() {
+        assertEquals(Integer.valueOf(2), setFilled.get(0));
+        assertEquals(Integer.valueOf(107), setFilled.get(array.length - 1));
+        assertEquals(Integer.valueOf(47), setFilled.get(14));
+        assertEquals(14, setFilled.indexOf(47));
+        assertEquals(-1, setFilled.indexOf(4));
+
+        Iterator<Integer> it = setFilled.iterator(26);
+        assertEquals(Integer.valueOf(103), it.next());
+        assertEquals(Integer.valueOf(107), it.next());
+        assertFalse(it.hasNext());
+        assertFalse(setFilled.iterator(array.length).hasNext());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rankOutOfBoundsTest() {
+        setFilled.get(array.length);
+    }
+
+    @Test
+    public void rankIndexTest() {
+        MyLinkedHashSet<Integer> indexed = new MyLinkedHashSet<>(4, true);
+        assertTrue(indexed.supportsRankIndex());
+        ArrayList<Integer> expected = new ArrayList<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 20000; i++) {
+            if (i == 5000) {
+                indexed.enableRankIndex();
+            }
+
+            int value = random.nextInt(4000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove((Integer) value), indexed.remove(value));
+            } else if (indexed.add(value)) {
+                expected.add(value);
+            }
+
+            if (i % 100 == 0 && !expected.isEmpty()) {
+                int rank = random.nextInt(expected.size());
+                assertEquals(expected.get(rank), indexed.get(rank));
+                assertEquals(rank, indexed.indexOf(expected.get(rank)));
+            }
+        }
+
+        assertArrayEquals(expected.toArray(), indexed.toArray());
+        for (int rank = 0; rank < expected.size(); rank++) {
+            assertEquals(expected.get(rank), indexed.get(rank));
+            assertEquals(rank, indexed.indexOf(expected.get(rank)));
+        }
+
+        int from = expected.size() / 2;
+        Iterator<Integer> it = indexed.iterator(from);
+        for (int rank = from; rank < expected.size(); rank++) {
+            assertEquals(expected.get(rank), it.next());
+        }
+        assertFalse(it.hasNext());
+
+        indexed.clear();
+        indexed.add(5);
+        assertEquals(0, indexed.indexOf(5));
+    }
 }
@@ -0,0 +1,247 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class MyReferenceLinkedHashSetTest
+{
+    /**
+     * Ожидание, пока сборщик мусора не исключит из коллекции элементы без сильных ссылок
+     */
+    private static void awaitSize(MyReferenceLinkedHashSet<?> set, int size) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            set.expungeStaleEntries();
+            if (set.size() <= size) {
+                return;
+            }
+            System.gc();
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void strongReferencesKeptTest() {
+        MyReferenceLinkedHashSet<String> set = new MyReferenceLinkedHashSet<>(MyReferenceLinkedHashSet.Strength.WEAK);
+        String diesel = new String("diesel");
+
+        assertTrue(set.add(diesel));
+        assertFalse(set.add(new String("diesel")));
+        assertTrue(set.contains("diesel"));
+        assertTrue(set.remove("diesel"));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void weakEntriesExpungedTest() throws InterruptedException {
+        MyReferenceLinkedHashSet<Object> set = new MyReferenceLinkedHashSet<>(MyReferenceLinkedHashSet.Strength.WEAK);
+        List<Object> live = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            Object o = new StringBuilder("element ").append(i).toString();
+            set.add(o);
+            if (i % 10 == 0) {
+                live.add(o);
+            }
+        }
+
+        awaitSize(set, live.size());
+
+        assertEquals(live.size(), set.size());
+        assertArrayEquals(live.toArray(), set.toArray());
+        for (Object o : live) {
+            assertTrue(set.contains(o));
+        }
+
+        // После исключения узлов коллекция продолжает работать как обычно
+        assertTrue(set.add("fuel"));
+        assertTrue(set.remove(live.get(0)));
+        assertEquals(live.size(), set.size());
+    }
+
+    @Test
+    public void iteratorSkipsClearedTest() throws InterruptedException {
+        MyReferenceLinkedHashSet<Object> set = new MyReferenceLinkedHashSet<>(MyReferenceLinkedHashSet.Strength.WEAK);
+        Object first = new Object();
+        Object last = new Object();
+
+        set.add(first);
+        for (int i = 0; i < 100; i++) {
+            set.add(new Object());
+        }
+        set.add(last);
+
+        for (int attempt = 0; attempt < 100 && set.freeze().size() > 2; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        Iterator<Object> it = set.iterator();
+        assertSame(first, it.next());
+        assertSame(last, it.next());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void strategySkipsClearedTest() throws InterruptedException {
+        MyReferenceLinkedHashSet<CharSequence> set = new MyReferenceLinkedHashSet<>(
+            16, MyReferenceLinkedHashSet.Strength.WEAK, HashingStrategy.caseInsensitive());
+        String kept = new String("diesel");
+
+        set.add(kept);
+        set.add(new String("abc"));
+
+        // Очередь ссылок не просматривается, поэтому узел собранного элемента остаётся в цепочке
+        for (int attempt = 0; attempt < 100 && set.freeze().size() > 1; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertFalse(set.contains("ABC"));
+        assertTrue(set.contains("DIESEL"));
+        assertTrue(set.add("Abc"));
+        assertArrayEquals(new Object[] {kept, "Abc"}, set.toArray());
+    }
+
+    @Test
+    public void expungeDuringIterationTest() throws InterruptedException {
+        MyReferenceLinkedHashSet<Object> set = new MyReferenceLinkedHashSet<>(MyReferenceLinkedHashSet.Strength.WEAK);
+        List<Object> live = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            Object o = new Object();
+            set.add(o);
+            if (i % 10 == 0) {
+                live.add(o);
+            }
+        }
+
+        // Итератор создан до сборки мусора, поэтому узлы собранных элементов ещё в коллекции
+        Iterator<Object> it = set.iterator();
+        for (int attempt = 0; attempt < 100 && set.freeze().size() > live.size(); attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(100, set.size());
+
+        // Просмотр очереди в contains() исключает узлы собранных элементов во время обхода
+        List<Object> visited = new ArrayList<>();
+        while (it.hasNext()) {
+            Object o = it.next();
+            visited.add(o);
+            assertTrue(set.contains(o));
+        }
+        assertEquals(live, visited);
+
+        // Удаление через итератор после просмотра очереди остаётся согласованным
+        awaitSize(set, live.size());
+        assertEquals(live.size(), set.size());
+        it = set.iterator();
+        it.next();
+        it.remove();
+        assertEquals(live.size() - 1, set.size());
+    }
+
+    @Test
+    public void sizeHasNoSideEffectsTest() throws InterruptedException {
+        MyReferenceLinkedHashSet<Object> set = new MyReferenceLinkedHashSet<>(MyReferenceLinkedHashSet.Strength.WEAK);
+        for (int i = 0; i < 100; i++) {
+            set.add(new Object());
+        }
+        for (int attempt = 0; attempt < 100 && set.freeze().size() > 0; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+
+        // Размер учитывает узлы собранных элементов до просмотра очереди изменяющей операцией
+        assertEquals(100, set.size());
+        assertFalse(set.isEmpty());
+        set.expungeStaleEntries();
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void statsReadDuringMutationTest() throws InterruptedException {
+        MyReferenceLinkedHashSet<Object> set = new MyReferenceLinkedHashSet<>(MyReferenceLinkedHashSet.Strength.WEAK);
+        MyLinkedHashSetStats stats = set.enableStats();
+        List<Object> live = new ArrayList<>();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        // Поток MBean читает размер, пока владелец добавляет элементы и сборщик мусора их собирает
+        Thread reader = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    assertTrue(stats.getSize() >= 0);
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+        reader.start();
+
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 2000; i++) {
+                Object o = new Object();
+                set.add(o);
+                if (i % 100 == 0) {
+                    live.add(o);
+                }
+            }
+            if (round % 10 == 0) {
+                System.gc();
+            }
+        }
+        done.set(true);
+        reader.join();
+        assertNull(failure.get());
+
+        // Чтение размера не изменяло коллекцию: после просмотра очереди остаются используемые элементы
+        awaitSize(set, live.size());
+        assertEquals(live.size(), set.size());
+        assertArrayEquals(live.toArray(), set.toArray());
+        for (Object o : live) {
+            assertTrue(set.contains(o));
+        }
+    }
+
+    @Test
+    public void softEntriesKeptTest() {
+        MyReferenceLinkedHashSet<Object> set = new MyReferenceLinkedHashSet<>(MyReferenceLinkedHashSet.Strength.SOFT);
+
+        for (int i = 0; i < 100; i++) {
+            set.add(new Object());
+        }
+        System.gc();
+
+        assertEquals(100, set.size());
+    }
+
+    @Test
+    public void rankIndexUnsupportedTest() {
+        MyReferenceLinkedHashSet<Object> set = new MyReferenceLinkedHashSet<>(MyReferenceLinkedHashSet.Strength.WEAK);
+        Object first = new Object();
+        Object second = new Object();
+        set.add(first);
+        set.add(second);
+        assertFalse(set.supportsRankIndex());
+
+        // Без индекса порядковые номера вычисляются обходом списка
+        assertSame(second, set.get(1));
+        assertEquals(0, set.indexOf(first));
+
+        try {
+            set.enableRankIndex();
+            fail();
+        } catch (UnsupportedOperationException e) {
+            assertSame(first, set.get(0));
+        }
+    }
+}
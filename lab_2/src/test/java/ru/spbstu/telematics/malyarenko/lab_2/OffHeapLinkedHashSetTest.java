@@ -0,0 +1,173 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class OffHeapLinkedHashSetTest
+{
+    @Rule
+    public TemporaryFolder _folder = new TemporaryFolder();
+
+    /**
+     * Ключ из {@code size} байт, заполненный байтами числа {@code value}
+     */
+    private static ByteBuffer key(int size, long value) {
+        ByteBuffer key = ByteBuffer.allocate(size);
+        for (int i = 0; i < size; i++) {
+            key.put(i, (byte) (value >>> ((i % 8) * 8) ^ i));
+        }
+        return key;
+    }
+
+    private static List<Long> keys(OffHeapLinkedHashSet set) {
+        List<Long> keys = new ArrayList<>();
+        set.forEachKey(key -> {
+            long value = 0;
+            for (int i = 0; i < Math.min(8, key.remaining()); i++) {
+                value |= ((key.get(i) ^ i) & 0xffL) << (i * 8);
+            }
+            keys.add(value);
+        });
+        return keys;
+    }
+
+    @Test
+    public void directTest() {
+        int keySize = 20;
+        OffHeapLinkedHashSet set = OffHeapLinkedHashSet.allocateDirect(keySize, 0);
+        LinkedHashSet<Long> expected = new LinkedHashSet<>();
+        Random random = new Random(5);
+
+        for (int i = 0; i < 50000; i++) {
+            long value = random.nextInt(20000);
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(value), set.remove(key(keySize, value)));
+            } else {
+                assertEquals(expected.add(value), set.add(key(keySize, value)));
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        assertEquals(new ArrayList<>(expected), keys(set));
+        for (long value = 0; value < 20000; value++) {
+            assertEquals(expected.contains(value), set.contains(key(keySize, value)));
+        }
+    }
+
+    @Test
+    public void keyPositionTest() {
+        OffHeapLinkedHashSet set = OffHeapLinkedHashSet.allocateDirect(16, 4);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+        buffer.put(3, (byte) 7).position(3);
+
+        assertTrue(set.add(buffer));
+        assertEquals(3, buffer.position());
+
+        ByteBuffer copy = ByteBuffer.allocate(16);
+        copy.put(0, (byte) 7);
+        assertTrue(set.contains(copy));
+        assertFalse(set.add(copy));
+    }
+
+    @Test
+    public void hashMatchesByteArraysTest() {
+        // Ключи с совпадающим хеш-кодом byteArrays() различаются сравнением байт
+        OffHeapLinkedHashSet set = OffHeapLinkedHashSet.allocateDirect(13, 0);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(set.add(key(13, i)));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(set.add(key(13, i)));
+        }
+        assertEquals(1000, set.size());
+    }
+
+    @Test
+    public void mappedReopenTest() throws IOException {
+        Path directory = _folder.getRoot().toPath().resolve("set");
+        int keySize = 32;
+
+        try (OffHeapLinkedHashSet set = OffHeapLinkedHashSet.open(directory, keySize)) {
+            for (int i = 0; i < 10000; i++) {
+                set.add(key(keySize, i));
+            }
+            for (int i = 0; i < 10000; i += 3) {
+                set.remove(key(keySize, i));
+            }
+        }
+
+        try (OffHeapLinkedHashSet set = OffHeapLinkedHashSet.open(directory, keySize)) {
+            List<Long> keys = keys(set);
+            assertEquals(6666, set.size());
+            assertEquals(6666, keys.size());
+            assertEquals(Long.valueOf(1), keys.get(0));
+            assertEquals(Long.valueOf(9998), keys.get(keys.size() - 1));
+            assertTrue(set.contains(key(keySize, 2)));
+            assertFalse(set.contains(key(keySize, 3)));
+
+            assertTrue(set.add(key(keySize, 3)));
+            assertEquals(Long.valueOf(3), keys(set).get(6666));
+        }
+    }
+
+    @Test
+    public void removedEntriesReusedTest() throws IOException {
+        Path directory = _folder.getRoot().toPath().resolve("set");
+        int keySize = 16;
+
+        try (OffHeapLinkedHashSet set = OffHeapLinkedHashSet.open(directory, keySize)) {
+            for (int i = 0; i < 1000; i++) {
+                set.add(key(keySize, i));
+            }
+            for (int i = 0; i < 1000; i += 2) {
+                set.remove(key(keySize, i));
+            }
+        }
+
+        // Список свободных записей сохраняется в заголовке
+        try (OffHeapLinkedHashSet set = OffHeapLinkedHashSet.open(directory, keySize)) {
+            for (int round = 1; round <= 10; round++) {
+                for (int i = 0; i < 500; i++) {
+                    assertTrue(set.add(key(keySize, round * 1000 + i)));
+                }
+                for (int i = 0; i < 500; i++) {
+                    assertTrue(set.remove(key(keySize, round * 1000 + i)));
+                }
+            }
+            assertEquals(1000, set.entryCount());
+
+            List<Long> expected = new ArrayList<>();
+            for (int i = 1; i < 1000; i += 2) {
+                expected.add((long) i);
+            }
+            assertEquals(expected, keys(set));
+
+            assertTrue(set.add(key(keySize, 0)));
+            assertEquals(Long.valueOf(0), keys(set).get(500));
+            assertEquals(1000, set.entryCount());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void keySizeMismatchTest() throws IOException {
+        Path directory = _folder.getRoot().toPath();
+        OffHeapLinkedHashSet.open(directory, 16).close();
+        OffHeapLinkedHashSet.open(directory, 24);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shortKeyTest() {
+        OffHeapLinkedHashSet.allocateDirect(16, 0).add(ByteBuffer.allocate(8));
+    }
+}
@@ -0,0 +1,93 @@
+package ru.spbstu.telematics.malyarenko.lab_2;
+
+import java.util.Arrays;
+
+/**
+ * Измерение задержки отдельных вызовов {@code add()} при росте {@code MyLinkedHashSet}
+ * с полным и с постепенным рехешированием.
+ * <p>
+ * Запуск после {@code mvn test-compile}:
+ * {@code java -Xmx4g -cp target/classes:target/test-classes ru.spbstu.telematics.malyarenko.lab_2.RehashLatencyBenchmark 5000000}
+ */
+public class RehashLatencyBenchmark {
+
+    /** Количество добавляемых элементов по умолчанию */
+    private static final int DEFAULT_SIZE = 5_000_000;
+
+    public static void main(String[] args) {
+        int size = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+
+        // Элементы создаются заранее, чтобы упаковка не попадала в измерение
+        Integer[] data = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = i;
+        }
+        long[] latencies = new long[size];
+
+        // Прогрев
+        for (int i = 0; i < 3; i++) {
+            measure(data, latencies, false);
+            measure(data, latencies, true);
+        }
+
+        System.out.printf("%-12s %10s %10s %10s %10s %12s %10s%n",
+            "mode", "p50, ns", "p99, ns", "p99.9, ns", "p99.99, ns", "max, ns", "total, ms");
+        report("full", data, latencies, false);
+        report("incremental", data, latencies, true);
+    }
+
+    /**
+     * Добавление всех элементов в новую коллекцию с измерением времени каждого вызова
+     *
+     * @param data        - добавляемые элементы
+     * @param latencies   - массив для задержек
+     * @param incremental - режим постепенного рехеширования
+     * @return общее время, нс
+     */
+    private static long measure(Integer[] data, long[] latencies, boolean incremental) {
+        MyLinkedHashSet<Integer> set = new MyLinkedHashSet<>(16, incremental);
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < data.length; i++) {
+            long start = System.nanoTime();
+            set.add(data[i]);
+            latencies[i] = System.nanoTime() - start;
+        }
+        return System.nanoTime() - begin;
+    }
+
+    /**
+     * Вывод перцентилей задержки для заданного режима
+     *
+     * @param mode        - название режима
+     * @param data        - добавляемые элементы
+     * @param latencies   - массив для задержек
+     * @param incremental - режим постепенного рехеширования
+     */
+    private static void report(String mode, Integer[] data, long[] latencies, boolean incremental) {
+        System.gc();
+        long total = measure(data, latencies, incremental);
+        Arrays.sort(latencies);
+
+        System.out.printf("%-12s %10d %10d %10d %10d %12d %10d%n",
+            mode,
+            percentile(latencies, 0.5),
+            percentile(latencies, 0.99),
+            percentile(latencies, 0.999),
+            percentile(latencies, 0.9999),
+            latencies[latencies.length - 1],
+            total / 1_000_000);
+    }
+
+    /**
+     * Перцентиль отсортированного массива
+     *
+     * @param sorted - отсортированные значения
+     * @param p      - уровень перцентиля от 0 до 1
+     * @return значение перцентиля
+     */
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
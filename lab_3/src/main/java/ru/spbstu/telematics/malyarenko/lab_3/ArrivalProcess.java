@@ -0,0 +1,132 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Процесс приездов клиентов открытой модели станции: каждый клиент приезжает один раз,
+ * а моменты приездов задаются процессом, а не временем обслуживания предыдущих клиентов.
+ * Поэтому нагрузку на станцию можно задавать независимо от её пропускной способности.
+ * <p>
+ * Процессы с состоянием, например {@link #trace(long...)}, рассчитаны на один прогон станции
+ */
+public interface ArrivalProcess {
+
+    /** Миллисекунд в часе */
+    long HOUR_MILLIS = 3_600_000;
+
+    /**
+     * Вернуть время следующего приезда
+     *
+     * @param now    - время предыдущего приезда или начала работы станции по часам станции, мс
+     * @param random - генератор случайных чисел станции
+     * @return long время следующего приезда по часам станции, мс, или {@code -1}, если
+     *         приездов больше не будет
+     */
+    long nextArrival(long now, Random random);
+
+    /**
+     * Пуассоновский поток: интервалы между приездами распределены экспоненциально
+     *
+     * @param perHour - средняя интенсивность, клиентов в час
+     * @return ArrivalProcess процесс приездов
+     */
+    static ArrivalProcess poisson(double perHour) {
+        double mean = HOUR_MILLIS / positive(perHour);
+        return (now, random) -> now + exponential(mean, random);
+    }
+
+    /**
+     * Пачки приездов: пуассоновский поток в течение {@code onMillis}, затем {@code offMillis}
+     * без приездов, и так далее с начала работы станции
+     *
+     * @param perHour   - интенсивность во время пачки, клиентов в час
+     * @param onMillis  - длительность пачки, мс
+     * @param offMillis - длительность паузы между пачками, мс
+     * @return ArrivalProcess процесс приездов
+     */
+    static ArrivalProcess onOff(double perHour, long onMillis, long offMillis) {
+        double mean = HOUR_MILLIS / positive(perHour);
+        if (onMillis <= 0 || offMillis < 0) {
+            throw new IllegalArgumentException("Invalid on/off periods: " + onMillis + "/" + offMillis);
+        }
+        long period = onMillis + offMillis;
+
+        return (now, random) -> {
+            long time = now;
+            while (true) {
+                if (time % period >= onMillis) {
+                    time += period - time % period;
+                }
+                long end = time - time % period + onMillis;
+                long next = time + exponential(mean, random);
+                if (next < end) {
+                    return next;
+                }
+                // Поток без памяти: интервал, вышедший за пачку, разыгрывается заново
+                // с начала следующей пачки
+                time = end;
+            }
+        };
+    }
+
+    /**
+     * Приезды в заданные моменты времени
+     *
+     * @param times - моменты приездов по часам станции, мс, в порядке неубывания
+     * @return ArrivalProcess процесс приездов
+     */
+    static ArrivalProcess trace(long... times) {
+        long[] arrivals = times.clone();
+        for (int i = 1; i < arrivals.length; i++) {
+            if (arrivals[i] < arrivals[i - 1]) {
+                throw new IllegalArgumentException("Arrival times must not decrease: " + arrivals[i]);
+            }
+        }
+
+        return new ArrivalProcess() {
+            /** Номер следующего приезда */
+            private int _next;
+
+            @Override
+            public synchronized long nextArrival(long now, Random random) {
+                return (_next < arrivals.length) ? arrivals[_next++] : -1;
+            }
+        };
+    }
+
+    /**
+     * Приезды в моменты времени, записанные в файле по одному на строку. Пустые строки и
+     * строки, начинающиеся с {@code #}, пропускаются
+     *
+     * @param file - файл с моментами приездов по часам станции, мс
+     * @return ArrivalProcess процесс приездов
+     * @throws IOException если файл не удалось прочитать
+     */
+    static ArrivalProcess trace(Path file) throws IOException {
+        try (Stream<String> lines = Files.lines(file)) {
+            return trace(lines
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .mapToLong(Long::parseLong)
+                .toArray());
+        }
+    }
+
+    /**
+     * Экспоненциально распределённый интервал
+     */
+    private static long exponential(double mean, Random random) {
+        return Math.round(-mean * Math.log(1 - random.nextDouble()));
+    }
+
+    private static double positive(double perHour) {
+        if (!(perHour > 0)) {
+            throw new IllegalArgumentException("Arrival rate must be positive: " + perHour);
+        }
+        return perHour;
+    }
+}
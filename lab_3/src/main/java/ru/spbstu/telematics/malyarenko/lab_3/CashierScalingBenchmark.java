@@ -0,0 +1,50 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+/**
+ * Зависимость пропускной способности станции и ожидания в очереди в кассу от количества
+ * кассиров.
+ * <p>
+ * Для каждого количества кассиров многопоточная модель с перехватом работы между кассирами
+ * работает заданное время с ускорением времени, а дискретно-событийная модель с теми же
+ * параметрами рассчитывает сутки работы станции для сравнения. Насосов и клиентов
+ * достаточно, чтобы при одном кассире узким местом была касса
+ * <p>
+ * Запуск: {@code CashierScalingBenchmark [maxCashiers] [seconds] [timeScale]}
+ */
+public class CashierScalingBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxCashiers = (args.length > 0) ? Integer.parseInt(args[0]) : 4;
+        long seconds = (args.length > 1) ? Long.parseLong(args[1]) : 10;
+        double timeScale = (args.length > 2) ? Double.parseDouble(args[2]) : 100;
+
+        System.out.printf("%8s | %12s %14s %12s | %12s %14s%n", "cashiers",
+            "served/hour", "cashbox wait", "pump wait", "sim/hour", "sim cashbox");
+
+        for (int cashiers = 1; cashiers <= maxCashiers; cashiers++) {
+            StationConfig config = new StationConfig()
+                .setCustomers(100)
+                .setPumps(8)
+                .setCashiers(cashiers)
+                .setTimeScale(timeScale)
+                .setLogLevel(EventLog.Level.OFF);
+
+            GasStation station = new GasStation(config);
+            station.start();
+            Thread.sleep(seconds * 1000);
+            long elapsed = station.getElapsed();
+            station.stop();
+            StationStatistics threaded = station.getStatistics();
+
+            long day = 24 * 3_600_000L;
+            StationStatistics simulated = new StationSimulation(config, cashiers).run(day);
+
+            System.out.printf("%8d | %12.0f %11.0f ms %9.0f ms | %12.0f %11.0f ms%n", cashiers,
+                threaded.getVisits() / (elapsed / 3_600_000.0),
+                threaded.getAverageCashboxWait(),
+                threaded.getAveragePumpWait(),
+                simulated.getVisits() / 24.0,
+                simulated.getAverageCashboxWait());
+        }
+    }
+}
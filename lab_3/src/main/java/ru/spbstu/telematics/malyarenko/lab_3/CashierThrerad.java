@@ -1,41 +1,58 @@
 package ru.spbstu.telematics.malyarenko.lab_3;
 
-import java.util.Queue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Semaphore;
 
 public class CashierThrerad implements Runnable {
 
-    /** Класс реализующий функции кассира */
-    private Cashier cashier;
-    
-    /** Блокирующая очередь, моделирующая очередь в кассу */
-    private BlockingQueue<Order> _cashboxQueue;
+    /** Приём заказов из очереди в кассу */
+    private OrderIntake _intake;
 
-    /** Блокирующая очередь, моделирующая работу кассира */
-    private BlockingQueue<Semaphore> _cashierQueue;
+    /** Номер кассира, начиная с нуля */
+    private int _id;
 
-    /** Очередь потоков топливных насосов */
-    private Queue<FuelPumpThread> _fuelPumpThreads;
+    /** Диспетчер, назначающий заказы свободным насосам */
+    private PumpDispatcher _dispatcher;
 
     /** Класс, моделирующая заказ */
     private Order _order;
 
+    /** Параметры станции */
+    private StationConfig _config;
+
+    /** Среда выполнения участников */
+    private StationRuntime _runtime;
+
+    /** Статистика работы станции */
+    private StationStatistics _statistics;
+
+    /** Журнал событий станции */
+    private EventLog _log;
+
     /**
      * Конструктор потока кассира
      * 
-     * @param cashboxQueue - блокирующая очередь, моделирующая очередь в кассу
-     * @param cashierQueue - блокирующая очередь, моделирующая работу кассира
-     * @param threads      - потоки заправочных насосов
+     * @param intake       - приём заказов из очереди в кассу
+     * @param id           - номер кассира, начиная с нуля
+     * @param dispatcher   - диспетчер, назначающий заказы свободным насосам
+     * @param config       - параметры станции
+     * @param runtime      - среда выполнения участников
+     * @param statistics   - статистика работы станции
+     * @param log          - журнал событий станции
      */
-    public CashierThrerad(BlockingQueue<Order> cashboxQueue,
-        BlockingQueue<Semaphore> cashierQueue,
-        Queue<FuelPumpThread> threads) {
-
-        cashier = new Cashier();
-        _cashboxQueue = cashboxQueue;
-        _cashierQueue = cashierQueue;
-        _fuelPumpThreads = threads;
+    public CashierThrerad(OrderIntake intake,
+        int id,
+        PumpDispatcher dispatcher,
+        StationConfig config,
+        StationRuntime runtime,
+        StationStatistics statistics,
+        EventLog log) {
+
+        _intake = intake;
+        _id = id;
+        _dispatcher = dispatcher;
+        _config = config;
+        _runtime = runtime;
+        _statistics = statistics;
+        _log = log;
     }
     
     @Override
@@ -44,46 +61,38 @@ public class CashierThrerad implements Runnable {
 
             // Кассир ожидает заказов от клиентов
             try {
-                _order = _cashboxQueue.take();
+                _order = _intake.take(_id);
             } catch (InterruptedException e) {
-                e.printStackTrace();
-                _order = null;
+                return;
             }
 
-            System.out.println("Cashier has received a new order: Fuel " 
-                + _order.getFuelType().getName() 
-                + "; Sum: " + _order.getSum());
+            long accepted = _runtime.now();
+            _order.mark(Order.Milestone.ACCEPTED, accepted);
+
+            _log.log(EventLog.Event.CASHIER_RECEIVED, _id + 1, _order.getFuelType(), _order.getSum(), EventLog.NONE);
 
             try {
-                Thread.sleep(1000);
+                _runtime.sleep(_config.getCashierAcceptMillis());
             } catch (InterruptedException e) {
-                e.printStackTrace();
+                return;
             }
 
             // Кассир отправляет заказ на топливный насос
-            System.out.println("Cashier has sent a new order to the fuel pump: Fuel " 
-                + _order.getFuelType().getName() 
-                + "; Sum " + _order.getSum());
+            _log.log(EventLog.Event.CASHIER_SENT, _id + 1, _order.getFuelType(), _order.getSum(), EventLog.NONE);
 
-            FuelPumpThread pumpThread =_fuelPumpThreads.poll();
-            FuelPump pump = pumpThread.getFuelPump();
-
-            cashier.serveCustomer(pump, _order);
-            pumpThread.getPumpSemaphore().release();
-            _fuelPumpThreads.add(pumpThread);
-
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+            // Заказ получает свободный насос, выдающий нужное топливо, или ждёт его в очереди
+            // диспетчера. Кассир не ждёт насоса, поэтому заказ, ждущий насоса одного типа
+            // топлива, не задерживает заказы других типов
+            _dispatcher.dispatch(_order);
 
-            // Кассир говорит клиенту, когда топливо будет заправлено в автомобиль
+            // Кассир говорит клиенту, что заказ передан на насос
             try {
-                _cashierQueue.put(pumpThread.getPumpSemaphore());
+                _runtime.sleep(_config.getCashierNotifyMillis());
             } catch (InterruptedException e) {
-                e.printStackTrace();
+                return;
             }
+            _order.notifyCustomer();
+            _statistics.recordCashierBusy(_id + 1, _runtime.now() - accepted);
         }
     }
 }
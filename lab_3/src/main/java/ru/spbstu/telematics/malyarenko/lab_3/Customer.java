@@ -10,9 +10,26 @@ public class Customer {
     /** Сумма, на которую клиент хотел бы заправить автомобиль*/
     private String _name;
 
+    /** Генератор случайных чисел для выбора топлива и суммы заказа */
+    private Random _random;
+
+    /** Распределение объёма заказа */
+    private SpendDistribution _spend = SpendDistribution.uniform(20, 29);
+
     // Случайнй выбор типа топлива
     public Customer() {
-        switch (new Random().nextInt(3)) {
+        this(new Random());
+    }
+
+    /**
+     * Конструктор класса со случайным выбором типа топлива
+     * 
+     * @param random - генератор случайных чисел для выбора топлива и суммы заказа
+     */
+    public Customer(Random random) {
+        _random = random;
+
+        switch (_random.nextInt(3)) {
             case 0:
                 setFuelType(FuelType.FUEL_92);
                 break;
@@ -27,6 +44,31 @@ public class Customer {
         }
     }
 
+    /**
+     * Конструктор класса с выбором типа топлива и объёма заказа по параметрам станции
+     * 
+     * @param random - генератор случайных чисел для выбора топлива и суммы заказа
+     * @param config - параметры станции, задающие доли типов топлива и распределение объёма
+     */
+    public Customer(Random random, StationConfig config) {
+        _random = random;
+        _spend = config.getSpendDistribution();
+
+        double[] mix = config.getFuelMix();
+        double total = 0;
+        for (double weight : mix) {
+            total += weight;
+        }
+
+        double choice = _random.nextDouble() * total;
+        FuelType[] types = FuelType.values();
+        int i = 0;
+        while (i < types.length - 1 && (choice -= mix[i]) >= 0) {
+            i++;
+        }
+        setFuelType(types[i]);
+    }
+
     /**
      * Конструктор класса
      * 
@@ -36,6 +78,7 @@ public class Customer {
     public Customer(FuelType type, String name) {
         _fuelType = type;
         _name = name;
+        _random = new Random();
     }
 
     /** Сообщить тип топлива автомобиля клиента */
@@ -86,8 +129,7 @@ public class Customer {
      * @return int сумма заказа
      */
     public int pay() {
-        Random rand = new Random();
-        int sum = (20 + rand.nextInt(10)) * _fuelType.getPrice();
+        int sum = _spend.litres(_random) * _fuelType.getPrice();
         return sum;
     }
 }
\ No newline at end of file
@@ -1,8 +1,11 @@
 package ru.spbstu.telematics.malyarenko.lab_3;
 
+import java.util.Random;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Semaphore;
 
+import ru.spbstu.telematics.malyarenko.lab_3.StationStatistics.Loss;
+
 public class CustomerThread implements Runnable {
 
     /** Класс реализующий функции покупателя */
@@ -14,88 +17,206 @@ public class CustomerThread implements Runnable {
     /** Блокирующая очередь, моделирующая очередь в кассу */
     private BlockingQueue<Order> _cashboxQueue;
 
-    /** Блокирующая очередь, моделирующая работу кассира */
-    private BlockingQueue<Semaphore> _cashierQueue;
+    /** Параметры станции */
+    private StationConfig _config;
+
+    /** Статистика работы станции */
+    private StationStatistics _statistics;
+
+    /** Среда выполнения участников */
+    private StationRuntime _runtime;
+
+    /** Журнал событий станции */
+    private EventLog _log;
 
-    /** Семафор, моделирующий процесс заправки */
-    private Semaphore _pumpSemaphore;
+    /** Номер клиента */
+    private int _id;
+
+    /** Приезжает ли клиент снова после отъезда */
+    private boolean _returning;
+
+    /** Время приезда клиента на станцию */
+    private long _arrival;
 
     /**
      * Конструктор потока клиента
      * 
      * @param availablePumpSem - Счётный семафор, контроллирующий доступ к заправочным насосам
      * @param cashboxQueue     - Блокирующая очередь, моделирующая очередь в кассу
-     * @param cashierQueue     - Блокирующая очередь, моделирующая работу кассира
+     * @param config           - параметры станции
+     * @param statistics       - статистика работы станции
+     * @param runtime          - среда выполнения участников
+     * @param log              - журнал событий станции
+     * @param id               - номер клиента
+     * @param returning        - приезжает ли клиент снова через {@link StationConfig#getCustomerReturnMillis()}
+     *                           после отъезда
      */
     public CustomerThread(Semaphore availablePumpSem, 
                           BlockingQueue<Order> cashboxQueue, 
-                          BlockingQueue<Semaphore> cashierQueue)
+                          StationConfig config,
+                          StationStatistics statistics,
+                          StationRuntime runtime,
+                          EventLog log,
+                          int id,
+                          boolean returning)
     {
-        _customer = new Customer();
+        _customer = new Customer(new Random(), config);
+        _customer.setName("Customer-" + id);
         _availablePumpSemaphore = availablePumpSem;
         _cashboxQueue = cashboxQueue;
-        _cashierQueue = cashierQueue;
+        _config = config;
+        _statistics = statistics;
+        _runtime = runtime;
+        _log = log;
+        _id = id;
+        _returning = returning;
     }
 
     @Override
     public void run() {
-        _customer.setName(getCustomerName());
-
         while (!Thread.currentThread().isInterrupted()) {
+            if (!visit() || !_returning) {
+                return;
+            }
 
-            // Клиент ждёт, пока освободится заправочный насос
             try {
-                _availablePumpSemaphore.acquire();
+                _runtime.sleep(_config.getCustomerReturnMillis());
             } catch (InterruptedException e) {
-                e.printStackTrace();
+                return;
             }
+        }
+    }
 
-            System.out.println(_customer.getName() + " has taken over the fuel pump");
-
+    /**
+     * Один приезд клиента на станцию: от ожидания насоса до его освобождения
+     * 
+     * @return boolean {@code false}, если приезд прерван остановкой станции
+     */
+    public boolean visit() {
+        if (!arrive()) {
+            return true;
+        }
 
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+        // Клиент ждёт, пока освободится заправочный насос, но не дольше своего терпения
+        try {
+            if (!_runtime.await(_runtime::acquirePump)) {
+                renege();
+                return true;
             }
-            
+        } catch (InterruptedException e) {
+            return false;
+        }
+
+        return serve();
+    }
+
+    /**
+     * Приезд клиента на станцию. Если очередь к насосам слишком длинная, клиент уезжает
+     * 
+     * @return boolean {@code false}, если клиент уехал, не вставая в очередь
+     */
+    public boolean arrive() {
+        _arrival = _runtime.now();
+        if (_runtime.isCrowded()) {
+            lose(Loss.BALKED, _customer.pay());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Клиент уезжает, не дождавшись насоса
+     */
+    public void renege() {
+        lose(Loss.RENEGED, _customer.pay());
+    }
+
+    /**
+     * Обслуживание клиента, получившего разрешение {@code availablePumpSem}: от занятия
+     * насоса до его освобождения
+     * 
+     * @return boolean {@code false}, если обслуживание прервано остановкой станции
+     */
+    public boolean serve() {
+        long pumpAcquired = _runtime.now();
+        _log.log(EventLog.Event.CUSTOMER_TOOK_PUMP, _id);
+
+        try {
+            _runtime.sleep(_config.getCustomerPrepareMillis());
+
             // Клиент встаёт в очередь со своим заказом
             int sum = _customer.pay();
-            String fuelTypeName = _customer.getFuelType().getName();
-            System.out.println(_customer.getName() + " has paid for fuel: Fuel " + fuelTypeName + "; Sum " + sum);
-
-            try {
-                _cashboxQueue.put(_customer.makeNewOrder(sum));
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+            _log.log(EventLog.Event.CUSTOMER_PAID, _id, _customer.getFuelType(), sum, EventLog.NONE);
+
+            Order order = _customer.makeNewOrder(sum);
+            order.mark(Order.Milestone.ARRIVED, _arrival);
+            order.mark(Order.Milestone.PUMP_ACQUIRED, pumpAcquired);
+
+            // Клиент, оплативший топливо, ожидает по своему заказу, когда кассир сообщит
+            // о передаче заказа на насос и когда машина будет заправлена. Если касса отказала или
+            // в резервуаре нет топлива, клиент уезжает без заправки
+            Integer volume = _runtime.await(() -> {
+                order.setQueuedAt(_runtime.now());
+                if (!_runtime.enqueue(_cashboxQueue, order)) {
+                    return null;
+                }
+                return order.awaitRefueling();
+            });
+            if (volume == null) {
+                lose(Loss.SHED, sum);
+            } else if (volume == 0) {
+                lose(Loss.DRY, sum);
+            } else {
+                order.mark(Order.Milestone.REFUELED, _runtime.now());
+
+                _log.log(EventLog.Event.CUSTOMER_REFUELED, _id);
+
+                // Клиент освобождает топливный насос
+                _runtime.sleep(_config.getCustomerLeaveMillis());
+                order.mark(Order.Milestone.COMPLETED, _runtime.now());
+                _statistics.recordVisit(order);
             }
+        } catch (InterruptedException e) {
+            return false;
+        } finally {
+            _availablePumpSemaphore.release();
+            _runtime.pumpReleased();
+        }
 
-            // Клиент, оплативший топливо, ожидает когда топливный насос будет активирован кассиром
-            try {
-                _pumpSemaphore = _cashierQueue.take();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-            
-            // Клиент, оплативший топливо, ожидает когда машина будет заправлена
-            try {
-                _pumpSemaphore.acquire();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+        _log.log(EventLog.Event.CUSTOMER_VACATED, _id);
+        return true;
+    }
 
-            System.out.println(_customer.getName() + " has finished refueling the car");
-            
-            // Клиент освобождает топливный насос
-            try {
-                Thread.sleep(1000);
-                _availablePumpSemaphore.release();
-                System.out.println(_customer.getName() + " has vacated the fuel pump");
-                Thread.sleep(1000);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+    /**
+     * Учесть отъезд клиента без заправки
+     */
+    private void lose(Loss loss, int sum) {
+        _statistics.recordLoss(loss, sum);
+
+        EventLog.Event event;
+        switch (loss) {
+            case BALKED:
+                event = EventLog.Event.CUSTOMER_BALKED;
+                break;
+            case RENEGED:
+                event = EventLog.Event.CUSTOMER_RENEGED;
+                break;
+            case DRY:
+                event = EventLog.Event.CUSTOMER_DRY;
+                break;
+            default:
+                event = EventLog.Event.CUSTOMER_SHED;
         }
+        _log.log(event, _id);
+    }
+
+    /**
+     * Приезжает ли клиент снова после отъезда
+     * 
+     * @return boolean {@code true} для клиента замкнутой модели станции
+     */
+    public boolean isReturning() {
+        return _returning;
     }
 
     /**
@@ -104,7 +225,6 @@ public class CustomerThread implements Runnable {
      * @return String имя клиента
      */
     public String getCustomerName() {
-        String name = "Customer" + Thread.currentThread().getName().substring(6);
-        return name;
+        return _customer.getName();
     }
 }
@@ -0,0 +1,397 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Асинхронный журнал событий станции.
+ * <p>
+ * Участники не формируют строки и не захватывают блокировку потока вывода: событие -
+ * это несколько чисел, которые записываются в заранее выделенную ячейку кольцевого
+ * буфера. Ячейка занимается без блокировок: каждая ячейка хранит номер последовательности,
+ * по которому производитель узнаёт, свободна ли она, а фоновый поток-писатель - заполнена ли.
+ * Писатель забирает события пачками, форматирует их и записывает в файл или стандартный
+ * вывод одной операцией на пачку.
+ * <p>
+ * Если буфер заполнен, событие отбрасывается, а не задерживает участника; количество
+ * отброшенных событий выводится в журнал. Событие, уровень которого выше уровня журнала,
+ * отсекается одним сравнением до обращения к буферу
+ */
+public class EventLog implements AutoCloseable {
+
+    /**
+     * Уровень подробности журнала
+     */
+    public enum Level {
+        /** Журнал отключён */
+        OFF,
+        /** События клиентов */
+        INFO,
+        /** Все события, включая работу кассиров и насосов */
+        DEBUG
+    }
+
+    /**
+     * Событие станции
+     */
+    public enum Event {
+        CUSTOMER_TOOK_PUMP(Level.INFO, "Customer-", " has taken over the fuel pump"),
+        CUSTOMER_PAID(Level.INFO, "Customer-", " has paid for fuel"),
+        CUSTOMER_REFUELED(Level.INFO, "Customer-", " has finished refueling the car"),
+        CUSTOMER_VACATED(Level.INFO, "Customer-", " has vacated the fuel pump"),
+        CUSTOMER_BALKED(Level.INFO, "Customer-", " has left without queueing: the queue is too long"),
+        CUSTOMER_RENEGED(Level.INFO, "Customer-", " has left the queue: out of patience"),
+        CUSTOMER_SHED(Level.INFO, "Customer-", " has left without refueling: the cashbox is full"),
+        CUSTOMER_DRY(Level.INFO, "Customer-", " has left without refueling: the tank is empty"),
+        CASHIER_RECEIVED(Level.DEBUG, "Cashier-", " has received a new order"),
+        CASHIER_SENT(Level.DEBUG, "Cashier-", " has sent a new order to the fuel pump"),
+        PUMP_STARTED(Level.DEBUG, "Pump-", " has started"),
+        PUMP_POURED_CORRECT(Level.DEBUG, "Pump-", " has poured CORRECT amount of fuel"),
+        PUMP_POURED_INCORRECT(Level.DEBUG, "Pump-", " has poured INCORRECT amount of fuel, top up to correct amount"),
+        PUMP_TANK_DRY(Level.DEBUG, "Pump-", " cannot pour: the tank is empty or closed"),
+        TANK_LOW(Level.INFO, "Tank-", " has called a tanker: the level is low"),
+        TANKER_ARRIVED(Level.INFO, "Tanker-", " has closed the tank for refilling"),
+        TANKER_REFILLED(Level.INFO, "Tanker-", " has refilled and reopened the tank");
+
+        /** Уровень события */
+        private final Level _level;
+
+        /** Название участника без номера */
+        private final String _actor;
+
+        /** Текст события */
+        private final String _text;
+
+        Event(Level level, String actor, String text) {
+            _level = level;
+            _actor = actor;
+            _text = text;
+        }
+
+        /**
+         * Вернуть уровень события
+         *
+         * @return Level уровень
+         */
+        public Level getLevel() {
+            return _level;
+        }
+    }
+
+    /** Вместимость буфера по умолчанию */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /** Наибольшее количество событий, записываемых писателем за одну операцию */
+    private static final int BATCH = 1024;
+
+    /** Пауза писателя при пустом буфере, нс */
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** Значение "нет значения" для числовых полей события */
+    public static final int NONE = -1;
+
+    /** Все события */
+    private static final Event[] EVENTS = Event.values();
+
+    /** Все типы топлива */
+    private static final FuelType[] FUEL_TYPES = FuelType.values();
+
+    /** Наибольший записываемый уровень; {@code 0}, если журнал отключён */
+    private final int _threshold;
+
+    /** Часы станции */
+    private final StationClock _clock;
+
+    /** Маска номера ячейки */
+    private final int _mask;
+
+    /** Номера последовательности ячеек */
+    private final AtomicLongArray _sequences;
+
+    /** Время событий */
+    private final long[] _times;
+
+    /** События */
+    private final int[] _events;
+
+    /** Номера участников */
+    private final int[] _actors;
+
+    /** Типы топлива */
+    private final int[] _fuelTypes;
+
+    /** Суммы заказов */
+    private final int[] _sums;
+
+    /** Объёмы топлива */
+    private final int[] _volumes;
+
+    /** Следующая позиция производителей */
+    private final AtomicLong _tail = new AtomicLong();
+
+    /** Следующая позиция писателя */
+    private long _head;
+
+    /** Количество отброшенных событий */
+    private final LongAdder _dropped = new LongAdder();
+
+    /** Количество отброшенных событий, о которых писатель уже сообщил */
+    private long _reportedDropped;
+
+    /** Приёмник журнала */
+    private final Writer _writer;
+
+    /** Закрывать приёмник вместе с журналом */
+    private final boolean _ownsWriter;
+
+    /** Поток-писатель или {@code null}, если журнал отключён */
+    private final Thread _writerThread;
+
+    /** Журнал закрыт */
+    private volatile boolean _closed;
+
+    /**
+     * Создать журнал по параметрам станции: в файл {@link StationConfig#getLogFile()} или,
+     * если он не задан, в стандартный вывод
+     *
+     * @param config - параметры станции
+     * @param clock  - часы станции
+     * @return EventLog журнал
+     * @throws IOException если файл журнала не удалось открыть
+     */
+    public static EventLog open(StationConfig config, StationClock clock) throws IOException {
+        Path file = config.getLogFile();
+        if (config.getLogLevel() == Level.OFF) {
+            return new EventLog(Level.OFF, clock, null, false, 1);
+        }
+        if (file == null) {
+            return new EventLog(config.getLogLevel(), clock, writer(System.out), false, DEFAULT_CAPACITY);
+        }
+        return new EventLog(config.getLogLevel(), clock, Files.newBufferedWriter(file), true, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Конструктор
+     *
+     * @param level      - уровень журнала
+     * @param clock      - часы станции
+     * @param writer     - приёмник журнала
+     * @param ownsWriter - закрывать приёмник вместе с журналом
+     * @param capacity   - вместимость буфера, степень двойки
+     */
+    EventLog(Level level, StationClock clock, Writer writer, boolean ownsWriter, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        _threshold = level.ordinal();
+        _clock = clock;
+        _writer = writer;
+        _ownsWriter = ownsWriter;
+        _mask = capacity - 1;
+
+        _sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            _sequences.set(i, i);
+        }
+        _times = new long[capacity];
+        _events = new int[capacity];
+        _actors = new int[capacity];
+        _fuelTypes = new int[capacity];
+        _sums = new int[capacity];
+        _volumes = new int[capacity];
+
+        if (level == Level.OFF) {
+            _writerThread = null;
+            return;
+        }
+        _writerThread = new Thread(this::drainLoop, "EventLog-writer");
+        _writerThread.setDaemon(true);
+        _writerThread.start();
+    }
+
+    /**
+     * Проверить, записываются ли события уровня
+     *
+     * @param level - уровень
+     * @return boolean {@code true}, если события уровня записываются
+     */
+    public boolean isEnabled(Level level) {
+        return level.ordinal() <= _threshold;
+    }
+
+    /**
+     * Записать событие участника без заказа
+     *
+     * @param event - событие
+     * @param actor - номер участника
+     */
+    public void log(Event event, int actor) {
+        log(event, actor, null, NONE, NONE);
+    }
+
+    /**
+     * Записать событие
+     *
+     * @param event    - событие
+     * @param actor    - номер участника
+     * @param fuelType - тип топлива или {@code null}
+     * @param sum      - сумма заказа или {@link #NONE}
+     * @param volume   - объём топлива или {@link #NONE}
+     */
+    public void log(Event event, int actor, FuelType fuelType, int sum, int volume) {
+        if (event._level.ordinal() > _threshold) {
+            return;
+        }
+
+        long position = _tail.get();
+        int index;
+        while (true) {
+            index = (int) position & _mask;
+            long difference = _sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (_tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = _tail.get();
+            } else if (difference < 0) {
+                // Писатель ещё не освободил ячейку: буфер заполнен
+                _dropped.increment();
+                return;
+            } else {
+                position = _tail.get();
+            }
+        }
+
+        _times[index] = _clock.now();
+        _events[index] = event.ordinal();
+        _actors[index] = actor;
+        _fuelTypes[index] = (fuelType == null) ? NONE : fuelType.ordinal();
+        _sums[index] = sum;
+        _volumes[index] = volume;
+        _sequences.set(index, position + 1);
+    }
+
+    /**
+     * Вернуть количество отброшенных событий
+     *
+     * @return long количество событий
+     */
+    public long getDropped() {
+        return _dropped.sum();
+    }
+
+    /**
+     * Записать оставшиеся события и остановить писателя
+     */
+    @Override
+    public void close() throws IOException {
+        if (_writerThread == null || _closed) {
+            return;
+        }
+        _closed = true;
+        LockSupport.unpark(_writerThread);
+
+        try {
+            _writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (_ownsWriter) {
+            _writer.close();
+        }
+    }
+
+    /** Цикл писателя: пачки событий записываются, пока журнал не закрыт и буфер не пуст */
+    private void drainLoop() {
+        StringBuilder batch = new StringBuilder(BATCH * 64);
+
+        try {
+            while (true) {
+                boolean closed = _closed;
+                int drained = drain(batch);
+
+                if (drained > 0) {
+                    _writer.write(batch.toString());
+                    batch.setLength(0);
+                    if (drained < BATCH) {
+                        _writer.flush();
+                    }
+                } else if (closed) {
+                    _writer.flush();
+                    return;
+                } else {
+                    LockSupport.parkNanos(IDLE_NANOS);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Event log stopped: " + e);
+        }
+    }
+
+    /**
+     * Забрать из буфера не более {@link #BATCH} событий и отформатировать их
+     *
+     * @param batch - строка, в которую добавляются события
+     * @return int количество забранных событий
+     */
+    private int drain(StringBuilder batch) {
+        int drained = 0;
+
+        while (drained < BATCH) {
+            int index = (int) _head & _mask;
+            if (_sequences.get(index) != _head + 1) {
+                break;
+            }
+
+            format(batch, index);
+            _sequences.set(index, _head + _mask + 1);
+            _head++;
+            drained++;
+        }
+
+        long dropped = _dropped.sum();
+        if (dropped != _reportedDropped) {
+            batch.append("Event log buffer full: ").append(dropped - _reportedDropped)
+                .append(" events dropped").append(System.lineSeparator());
+            _reportedDropped = dropped;
+            drained++;
+        }
+
+        return drained;
+    }
+
+    /** Отформатировать событие ячейки */
+    private void format(StringBuilder batch, int index) {
+        Event event = EVENTS[_events[index]];
+
+        batch.append('[').append(_times[index]).append(" ms] ")
+            .append(event._actor).append(_actors[index]).append(event._text);
+
+        if (_fuelTypes[index] != NONE) {
+            batch.append(": Fuel ").append(FUEL_TYPES[_fuelTypes[index]].getName());
+        }
+        if (_sums[index] != NONE) {
+            batch.append("; Sum ").append(_sums[index]);
+        }
+        if (_volumes[index] != NONE) {
+            batch.append("; Vol ").append(_volumes[index]);
+        }
+        batch.append(System.lineSeparator());
+    }
+
+    private static Writer writer(OutputStream out) {
+        return new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,325 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import java.util.ArrayDeque;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Дискретно-событийное моделирование с виртуальными часами.
+ * <p>
+ * События хранятся в очереди с приоритетом по времени наступления; события с одинаковым
+ * временем выполняются в порядке планирования. Время модели изменяется скачком
+ * до времени следующего события, поэтому продолжительность расчёта зависит от количества
+ * событий, а не от моделируемого времени.
+ * <p>
+ * Семафор и ограниченная очередь модели повторяют поведение справедливых
+ * {@link java.util.concurrent.Semaphore} и {@link java.util.concurrent.ArrayBlockingQueue}:
+ * вместо блокировки потока ожидающий участник оставляет продолжение, которое
+ * планируется на текущее время, когда ожидание заканчивается. Ожидание с ограничением
+ * времени снимается событием, которое выполняет продолжение истечения времени, если
+ * участник к этому моменту всё ещё ждёт
+ */
+public class EventSimulation implements StationClock {
+
+    /**
+     * Запланированное событие
+     */
+    private static final class Event implements Comparable<Event> {
+        /** Время наступления */
+        final long _time;
+
+        /** Порядковый номер планирования */
+        final long _sequence;
+
+        /** Действие */
+        final Runnable _action;
+
+        Event(long time, long sequence, Runnable action) {
+            _time = time;
+            _sequence = sequence;
+            _action = action;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int cmp = Long.compare(_time, other._time);
+            return cmp != 0 ? cmp : Long.compare(_sequence, other._sequence);
+        }
+    } // Event
+
+    /**
+     * Продолжение участника, ожидающего с ограничением времени. Отдельный объект на каждое
+     * ожидание, чтобы по истечении времени из очереди удалялось именно оно
+     */
+    private static final class Waiter implements Runnable {
+        /** Продолжение */
+        private final Runnable _then;
+
+        Waiter(Runnable then) {
+            _then = then;
+        }
+
+        @Override
+        public void run() {
+            _then.run();
+        }
+    } // Waiter
+
+    /** Очередь событий */
+    private final PriorityQueue<Event> _events = new PriorityQueue<>();
+
+    /** Текущее время модели, мс */
+    private long _now;
+
+    /** Счётчик запланированных событий */
+    private long _sequence;
+
+    /** Количество выполненных событий */
+    private long _processed;
+
+    @Override
+    public long now() {
+        return _now;
+    }
+
+    /**
+     * Запланировать действие
+     *
+     * @param delay  - задержка относительно текущего времени модели, мс
+     * @param action - действие
+     */
+    public void schedule(long delay, Runnable action) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("Delay must not be negative: " + delay);
+        }
+        _events.add(new Event(_now + delay, _sequence++, action));
+    }
+
+    /**
+     * Выполнить события, наступающие не позже заданного времени, и перевести часы
+     * модели на это время
+     *
+     * @param until - время окончания моделирования, мс
+     */
+    public void run(long until) {
+        while (!_events.isEmpty() && _events.peek()._time <= until) {
+            Event event = _events.poll();
+            _now = event._time;
+            _processed++;
+            event._action.run();
+        }
+        _now = Math.max(_now, until);
+    }
+
+    /**
+     * Вернуть количество выполненных событий
+     *
+     * @return long количество событий
+     */
+    public long getProcessedEvents() {
+        return _processed;
+    }
+
+    /**
+     * Создать семафор модели
+     *
+     * @param permits - начальное количество разрешений
+     * @return SimSemaphore семафор
+     */
+    public SimSemaphore newSemaphore(int permits) {
+        return new SimSemaphore(permits);
+    }
+
+    /**
+     * Создать ограниченную очередь модели
+     *
+     * @param capacity - вместимость очереди
+     * @return SimQueue очередь
+     */
+    public <T> SimQueue<T> newQueue(int capacity) {
+        return new SimQueue<T>(capacity);
+    }
+
+    /**
+     * Семафор модели: ожидающие получают разрешения в порядке очереди
+     */
+    public final class SimSemaphore {
+        /** Доступные разрешения */
+        private int _permits;
+
+        /** Продолжения ожидающих участников */
+        private final ArrayDeque<Runnable> _waiters = new ArrayDeque<>();
+
+        private SimSemaphore(int permits) {
+            _permits = permits;
+        }
+
+        /**
+         * Получить разрешение
+         *
+         * @param then - продолжение, выполняемое после получения разрешения
+         */
+        public void acquire(Runnable then) {
+            if (_permits > 0 && _waiters.isEmpty()) {
+                _permits--;
+                schedule(0, then);
+            } else {
+                _waiters.add(then);
+            }
+        }
+
+        /**
+         * Получить разрешение, ожидая не дольше заданного времени
+         *
+         * @param timeout  - наибольшее время ожидания, мс
+         * @param then     - продолжение, выполняемое после получения разрешения
+         * @param timedOut - продолжение, выполняемое, если разрешение не получено вовремя
+         */
+        public void tryAcquire(long timeout, Runnable then, Runnable timedOut) {
+            if (_permits > 0 && _waiters.isEmpty()) {
+                _permits--;
+                schedule(0, then);
+                return;
+            }
+
+            Runnable waiter = new Waiter(then);
+            _waiters.add(waiter);
+            schedule(timeout, () -> {
+                if (_waiters.removeFirstOccurrence(waiter)) {
+                    timedOut.run();
+                }
+            });
+        }
+
+        /**
+         * Вернуть разрешение. Если есть ожидающие, разрешение сразу передаётся первому из них
+         */
+        public void release() {
+            Runnable waiter = _waiters.poll();
+            if (waiter != null) {
+                schedule(0, waiter);
+            } else {
+                _permits++;
+            }
+        }
+
+        /**
+         * Вернуть количество доступных разрешений
+         *
+         * @return int количество разрешений
+         */
+        public int availablePermits() {
+            return _permits;
+        }
+
+        /**
+         * Вернуть количество ожидающих участников
+         *
+         * @return int длина очереди ожидания
+         */
+        public int getQueueLength() {
+            return _waiters.size();
+        }
+    } // SimSemaphore
+
+    /**
+     * Ограниченная очередь модели: ожидающие добавления и извлечения обслуживаются
+     * в порядке очереди
+     */
+    public final class SimQueue<T> {
+        /** Вместимость */
+        private final int _capacity;
+
+        /** Элементы */
+        private final ArrayDeque<T> _items = new ArrayDeque<>();
+
+        /** Элементы участников, ожидающих места в очереди */
+        private final ArrayDeque<T> _pendingItems = new ArrayDeque<>();
+
+        /** Продолжения участников, ожидающих места в очереди */
+        private final ArrayDeque<Runnable> _putters = new ArrayDeque<>();
+
+        /** Продолжения участников, ожидающих элемента */
+        private final ArrayDeque<Consumer<T>> _takers = new ArrayDeque<>();
+
+        private SimQueue(int capacity) {
+            _capacity = capacity;
+        }
+
+        /**
+         * Добавить элемент
+         *
+         * @param item - элемент
+         * @param then - продолжение, выполняемое после добавления
+         */
+        public void put(T item, Runnable then) {
+            Consumer<T> taker = _takers.poll();
+            if (taker != null) {
+                schedule(0, () -> taker.accept(item));
+                schedule(0, then);
+            } else if (_items.size() < _capacity) {
+                _items.add(item);
+                schedule(0, then);
+            } else {
+                _pendingItems.add(item);
+                _putters.add(then);
+            }
+        }
+
+        /**
+         * Добавить элемент, ожидая места не дольше заданного времени
+         *
+         * @param item     - элемент
+         * @param timeout  - наибольшее время ожидания, мс
+         * @param then     - продолжение, выполняемое после добавления
+         * @param timedOut - продолжение, выполняемое, если места не нашлось вовремя
+         */
+        public void offer(T item, long timeout, Runnable then, Runnable timedOut) {
+            if (!_takers.isEmpty() || _items.size() < _capacity) {
+                put(item, then);
+                return;
+            }
+
+            Runnable putter = new Waiter(then);
+            _pendingItems.add(item);
+            _putters.add(putter);
+            schedule(timeout, () -> {
+                if (_putters.removeFirstOccurrence(putter)) {
+                    _pendingItems.removeFirstOccurrence(item);
+                    timedOut.run();
+                }
+            });
+        }
+
+        /**
+         * Извлечь элемент
+         *
+         * @param then - продолжение, получающее извлечённый элемент
+         */
+        public void take(Consumer<T> then) {
+            T item = _items.poll();
+            if (item == null) {
+                _takers.add(then);
+                return;
+            }
+
+            // Освободившееся место занимает первый ожидающий добавления
+            Runnable putter = _putters.poll();
+            if (putter != null) {
+                _items.add(_pendingItems.poll());
+                schedule(0, putter);
+            }
+
+            schedule(0, () -> then.accept(item));
+        }
+
+        /**
+         * Вернуть количество элементов
+         *
+         * @return int размер очереди
+         */
+        public int size() {
+            return _items.size();
+        }
+    } // SimQueue
+}
@@ -0,0 +1,57 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import java.util.function.Consumer;
+
+/**
+ * Запас топлива станции: по одному резервуару {@link FuelTank} на тип топлива.
+ * <p>
+ * Резервуары с вместимостью {@link StationConfig#UNLIMITED} не ограничивают выдачу, как
+ * в исходной модели, и не вызывают бензовоз
+ */
+public class FuelInventory {
+
+    /** Резервуары по типам топлива */
+    private final FuelTank[] _tanks = new FuelTank[FuelType.values().length];
+
+    /** Хотя бы один резервуар ограничен */
+    private final boolean _limited;
+
+    /**
+     * Конструктор полных резервуаров
+     *
+     * @param config     - параметры станции
+     * @param statistics - статистика работы станции
+     * @param clock      - часы станции
+     * @param alarm      - получатель сигналов резервуаров о необходимости бензовоза
+     */
+    public FuelInventory(StationConfig config, StationStatistics statistics, StationClock clock,
+                         Consumer<FuelTank> alarm) {
+        boolean limited = false;
+        for (FuelType type : FuelType.values()) {
+            long capacity = config.getTankCapacity(type);
+            long lowLevel = (long) (capacity * config.getLowLevelFraction());
+            _tanks[type.ordinal()] = new FuelTank(type, capacity, lowLevel, statistics, clock, alarm);
+            limited |= capacity != StationConfig.UNLIMITED;
+        }
+        _limited = limited;
+    }
+
+    /**
+     * Вернуть резервуар типа топлива
+     *
+     * @param type - тип топлива
+     * @return FuelTank резервуар
+     */
+    public FuelTank getTank(FuelType type) {
+        return _tanks[type.ordinal()];
+    }
+
+    /**
+     * Ограничен ли хотя бы один резервуар
+     *
+     * @return boolean {@code true}, если станции нужен бензовоз
+     */
+    public boolean isLimited() {
+        return _limited;
+    }
+}
@@ -7,6 +7,22 @@ public class FuelPump {
     /** Данные о заказе */
     private Order _order;
 
+    /** Генератор случайных чисел для моделирования ошибок выдачи топлива */
+    private Random _random;
+
+    public FuelPump() {
+        this(new Random());
+    }
+
+    /**
+     * Конструктор
+     * 
+     * @param random - генератор случайных чисел для моделирования ошибок выдачи топлива
+     */
+    public FuelPump(Random random) {
+        _random = random;
+    }
+
     /**
      * Получить новый заказ
      * 
@@ -22,14 +38,12 @@ public class FuelPump {
      * @return int объем выданного топлива
      */
     public int giveFuel() {
-        Random random = new Random();
-
         int fuelVolume = _order.getSum() / _order.getFuelType().getPrice();
 
-        double errorProbability = random.nextDouble();
+        double errorProbability = _random.nextDouble();
 
         if(errorProbability < 0.3) {
-            fuelVolume -= random.nextInt(3); 
+            fuelVolume -= _random.nextInt(3); 
         }
 
         return fuelVolume;
@@ -47,6 +61,24 @@ public class FuelPump {
         return theoreticalVolume == actualVolume ? true : false;
     }
 
+    /**
+     * Вернуть объём топлива по заказу
+     *
+     * @return int объём топлива, на который оплачен заказ
+     */
+    public int getVolume() {
+        return _order.getSum() / _order.getFuelType().getPrice();
+    }
+
+    /**
+     * Вернуть текущий заказ
+     *
+     * @return Order заказ
+     */
+    public Order getOrder() {
+        return _order;
+    }
+
     /**
      * Вернуть тип топлива заказа
      * @return FuelType тип топлива
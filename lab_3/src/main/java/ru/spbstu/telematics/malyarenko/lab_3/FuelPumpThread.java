@@ -7,71 +7,129 @@ public class FuelPumpThread implements Runnable {
     /** Класс, моделирующий заправочный насос */
     private FuelPump _fuelPump;
 
-    /** Семафор, по которому заправочный насос сообщает о выполнении работы */
-    private Semaphore _pumpSemaphore;
+    /** Семафор, по которому заправочный насос получает новый заказ */
+    private Semaphore _orderSemaphore = new Semaphore(0);
 
-    public FuelPumpThread(Semaphore pumpSemaphore) {
+    /** Диспетчер, назначающий заказы свободным насосам */
+    private PumpDispatcher _dispatcher;
+
+    /** Запас топлива станции */
+    private FuelInventory _inventory;
+
+    /** Параметры станции */
+    private StationConfig _config;
+
+    /** Статистика работы станции */
+    private StationStatistics _statistics;
+
+    /** Среда выполнения участников */
+    private StationRuntime _runtime;
+
+    /** Журнал событий станции */
+    private EventLog _log;
+
+    /** Номер насоса */
+    private int _id;
+
+    /**
+     * Конструктор потока заправочного насоса
+     * 
+     * @param dispatcher - диспетчер, назначающий заказы свободным насосам
+     * @param inventory  - запас топлива станции
+     * @param config     - параметры станции
+     * @param statistics - статистика работы станции
+     * @param runtime    - среда выполнения участников
+     * @param log        - журнал событий станции
+     * @param id         - номер насоса
+     */
+    public FuelPumpThread(PumpDispatcher dispatcher, FuelInventory inventory, StationConfig config,
+        StationStatistics statistics, StationRuntime runtime, EventLog log, int id) {
         _fuelPump = new FuelPump();
-        _pumpSemaphore = pumpSemaphore;
+        _dispatcher = dispatcher;
+        _inventory = inventory;
+        _config = config;
+        _statistics = statistics;
+        _runtime = runtime;
+        _log = log;
+        _id = id;
     }
     
     @Override
     public void run() {
         while (!Thread.currentThread().isInterrupted()) {
 
-            // Топливные насос ожидает нового заказа
+            // Топливные насос сообщает о готовности и ожидает нового заказа
+            _dispatcher.pumpIdle(this);
             try {
-                _pumpSemaphore.acquire();
+                _orderSemaphore.acquire();
             } catch (InterruptedException e) {
-                e.printStackTrace();
+                return;
+            }
+
+            Order order = _fuelPump.getOrder();
+
+            // Насос резервирует объём заказа в резервуаре; если топлива нет, клиент уезжает
+            // без заправки, а насос сразу готов к следующему заказу
+            FuelTank tank = _inventory.getTank(_fuelPump.getFuelType());
+            int reserved = _fuelPump.getVolume();
+            if (!tank.reserve(reserved)) {
+                _log.log(EventLog.Event.PUMP_TANK_DRY, _id, _fuelPump.getFuelType(), _fuelPump.getSum(), reserved);
+                _statistics.recordLostVolume(_fuelPump.getFuelType(), reserved);
+                order.completeFueling(0);
+                _statistics.recordPumpBusy(_id, _runtime.now() - order.getTime(Order.Milestone.ASSIGNED));
+                continue;
             }
 
-            System.out.println(getPumpName() + " has started");
+            _log.log(EventLog.Event.PUMP_STARTED, _id);
 
             int fuelVolume;
+            int topUps = -1;
 
             // Заправочный насос выполняет заказ и проверяет правильность выполнения заказа
             do {
                 fuelVolume = _fuelPump.giveFuel();
+                topUps++;
 
-                if (_fuelPump.checkFuelVolume(fuelVolume)) {
-                    System.out.println(getPumpName() + " has poured CORRECT amount of fuel: Fuel "
-                        + _fuelPump.getFuelType().getName() 
-                        + "; Sum " + _fuelPump.getSum() 
-                        + "; Vol " + fuelVolume);
-                }
-                else {
-                    System.out.println(getPumpName() + " has poured INCORREC amount of fuel: Fuel " 
-                    + _fuelPump.getFuelType().getName() 
-                    + "; Sum " + _fuelPump.getSum() 
-                    + " Top up to correct amount.");
-                }
+                _log.log(_fuelPump.checkFuelVolume(fuelVolume)
+                        ? EventLog.Event.PUMP_POURED_CORRECT
+                        : EventLog.Event.PUMP_POURED_INCORRECT,
+                    _id, _fuelPump.getFuelType(), _fuelPump.getSum(), fuelVolume);
 
             } while (!_fuelPump.checkFuelVolume(fuelVolume));
 
-            // Запрвочный насос сообщает о том, что заправка окончена
+            tank.commit(reserved, fuelVolume);
+            _statistics.recordFueling(_fuelPump.getFuelType(), fuelVolume, topUps);
+
+            // Запрвочный насос сообщает клиенту, что заправка по его заказу окончена
+            order.completeFueling(fuelVolume);
             try {
-                _pumpSemaphore.release();
-                Thread.sleep(2000);
+                _runtime.sleep(_config.getPumpCooldownMillis());
             } catch (InterruptedException e) {
-                e.printStackTrace();
+                return;
             }
+            _statistics.recordPumpBusy(_id, _runtime.now() - order.getTime(Order.Milestone.ASSIGNED));
         }
     }
 
-    //** Вернуть объект класса заправочного насоса */
-    public FuelPump getFuelPump() {
-        return _fuelPump;
+    /**
+     * Передать насосу новый заказ. Вызывается диспетчером, когда насос свободен
+     *
+     * @param order - заказ
+     */
+    public void assign(Order order) {
+        order.mark(Order.Milestone.ASSIGNED, _runtime.now());
+        _fuelPump.getNewOrder(order);
+        _orderSemaphore.release();
     }
 
-    /** Вернуть семафор, по которому заправочный насос сообщает о выполненной работе */
-    public Semaphore getPumpSemaphore() {
-        return _pumpSemaphore;
+    /** Вернуть номер заправочного насоса */
+    public int getId() {
+        return _id;
     }
 
-    /** Вернуть название заправочного насоса */
-    private String getPumpName() {
-        String name = "Pump" + Thread.currentThread().getName().substring(6);
-        return name;
+    //** Вернуть объект класса заправочного насоса */
+    public FuelPump getFuelPump() {
+        return _fuelPump;
     }
+
 }
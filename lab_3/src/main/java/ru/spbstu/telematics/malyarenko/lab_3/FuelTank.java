@@ -0,0 +1,229 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Подземный резервуар одного типа топлива.
+ * <p>
+ * Насос, получивший заказ, сначала резервирует объём заказа, а после заправки подтверждает
+ * выданный объём. Резервирование - один {@code compareAndSet} доступного объёма, без
+ * блокировки, поэтому насосы одного типа топлива не ждут друг друга; подтверждение -
+ * атомарное уменьшение запаса. Запас, за вычетом зарезервированного, никогда не
+ * становится отрицательным.
+ * <p>
+ * Когда доступный объём опускается ниже нижнего уровня или резервирование не удаётся,
+ * резервуар один раз до следующего пополнения подаёт сигнал о необходимости бензовоза.
+ * Блокировка резервуара берётся только на эти редкие переходы и на пополнение.
+ * На время слива топлива из бензовоза резервуар закрыт, и резервирование не удаётся.
+ * Время, в течение которого тип топлива не продаётся из-за пустого или закрытого резервуара,
+ * учитывается в {@link StationStatistics}
+ */
+public class FuelTank {
+
+    /** Тип топлива */
+    private final FuelType _fuelType;
+
+    /** Вместимость, л, или {@link StationConfig#UNLIMITED} */
+    private final long _capacity;
+
+    /** Нижний уровень, л */
+    private final long _lowLevel;
+
+    /** Запас топлива в резервуаре, л */
+    private final AtomicLong _level;
+
+    /** Доступный для резервирования объём: запас за вычетом зарезервированного, л */
+    private final AtomicLong _available;
+
+    /** Резервуар открыт для резервирования */
+    private volatile boolean _open = true;
+
+    /** Сигнал о необходимости бензовоза подан и резервуар ещё не пополнен */
+    private final AtomicBoolean _alarmed = new AtomicBoolean();
+
+    /** Статистика работы станции */
+    private final StationStatistics _statistics;
+
+    /** Часы станции */
+    private final StationClock _clock;
+
+    /** Получатель сигнала о необходимости бензовоза */
+    private final Consumer<FuelTank> _alarm;
+
+    /**
+     * Конструктор полного резервуара
+     *
+     * @param fuelType   - тип топлива
+     * @param capacity   - вместимость, л, или {@link StationConfig#UNLIMITED}
+     * @param lowLevel   - нижний уровень, л
+     * @param statistics - статистика работы станции
+     * @param clock      - часы станции
+     * @param alarm      - получатель сигнала о необходимости бензовоза
+     */
+    public FuelTank(FuelType fuelType, long capacity, long lowLevel, StationStatistics statistics,
+                    StationClock clock, Consumer<FuelTank> alarm) {
+        _fuelType = fuelType;
+        _capacity = capacity;
+        _lowLevel = lowLevel;
+        _level = new AtomicLong(capacity);
+        _available = new AtomicLong(capacity);
+        _statistics = statistics;
+        _clock = clock;
+        _alarm = alarm;
+    }
+
+    /**
+     * Зарезервировать объём заказа
+     *
+     * @param litres - объём, л
+     * @return boolean {@code false}, если резервуар закрыт или в нём недостаточно топлива
+     */
+    public boolean reserve(int litres) {
+        if (_capacity == StationConfig.UNLIMITED) {
+            return true;
+        }
+
+        while (true) {
+            if (_open) {
+                long available = _available.get();
+                if (available >= litres) {
+                    if (_available.compareAndSet(available, available - litres)) {
+                        if (available - litres < _lowLevel && !_alarmed.get()) {
+                            lowLevel();
+                        }
+                        return true;
+                    }
+                    continue;
+                }
+            }
+            if (refuse(litres)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Подтвердить выданный объём. Невыданный остаток резерва снова становится доступным
+     *
+     * @param reserved - зарезервированный объём, л
+     * @param volume   - выданный объём, л, не больше зарезервированного
+     */
+    public void commit(int reserved, int volume) {
+        if (_capacity == StationConfig.UNLIMITED) {
+            return;
+        }
+        _level.addAndGet(-volume);
+        if (reserved > volume) {
+            _available.addAndGet(reserved - volume);
+        }
+    }
+
+    /**
+     * Закрыть резервуар на время слива топлива из бензовоза
+     */
+    public synchronized void close() {
+        _open = false;
+        _statistics.recordDryStart(_fuelType, _clock.now());
+    }
+
+    /**
+     * Пополнить резервуар до вместимости и открыть его. Выданный после резервирования, но
+     * ещё не подтверждённый объём остаётся зарезервированным
+     *
+     * @return long слитый в резервуар объём, л
+     */
+    public synchronized long refill() {
+        long delivered = _capacity - _level.get();
+        _level.addAndGet(delivered);
+        _available.addAndGet(delivered);
+
+        _alarmed.set(false);
+        _open = true;
+        _statistics.recordRefill(_fuelType, delivered);
+        _statistics.recordDryEnd(_fuelType, _clock.now());
+        return delivered;
+    }
+
+    /**
+     * Вернуть тип топлива
+     *
+     * @return FuelType тип топлива
+     */
+    public FuelType getFuelType() {
+        return _fuelType;
+    }
+
+    /**
+     * Вернуть вместимость
+     *
+     * @return long вместимость, л, или {@link StationConfig#UNLIMITED}
+     */
+    public long getCapacity() {
+        return _capacity;
+    }
+
+    /**
+     * Вернуть запас топлива в резервуаре
+     *
+     * @return long запас, л
+     */
+    public long getLevel() {
+        return _level.get();
+    }
+
+    /**
+     * Вернуть доступный для резервирования объём
+     *
+     * @return long объём, л
+     */
+    public long getAvailable() {
+        return _available.get();
+    }
+
+    /**
+     * Открыт ли резервуар для резервирования
+     *
+     * @return boolean {@code false} во время слива топлива из бензовоза
+     */
+    public boolean isOpen() {
+        return _open;
+    }
+
+    /**
+     * Отказ в резервировании: тип топлива не продаётся до пополнения. Отказ и пополнение
+     * выполняются под блокировкой резервуара, поэтому отказ, решённый до пополнения, не
+     * начинает новый период без топлива и не вызывает лишний бензовоз после него
+     *
+     * @param litres - объём, л
+     * @return boolean {@code false}, если резервуар пополнен и резервирование нужно повторить
+     */
+    private synchronized boolean refuse(int litres) {
+        if (_open && _available.get() >= litres) {
+            return false;
+        }
+        _statistics.recordDryStart(_fuelType, _clock.now());
+        alarm();
+        return true;
+    }
+
+    /**
+     * Доступный объём ниже нижнего уровня. Проверка повторяется под блокировкой резервуара,
+     * чтобы резервирование, выполненное до пополнения, не вызвало лишний бензовоз
+     */
+    private synchronized void lowLevel() {
+        if (_available.get() < _lowLevel) {
+            alarm();
+        }
+    }
+
+    /**
+     * Подать сигнал о необходимости бензовоза, если он ещё не подан
+     */
+    private void alarm() {
+        if (_alarmed.compareAndSet(false, true)) {
+            _alarm.accept(this);
+        }
+    }
+}
@@ -1,49 +1,250 @@
 package ru.spbstu.telematics.malyarenko.lab_3;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Semaphore;
-import java.util.Queue;
-import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
 
 public class GasStation {
-    public static void main( String[] args ) {
 
+    /** Параметры станции */
+    private final StationConfig _config;
+
+    /** Статистика работы станции */
+    private final StationStatistics _statistics;
+
+    /** Среда выполнения участников */
+    private StationRuntime _runtime;
+
+    /** Журнал событий станции */
+    private EventLog _log;
+
+    /** Поток периодических снимков статистики или {@code null} */
+    private ScheduledExecutorService _monitor;
+
+    /**
+     * Конструктор станции
+     *
+     * @param config - параметры станции
+     */
+    public GasStation(StationConfig config) {
+        _config = config;
+        _statistics = new StationStatistics(config);
+    }
+
+    /**
+     * Запустить насосы, кассира и клиентов способом, заданным {@link StationConfig#getThreadModel()}
+     */
+    public void start() {
         /** Счётный семафор, контроллирующий доступ к заправочным насосам */
-        Semaphore availablePumpSemaphore = new Semaphore(3, true);
+        Semaphore availablePumpSemaphore = new Semaphore(_config.getPumps(), true);
+
+        _runtime = new StationRuntime(_config, availablePumpSemaphore);
 
-        /** Блокирующая очередь, моделирующая очередь в кассу */
-        BlockingQueue<Order> cashboxQueue = new ArrayBlockingQueue<>(3, true);
+        try {
+            _log = EventLog.open(_config, _runtime);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
 
-        /** Блокирующая очередь, моделирующая работу кассира */
-        BlockingQueue<Semaphore> cashierQueue = new ArrayBlockingQueue<>(1, true);
+        /** Блокирующая очередь, моделирующая очередь в кассу, без мест, занятых очередями кассиров */
+        int cashboxCapacity = OrderIntake.queueCapacity(_config.getCashboxCapacity(), _config.getCashiers(),
+            _config.getCashierBatch());
+        BlockingQueue<Order> cashboxQueue = (_config.getCashboxWaitStrategy() == null)
+            ? new ArrayBlockingQueue<>(cashboxCapacity, true)
+            : new RingBufferQueue<>(cashboxCapacity, _config.getCashboxWaitStrategy());
 
-        /** Очередь потоков топливных насосов */
-        Queue<FuelPumpThread> fuelPumpThreads = new LinkedList<>();
+        /** Диспетчер заказов, общий для кассиров */
+        PumpDispatcher dispatcher = new PumpDispatcher(_config);
 
-        /** Семафоры, моделирующие процесс заправки */
-        Semaphore fuelPumpSemaphore[] = {new Semaphore(1), new Semaphore(1), new Semaphore(1)};
+        // Резервуары и потоки бензовозов, которых они вызывают
+        BlockingQueue<FuelTank> tankerRequests = new LinkedBlockingQueue<>();
+        FuelInventory inventory = new FuelInventory(_config, _statistics, _runtime, tank -> {
+            _log.log(EventLog.Event.TANK_LOW, tank.getFuelType().ordinal() + 1, tank.getFuelType(),
+                EventLog.NONE, (int) tank.getAvailable());
+            tankerRequests.add(tank);
+        });
+        if (inventory.isLimited()) {
+            for (int i = 0; i < _config.getTankers(); i++) {
+                _runtime.startService(new TankerThread(tankerRequests, _config, _runtime, _log, i + 1));
+            }
+        }
 
         // Потоки топливных насосов
-        for (int i = 0; i < 3; i++) {
+        for (int i = 0; i < _config.getPumps(); i++) {
+            FuelPumpThread fuelPumpThread = new FuelPumpThread(dispatcher, inventory, _config, _statistics,
+                _runtime, _log, i + 1);
+            dispatcher.register(fuelPumpThread);
+            _runtime.startService(fuelPumpThread);
+        }
+
+        // Потоки кассиров
+        OrderIntake intake = new OrderIntake(cashboxQueue, _config.getCashboxCapacity(), _config.getCashiers(),
+            _config.getCashierBatch());
+        for (int i = 0; i < _config.getCashiers(); i++) {
+            _runtime.startService(new CashierThrerad(intake, i, dispatcher,
+                _config, _runtime, _statistics, _log));
+        }
+
+        // Потоки клиентов: замкнутая модель или генератор приездов открытой модели
+        ArrivalProcess arrivals = _config.getArrivalProcess();
+        if (arrivals == null) {
+            for (int i = 0; i < _config.getCustomers(); i++) {
+                _runtime.startCustomer(new CustomerThread(availablePumpSemaphore, cashboxQueue,
+                    _config, _statistics, _runtime, _log, i + 1, true));
+            }
+        } else {
+            _runtime.startService(() -> generateArrivals(arrivals, availablePumpSemaphore, cashboxQueue));
+        }
+
+        // Снимки статистики по часам станции
+        if (_config.getSnapshotIntervalMillis() > 0) {
+            StationMonitor monitor = new StationMonitor(_statistics, _runtime);
+            long period = (long) (_config.getSnapshotIntervalMillis() * 1e6 / _config.getTimeScale());
+
+            _monitor = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "StationMonitor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            _monitor.scheduleAtFixedRate(() -> System.out.println(monitor.snapshot()),
+                period, period, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Генератор приездов открытой модели: запускает нового клиента в каждый момент,
+     * заданный процессом приездов, пока процесс не исчерпан или станция не остановлена
+     */
+    private void generateArrivals(ArrivalProcess arrivals, Semaphore availablePumpSemaphore,
+                                  BlockingQueue<Order> cashboxQueue) {
+        Random random = new Random();
+        long time = _runtime.now();
+
+        for (int id = 1; !Thread.currentThread().isInterrupted(); id++) {
+            time = arrivals.nextArrival(time, random);
+            if (time < 0) {
+                return;
+            }
+
             try {
-                fuelPumpSemaphore[i].acquire();
+                _runtime.sleep(Math.max(0, time - _runtime.now()));
             } catch (InterruptedException e) {
-                e.printStackTrace();
+                return;
             }
 
-            FuelPumpThread fuelPumpThread = new FuelPumpThread(fuelPumpSemaphore[i]);
-            fuelPumpThreads.add(fuelPumpThread);
-            new Thread(fuelPumpThread).start();
+            _runtime.startCustomer(new CustomerThread(availablePumpSemaphore, cashboxQueue,
+                _config, _statistics, _runtime, _log, id, false));
         }
+    }
 
-        // Поток кассира
-        new Thread(new CashierThrerad(cashboxQueue, cashierQueue, fuelPumpThreads)).start();
+    /**
+     * Остановить всех участников станции, дождаться их завершения и записать оставшиеся
+     * события журнала
+     *
+     * @throws InterruptedException если ожидание прервано
+     */
+    public void stop() throws InterruptedException {
+        if (_monitor != null) {
+            _monitor.shutdownNow();
+        }
+        _runtime.stop();
+        try {
+            _log.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Вернуть статистику работы станции
+     *
+     * @return StationStatistics статистика
+     */
+    public StationStatistics getStatistics() {
+        return _statistics;
+    }
+
+    /**
+     * Вернуть время работы станции
+     *
+     * @return long время от запуска станции, мс
+     */
+    public long getElapsed() {
+        return _runtime.now();
+    }
 
-        // Потоки клиентов
-        for (int i = 0; i < 10; i++) {
-            new Thread(new CustomerThread(availablePumpSemaphore, cashboxQueue, cashierQueue)).start();
+    /**
+     * Запуск станции.
+     * <ul>
+     * <li>без аргументов - потоки станции работают до завершения процесса;</li>
+     * <li>{@code run <seconds> [model] [customers] [timeScale] [snapshotMinutes]} - участники станции
+     * работают заданное время способом {@link ThreadModel}, затем выводится статистика;</li>
+     * <li>{@code simulate <days> [seed] [snapshotMinutes]} - дискретно-событийная модель станции
+     * рассчитывает заданное количество суток и выводит ту же статистику.</li>
+     * </ul>
+     * {@code snapshotMinutes} - интервал снимков статистики по часам станции {@link StationMonitor}.
+     */
+    public static void main( String[] args ) throws InterruptedException {
+        StationConfig config = new StationConfig();
+
+        if (args.length == 0) {
+            new GasStation(config).start();
+            return;
+        }
+
+        switch (args[0]) {
+            case "run": {
+                long seconds = (args.length > 1) ? Long.parseLong(args[1]) : 60;
+                if (args.length > 2) {
+                    config.setThreadModel(ThreadModel.valueOf(args[2]));
+                }
+                if (args.length > 3) {
+                    config.setCustomers(Integer.parseInt(args[3]));
+                }
+                if (args.length > 4) {
+                    config.setTimeScale(Double.parseDouble(args[4]));
+                }
+                if (args.length > 5) {
+                    config.setSnapshotIntervalMillis(Long.parseLong(args[5]) * 60_000);
+                }
+                GasStation station = new GasStation(config);
+
+                station.start();
+                Thread.sleep(seconds * 1000);
+                long elapsed = station.getElapsed();
+                station.stop();
+
+                System.out.print(station.getStatistics().report(elapsed));
+                break;
+            }
+            case "simulate": {
+                double days = (args.length > 1) ? Double.parseDouble(args[1]) : 7;
+                long seed = (args.length > 2) ? Long.parseLong(args[2]) : 1;
+                long duration = (long) (days * 24 * 3_600_000);
+                if (args.length > 3) {
+                    config.setSnapshotIntervalMillis(Long.parseLong(args[3]) * 60_000);
+                }
+
+                long start = System.nanoTime();
+                StationSimulation simulation = new StationSimulation(config, seed);
+                StationStatistics statistics = simulation.run(duration);
+                long wallMillis = (System.nanoTime() - start) / 1_000_000;
+
+                System.out.print(statistics.report(duration));
+                System.out.println("Events: " + simulation.getSimulation().getProcessedEvents()
+                    + "; wall time " + wallMillis + " ms");
+                break;
+            }
+            default:
+                System.out.println("Usage: GasStation [run <seconds> [model] [customers] [timeScale] [snapshotMinutes]"
+                    + " | simulate <days> [seed] [snapshotMinutes]]");
         }
     }
 }
-
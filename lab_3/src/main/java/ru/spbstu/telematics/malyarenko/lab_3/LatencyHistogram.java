@@ -0,0 +1,130 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма длительностей без блокировок.
+ * <p>
+ * Значения до {@code 2 * SUB_BUCKETS} хранятся точно, а большие значения попадают в
+ * логарифмические интервалы, каждый из которых поделён на {@code SUB_BUCKETS} равных частей,
+ * поэтому относительная погрешность процентилей не превышает {@code 1 / SUB_BUCKETS}.
+ * Запись значения - одно атомарное увеличение счётчика интервала и обновление суммы и
+ * максимума, без выделения памяти, поэтому гистограммы можно не отключать при
+ * моделировании сотен тысяч клиентов
+ */
+public class LatencyHistogram {
+
+    /** Двоичный логарифм количества частей логарифмического интервала */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /** Количество частей логарифмического интервала */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Количество интервалов, покрывающее все неотрицательные значения {@code long} */
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /** Количество значений по интервалам */
+    private final AtomicLongArray _counts = new AtomicLongArray(BUCKETS);
+
+    /** Количество значений */
+    private final LongAdder _count = new LongAdder();
+
+    /** Сумма значений */
+    private final LongAdder _sum = new LongAdder();
+
+    /** Наибольшее значение */
+    private final LongAccumulator _max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Учесть значение
+     *
+     * @param value - длительность, мс; отрицательные значения считаются нулевыми
+     */
+    public void record(long value) {
+        value = Math.max(value, 0);
+        _counts.incrementAndGet(index(value));
+        _count.increment();
+        _sum.add(value);
+        _max.accumulate(value);
+    }
+
+    /**
+     * Вернуть количество значений
+     *
+     * @return long количество значений
+     */
+    public long getCount() {
+        return _count.sum();
+    }
+
+    /**
+     * Вернуть среднее значение
+     *
+     * @return double среднее значение или {@code 0}, если значений нет
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) _sum.sum() / count;
+    }
+
+    /**
+     * Вернуть наибольшее значение
+     *
+     * @return long наибольшее значение
+     */
+    public long getMax() {
+        return _max.get();
+    }
+
+    /**
+     * Вернуть процентиль: наименьшее значение, не больше которого не менее {@code percentile}
+     * процентов значений, с точностью до верхней границы интервала
+     *
+     * @param percentile - процентиль от 0 до 100
+     * @return long значение процентиля или {@code 0}, если значений нет
+     */
+    public long getPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += _counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += _counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestEquivalent(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Номер интервала значения
+     */
+    static int index(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Наибольшее значение интервала
+     */
+    static long highestEquivalent(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long mantissa = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,91 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import ru.spbstu.telematics.malyarenko.lab_3.StationStatistics.Stage;
+
+/**
+ * Зависимость ожидания клиентов от интенсивности приездов.
+ * <p>
+ * Для каждой интенсивности от {@code fromPerHour} до {@code toPerHour} дискретно-событийная
+ * модель открытой станции с пуассоновским потоком клиентов рассчитывает заданное время
+ * работы. Пока станция справляется с нагрузкой, ожидание растёт медленно; с приближением
+ * занятости насосов или кассиров к единице оно растёт нелинейно, а обслуженных клиентов
+ * становится меньше, чем приехавших.
+ * <p>
+ * Излом определяется по наибольшей «мощности» станции - отношению пропускной способности
+ * к среднему времени пребывания клиента: до излома нагрузка растёт быстрее ожидания,
+ * после - медленнее. Насыщение - первая интенсивность, при которой обслуживается меньше
+ * {@code 95%} приехавших клиентов.
+ * <p>
+ * С ограничением длины очереди к насосам и терпения клиентов станция за насыщением
+ * остаётся устойчивой: ожидание ограничено, а избыток нагрузки уходит в потерянных
+ * клиентов, поэтому прогон показывает цену короткой очереди в потерянной выручке
+ * <p>
+ * Запуск: {@code LoadSweep [pumps] [cashiers] [fromPerHour] [toPerHour] [steps] [hours]
+ * [balkQueueLength] [patienceSeconds]}
+ */
+public class LoadSweep {
+
+    /** Доля обслуженных клиентов, ниже которой станция считается насыщенной */
+    private static final double SATURATED = 0.95;
+
+    public static void main(String[] args) {
+        int pumps = (args.length > 0) ? Integer.parseInt(args[0]) : 3;
+        int cashiers = (args.length > 1) ? Integer.parseInt(args[1]) : 1;
+        double from = (args.length > 2) ? Double.parseDouble(args[2]) : 300;
+        double to = (args.length > 3) ? Double.parseDouble(args[3]) : 3000;
+        int steps = (args.length > 4) ? Integer.parseInt(args[4]) : 10;
+        double hours = (args.length > 5) ? Double.parseDouble(args[5]) : 24;
+        int balkQueueLength = (args.length > 6) ? Integer.parseInt(args[6]) : StationConfig.UNBOUNDED;
+        long patience = (args.length > 7) ? Long.parseLong(args[7]) * 1000 : StationConfig.FOREVER;
+        long duration = (long) (hours * ArrivalProcess.HOUR_MILLIS);
+
+        System.out.printf("%10s %10s %7s | %10s %10s | %10s %10s | %10s | %7s %8s%n", "offered/h",
+            "served/h", "lost", "pump wait", "p99", "cashbox", "p99", "in system", "pumps", "cashiers");
+
+        double kneeRate = 0;
+        double kneePower = 0;
+        double saturationRate = 0;
+
+        for (int step = 0; step < steps; step++) {
+            double rate = (steps == 1) ? from : from + (to - from) * step / (steps - 1);
+
+            StationConfig config = new StationConfig()
+                .setPumps(pumps)
+                .setCashiers(cashiers)
+                .setBalkQueueLength(balkQueueLength)
+                .setPatienceMillis(patience)
+                .setLogLevel(EventLog.Level.OFF)
+                .setArrivalProcess(ArrivalProcess.poisson(rate));
+
+            StationStatistics statistics = new StationSimulation(config, step + 1).run(duration);
+
+            double served = statistics.getVisits() / hours;
+            LatencyHistogram pumpWait = statistics.getHistogram(Stage.PUMP_WAIT);
+            LatencyHistogram cashbox = statistics.getHistogram(Stage.CASHBOX_QUEUE);
+            double inSystem = statistics.getAverageTimeInSystem();
+
+            System.out.printf("%10.0f %10.0f %6.1f%% | %7.0f ms %7d ms | %7.0f ms %7d ms | %7.0f ms | %6.1f%% %7.1f%%%n",
+                rate, served, 100 * statistics.getLossRate(), pumpWait.getMean(), pumpWait.getPercentile(99),
+                cashbox.getMean(), cashbox.getPercentile(99), inSystem,
+                100 * statistics.getAveragePumpUtilization(duration),
+                100 * statistics.getAverageCashierUtilization(duration));
+
+            double power = (inSystem == 0) ? 0 : served / inSystem;
+            if (power > kneePower) {
+                kneePower = power;
+                kneeRate = rate;
+            }
+            if (saturationRate == 0 && served < SATURATED * rate) {
+                saturationRate = rate;
+            }
+        }
+
+        System.out.printf("Knee (max throughput / time in system): %.0f per hour%n", kneeRate);
+        if (saturationRate > 0) {
+            System.out.printf("Saturation (served < %.0f%% of offered): %.0f per hour%n",
+                100 * SATURATED, saturationRate);
+        } else {
+            System.out.println("Saturation not reached");
+        }
+    }
+}
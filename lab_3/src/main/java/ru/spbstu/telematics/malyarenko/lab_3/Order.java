@@ -1,13 +1,48 @@
 package ru.spbstu.telematics.malyarenko.lab_3;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
 public class Order {
 
+    /**
+     * Моменты обслуживания заказа
+     */
+    public enum Milestone {
+        /** Клиент приехал на станцию */
+        ARRIVED,
+        /** Клиент занял заправочный насос */
+        PUMP_ACQUIRED,
+        /** Заказ поставлен в очередь в кассу */
+        QUEUED,
+        /** Кассир принял заказ */
+        ACCEPTED,
+        /** Заказ назначен насосу */
+        ASSIGNED,
+        /** Кассир сообщил о передаче заказа на насос, и насос выдал топливо */
+        REFUELED,
+        /** Клиент освободил насос */
+        COMPLETED
+    }
+
     /** Тип топлива заказа */
     private FuelType _fuelType;
 
     /** Сумма заказа */
     private int _sum;
 
+    /** Моменты обслуживания заказа по часам станции */
+    private final long[] _milestones = new long[Milestone.values().length];
+
+    /** Кассир сообщил клиенту о передаче заказа на насос */
+    private final CompletableFuture<Void> _notified = new CompletableFuture<>();
+
+    /** Насос выдал топливо; значение - выданный объём */
+    private final CompletableFuture<Integer> _fueled = new CompletableFuture<>();
+
+    /** Клиент может уезжать: кассир сообщил о передаче заказа на насос, и насос выдал топливо */
+    private final CompletableFuture<Integer> _refueling = _notified.thenCombine(_fueled, (n, volume) -> volume);
+
     /**
      * Конструктор
      * 
@@ -54,4 +89,94 @@ public class Order {
     public void setSum(int sum) {
         this._sum = sum;
     }
+
+    /**
+     * Вернуть время постановки заказа в очередь в кассу
+     * 
+     * @return long время по часам станции, мс
+     */
+    public long getQueuedAt() {
+        return _milestones[Milestone.QUEUED.ordinal()];
+    }
+
+    /**
+     * Задать время постановки заказа в очередь в кассу
+     * 
+     * @param queuedAt - время по часам станции, мс
+     */
+    public void setQueuedAt(long queuedAt) {
+        mark(Milestone.QUEUED, queuedAt);
+    }
+
+    /**
+     * Отметить момент обслуживания заказа
+     *
+     * @param milestone - момент обслуживания
+     * @param time      - время по часам станции, мс
+     */
+    public void mark(Milestone milestone, long time) {
+        _milestones[milestone.ordinal()] = time;
+    }
+
+    /**
+     * Вернуть время момента обслуживания заказа
+     *
+     * @param milestone - момент обслуживания
+     * @return long время по часам станции, мс
+     */
+    public long getTime(Milestone milestone) {
+        return _milestones[milestone.ordinal()];
+    }
+
+    /**
+     * Вернуть время между двумя моментами обслуживания заказа
+     *
+     * @param from - начальный момент
+     * @param to   - конечный момент
+     * @return long длительность, мс
+     */
+    public long between(Milestone from, Milestone to) {
+        return getTime(to) - getTime(from);
+    }
+
+    /**
+     * Сообщить клиенту, что заказ передан на насос. Вызывается кассиром; насос может
+     * получить заказ и позже
+     */
+    public void notifyCustomer() {
+        _notified.complete(null);
+    }
+
+    /**
+     * Сообщить, что насос выдал топливо по заказу. Вызывается насосом
+     *
+     * @param volume - выданный объём топлива; {@code 0}, если в резервуаре нет топлива
+     */
+    public void completeFueling(int volume) {
+        _fueled.complete(volume);
+    }
+
+    /**
+     * Вернуть окончание заправки по заказу: завершается, когда кассир сообщил клиенту
+     * о передаче заказа на насос и насос выдал топливо
+     *
+     * @return CompletableFuture выданный объём топлива
+     */
+    public CompletableFuture<Integer> getRefueling() {
+        return _refueling;
+    }
+
+    /**
+     * Дождаться окончания заправки по заказу
+     *
+     * @return int выданный объём топлива; {@code 0}, если в резервуаре нет топлива
+     * @throws InterruptedException если ожидание прервано
+     */
+    public int awaitRefueling() throws InterruptedException {
+        try {
+            return _refueling.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
 }
@@ -0,0 +1,172 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Приём заказов несколькими кассирами с перехватом работы.
+ * <p>
+ * Клиенты ставят заказы в общую очередь в кассу. Свободный кассир забирает из неё заказ
+ * вместе с несколькими следующими, которые ставит в свою очередь и обслуживает по порядку
+ * с её начала. Кассир, у которого нет своих заказов и которому нечего взять из общей
+ * очереди, забирает заказ с конца очереди занятого кассира. Поэтому заказы не ждут
+ * занятого кассира, пока другой простаивает, а кассиры обращаются к общей очереди реже.
+ * <p>
+ * Заказы в очередях кассиров занимают места очереди в кассу: кассир ставит в свою очередь
+ * заказы, только когда она пуста, поэтому в ней не больше {@code batch - 1} заказов, и
+ * общая очередь создаётся на столько же мест на кассира меньше
+ * ({@link #queueCapacity(int, int, int)}). Вместе с заказами, забранными кассирами, ждут
+ * не больше заказов, чем вмещает очередь в кассу.
+ * <p>
+ * При одном кассире заказы забираются из общей очереди по одному, как в исходной модели
+ */
+public class OrderIntake {
+
+    /** Пауза между попытками перехвата у простаивающего кассира, нс */
+    private static final long STEAL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** Общая очередь в кассу */
+    private final BlockingQueue<Order> _cashboxQueue;
+
+    /** Очереди заказов кассиров */
+    private final ConcurrentLinkedDeque<Order>[] _cashierQueues;
+
+    /** Наибольшее количество заказов, забираемых кассиром из общей очереди за раз */
+    private final int _batch;
+
+    /**
+     * Конструктор
+     *
+     * @param cashboxQueue - общая очередь в кассу вместимостью
+     *                     {@link #queueCapacity(int, int, int) queueCapacity(capacity, cashiers, batch)}
+     * @param capacity     - вместимость очереди в кассу вместе с очередями кассиров
+     * @param cashiers     - количество кассиров
+     * @param batch        - наибольшее количество заказов, забираемых из общей очереди за раз
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public OrderIntake(BlockingQueue<Order> cashboxQueue, int capacity, int cashiers, int batch) {
+        _cashboxQueue = cashboxQueue;
+        _cashierQueues = new ConcurrentLinkedDeque[cashiers];
+        for (int i = 0; i < cashiers; i++) {
+            _cashierQueues[i] = new ConcurrentLinkedDeque<>();
+        }
+        _batch = batchSize(capacity, cashiers, batch);
+    }
+
+    /**
+     * Вернуть вместимость общей очереди в кассу: места, которые могут занять заказы
+     * в очередях кассиров, вычитаются из вместимости очереди в кассу
+     *
+     * @param capacity - вместимость очереди в кассу вместе с очередями кассиров
+     * @param cashiers - количество кассиров
+     * @param batch    - наибольшее количество заказов, забираемых из общей очереди за раз
+     * @return int вместимость общей очереди, не меньше одного заказа
+     */
+    public static int queueCapacity(int capacity, int cashiers, int batch) {
+        return capacity - cashiers * (batchSize(capacity, cashiers, batch) - 1);
+    }
+
+    /**
+     * Вернуть количество заказов, забираемых из общей очереди за раз, уменьшенное так,
+     * чтобы в общей очереди оставалось хотя бы одно место
+     *
+     * @param capacity - вместимость очереди в кассу вместе с очередями кассиров
+     * @param cashiers - количество кассиров
+     * @param batch    - наибольшее количество заказов, забираемых из общей очереди за раз
+     * @return int количество заказов
+     */
+    private static int batchSize(int capacity, int cashiers, int batch) {
+        return (cashiers == 1) ? 1 : Math.min(batch, 1 + (capacity - 1) / cashiers);
+    }
+
+    /**
+     * Получить следующий заказ кассира, ожидая его при необходимости
+     *
+     * @param cashier - номер кассира, начиная с нуля
+     * @return Order заказ
+     * @throws InterruptedException если ожидание прервано
+     */
+    public Order take(int cashier) throws InterruptedException {
+        if (_cashierQueues.length == 1) {
+            return _cashboxQueue.take();
+        }
+
+        ConcurrentLinkedDeque<Order> own = _cashierQueues[cashier];
+
+        while (true) {
+            Order order = own.pollFirst();
+            if (order != null) {
+                return order;
+            }
+
+            order = takeBatch(own);
+            if (order != null) {
+                return order;
+            }
+
+            order = steal(cashier);
+            if (order != null) {
+                return order;
+            }
+
+            // Заказов нет: кассир ждёт общую очередь, периодически проверяя очереди остальных
+            order = _cashboxQueue.poll(STEAL_INTERVAL_NANOS, TimeUnit.NANOSECONDS);
+            if (order != null) {
+                return order;
+            }
+        }
+    }
+
+    /**
+     * Вернуть количество заказов в очередях кассиров
+     *
+     * @return int количество заказов, забранных из общей очереди и ещё не обслуженных
+     */
+    public int getBacklog() {
+        int backlog = 0;
+        for (ConcurrentLinkedDeque<Order> queue : _cashierQueues) {
+            backlog += queue.size();
+        }
+        return backlog;
+    }
+
+    /**
+     * Забрать заказ из общей очереди вместе со следующими заказами в очередь кассира
+     *
+     * @param own - очередь кассира
+     * @return Order первый заказ или {@code null}, если общая очередь пуста
+     */
+    private Order takeBatch(ConcurrentLinkedDeque<Order> own) {
+        Order order = _cashboxQueue.poll();
+        if (order == null) {
+            return null;
+        }
+
+        for (int i = 1; i < _batch; i++) {
+            Order next = _cashboxQueue.poll();
+            if (next == null) {
+                break;
+            }
+            own.addLast(next);
+        }
+
+        return order;
+    }
+
+    /**
+     * Перехватить заказ с конца очереди другого кассира
+     *
+     * @param cashier - номер перехватывающего кассира
+     * @return Order заказ или {@code null}, если очереди остальных кассиров пусты
+     */
+    private Order steal(int cashier) {
+        for (int i = 1; i < _cashierQueues.length; i++) {
+            Order order = _cashierQueues[(cashier + i) % _cashierQueues.length].pollLast();
+            if (order != null) {
+                return order;
+            }
+        }
+        return null;
+    }
+}
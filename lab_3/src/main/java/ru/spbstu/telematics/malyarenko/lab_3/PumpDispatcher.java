@@ -0,0 +1,253 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Назначение заказов свободным насосам с учётом типа топлива.
+ * <p>
+ * Для каждого типа топлива диспетчер хранит очередь свободных насосов, которые выдают это
+ * топливо, и очередь заказов, которым пока не нашлось насоса. Насос, выдающий несколько
+ * типов топлива, стоит в очередях всех своих типов не более одного раза; занятость насоса
+ * отмечается атомарным флагом, поэтому насос, занятый заказом другого типа, пропускается
+ * и исключается из очереди этого типа.
+ * <p>
+ * Каждый заказ и каждый освободившийся насос сначала публикуются в своей очереди, а затем
+ * проверяют очередь другой стороны, поэтому ни заказ, ни насос не остаются без пары.
+ * Насос, занятый при составлении пары, заказ которой забрал другой поток, освобождается
+ * так же, как после заказа: он снова встаёт в очереди всех своих типов топлива и проверяет
+ * их заказы, ведь пока он был занят, его могли исключить из очереди другого типа.
+ * Освободившийся насос первым берёт самый давний из заказов своих типов топлива.
+ * Назначение выполняется за амортизированное O(1) без блокировок.
+ * <p>
+ * Отправитель заказа не ждёт насоса: заказ, которому не нашлось свободного насоса, ждёт в
+ * очереди своего типа топлива, а отправитель сразу переходит к следующему заказу. Поэтому
+ * заказ, ждущий насоса одного типа топлива, не задерживает заказы других типов
+ */
+public class PumpDispatcher {
+
+    /**
+     * Состояние насоса
+     */
+    private static final class PumpState {
+        /** Поток насоса */
+        final FuelPumpThread _pump;
+
+        /** Типы топлива, которые выдаёт насос */
+        final Set<FuelType> _fuelTypes;
+
+        /** Насос занят заказом */
+        final AtomicBoolean _busy = new AtomicBoolean(true);
+
+        /** Насос стоит в очереди свободных насосов типа топлива */
+        final AtomicBoolean[] _listed = new AtomicBoolean[FuelType.values().length];
+
+        PumpState(FuelPumpThread pump, Set<FuelType> fuelTypes) {
+            _pump = pump;
+            _fuelTypes = EnumSet.copyOf(fuelTypes);
+            for (int i = 0; i < _listed.length; i++) {
+                _listed[i] = new AtomicBoolean();
+            }
+        }
+    } // PumpState
+
+    /**
+     * Заказ, ожидающий насоса
+     */
+    private static final class PendingOrder {
+        /** Заказ */
+        final Order _order;
+
+        /** Порядковый номер заказа */
+        final long _sequence;
+
+        /** Насос, которому назначен заказ */
+        final CompletableFuture<FuelPumpThread> _pump = new CompletableFuture<>();
+
+        PendingOrder(Order order, long sequence) {
+            _order = order;
+            _sequence = sequence;
+        }
+    } // PendingOrder
+
+    /** Свободные насосы по типам топлива */
+    private final ConcurrentLinkedQueue<PumpState>[] _idlePumps;
+
+    /** Заказы, ожидающие насоса, по типам топлива */
+    private final ConcurrentLinkedQueue<PendingOrder>[] _pendingOrders;
+
+    /** Состояния насосов по номерам */
+    private final PumpState[] _states;
+
+    /** Параметры станции */
+    private final StationConfig _config;
+
+    /** Счётчик порядковых номеров заказов */
+    private final AtomicLong _sequence = new AtomicLong();
+
+    /**
+     * Конструктор
+     *
+     * @param config - параметры станции, задающие количество насосов и типы топлива, которые они выдают
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public PumpDispatcher(StationConfig config) {
+        int types = FuelType.values().length;
+        _idlePumps = new ConcurrentLinkedQueue[types];
+        _pendingOrders = new ConcurrentLinkedQueue[types];
+        for (int i = 0; i < types; i++) {
+            _idlePumps[i] = new ConcurrentLinkedQueue<>();
+            _pendingOrders[i] = new ConcurrentLinkedQueue<>();
+        }
+
+        checkFuelTypes(config);
+        _config = config;
+        _states = new PumpState[config.getPumps()];
+    }
+
+    /**
+     * Зарегистрировать насос. Насос считается занятым, пока не сообщит о готовности
+     * методом {@link #pumpIdle(FuelPumpThread)}
+     *
+     * @param pump - поток насоса
+     */
+    public void register(FuelPumpThread pump) {
+        _states[pump.getId() - 1] = new PumpState(pump, _config.getPumpFuelTypes(pump.getId()));
+    }
+
+    /**
+     * Назначить заказ свободному насосу, выдающему топливо заказа. Если такого насоса нет,
+     * заказ ждёт в очереди своего типа топлива, пока насос не освободится. Метод не ждёт
+     * назначения
+     *
+     * @param order - заказ
+     * @return CompletableFuture насос, которому назначен заказ; завершается при назначении
+     */
+    public CompletableFuture<FuelPumpThread> dispatch(Order order) {
+        int type = order.getFuelType().ordinal();
+        PendingOrder pending = new PendingOrder(order, _sequence.getAndIncrement());
+
+        _pendingOrders[type].add(pending);
+        match(type);
+
+        return pending._pump;
+    }
+
+    /**
+     * Сообщить, что насос свободен и может принять следующий заказ
+     *
+     * @param pump - поток насоса
+     */
+    public void pumpIdle(FuelPumpThread pump) {
+        release(_states[pump.getId() - 1]);
+    }
+
+    /**
+     * Освободить насос: поставить его в очереди свободных насосов всех его типов топлива
+     * и составить пары с ожидающими заказами
+     *
+     * @param state - состояние насоса
+     */
+    private void release(PumpState state) {
+        state._busy.set(false);
+
+        for (FuelType type : state._fuelTypes) {
+            list(state, type.ordinal());
+        }
+
+        // Насос, выдающий несколько типов топлива, первым берёт самый давний заказ,
+        // чтобы заказы одного типа не вытесняли заказы другого
+        FuelType[] types = state._fuelTypes.toArray(new FuelType[0]);
+        Arrays.sort(types, Comparator.comparingLong(this::oldestPending));
+        for (FuelType type : types) {
+            match(type.ordinal());
+        }
+    }
+
+    /**
+     * Вернуть количество заказов, ожидающих насоса
+     *
+     * @param type - тип топлива
+     * @return int количество заказов
+     */
+    public int getPendingOrders(FuelType type) {
+        return _pendingOrders[type.ordinal()].size();
+    }
+
+    /**
+     * Составить пары из ожидающих заказов и свободных насосов типа топлива
+     *
+     * @param type - номер типа топлива
+     */
+    private void match(int type) {
+        ConcurrentLinkedQueue<PendingOrder> orders = _pendingOrders[type];
+        ConcurrentLinkedQueue<PumpState> pumps = _idlePumps[type];
+
+        while (!orders.isEmpty()) {
+            PumpState state = pumps.poll();
+            if (state == null) {
+                return;
+            }
+            state._listed[type].set(false);
+
+            // Насос уже занят заказом другого типа топлива
+            if (!state._busy.compareAndSet(false, true)) {
+                continue;
+            }
+
+            // Заказ забрал другой поток. Пока насос был занят, его могли исключить из очереди
+            // другого типа топлива, поэтому он освобождается по всем своим типам
+            PendingOrder pending = orders.poll();
+            if (pending == null) {
+                release(state);
+                return;
+            }
+
+            state._pump.assign(pending._order);
+            pending._pump.complete(state._pump);
+        }
+    }
+
+    /**
+     * Проверить, что каждый тип топлива выдаёт хотя бы один насос: иначе заказ этого топлива
+     * ждал бы насоса вечно
+     *
+     * @param config - параметры станции
+     * @throws IllegalArgumentException если какой-то тип топлива не выдаёт ни один насос
+     */
+    static void checkFuelTypes(StationConfig config) {
+        Set<FuelType> missing = EnumSet.allOf(FuelType.class);
+        for (int pump = 1; pump <= config.getPumps(); pump++) {
+            missing.removeAll(config.getPumpFuelTypes(pump));
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("No pump dispenses fuel " + missing);
+        }
+    }
+
+    /**
+     * Вернуть порядковый номер самого давнего заказа, ожидающего насоса
+     *
+     * @param type - тип топлива
+     * @return long порядковый номер или {@code Long.MAX_VALUE}, если заказов нет
+     */
+    private long oldestPending(FuelType type) {
+        PendingOrder pending = _pendingOrders[type.ordinal()].peek();
+        return (pending == null) ? Long.MAX_VALUE : pending._sequence;
+    }
+
+    /**
+     * Поставить насос в очередь свободных насосов типа топлива, если его там ещё нет
+     */
+    private void list(PumpState state, int type) {
+        if (state._listed[type].compareAndSet(false, true)) {
+            _idlePumps[type].add(state);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Пропускная способность передачи элементов через очередь в кассу при разном количестве
+ * производителей и потребителей.
+ * <p>
+ * Для каждого сочетания производителей и потребителей каждая очередь заданной вместимости
+ * - справедливая и несправедливая {@link ArrayBlockingQueue} и {@link RingBufferQueue} с
+ * каждым {@link RingBufferQueue.WaitStrategy} - заданное время передаёт элементы от
+ * производителей, вызывающих {@code put}, потребителям, вызывающим {@code take}, как
+ * клиенты и кассиры станции. Перед замером каждая очередь прогревается тем же прогоном.
+ * Выводится количество переданных элементов в миллисекунду.
+ * <p>
+ * Активное ожидание выгодно, только если потоков не больше, чем ядер: иначе ожидающий
+ * поток до вытеснения занимает ядро, которое нужно потоку, способному продолжить работу
+ * <p>
+ * Запуск: {@code QueueHandoffBenchmark [capacity] [millis] [maxThreads]}
+ */
+public class QueueHandoffBenchmark {
+
+    /** Передаваемый элемент */
+    private static final Object ITEM = new Object();
+
+    public static void main(String[] args) throws InterruptedException {
+        int capacity = (args.length > 0) ? Integer.parseInt(args[0]) : 3;
+        long millis = (args.length > 1) ? Long.parseLong(args[1]) : 500;
+        int maxThreads = (args.length > 2) ? Integer.parseInt(args[2]) : 4;
+
+        List<String> names = new ArrayList<>();
+        List<Supplier<BlockingQueue<Object>>> queues = new ArrayList<>();
+
+        names.add("ABQ fair");
+        queues.add(() -> new ArrayBlockingQueue<>(capacity, true));
+        names.add("ABQ");
+        queues.add(() -> new ArrayBlockingQueue<>(capacity));
+        for (RingBufferQueue.WaitStrategy strategy : RingBufferQueue.WaitStrategy.values()) {
+            names.add("Ring " + strategy);
+            queues.add(() -> new RingBufferQueue<>(capacity, strategy));
+        }
+
+        System.out.printf("Capacity %d; %d ms per run; %d processors; transfers per ms%n",
+            capacity, millis, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%9s %9s", "producers", "consumers");
+        for (String name : names) {
+            System.out.printf(" %11s", name);
+        }
+        System.out.println();
+
+        for (int producers = 1; producers <= maxThreads; producers *= 2) {
+            for (int consumers = 1; consumers <= maxThreads; consumers *= 2) {
+                System.out.printf("%9d %9d", producers, consumers);
+                for (Supplier<BlockingQueue<Object>> queue : queues) {
+                    handoff(queue.get(), producers, consumers, millis);
+                    long transfers = handoff(queue.get(), producers, consumers, millis);
+                    System.out.printf(" %11.0f", (double) transfers / millis);
+                }
+                System.out.println();
+            }
+        }
+    }
+
+    /**
+     * Передавать элементы через очередь заданное время
+     *
+     * @return long количество элементов, полученных потребителями
+     */
+    private static long handoff(BlockingQueue<Object> queue, int producers, int consumers, long millis)
+        throws InterruptedException
+    {
+        LongAdder transfers = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < producers; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    while (true) {
+                        queue.put(ITEM);
+                    }
+                } catch (InterruptedException e) {
+                    // Прогон окончен
+                }
+            }));
+        }
+        for (int i = 0; i < consumers; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    while (true) {
+                        queue.take();
+                        transfers.increment();
+                    }
+                } catch (InterruptedException e) {
+                    // Прогон окончен
+                }
+            }));
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Thread.sleep(millis);
+        long result = transfers.sum();
+
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,320 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ограниченная очередь на кольцевом буфере без блокировок для нескольких производителей
+ * и нескольких потребителей.
+ * <p>
+ * Каждая ячейка буфера хранит номер последовательности, как в {@link EventLog}: по нему
+ * производитель узнаёт, свободна ли ячейка для его позиции, а потребитель - заполнена ли.
+ * Позиция занимается одним {@code compareAndSet} счётчика производителей или потребителей,
+ * после чего ячейка заполняется или освобождается без конкуренции, поэтому добавление и
+ * извлечение не проходят через общую блокировку, а производители и потребители не мешают
+ * друг другу. Вместимость не округляется до степени двойки.
+ * <p>
+ * Очередь не хранит ожидающих потоков: заблокированные операции повторяют попытку,
+ * выдерживая между попытками паузу согласно {@link WaitStrategy}. Порядок элементов -
+ * порядок занятия позиций; ожидающие потоки, в отличие от справедливой
+ * {@link java.util.concurrent.ArrayBlockingQueue}, не обслуживаются в порядке очереди.
+ * Итератор возвращает снимок элементов и не поддерживает удаление
+ *
+ * @param <E> тип элементов
+ */
+public class RingBufferQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    /**
+     * Ожидание между попытками заблокированной операции
+     */
+    public enum WaitStrategy {
+        /** Активное ожидание: наименьшая задержка, если у ожидающего потока есть своё ядро */
+        SPIN {
+            @Override
+            void idle(int attempt, long remainingNanos) {
+                Thread.onSpinWait();
+            }
+        },
+        /** Активное ожидание, затем уступка процессора другим потокам */
+        YIELD {
+            @Override
+            void idle(int attempt, long remainingNanos) {
+                if (attempt < SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        },
+        /** Активное ожидание, уступка процессора, затем засыпание с растущей паузой */
+        PARK {
+            @Override
+            void idle(int attempt, long remainingNanos) {
+                if (attempt < SPINS) {
+                    Thread.onSpinWait();
+                } else if (attempt < SPINS + YIELDS) {
+                    Thread.yield();
+                } else {
+                    int shift = Math.min(attempt - SPINS - YIELDS, MAX_PARK_SHIFT);
+                    LockSupport.parkNanos(Math.min(MIN_PARK_NANOS << shift, remainingNanos));
+                }
+            }
+        };
+
+        /** Количество попыток с активным ожиданием */
+        private static final int SPINS = 100;
+
+        /** Количество попыток с уступкой процессора */
+        private static final int YIELDS = 10;
+
+        /** Начальная пауза засыпания, нс */
+        private static final long MIN_PARK_NANOS = 1_000;
+
+        /** Двоичный логарифм отношения наибольшей паузы засыпания к начальной */
+        private static final int MAX_PARK_SHIFT = 7;
+
+        /**
+         * Выдержать паузу перед следующей попыткой
+         *
+         * @param attempt        - номер неудавшейся попытки, начиная с нуля
+         * @param remainingNanos - оставшееся время ожидания, нс
+         */
+        abstract void idle(int attempt, long remainingNanos);
+    }
+
+    /** Вместимость */
+    private final int _capacity;
+
+    /** Элементы ячеек */
+    private final AtomicReferenceArray<E> _items;
+
+    /**
+     * Номера последовательности ячеек: ячейка свободна для позиции производителя {@code p},
+     * если её номер равен {@code 2p}, и заполнена для позиции потребителя {@code c}, если её
+     * номер равен {@code 2c + 1}. Номера удвоены, чтобы заполненная ячейка не выглядела
+     * свободной для позиции следующего круга при вместимости в один элемент
+     */
+    private final AtomicLongArray _sequences;
+
+    /** Следующая позиция производителя */
+    private final AtomicLong _tail = new AtomicLong();
+
+    /** Следующая позиция потребителя */
+    private final AtomicLong _head = new AtomicLong();
+
+    /** Ожидание заблокированных операций */
+    private final WaitStrategy _waitStrategy;
+
+    /**
+     * Конструктор
+     *
+     * @param capacity     - вместимость очереди
+     * @param waitStrategy - ожидание заблокированных операций
+     */
+    public RingBufferQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        _capacity = capacity;
+        _items = new AtomicReferenceArray<>(capacity);
+        _sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            _sequences.set(i, 2L * i);
+        }
+        _waitStrategy = Objects.requireNonNull(waitStrategy);
+    }
+
+    /**
+     * Вернуть ожидание заблокированных операций
+     *
+     * @return WaitStrategy ожидание
+     */
+    public WaitStrategy getWaitStrategy() {
+        return _waitStrategy;
+    }
+
+    @Override
+    public boolean offer(E item) {
+        Objects.requireNonNull(item);
+
+        long position = _tail.get();
+        while (true) {
+            int index = (int) (position % _capacity);
+            long difference = _sequences.get(index) - 2 * position;
+
+            if (difference == 0) {
+                if (_tail.compareAndSet(position, position + 1)) {
+                    _items.set(index, item);
+                    _sequences.set(index, 2 * position + 1);
+                    return true;
+                }
+                position = _tail.get();
+            } else if (difference < 0) {
+                // Ячейка ещё не освобождена потребителем предыдущего круга: очередь заполнена
+                return false;
+            } else {
+                // Позицию занял другой производитель
+                position = _tail.get();
+            }
+        }
+    }
+
+    @Override
+    public E poll() {
+        long position = _head.get();
+        while (true) {
+            int index = (int) (position % _capacity);
+            long difference = _sequences.get(index) - (2 * position + 1);
+
+            if (difference == 0) {
+                if (_head.compareAndSet(position, position + 1)) {
+                    E item = _items.get(index);
+                    _items.set(index, null);
+                    _sequences.set(index, 2 * (position + _capacity));
+                    return item;
+                }
+                position = _head.get();
+            } else if (difference < 0) {
+                // Ячейка ещё не заполнена производителем: очередь пуста
+                return null;
+            } else {
+                // Позицию занял другой потребитель
+                position = _head.get();
+            }
+        }
+    }
+
+    @Override
+    public E peek() {
+        while (true) {
+            long position = _head.get();
+            int index = (int) (position % _capacity);
+            if (_sequences.get(index) != 2 * position + 1) {
+                return null;
+            }
+
+            E item = _items.get(index);
+            if (item != null && _head.get() == position) {
+                return item;
+            }
+        }
+    }
+
+    @Override
+    public void put(E item) throws InterruptedException {
+        Objects.requireNonNull(item);
+        for (int attempt = 0; !offer(item); attempt++) {
+            idle(attempt, Long.MAX_VALUE);
+        }
+    }
+
+    @Override
+    public boolean offer(E item, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(item);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        for (int attempt = 0; !offer(item); attempt++) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            idle(attempt, remaining);
+        }
+        return true;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E item;
+        for (int attempt = 0; (item = poll()) == null; attempt++) {
+            idle(attempt, Long.MAX_VALUE);
+        }
+        return item;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        E item;
+        for (int attempt = 0; (item = poll()) == null; attempt++) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            idle(attempt, remaining);
+        }
+        return item;
+    }
+
+    @Override
+    public int size() {
+        // Позиция потребителя читается первой, поэтому разность не меньше истинного размера
+        // на момент чтения позиции производителя; ограничивается вместимостью
+        long head = _head.get();
+        long tail = _tail.get();
+        return (int) Math.max(0, Math.min(_capacity, tail - head));
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return _capacity - size();
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> collection, int maxElements) {
+        Objects.requireNonNull(collection);
+        if (collection == this) {
+            throw new IllegalArgumentException("Cannot drain a queue to itself");
+        }
+
+        int drained = 0;
+        E item;
+        while (drained < maxElements && (item = poll()) != null) {
+            collection.add(item);
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        List<E> snapshot = new ArrayList<>(_capacity);
+        long tail = _tail.get();
+        for (long position = _head.get(); position < tail; position++) {
+            int index = (int) (position % _capacity);
+            E item = _items.get(index);
+            if (item != null && _sequences.get(index) == 2 * position + 1) {
+                snapshot.add(item);
+            }
+        }
+
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+    /**
+     * Пауза заблокированной операции
+     */
+    private void idle(int attempt, long remainingNanos) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        _waitStrategy.idle(attempt, remainingNanos);
+    }
+}
@@ -0,0 +1,59 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import java.util.Random;
+
+/**
+ * Распределение объёма топлива, на который клиент делает заказ. Сумма заказа
+ * {@link Customer#pay()} - объём, умноженный на цену топлива
+ */
+public interface SpendDistribution {
+
+    /**
+     * Разыграть объём заказа
+     *
+     * @param random - генератор случайных чисел клиента
+     * @return int объём топлива, л, не меньше единицы
+     */
+    int litres(Random random);
+
+    /**
+     * Равномерное распределение целого объёма
+     *
+     * @param min - наименьший объём, л
+     * @param max - наибольший объём, л
+     * @return SpendDistribution распределение
+     */
+    static SpendDistribution uniform(int min, int max) {
+        if (min < 1 || max < min) {
+            throw new IllegalArgumentException("Invalid volume range: " + min + ".." + max);
+        }
+        return random -> min + random.nextInt(max - min + 1);
+    }
+
+    /**
+     * Нормальное распределение объёма, усечённое снизу одним литром
+     *
+     * @param mean      - средний объём, л
+     * @param deviation - стандартное отклонение, л
+     * @return SpendDistribution распределение
+     */
+    static SpendDistribution normal(double mean, double deviation) {
+        if (!(mean > 0) || deviation < 0) {
+            throw new IllegalArgumentException("Invalid normal distribution: " + mean + ", " + deviation);
+        }
+        return random -> (int) Math.max(1, Math.round(mean + deviation * random.nextGaussian()));
+    }
+
+    /**
+     * Экспоненциальное распределение объёма: много небольших заказов и редкие большие
+     *
+     * @param mean - средний объём, л
+     * @return SpendDistribution распределение
+     */
+    static SpendDistribution exponential(double mean) {
+        if (!(mean > 0)) {
+            throw new IllegalArgumentException("Mean volume must be positive: " + mean);
+        }
+        return random -> (int) Math.max(1, Math.round(-mean * Math.log(1 - random.nextDouble())));
+    }
+}
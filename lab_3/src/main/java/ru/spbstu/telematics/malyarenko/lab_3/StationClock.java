@@ -0,0 +1,24 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+/**
+ * Часы заправочной станции. Время отсчитывается в миллисекундах от начала работы станции
+ */
+public interface StationClock {
+
+    /**
+     * Вернуть текущее время станции
+     *
+     * @return long время в миллисекундах от начала работы станции
+     */
+    long now();
+
+    /**
+     * Часы, идущие вместе с системным временем
+     *
+     * @return StationClock часы, отсчёт которых начинается в момент вызова
+     */
+    static StationClock system() {
+        long start = System.nanoTime();
+        return () -> (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,740 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Параметры заправочной станции: количество участников и длительности этапов обслуживания.
+ * Значения по умолчанию соответствуют исходной модели станции
+ */
+public class StationConfig {
+
+    /** Ожидание без ограничения времени */
+    public static final long FOREVER = Long.MAX_VALUE;
+
+    /** Отсутствие ограничения длины очереди */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    /** Резервуар без ограничения запаса топлива */
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    /** Количество клиентов */
+    private int _customers = 10;
+
+    /** Количество заправочных насосов */
+    private int _pumps = 3;
+
+    /** Вместимость очереди в кассу */
+    private int _cashboxCapacity = 3;
+
+    /** Ожидание в очереди в кассу на кольцевом буфере или {@code null} для справедливой очереди с блокировкой */
+    private RingBufferQueue.WaitStrategy _cashboxWaitStrategy;
+
+    /** Количество кассиров */
+    private int _cashiers = 1;
+
+    /** Наибольшее количество заказов, которые кассир забирает из общей очереди за раз */
+    private int _cashierBatch = 2;
+
+    /** Типы топлива, которые выдают насосы, по номерам насосов; остальные насосы выдают все типы */
+    private final Map<Integer, Set<FuelType>> _pumpFuelTypes = new HashMap<>();
+
+    /** Время от занятия насоса клиентом до оплаты, мс */
+    private long _customerPrepareMillis = 500;
+
+    /** Время от окончания заправки до освобождения насоса клиентом, мс */
+    private long _customerLeaveMillis = 1000;
+
+    /** Время от освобождения насоса до следующего приезда клиента, мс */
+    private long _customerReturnMillis = 1000;
+
+    /** Время приёма заказа кассиром, мс */
+    private long _cashierAcceptMillis = 1000;
+
+    /** Время от отправки заказа на насос до сообщения клиенту, мс */
+    private long _cashierNotifyMillis = 1000;
+
+    /** Время подготовки насоса к следующему заказу, мс */
+    private long _pumpCooldownMillis = 2000;
+
+    /** Во сколько раз время станции идёт быстрее реального в многопоточной модели */
+    private double _timeScale = 1;
+
+    /** Способ выполнения участников многопоточной модели */
+    private ThreadModel _threadModel = ThreadModel.PLATFORM;
+
+    /** Длина очереди к насосам, при которой приехавший клиент уезжает, не вставая в неё */
+    private int _balkQueueLength = UNBOUNDED;
+
+    /** Терпение клиента в очереди к насосам, мс */
+    private long _patienceMillis = FOREVER;
+
+    /** Наибольшее ожидание места в очереди в кассу, мс */
+    private long _cashboxTimeoutMillis = FOREVER;
+
+    /** Вместимость резервуаров по типам топлива, л */
+    private final long[] _tankCapacity = {UNLIMITED, UNLIMITED, UNLIMITED};
+
+    /** Нижний уровень резервуара - доля вместимости */
+    private double _lowLevelFraction = 0.25;
+
+    /** Количество бензовозов */
+    private int _tankers = 1;
+
+    /** Время от сигнала резервуара до приезда бензовоза */
+    private long _tankerLeadMillis = 30 * 60_000;
+
+    /** Время слива топлива из бензовоза, в течение которого резервуар закрыт */
+    private long _tankerRefillMillis = 20 * 60_000;
+
+    /** Относительные доли типов топлива в заказах клиентов */
+    private double[] _fuelMix = {1, 1, 1};
+
+    /** Распределение объёма заказа */
+    private SpendDistribution _spendDistribution = SpendDistribution.uniform(20, 29);
+
+    /** Процесс приездов открытой модели или {@code null}, если клиенты приезжают снова */
+    private ArrivalProcess _arrivalProcess;
+
+    /** Уровень журнала событий */
+    private EventLog.Level _logLevel = EventLog.Level.DEBUG;
+
+    /** Файл журнала событий или {@code null} для стандартного вывода */
+    private Path _logFile;
+
+    /** Интервал снимков статистики по часам станции, мс; {@code 0} - снимки не выводятся */
+    private long _snapshotIntervalMillis;
+
+    /** Количество потоков пула для {@link ThreadModel#POOL} и {@link ThreadModel#FORK_JOIN} */
+    private int _poolSize = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Вернуть количество клиентов
+     *
+     * @return int количество клиентов
+     */
+    public int getCustomers() {
+        return _customers;
+    }
+
+    /**
+     * Задать количество клиентов
+     *
+     * @param customers - количество клиентов
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setCustomers(int customers) {
+        _customers = positive(customers, "Number of customers");
+        return this;
+    }
+
+    /**
+     * Вернуть количество заправочных насосов
+     *
+     * @return int количество насосов
+     */
+    public int getPumps() {
+        return _pumps;
+    }
+
+    /**
+     * Задать количество заправочных насосов
+     *
+     * @param pumps - количество насосов
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setPumps(int pumps) {
+        _pumps = positive(pumps, "Number of pumps");
+        return this;
+    }
+
+    /**
+     * Вернуть типы топлива, которые выдаёт насос
+     *
+     * @param pump - номер насоса, начиная с единицы
+     * @return Set типы топлива
+     */
+    public Set<FuelType> getPumpFuelTypes(int pump) {
+        Set<FuelType> types = _pumpFuelTypes.get(pump);
+        return Collections.unmodifiableSet(types == null ? EnumSet.allOf(FuelType.class) : types);
+    }
+
+    /**
+     * Задать типы топлива, которые выдаёт насос. По умолчанию насос выдаёт все типы
+     *
+     * @param pump  - номер насоса, начиная с единицы
+     * @param types - типы топлива
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setPumpFuelTypes(int pump, FuelType... types) {
+        positive(pump, "Pump number");
+        if (types.length == 0) {
+            throw new IllegalArgumentException("Pump " + pump + " must dispense at least one fuel type");
+        }
+        Set<FuelType> set = EnumSet.noneOf(FuelType.class);
+        Collections.addAll(set, types);
+        _pumpFuelTypes.put(pump, set);
+        return this;
+    }
+
+    /**
+     * Вернуть вместимость очереди в кассу
+     *
+     * @return int вместимость очереди
+     */
+    public int getCashboxCapacity() {
+        return _cashboxCapacity;
+    }
+
+    /**
+     * Задать вместимость очереди в кассу
+     *
+     * @param capacity - вместимость очереди
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setCashboxCapacity(int capacity) {
+        _cashboxCapacity = positive(capacity, "Cashbox capacity");
+        return this;
+    }
+
+    /**
+     * Вернуть ожидание в очереди в кассу на кольцевом буфере
+     *
+     * @return RingBufferQueue.WaitStrategy ожидание или {@code null}, если очередь в кассу -
+     *         справедливая {@link java.util.concurrent.ArrayBlockingQueue}
+     */
+    public RingBufferQueue.WaitStrategy getCashboxWaitStrategy() {
+        return _cashboxWaitStrategy;
+    }
+
+    /**
+     * Выбрать реализацию очереди в кассу многопоточной модели. По умолчанию очередь -
+     * справедливая {@link java.util.concurrent.ArrayBlockingQueue}; с заданным ожиданием -
+     * {@link RingBufferQueue} без блокировок. С {@link RingBufferQueue.WaitStrategy#SPIN} и
+     * {@link RingBufferQueue.WaitStrategy#YIELD} простаивающие кассиры и клиенты у полной
+     * очереди занимают процессор, поэтому они подходят, только если ядер больше, чем участников
+     *
+     * @param strategy - ожидание или {@code null} для справедливой очереди с блокировкой
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setCashboxWaitStrategy(RingBufferQueue.WaitStrategy strategy) {
+        _cashboxWaitStrategy = strategy;
+        return this;
+    }
+
+    /**
+     * Вернуть количество кассиров
+     *
+     * @return int количество кассиров
+     */
+    public int getCashiers() {
+        return _cashiers;
+    }
+
+    /**
+     * Задать количество кассиров
+     *
+     * @param cashiers - количество кассиров
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setCashiers(int cashiers) {
+        _cashiers = positive(cashiers, "Number of cashiers");
+        return this;
+    }
+
+    /**
+     * Вернуть наибольшее количество заказов, которые кассир забирает из общей очереди за раз
+     *
+     * @return int количество заказов
+     */
+    public int getCashierBatch() {
+        return _cashierBatch;
+    }
+
+    /**
+     * Задать наибольшее количество заказов, которые кассир забирает из общей очереди за раз.
+     * Заказы сверх первого ставятся в очередь кассира, откуда их могут перехватить остальные,
+     * и занимают места очереди в кассу
+     *
+     * @param batch - количество заказов
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setCashierBatch(int batch) {
+        _cashierBatch = positive(batch, "Cashier batch");
+        return this;
+    }
+
+    /** Вернуть время от занятия насоса клиентом до оплаты, мс */
+    public long getCustomerPrepareMillis() {
+        return _customerPrepareMillis;
+    }
+
+    /** Вернуть время от окончания заправки до освобождения насоса клиентом, мс */
+    public long getCustomerLeaveMillis() {
+        return _customerLeaveMillis;
+    }
+
+    /** Вернуть время от освобождения насоса до следующего приезда клиента, мс */
+    public long getCustomerReturnMillis() {
+        return _customerReturnMillis;
+    }
+
+    /** Вернуть время приёма заказа кассиром, мс */
+    public long getCashierAcceptMillis() {
+        return _cashierAcceptMillis;
+    }
+
+    /** Вернуть время от отправки заказа на насос до сообщения клиенту, мс */
+    public long getCashierNotifyMillis() {
+        return _cashierNotifyMillis;
+    }
+
+    /** Вернуть время подготовки насоса к следующему заказу, мс */
+    public long getPumpCooldownMillis() {
+        return _pumpCooldownMillis;
+    }
+
+    /**
+     * Задать длительности этапов обслуживания клиента
+     *
+     * @param prepare - время от занятия насоса до оплаты, мс
+     * @param leave   - время от окончания заправки до освобождения насоса, мс
+     * @param ret     - время от освобождения насоса до следующего приезда, мс
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setCustomerTimings(long prepare, long leave, long ret) {
+        _customerPrepareMillis = nonNegative(prepare);
+        _customerLeaveMillis = nonNegative(leave);
+        _customerReturnMillis = nonNegative(ret);
+        return this;
+    }
+
+    /**
+     * Задать длительности этапов работы кассира
+     *
+     * @param accept - время приёма заказа, мс
+     * @param notify - время от отправки заказа на насос до сообщения клиенту, мс
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setCashierTimings(long accept, long notify) {
+        _cashierAcceptMillis = nonNegative(accept);
+        _cashierNotifyMillis = nonNegative(notify);
+        return this;
+    }
+
+    /**
+     * Задать время подготовки насоса к следующему заказу
+     *
+     * @param cooldown - время подготовки, мс
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setPumpCooldownMillis(long cooldown) {
+        _pumpCooldownMillis = nonNegative(cooldown);
+        return this;
+    }
+
+    /**
+     * Вернуть, во сколько раз время станции идёт быстрее реального
+     *
+     * @return double ускорение времени
+     */
+    public double getTimeScale() {
+        return _timeScale;
+    }
+
+    /**
+     * Задать, во сколько раз время станции идёт быстрее реального. Все паузы участников
+     * многопоточной модели сокращаются в заданное число раз, а часы станции ускоряются
+     *
+     * @param timeScale - ускорение времени
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setTimeScale(double timeScale) {
+        if (!(timeScale > 0)) {
+            throw new IllegalArgumentException("Time scale must be positive: " + timeScale);
+        }
+        _timeScale = timeScale;
+        return this;
+    }
+
+    /**
+     * Вернуть способ выполнения участников
+     *
+     * @return ThreadModel способ выполнения
+     */
+    public ThreadModel getThreadModel() {
+        return _threadModel;
+    }
+
+    /**
+     * Задать способ выполнения участников
+     *
+     * @param threadModel - способ выполнения
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setThreadModel(ThreadModel threadModel) {
+        _threadModel = threadModel;
+        return this;
+    }
+
+    /**
+     * Вернуть количество потоков пула
+     *
+     * @return int количество потоков
+     */
+    public int getPoolSize() {
+        return _poolSize;
+    }
+
+    /**
+     * Задать количество потоков пула
+     *
+     * @param poolSize - количество потоков
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setPoolSize(int poolSize) {
+        _poolSize = positive(poolSize, "Pool size");
+        return this;
+    }
+
+    /**
+     * Вернуть длину очереди к насосам, при которой приехавший клиент уезжает
+     *
+     * @return int длина очереди или {@link #UNBOUNDED}
+     */
+    public int getBalkQueueLength() {
+        return _balkQueueLength;
+    }
+
+    /**
+     * Задать длину очереди к насосам, при которой приехавший клиент уезжает, не вставая в неё.
+     * Клиент уезжает, только если свободных насосов нет, поэтому при {@code 0} станция
+     * работает без очереди к насосам. По умолчанию клиенты встают в очередь любой длины
+     *
+     * @param length - длина очереди или {@link #UNBOUNDED}
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setBalkQueueLength(int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Queue length must not be negative: " + length);
+        }
+        _balkQueueLength = length;
+        return this;
+    }
+
+    /**
+     * Вернуть терпение клиента в очереди к насосам
+     *
+     * @return long терпение по часам станции, мс, или {@link #FOREVER}
+     */
+    public long getPatienceMillis() {
+        return _patienceMillis;
+    }
+
+    /**
+     * Задать терпение клиента: клиент, не получивший насос за это время, уезжает.
+     * По умолчанию клиенты ждут насос без ограничения времени
+     *
+     * @param patience - терпение по часам станции, мс, или {@link #FOREVER}
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setPatienceMillis(long patience) {
+        _patienceMillis = nonNegative(patience);
+        return this;
+    }
+
+    /**
+     * Вернуть наибольшее ожидание места в очереди в кассу
+     *
+     * @return long ожидание по часам станции, мс, или {@link #FOREVER}
+     */
+    public long getCashboxTimeoutMillis() {
+        return _cashboxTimeoutMillis;
+    }
+
+    /**
+     * Задать наибольшее ожидание места в очереди в кассу. Касса отказывает клиенту, не
+     * вставшему в очередь за это время, и клиент уезжает без заправки, освобождая насос;
+     * при {@code 0} касса отказывает, как только очередь заполнена. По умолчанию клиенты
+     * ждут места в очереди без ограничения времени
+     *
+     * @param timeout - ожидание по часам станции, мс, или {@link #FOREVER}
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setCashboxTimeoutMillis(long timeout) {
+        _cashboxTimeoutMillis = nonNegative(timeout);
+        return this;
+    }
+
+    /**
+     * Вернуть вместимость резервуара
+     *
+     * @param type - тип топлива
+     * @return long вместимость, л, или {@link #UNLIMITED}
+     */
+    public long getTankCapacity(FuelType type) {
+        return _tankCapacity[type.ordinal()];
+    }
+
+    /**
+     * Задать вместимость резервуара {@link FuelTank}. Станция начинает работу с полными
+     * резервуарами. По умолчанию запас топлива не ограничен
+     *
+     * @param type     - тип топлива
+     * @param capacity - вместимость, л, или {@link #UNLIMITED}
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setTankCapacity(FuelType type, long capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Tank capacity must be positive: " + capacity);
+        }
+        _tankCapacity[type.ordinal()] = capacity;
+        return this;
+    }
+
+    /**
+     * Проверить, ограничен ли запас хотя бы одного типа топлива
+     *
+     * @return boolean {@code true}, если станции нужен бензовоз
+     */
+    public boolean hasFuelTanks() {
+        for (long capacity : _tankCapacity) {
+            if (capacity != UNLIMITED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Вернуть нижний уровень резервуара
+     *
+     * @return double доля вместимости
+     */
+    public double getLowLevelFraction() {
+        return _lowLevelFraction;
+    }
+
+    /**
+     * Задать нижний уровень резервуара, ниже которого вызывается бензовоз
+     *
+     * @param fraction - доля вместимости от 0 до 1
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setLowLevelFraction(double fraction) {
+        if (!(fraction >= 0 && fraction <= 1)) {
+            throw new IllegalArgumentException("Low level must be a fraction of capacity: " + fraction);
+        }
+        _lowLevelFraction = fraction;
+        return this;
+    }
+
+    /**
+     * Вернуть количество бензовозов
+     *
+     * @return int количество бензовозов
+     */
+    public int getTankers() {
+        return _tankers;
+    }
+
+    /**
+     * Задать количество бензовозов. Бензовоз пополняет резервуары по одному в порядке
+     * сигналов, поэтому при одном бензовозе резервуары, одновременно дошедшие до нижнего
+     * уровня, ждут друг друга
+     *
+     * @param tankers - количество бензовозов
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setTankers(int tankers) {
+        _tankers = positive(tankers, "Number of tankers");
+        return this;
+    }
+
+    /**
+     * Вернуть время от сигнала резервуара до приезда бензовоза
+     *
+     * @return long время по часам станции, мс
+     */
+    public long getTankerLeadMillis() {
+        return _tankerLeadMillis;
+    }
+
+    /**
+     * Вернуть время слива топлива из бензовоза
+     *
+     * @return long время по часам станции, мс
+     */
+    public long getTankerRefillMillis() {
+        return _tankerRefillMillis;
+    }
+
+    /**
+     * Задать длительности работы бензовоза
+     *
+     * @param lead   - время от сигнала резервуара до приезда бензовоза
+     * @param refill - время слива топлива, в течение которого тип топлива не продаётся
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setTankerTimings(long lead, long refill) {
+        _tankerLeadMillis = nonNegative(lead);
+        _tankerRefillMillis = nonNegative(refill);
+        return this;
+    }
+
+    /**
+     * Вернуть относительные доли типов топлива в заказах клиентов
+     *
+     * @return double[] доли в порядке {@link FuelType#values()}
+     */
+    public double[] getFuelMix() {
+        return _fuelMix.clone();
+    }
+
+    /**
+     * Задать относительные доли типов топлива в заказах клиентов. По умолчанию все типы
+     * топлива заказываются одинаково часто
+     *
+     * @param weights - неотрицательные доли в порядке {@link FuelType#values()}
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setFuelMix(double... weights) {
+        if (weights.length != FuelType.values().length) {
+            throw new IllegalArgumentException("Fuel mix must have " + FuelType.values().length + " weights");
+        }
+        double total = 0;
+        for (double weight : weights) {
+            if (!(weight >= 0)) {
+                throw new IllegalArgumentException("Fuel weight must not be negative: " + weight);
+            }
+            total += weight;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("At least one fuel weight must be positive");
+        }
+        _fuelMix = weights.clone();
+        return this;
+    }
+
+    /**
+     * Вернуть распределение объёма заказа
+     *
+     * @return SpendDistribution распределение
+     */
+    public SpendDistribution getSpendDistribution() {
+        return _spendDistribution;
+    }
+
+    /**
+     * Задать распределение объёма заказа. По умолчанию объём равномерно распределён от 20 до 29 л
+     *
+     * @param distribution - распределение
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setSpendDistribution(SpendDistribution distribution) {
+        _spendDistribution = distribution;
+        return this;
+    }
+
+    /**
+     * Вернуть процесс приездов открытой модели
+     *
+     * @return ArrivalProcess процесс или {@code null}, если клиенты приезжают снова
+     */
+    public ArrivalProcess getArrivalProcess() {
+        return _arrivalProcess;
+    }
+
+    /**
+     * Задать процесс приездов. По умолчанию станция моделируется замкнуто: {@link #getCustomers()}
+     * клиентов снова приезжают через {@link #getCustomerReturnMillis()} после отъезда. С процессом
+     * приездов каждый клиент приезжает один раз в момент, заданный процессом, а количество
+     * клиентов не ограничено
+     *
+     * @param process - процесс приездов или {@code null} для замкнутой модели
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setArrivalProcess(ArrivalProcess process) {
+        _arrivalProcess = process;
+        return this;
+    }
+
+    /**
+     * Вернуть уровень журнала событий
+     *
+     * @return EventLog.Level уровень журнала
+     */
+    public EventLog.Level getLogLevel() {
+        return _logLevel;
+    }
+
+    /**
+     * Задать уровень журнала событий. {@link EventLog.Level#OFF} отключает журнал
+     *
+     * @param level - уровень журнала
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setLogLevel(EventLog.Level level) {
+        _logLevel = level;
+        return this;
+    }
+
+    /**
+     * Вернуть файл журнала событий
+     *
+     * @return Path файл или {@code null}, если журнал выводится в стандартный вывод
+     */
+    public Path getLogFile() {
+        return _logFile;
+    }
+
+    /**
+     * Задать файл журнала событий
+     *
+     * @param file - файл или {@code null} для стандартного вывода
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setLogFile(Path file) {
+        _logFile = file;
+        return this;
+    }
+
+    /**
+     * Вернуть интервал снимков статистики
+     *
+     * @return long интервал по часам станции, мс, или {@code 0}, если снимки не выводятся
+     */
+    public long getSnapshotIntervalMillis() {
+        return _snapshotIntervalMillis;
+    }
+
+    /**
+     * Задать интервал, с которым во время работы станции выводятся снимки статистики
+     * {@link StationMonitor}
+     *
+     * @param interval - интервал по часам станции, мс; {@code 0} отключает снимки
+     * @return StationConfig эти параметры
+     */
+    public StationConfig setSnapshotIntervalMillis(long interval) {
+        _snapshotIntervalMillis = nonNegative(interval);
+        return this;
+    }
+
+    private static int positive(int value, String name) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+        return value;
+    }
+
+    private static long nonNegative(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Duration must not be negative: " + millis);
+        }
+        return millis;
+    }
+}
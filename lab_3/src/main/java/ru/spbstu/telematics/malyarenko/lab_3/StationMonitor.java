@@ -0,0 +1,69 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import ru.spbstu.telematics.malyarenko.lab_3.StationStatistics.Stage;
+
+/**
+ * Периодические снимки статистики станции во время работы.
+ * <p>
+ * Снимок - одна строка: количество обслуженных клиентов и пропускная способность за
+ * интервал с предыдущего снимка, медиана и 99-й процентиль основных этапов обслуживания,
+ * количество уехавших без заправки клиентов и средняя занятость насосов и кассиров
+ * с начала работы. Снимки снимаются с тех же счётчиков, что и итоговый отчёт, и не
+ * останавливают участников
+ */
+public class StationMonitor {
+
+    /** Статистика работы станции */
+    private final StationStatistics _statistics;
+
+    /** Часы станции */
+    private final StationClock _clock;
+
+    /** Время предыдущего снимка */
+    private long _lastTime;
+
+    /** Количество обслуженных клиентов в предыдущем снимке */
+    private long _lastVisits;
+
+    /**
+     * Конструктор
+     *
+     * @param statistics - статистика работы станции
+     * @param clock      - часы станции
+     */
+    public StationMonitor(StationStatistics statistics, StationClock clock) {
+        _statistics = statistics;
+        _clock = clock;
+        _lastTime = clock.now();
+    }
+
+    /**
+     * Снять снимок статистики
+     *
+     * @return String строка снимка
+     */
+    public synchronized String snapshot() {
+        long now = _clock.now();
+        long visits = _statistics.getVisits();
+        double hours = (now - _lastTime) / 3_600_000.0;
+
+        StringBuilder line = new StringBuilder(String.format("[%d ms] served %d (+%d, %.1f per hour)",
+            now, visits, visits - _lastVisits, hours == 0 ? 0 : (visits - _lastVisits) / hours));
+
+        for (Stage stage : new Stage[] {Stage.PUMP_WAIT, Stage.CASHBOX_QUEUE, Stage.TIME_IN_SYSTEM}) {
+            LatencyHistogram histogram = _statistics.getHistogram(stage);
+            line.append(String.format("; %s p50 %d p99 %d ms", stage.getName().toLowerCase(),
+                histogram.getPercentile(50), histogram.getPercentile(99)));
+        }
+
+        line.append(String.format("; lost %d (%.1f%%)", _statistics.getLost(), 100 * _statistics.getLossRate()));
+
+        line.append(String.format("; pumps %.1f%%; cashiers %.1f%%",
+            100 * _statistics.getAveragePumpUtilization(now),
+            100 * _statistics.getAverageCashierUtilization(now)));
+
+        _lastTime = now;
+        _lastVisits = visits;
+        return line.toString();
+    }
+}
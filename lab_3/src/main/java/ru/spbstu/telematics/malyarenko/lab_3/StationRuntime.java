@@ -0,0 +1,375 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Среда выполнения участников многопоточной модели станции.
+ * <p>
+ * Запускает кассира, насосы и клиентов согласно {@link ThreadModel}, отсчитывает время
+ * станции с учётом ускорения {@link StationConfig#getTimeScale()} и выполняет паузы
+ * и блокирующие ожидания участников.
+ * <p>
+ * В {@link ThreadModel#POOL} и {@link ThreadModel#FORK_JOIN} клиент не владеет потоком.
+ * Приехавший клиент без свободного насоса ставится в очередь ожидания, не занимая потока;
+ * освободивший насос клиент передаёт разрешение первому ожидающему, и только тогда его
+ * обслуживание отправляется в пул. Следующий приезд клиента, если он приезжает снова,
+ * и уход клиента, потерявшего терпение в очереди, планируются таймером.
+ * Поэтому одновременно потоки пула занимают не больше клиентов, чем есть насосов,
+ * а количество потоков не зависит от количества клиентов
+ */
+public class StationRuntime implements StationClock {
+
+    /**
+     * Блокирующее ожидание участника
+     */
+    public interface Wait<T> {
+        /**
+         * Выполнить ожидание
+         *
+         * @return T результат ожидания
+         * @throws InterruptedException если ожидание прервано
+         */
+        T await() throws InterruptedException;
+    }
+
+    /**
+     * Ожидание в потоке {@link ForkJoinPool}, во время которого пул может запустить
+     * компенсирующий поток. Остановленный пул не компенсирует ожидание и повторяет попытку
+     * до тех пор, пока ожидание не станет завершённым, поэтому после остановки станции
+     * ожидание считается завершённым
+     */
+    private final class ManagedWait<T> implements ForkJoinPool.ManagedBlocker {
+        /** Ожидание */
+        private final Wait<T> _wait;
+
+        /** Результат ожидания */
+        private T _result;
+
+        /** Ожидание выполнено */
+        private boolean _done;
+
+        ManagedWait(Wait<T> wait) {
+            _wait = wait;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            _result = _wait.await();
+            _done = true;
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return _done || _stopped;
+        }
+    } // ManagedWait
+
+    /** Наибольшее количество компенсирующих потоков {@link ThreadModel#FORK_JOIN} */
+    private static final int MAX_SPARE_THREADS = 256;
+
+    /** Параметры станции */
+    private final StationConfig _config;
+
+    /** Способ выполнения участников */
+    private final ThreadModel _model;
+
+    /** Начало отсчёта времени станции, нс */
+    private final long _start = System.nanoTime();
+
+    /** Работающие потоки участников. Поток удаляет себя по завершении участника, поэтому
+     *  в открытой модели станции множество не растёт с количеством приехавших клиентов */
+    private final Set<Thread> _threads = ConcurrentHashMap.newKeySet();
+
+    /** Пул, выполняющий приезды клиентов, или {@code null} */
+    private final ExecutorService _pool;
+
+    /** Таймер, планирующий приезды клиентов, или {@code null} */
+    private final ScheduledExecutorService _timer;
+
+    /** Счётный семафор, контроллирующий доступ к заправочным насосам */
+    private final Semaphore _availablePumpSemaphore;
+
+    /** Станция остановлена */
+    private volatile boolean _stopped;
+
+    /** Клиенты пула, ожидающие свободного насоса */
+    private final Queue<CustomerThread> _waitingCustomers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Конструктор
+     *
+     * @param config                 - параметры станции
+     * @param availablePumpSemaphore - счётный семафор, контроллирующий доступ к заправочным насосам
+     * @throws UnsupportedOperationException если способ выполнения недоступен в текущей JVM
+     */
+    public StationRuntime(StationConfig config, Semaphore availablePumpSemaphore) {
+        _config = config;
+        _model = config.getThreadModel();
+        _availablePumpSemaphore = availablePumpSemaphore;
+
+        if (!_model.isAvailable()) {
+            throw new UnsupportedOperationException("Thread model " + _model + " is not available");
+        }
+
+        switch (_model) {
+            case POOL:
+                // Каждый обслуживаемый клиент занимает насос и поток пула
+                _pool = Executors.newFixedThreadPool(Math.max(config.getPoolSize(), config.getPumps()));
+                break;
+            case FORK_JOIN:
+                // При достижении предела компенсирующих потоков ожидание блокирует поток пула
+                _pool = new ForkJoinPool(config.getPoolSize(), ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                    null, false, 0, config.getPoolSize() + MAX_SPARE_THREADS, 1, pool -> true,
+                    60, TimeUnit.SECONDS);
+                break;
+            default:
+                _pool = null;
+        }
+
+        _timer = (_pool != null) ? Executors.newSingleThreadScheduledExecutor() : null;
+    }
+
+    @Override
+    public long now() {
+        return (long) ((System.nanoTime() - _start) / 1e6 * _config.getTimeScale());
+    }
+
+    /**
+     * Запустить участника в собственном потоке: кассира, насос или генератор приездов
+     *
+     * @param participant - участник
+     */
+    public void startService(Runnable participant) {
+        Runnable task = () -> {
+            try {
+                participant.run();
+            } finally {
+                _threads.remove(Thread.currentThread());
+            }
+        };
+        Thread thread = (_model == ThreadModel.VIRTUAL)
+            ? ThreadModel.newVirtualThread(task)
+            : new Thread(task);
+
+        _threads.add(thread);
+        thread.start();
+        if (_stopped) {
+            // Участник запущен во время остановки станции и мог не попасть в её обход
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Запустить клиента
+     *
+     * @param customer - клиент
+     */
+    public void startCustomer(CustomerThread customer) {
+        if (_pool == null) {
+            startService(customer);
+            return;
+        }
+
+        arrive(customer);
+    }
+
+    /**
+     * Сообщить, что клиент освободил насос. В {@link ThreadModel#POOL} и {@link ThreadModel#FORK_JOIN}
+     * освободившийся насос передаётся первому ожидающему клиенту
+     */
+    public void pumpReleased() {
+        if (_pool == null) {
+            return;
+        }
+
+        // Разрешение, полученное после того, как очередь опустела, возвращается и проверка
+        // повторяется: клиент мог встать в очередь между опросом очереди и возвратом
+        while (!_waitingCustomers.isEmpty() && _availablePumpSemaphore.tryAcquire()) {
+            CustomerThread customer = _waitingCustomers.poll();
+            if (customer == null) {
+                _availablePumpSemaphore.release();
+                continue;
+            }
+            submit(() -> {
+                if (customer.serve()) {
+                    scheduleReturn(customer);
+                }
+            });
+        }
+    }
+
+    /**
+     * Проверить, слишком ли длинная очередь к насосам для приехавшего клиента
+     * ({@link StationConfig#getBalkQueueLength()})
+     *
+     * @return boolean {@code true}, если свободных насосов нет, а очередь не короче допустимой
+     */
+    public boolean isCrowded() {
+        int threshold = _config.getBalkQueueLength();
+        if (threshold == StationConfig.UNBOUNDED || _availablePumpSemaphore.availablePermits() > 0) {
+            return false;
+        }
+        int waiting = (_pool == null) ? _availablePumpSemaphore.getQueueLength() : _waitingCustomers.size();
+        return waiting >= threshold;
+    }
+
+    /**
+     * Занять насос, ожидая не дольше терпения клиента {@link StationConfig#getPatienceMillis()}
+     *
+     * @return boolean {@code false}, если клиент не дождался насоса
+     * @throws InterruptedException если ожидание прервано
+     */
+    public boolean acquirePump() throws InterruptedException {
+        long patience = _config.getPatienceMillis();
+        if (patience == StationConfig.FOREVER) {
+            _availablePumpSemaphore.acquire();
+            return true;
+        }
+        return _availablePumpSemaphore.tryAcquire(toNanos(patience), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Поставить заказ в очередь в кассу, ожидая места не дольше
+     * {@link StationConfig#getCashboxTimeoutMillis()}
+     *
+     * @param cashboxQueue - очередь в кассу
+     * @param order        - заказ
+     * @return boolean {@code false}, если касса отказала клиенту
+     * @throws InterruptedException если ожидание прервано
+     */
+    public boolean enqueue(BlockingQueue<Order> cashboxQueue, Order order) throws InterruptedException {
+        long timeout = _config.getCashboxTimeoutMillis();
+        if (timeout == StationConfig.FOREVER) {
+            cashboxQueue.put(order);
+            return true;
+        }
+        return cashboxQueue.offer(order, toNanos(timeout), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Приезд клиента пула: клиент встаёт в очередь ожидания насоса, если она не слишком
+     * длинная, и покидает её, если не дождётся насоса
+     *
+     * @param customer - клиент
+     */
+    private void arrive(CustomerThread customer) {
+        if (!customer.arrive()) {
+            scheduleReturn(customer);
+            return;
+        }
+        _waitingCustomers.add(customer);
+
+        long patience = _config.getPatienceMillis();
+        if (patience != StationConfig.FOREVER) {
+            // Клиента, уже получившего насос, в очереди нет, и он не уходит
+            schedule(() -> {
+                if (_waitingCustomers.remove(customer)) {
+                    customer.renege();
+                    scheduleReturn(customer);
+                }
+            }, patience);
+        }
+        pumpReleased();
+    }
+
+    /**
+     * Запланировать следующий приезд клиента пула, если он приезжает снова
+     */
+    private void scheduleReturn(CustomerThread customer) {
+        if (customer.isReturning()) {
+            schedule(() -> arrive(customer), _config.getCustomerReturnMillis());
+        }
+    }
+
+    private void schedule(Runnable task, long millis) {
+        try {
+            _timer.schedule(task, toNanos(millis), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // Станция остановлена
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            _pool.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Станция остановлена
+        }
+    }
+
+    /**
+     * Пауза участника
+     *
+     * @param millis - длительность по часам станции, мс
+     * @throws InterruptedException если пауза прервана
+     */
+    public void sleep(long millis) throws InterruptedException {
+        long nanos = toNanos(millis);
+        await(() -> {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+            return null;
+        });
+    }
+
+    /**
+     * Блокирующее ожидание участника. В потоке {@link ThreadModel#FORK_JOIN} пул на время
+     * ожидания может запустить компенсирующий поток
+     *
+     * @param wait - ожидание
+     * @return T результат ожидания
+     * @throws InterruptedException если ожидание прервано
+     */
+    public <T> T await(Wait<T> wait) throws InterruptedException {
+        if (_model == ThreadModel.FORK_JOIN && ForkJoinTask.inForkJoinPool()) {
+            ManagedWait<T> managed = new ManagedWait<>(wait);
+            ForkJoinPool.managedBlock(managed);
+            if (!managed._done) {
+                throw new InterruptedException();
+            }
+            return managed._result;
+        }
+        return wait.await();
+    }
+
+    /**
+     * Остановить всех участников и дождаться их завершения
+     *
+     * @throws InterruptedException если ожидание прервано
+     */
+    public void stop() throws InterruptedException {
+        _stopped = true;
+        if (_pool != null) {
+            _timer.shutdownNow();
+            _pool.shutdownNow();
+        }
+        while (!_threads.isEmpty()) {
+            for (Thread thread : _threads) {
+                thread.interrupt();
+            }
+            for (Thread thread : _threads) {
+                thread.join();
+            }
+        }
+        if (_pool != null) {
+            _timer.awaitTermination(1, TimeUnit.MINUTES);
+            _pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private long toNanos(long millis) {
+        return (long) (millis * 1e6 / _config.getTimeScale());
+    }
+}
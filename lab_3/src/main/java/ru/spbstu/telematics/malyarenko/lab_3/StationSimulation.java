@@ -0,0 +1,429 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+
+import ru.spbstu.telematics.malyarenko.lab_3.StationStatistics.Loss;
+
+/**
+ * Дискретно-событийная модель заправочной станции.
+ * <p>
+ * Клиенты, кассир и топливные насосы выполняют тот же протокол, что и потоки
+ * {@link CustomerThread}, {@link CashierThrerad} и {@link FuelPumpThread}, но каждое
+ * ожидание и каждая пауза {@code Thread.sleep} заменены событием на виртуальных часах
+ * {@link EventSimulation}. Участники обмениваются теми же объектами {@link Customer},
+ * {@link Order} и {@link FuelPump} и пополняют ту же {@link StationStatistics}, поэтому
+ * отчёты моделей сопоставимы, а неделя работы станции рассчитывается за секунды.
+ * Клиенты приезжают снова, как в замкнутой модели, или один раз в моменты, заданные
+ * {@link StationConfig#getArrivalProcess()}. Бензовозы, как {@link TankerThread},
+ * пополняют резервуары {@link FuelTank} по их сигналам.
+ * <p>
+ * Модель однопоточна и при одинаковом зерне генератора случайных чисел воспроизводима
+ */
+public class StationSimulation {
+
+    /** Параметры станции */
+    private final StationConfig _config;
+
+    /** Моделирование событий */
+    private final EventSimulation _simulation = new EventSimulation();
+
+    /** Статистика работы станции */
+    private final StationStatistics _statistics;
+
+    /** Генератор случайных чисел модели */
+    private final Random _random;
+
+    /** Семафор, контроллирующий доступ к заправочным насосам */
+    private final EventSimulation.SimSemaphore _availablePumpSemaphore;
+
+    /** Очередь в кассу */
+    private final EventSimulation.SimQueue<Order> _cashboxQueue;
+
+    /** Свободные насосы по типам топлива, как в {@link PumpDispatcher} */
+    private final Queue<SimPump>[] _idlePumps;
+
+    /** Заказы, ожидающие насоса, по типам топлива */
+    private final Queue<PendingOrder>[] _pendingOrders;
+
+    /** Счётчик порядковых номеров заказов */
+    private long _sequence;
+
+    /** Кассир */
+    private final Cashier _cashier = new Cashier();
+
+    /** Запас топлива станции */
+    private final FuelInventory _inventory;
+
+    /** Резервуары, подавшие сигнал о необходимости бензовоза */
+    private final EventSimulation.SimQueue<FuelTank> _tankerRequests;
+
+    /**
+     * Заказ, ожидающий насоса
+     */
+    private static final class PendingOrder {
+        /** Заказ */
+        final Order _order;
+
+        /** Порядковый номер заказа */
+        final long _sequence;
+
+        PendingOrder(Order order, long sequence) {
+            _order = order;
+            _sequence = sequence;
+        }
+    } // PendingOrder
+
+    /**
+     * Топливный насос модели
+     */
+    private final class SimPump {
+        /** Топливный насос */
+        final FuelPump _fuelPump = new FuelPump(_random);
+
+        /** Типы топлива, которые выдаёт насос */
+        final Set<FuelType> _fuelTypes;
+
+        /** Насос свободен */
+        boolean _idle;
+
+        /** Насос стоит в очереди свободных насосов типа топлива */
+        final boolean[] _listed = new boolean[FuelType.values().length];
+
+        /** Номер насоса */
+        final int _id;
+
+        SimPump(int id, Set<FuelType> fuelTypes) {
+            _id = id;
+            _fuelTypes = fuelTypes;
+        }
+
+        /** Насос сообщает о готовности и ожидает нового заказа */
+        void awaitOrder() {
+            PendingOrder oldest = null;
+            for (FuelType type : _fuelTypes) {
+                PendingOrder pending = _pendingOrders[type.ordinal()].peek();
+                if (pending != null && (oldest == null || pending._sequence < oldest._sequence)) {
+                    oldest = pending;
+                }
+            }
+
+            if (oldest != null) {
+                _pendingOrders[oldest._order.getFuelType().ordinal()].poll();
+                assign(oldest);
+                return;
+            }
+
+            _idle = true;
+            for (FuelType type : _fuelTypes) {
+                if (!_listed[type.ordinal()]) {
+                    _listed[type.ordinal()] = true;
+                    _idlePumps[type.ordinal()].add(this);
+                }
+            }
+        }
+
+        /** Насос получает заказ и начинает заправку */
+        void assign(PendingOrder pending) {
+            _idle = false;
+            pending._order.mark(Order.Milestone.ASSIGNED, _simulation.now());
+            _cashier.serveCustomer(_fuelPump, pending._order);
+            pour();
+        }
+
+        /**
+         * Насос резервирует объём заказа, выполняет заказ, сообщает об окончании заправки и
+         * готовится к следующему. Если топлива нет, клиент уезжает без заправки
+         */
+        void pour() {
+            FuelTank tank = _inventory.getTank(_fuelPump.getFuelType());
+            int reserved = _fuelPump.getVolume();
+            if (!tank.reserve(reserved)) {
+                _statistics.recordLostVolume(_fuelPump.getFuelType(), reserved);
+                _fuelPump.getOrder().completeFueling(0);
+                _simulation.schedule(0, this::coolDown);
+                return;
+            }
+
+            int topUps = 0;
+            int fuelVolume = _fuelPump.giveFuel();
+
+            while (!_fuelPump.checkFuelVolume(fuelVolume)) {
+                topUps++;
+                fuelVolume = _fuelPump.giveFuel();
+            }
+
+            tank.commit(reserved, fuelVolume);
+            _statistics.recordFueling(_fuelPump.getFuelType(), fuelVolume, topUps);
+            _fuelPump.getOrder().completeFueling(fuelVolume);
+            _simulation.schedule(_config.getPumpCooldownMillis(), this::coolDown);
+        }
+
+        /** Насос готов к следующему заказу */
+        void coolDown() {
+            _statistics.recordPumpBusy(_id,
+                _simulation.now() - _fuelPump.getOrder().getTime(Order.Milestone.ASSIGNED));
+            awaitOrder();
+        }
+    } // SimPump
+
+    /**
+     * Клиент модели
+     */
+    private final class SimCustomer {
+        /** Клиент */
+        final Customer _customer = new Customer(_random, _config);
+
+        /** Клиент приезжает снова после отъезда */
+        final boolean _returning;
+
+        /** Время приезда на станцию */
+        long _arrival;
+
+        /** Время занятия насоса */
+        long _pumpAcquired;
+
+        /** Текущий заказ */
+        Order _order;
+
+        SimCustomer(boolean returning) {
+            _returning = returning;
+        }
+
+        /**
+         * Клиент уезжает, если очередь к насосам слишком длинная, иначе ждёт, пока
+         * освободится заправочный насос, но не дольше своего терпения
+         */
+        void arrive() {
+            _arrival = _simulation.now();
+
+            if (_availablePumpSemaphore.availablePermits() == 0
+                && _availablePumpSemaphore.getQueueLength() >= _config.getBalkQueueLength())
+            {
+                leave(Loss.BALKED, _customer.pay());
+            } else if (_config.getPatienceMillis() == StationConfig.FOREVER) {
+                _availablePumpSemaphore.acquire(this::takePump);
+            } else {
+                _availablePumpSemaphore.tryAcquire(_config.getPatienceMillis(), this::takePump,
+                    () -> leave(Loss.RENEGED, _customer.pay()));
+            }
+        }
+
+        /** Клиент занял насос и готовится к оплате */
+        void takePump() {
+            _pumpAcquired = _simulation.now();
+            _simulation.schedule(_config.getCustomerPrepareMillis(), this::pay);
+        }
+
+        /** Клиент встаёт в очередь со своим заказом и ждёт по нему окончания заправки */
+        void pay() {
+            Order order = _customer.makeNewOrder(_customer.pay());
+            order.mark(Order.Milestone.ARRIVED, _arrival);
+            order.mark(Order.Milestone.PUMP_ACQUIRED, _pumpAcquired);
+            order.setQueuedAt(_simulation.now());
+            _order = order;
+
+            Runnable queued = () -> order.getRefueling().thenAccept(this::finishRefueling);
+            if (_config.getCashboxTimeoutMillis() == StationConfig.FOREVER) {
+                _cashboxQueue.put(order, queued);
+            } else {
+                // Касса отказала: клиент освобождает насос и уезжает без заправки
+                _cashboxQueue.offer(order, _config.getCashboxTimeoutMillis(), queued, () -> {
+                    _availablePumpSemaphore.release();
+                    leave(Loss.SHED, order.getSum());
+                });
+            }
+        }
+
+        /** Машина заправлена или клиент уезжает без заправки, если топлива нет */
+        void finishRefueling(int volume) {
+            if (volume == 0) {
+                _availablePumpSemaphore.release();
+                leave(Loss.DRY, _order.getSum());
+                return;
+            }
+            _order.mark(Order.Milestone.REFUELED, _simulation.now());
+            _simulation.schedule(_config.getCustomerLeaveMillis(), this::vacatePump);
+        }
+
+        /** Клиент освобождает насос и, если приезжает снова, позже приезжает снова */
+        void vacatePump() {
+            _availablePumpSemaphore.release();
+            _order.mark(Order.Milestone.COMPLETED, _simulation.now());
+            _statistics.recordVisit(_order);
+            scheduleReturn();
+        }
+
+        /** Клиент уезжает без заправки */
+        void leave(Loss loss, int sum) {
+            _statistics.recordLoss(loss, sum);
+            scheduleReturn();
+        }
+
+        /** Клиент, приезжающий снова, приезжает позже */
+        void scheduleReturn() {
+            if (_returning) {
+                _simulation.schedule(_config.getCustomerReturnMillis(), this::arrive);
+            }
+        }
+    } // SimCustomer
+
+    /**
+     * Конструктор модели
+     *
+     * @param config - параметры станции
+     * @param seed   - зерно генератора случайных чисел
+     */
+    public StationSimulation(StationConfig config, long seed) {
+        _config = config;
+        _random = new Random(seed);
+        _statistics = new StationStatistics(config);
+        _availablePumpSemaphore = _simulation.newSemaphore(config.getPumps());
+        _cashboxQueue = _simulation.newQueue(config.getCashboxCapacity());
+
+        _tankerRequests = _simulation.newQueue(FuelType.values().length);
+        _inventory = new FuelInventory(config, _statistics, _simulation,
+            tank -> _tankerRequests.put(tank, () -> { }));
+        if (_inventory.isLimited()) {
+            for (int i = 0; i < config.getTankers(); i++) {
+                awaitTankerRequest();
+            }
+        }
+
+        PumpDispatcher.checkFuelTypes(config);
+        _idlePumps = queues();
+        _pendingOrders = queues();
+        for (int pump = 1; pump <= config.getPumps(); pump++) {
+            new SimPump(pump, config.getPumpFuelTypes(pump)).awaitOrder();
+        }
+
+        for (int cashier = 1; cashier <= config.getCashiers(); cashier++) {
+            awaitOrder(cashier);
+        }
+
+        if (config.getArrivalProcess() == null) {
+            for (int i = 0; i < config.getCustomers(); i++) {
+                new SimCustomer(true).arrive();
+            }
+        } else {
+            scheduleArrival(config.getArrivalProcess());
+        }
+
+        if (config.getSnapshotIntervalMillis() > 0) {
+            snapshot(new StationMonitor(_statistics, _simulation));
+        }
+    }
+
+    /**
+     * Моделировать работу станции
+     *
+     * @param duration - моделируемое время, мс
+     * @return StationStatistics статистика работы станции
+     */
+    public StationStatistics run(long duration) {
+        _simulation.run(_simulation.now() + duration);
+        return _statistics;
+    }
+
+    /**
+     * Вернуть статистику работы станции
+     *
+     * @return StationStatistics статистика
+     */
+    public StationStatistics getStatistics() {
+        return _statistics;
+    }
+
+    /**
+     * Вернуть часы модели
+     *
+     * @return EventSimulation моделирование событий
+     */
+    public EventSimulation getSimulation() {
+        return _simulation;
+    }
+
+    /** Кассир ожидает заказов от клиентов */
+    private void awaitOrder(int cashier) {
+        _cashboxQueue.take(order -> {
+            order.mark(Order.Milestone.ACCEPTED, _simulation.now());
+            _simulation.schedule(_config.getCashierAcceptMillis(), () -> sendOrder(cashier, order));
+        });
+    }
+
+    /**
+     * Кассир отправляет заказ на свободный насос, выдающий нужное топливо, или оставляет его
+     * ждать насоса, как {@link PumpDispatcher}, и, не дожидаясь насоса, сообщает клиенту
+     * о передаче заказа
+     */
+    private void sendOrder(int cashier, Order order) {
+        _simulation.schedule(_config.getCashierNotifyMillis(), () -> {
+            order.notifyCustomer();
+            _statistics.recordCashierBusy(cashier,
+                _simulation.now() - order.getTime(Order.Milestone.ACCEPTED));
+            awaitOrder(cashier);
+        });
+
+        PendingOrder pending = new PendingOrder(order, _sequence++);
+        int type = order.getFuelType().ordinal();
+        SimPump pump;
+        do {
+            pump = _idlePumps[type].poll();
+            if (pump != null) {
+                pump._listed[type] = false;
+            }
+        } while (pump != null && !pump._idle); // насос уже занят заказом другого типа топлива
+
+        if (pump == null) {
+            _pendingOrders[type].add(pending);
+        } else {
+            pump.assign(pending);
+        }
+    }
+
+    /** Приезд следующего клиента открытой модели в момент, заданный процессом приездов */
+    private void scheduleArrival(ArrivalProcess arrivals) {
+        long time = arrivals.nextArrival(_simulation.now(), _random);
+        if (time < 0) {
+            return;
+        }
+        _simulation.schedule(Math.max(0, time - _simulation.now()), () -> {
+            new SimCustomer(false).arrive();
+            scheduleArrival(arrivals);
+        });
+    }
+
+    /**
+     * Бензовоз ждёт сигнала резервуара, едет к станции и сливает топливо, на это время
+     * закрывая резервуар
+     */
+    private void awaitTankerRequest() {
+        _tankerRequests.take(tank ->
+            _simulation.schedule(_config.getTankerLeadMillis(), () -> {
+                tank.close();
+                _simulation.schedule(_config.getTankerRefillMillis(), () -> {
+                    tank.refill();
+                    awaitTankerRequest();
+                });
+            }));
+    }
+
+    /** Снимок статистики через интервал снимков и следующий снимок */
+    private void snapshot(StationMonitor monitor) {
+        _simulation.schedule(_config.getSnapshotIntervalMillis(), () -> {
+            System.out.println(monitor.snapshot());
+            snapshot(monitor);
+        });
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Queue<T>[] queues() {
+        Queue<T>[] queues = new Queue[FuelType.values().length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+        return queues;
+    }
+}
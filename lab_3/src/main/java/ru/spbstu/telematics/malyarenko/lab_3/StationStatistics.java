@@ -0,0 +1,559 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import ru.spbstu.telematics.malyarenko.lab_3.Order.Milestone;
+
+/**
+ * Статистика работы заправочной станции. Счётчики потокобезопасны и пополняются
+ * участниками как многопоточной модели, так и дискретно-событийной, поэтому отчёты
+ * обеих моделей сопоставимы. Время измеряется по часам станции в миллисекундах.
+ * <p>
+ * Длительности этапов обслуживания вычисляются по моментам, отмеченным в заказе, и
+ * накапливаются в гистограммах {@link LatencyHistogram}; занятость насосов и кассиров
+ * накапливается по каждому участнику. Клиенты, уехавшие без заправки, учитываются
+ * по причинам {@link Loss} вместе с несостоявшейся выручкой. При ограниченном запасе
+ * топлива учитываются пополнения резервуаров, невыданный объём и время, в течение которого
+ * тип топлива не продавался. Запись не использует блокировок и не выделяет
+ * памяти, поэтому статистика не отключается
+ */
+public class StationStatistics {
+
+    /**
+     * Этап обслуживания клиента
+     */
+    public enum Stage {
+        /** Ожидание свободного насоса */
+        PUMP_WAIT("Pump wait", Milestone.ARRIVED, Milestone.PUMP_ACQUIRED),
+        /** Ожидание в очереди в кассу */
+        CASHBOX_QUEUE("Cashbox queue", Milestone.QUEUED, Milestone.ACCEPTED),
+        /** Приём заказа кассиром и ожидание насоса, выдающего нужное топливо */
+        CASHIER("Cashier and dispatch", Milestone.ACCEPTED, Milestone.ASSIGNED),
+        /** Заправка: от назначения заказа насосу до сообщения кассира и выдачи топлива */
+        FUELING("Fueling", Milestone.ASSIGNED, Milestone.REFUELED),
+        /** Время от приезда до освобождения насоса */
+        TIME_IN_SYSTEM("Time in system", Milestone.ARRIVED, Milestone.COMPLETED);
+
+        /** Название этапа в отчёте */
+        private final String _name;
+
+        /** Начало этапа */
+        private final Milestone _from;
+
+        /** Конец этапа */
+        private final Milestone _to;
+
+        Stage(String name, Milestone from, Milestone to) {
+            _name = name;
+            _from = from;
+            _to = to;
+        }
+
+        /**
+         * Вернуть название этапа
+         *
+         * @return String название
+         */
+        public String getName() {
+            return _name;
+        }
+    }
+
+    /**
+     * Причина, по которой клиент уехал без заправки
+     */
+    public enum Loss {
+        /** Очередь к насосам слишком длинная, клиент в неё не встал */
+        BALKED("balked"),
+        /** Клиент не дождался насоса */
+        RENEGED("reneged"),
+        /** Касса отказала клиенту: очередь в кассу заполнена */
+        SHED("shed"),
+        /** Резервуар пуст или закрыт на время слива топлива из бензовоза */
+        DRY("tank dry");
+
+        /** Название причины в отчёте */
+        private final String _name;
+
+        Loss(String name) {
+            _name = name;
+        }
+
+        /**
+         * Вернуть название причины
+         *
+         * @return String название
+         */
+        public String getName() {
+            return _name;
+        }
+    }
+
+    /** Количество обслуженных клиентов */
+    private final LongAdder _visits = new LongAdder();
+
+    /** Количество заказов по типам топлива */
+    private final LongAdder[] _orders = adders(FuelType.values().length);
+
+    /** Объём выданного топлива по типам топлива, л */
+    private final LongAdder[] _volume = adders(FuelType.values().length);
+
+    /** Выручка по типам топлива */
+    private final LongAdder[] _revenue = adders(FuelType.values().length);
+
+    /** Количество неверно выданных объёмов, которые пришлось доливать */
+    private final LongAdder _topUps = new LongAdder();
+
+    /** Количество уехавших без заправки клиентов по причинам */
+    private final LongAdder[] _lost = adders(Loss.values().length);
+
+    /** Несостоявшаяся выручка */
+    private final LongAdder _lostRevenue = new LongAdder();
+
+    /** Невыданный из-за пустого резервуара объём по типам топлива, л */
+    private final LongAdder[] _lostVolume = adders(FuelType.values().length);
+
+    /** Количество пополнений резервуаров по типам топлива */
+    private final LongAdder[] _refills = adders(FuelType.values().length);
+
+    /** Слитый в резервуары объём по типам топлива, л */
+    private final LongAdder[] _refilledVolume = adders(FuelType.values().length);
+
+    /** Начало текущего периода без топлива по типам топлива или {@code -1} */
+    private final AtomicLongArray _dryFrom = new AtomicLongArray(FuelType.values().length);
+
+    /** Время без топлива по типам топлива, мс, без текущего периода */
+    private final LongAdder[] _dryMillis = adders(FuelType.values().length);
+
+    /** Запас топлива ограничен, и в отчёт выводятся резервуары */
+    private final boolean _tanks;
+
+    /** Этапы обслуживания; массив кешируется, так как {@code values()} создаёт копию при каждом вызове */
+    private static final Stage[] STAGES = Stage.values();
+
+    /** Длительности этапов обслуживания */
+    private final LatencyHistogram[] _stages = new LatencyHistogram[STAGES.length];
+
+    /** Время занятости насосов по номерам */
+    private final LongAdder[] _pumpBusy;
+
+    /** Время занятости кассиров по номерам */
+    private final LongAdder[] _cashierBusy;
+
+    /**
+     * Конструктор
+     *
+     * @param pumps    - количество насосов
+     * @param cashiers - количество кассиров
+     */
+    public StationStatistics(int pumps, int cashiers) {
+        this(pumps, cashiers, false);
+    }
+
+    /**
+     * Конструктор по параметрам станции
+     *
+     * @param config - параметры станции
+     */
+    public StationStatistics(StationConfig config) {
+        this(config.getPumps(), config.getCashiers(), config.hasFuelTanks());
+    }
+
+    private StationStatistics(int pumps, int cashiers, boolean tanks) {
+        for (int i = 0; i < _stages.length; i++) {
+            _stages[i] = new LatencyHistogram();
+        }
+        _pumpBusy = adders(pumps);
+        _cashierBusy = adders(cashiers);
+        _tanks = tanks;
+        for (int i = 0; i < _dryFrom.length(); i++) {
+            _dryFrom.set(i, -1);
+        }
+    }
+
+    /**
+     * Учесть обслуженного клиента. В заказе должны быть отмечены все моменты обслуживания
+     *
+     * @param order - выполненный заказ
+     */
+    public void recordVisit(Order order) {
+        FuelType type = order.getFuelType();
+
+        _visits.increment();
+        _orders[type.ordinal()].increment();
+        _revenue[type.ordinal()].add(order.getSum());
+
+        for (Stage stage : STAGES) {
+            _stages[stage.ordinal()].record(order.between(stage._from, stage._to));
+        }
+    }
+
+    /**
+     * Учесть клиента, уехавшего без заправки
+     *
+     * @param loss - причина
+     * @param sum  - сумма несостоявшегося заказа
+     */
+    public void recordLoss(Loss loss, int sum) {
+        _lost[loss.ordinal()].increment();
+        _lostRevenue.add(sum);
+    }
+
+    /**
+     * Учесть объём, не выданный из-за пустого или закрытого резервуара
+     *
+     * @param type   - тип топлива
+     * @param volume - объём заказа, л
+     */
+    public void recordLostVolume(FuelType type, int volume) {
+        _lostVolume[type.ordinal()].add(volume);
+    }
+
+    /**
+     * Учесть пополнение резервуара
+     *
+     * @param type   - тип топлива
+     * @param volume - слитый объём, л
+     */
+    public void recordRefill(FuelType type, long volume) {
+        _refills[type.ordinal()].increment();
+        _refilledVolume[type.ordinal()].add(volume);
+    }
+
+    /**
+     * Учесть начало периода, в течение которого тип топлива не продаётся. Начало уже
+     * идущего периода не изменяется
+     *
+     * @param type - тип топлива
+     * @param now  - время станции, мс
+     */
+    public void recordDryStart(FuelType type, long now) {
+        _dryFrom.compareAndSet(type.ordinal(), -1, now);
+    }
+
+    /**
+     * Учесть окончание периода, в течение которого тип топлива не продавался
+     *
+     * @param type - тип топлива
+     * @param now  - время станции, мс
+     */
+    public void recordDryEnd(FuelType type, long now) {
+        long from = _dryFrom.getAndSet(type.ordinal(), -1);
+        if (from >= 0) {
+            _dryMillis[type.ordinal()].add(now - from);
+        }
+    }
+
+    /**
+     * Учесть выполненную заправку
+     *
+     * @param type   - тип топлива
+     * @param volume - выданный объём топлива
+     * @param topUps - количество доливов до верного объёма
+     */
+    public void recordFueling(FuelType type, int volume, int topUps) {
+        _volume[type.ordinal()].add(volume);
+        _topUps.add(topUps);
+    }
+
+    /**
+     * Учесть время занятости насоса: от получения заказа до готовности к следующему
+     *
+     * @param pump   - номер насоса, начиная с единицы
+     * @param millis - время занятости, мс
+     */
+    public void recordPumpBusy(int pump, long millis) {
+        _pumpBusy[pump - 1].add(millis);
+    }
+
+    /**
+     * Учесть время занятости кассира: от приёма заказа до сообщения клиенту
+     *
+     * @param cashier - номер кассира, начиная с единицы
+     * @param millis  - время занятости, мс
+     */
+    public void recordCashierBusy(int cashier, long millis) {
+        _cashierBusy[cashier - 1].add(millis);
+    }
+
+    /**
+     * Вернуть количество обслуженных клиентов
+     *
+     * @return long количество клиентов
+     */
+    public long getVisits() {
+        return _visits.sum();
+    }
+
+    /**
+     * Вернуть количество клиентов, уехавших без заправки по заданной причине
+     *
+     * @param loss - причина
+     * @return long количество клиентов
+     */
+    public long getLost(Loss loss) {
+        return _lost[loss.ordinal()].sum();
+    }
+
+    /**
+     * Вернуть количество клиентов, уехавших без заправки
+     *
+     * @return long количество клиентов
+     */
+    public long getLost() {
+        long lost = 0;
+        for (LongAdder adder : _lost) {
+            lost += adder.sum();
+        }
+        return lost;
+    }
+
+    /**
+     * Вернуть долю приехавших клиентов, уехавших без заправки
+     *
+     * @return double доля клиентов или {@code 0}, если клиентов не было
+     */
+    public double getLossRate() {
+        long lost = getLost();
+        long arrivals = lost + getVisits();
+        return arrivals == 0 ? 0 : (double) lost / arrivals;
+    }
+
+    /**
+     * Вернуть несостоявшуюся выручку от клиентов, уехавших без заправки
+     *
+     * @return long выручка
+     */
+    public long getLostRevenue() {
+        return _lostRevenue.sum();
+    }
+
+    /**
+     * Вернуть количество заказов топлива заданного типа
+     *
+     * @param type - тип топлива
+     * @return long количество заказов
+     */
+    public long getOrders(FuelType type) {
+        return _orders[type.ordinal()].sum();
+    }
+
+    /**
+     * Вернуть объём выданного топлива заданного типа
+     *
+     * @param type - тип топлива
+     * @return long объём топлива
+     */
+    public long getVolume(FuelType type) {
+        return _volume[type.ordinal()].sum();
+    }
+
+    /**
+     * Вернуть выручку от топлива заданного типа
+     *
+     * @param type - тип топлива
+     * @return long выручка
+     */
+    public long getRevenue(FuelType type) {
+        return _revenue[type.ordinal()].sum();
+    }
+
+    /**
+     * Вернуть объём, не выданный из-за пустого или закрытого резервуара
+     *
+     * @param type - тип топлива
+     * @return long объём, л
+     */
+    public long getLostVolume(FuelType type) {
+        return _lostVolume[type.ordinal()].sum();
+    }
+
+    /**
+     * Вернуть количество пополнений резервуара
+     *
+     * @param type - тип топлива
+     * @return long количество пополнений
+     */
+    public long getRefills(FuelType type) {
+        return _refills[type.ordinal()].sum();
+    }
+
+    /**
+     * Вернуть время, в течение которого тип топлива не продавался
+     *
+     * @param type    - тип топлива
+     * @param elapsed - время работы станции, мс; учитывается текущий период без топлива
+     * @return long время без топлива, мс
+     */
+    public long getDryMillis(FuelType type, long elapsed) {
+        long dry = _dryMillis[type.ordinal()].sum();
+        long from = _dryFrom.get(type.ordinal());
+        return (from >= 0 && elapsed > from) ? dry + elapsed - from : dry;
+    }
+
+    /**
+     * Вернуть гистограмму длительностей этапа обслуживания
+     *
+     * @param stage - этап
+     * @return LatencyHistogram гистограмма
+     */
+    public LatencyHistogram getHistogram(Stage stage) {
+        return _stages[stage.ordinal()];
+    }
+
+    /**
+     * Вернуть среднее время ожидания свободного насоса
+     *
+     * @return double время ожидания, мс
+     */
+    public double getAveragePumpWait() {
+        return getHistogram(Stage.PUMP_WAIT).getMean();
+    }
+
+    /**
+     * Вернуть среднее время ожидания заказа в очереди в кассу
+     *
+     * @return double время ожидания, мс
+     */
+    public double getAverageCashboxWait() {
+        return getHistogram(Stage.CASHBOX_QUEUE).getMean();
+    }
+
+    /**
+     * Вернуть среднее время пребывания клиента на станции
+     *
+     * @return double время пребывания, мс
+     */
+    public double getAverageTimeInSystem() {
+        return getHistogram(Stage.TIME_IN_SYSTEM).getMean();
+    }
+
+    /**
+     * Вернуть занятость насоса
+     *
+     * @param pump    - номер насоса, начиная с единицы
+     * @param elapsed - время работы станции, мс
+     * @return double доля времени, в течение которого насос был занят
+     */
+    public double getPumpUtilization(int pump, long elapsed) {
+        return utilization(_pumpBusy[pump - 1], elapsed);
+    }
+
+    /**
+     * Вернуть занятость кассира
+     *
+     * @param cashier - номер кассира, начиная с единицы
+     * @param elapsed - время работы станции, мс
+     * @return double доля времени, в течение которого кассир был занят
+     */
+    public double getCashierUtilization(int cashier, long elapsed) {
+        return utilization(_cashierBusy[cashier - 1], elapsed);
+    }
+
+    /**
+     * Вернуть среднюю занятость насосов
+     *
+     * @param elapsed - время работы станции, мс
+     * @return double средняя доля времени занятости
+     */
+    public double getAveragePumpUtilization(long elapsed) {
+        return averageUtilization(_pumpBusy, elapsed);
+    }
+
+    /**
+     * Вернуть среднюю занятость кассиров
+     *
+     * @param elapsed - время работы станции, мс
+     * @return double средняя доля времени занятости
+     */
+    public double getAverageCashierUtilization(long elapsed) {
+        return averageUtilization(_cashierBusy, elapsed);
+    }
+
+    /**
+     * Сформировать отчёт о работе станции
+     *
+     * @param elapsed - время работы станции, мс
+     * @return String текст отчёта
+     */
+    public String report(long elapsed) {
+        StringBuilder report = new StringBuilder();
+        double hours = elapsed / 3_600_000.0;
+
+        report.append(String.format("Station time: %.2f h%n", hours));
+        report.append(String.format("Customers served: %d (%.1f per hour)%n",
+            getVisits(), perHour(getVisits(), hours)));
+
+        for (FuelType type : FuelType.values()) {
+            report.append(String.format("Fuel %s: orders %d (%.1f per hour); volume %d; revenue %d%n",
+                type.getName(), getOrders(type), perHour(getOrders(type), hours),
+                getVolume(type), getRevenue(type)));
+        }
+
+        report.append(String.format("Incorrect amounts topped up: %d%n", _topUps.sum()));
+
+        if (_tanks) {
+            for (FuelType type : FuelType.values()) {
+                report.append(String.format("Tank %s: refills %d (volume %d); lost volume %d; dry %.1f min (%.1f%%)%n",
+                    type.getName(), getRefills(type), _refilledVolume[type.ordinal()].sum(),
+                    getLostVolume(type), getDryMillis(type, elapsed) / 60_000.0,
+                    elapsed <= 0 ? 0 : 100.0 * getDryMillis(type, elapsed) / elapsed));
+            }
+        }
+
+        report.append(String.format("Customers lost: %d (%.1f%% of arrivals)", getLost(), 100 * getLossRate()));
+        for (Loss loss : Loss.values()) {
+            report.append(String.format(loss.ordinal() == 0 ? "; %s %d" : ", %s %d", loss._name, getLost(loss)));
+        }
+        report.append(String.format("; lost revenue %d%n", getLostRevenue()));
+
+        report.append(String.format("%-22s %9s %9s %9s %9s %9s %9s%n",
+            "Stage, ms", "count", "mean", "p50", "p90", "p99", "max"));
+        for (Stage stage : STAGES) {
+            LatencyHistogram histogram = getHistogram(stage);
+            report.append(String.format("%-22s %9d %9.0f %9d %9d %9d %9d%n", stage._name,
+                histogram.getCount(), histogram.getMean(), histogram.getPercentile(50),
+                histogram.getPercentile(90), histogram.getPercentile(99), histogram.getMax()));
+        }
+
+        report.append(utilizationLine("Pump", _pumpBusy, elapsed));
+        report.append(utilizationLine("Cashier", _cashierBusy, elapsed));
+
+        return report.toString();
+    }
+
+    private static String utilizationLine(String name, LongAdder[] busy, long elapsed) {
+        StringBuilder line = new StringBuilder(String.format("%s utilization: avg %.1f%%",
+            name, 100 * averageUtilization(busy, elapsed)));
+        for (int i = 0; i < busy.length; i++) {
+            line.append(String.format(i == 0 ? "; %d: %.1f%%" : ", %d: %.1f%%",
+                i + 1, 100 * utilization(busy[i], elapsed)));
+        }
+        return line.append(System.lineSeparator()).toString();
+    }
+
+    private static double utilization(LongAdder busy, long elapsed) {
+        return elapsed <= 0 ? 0 : Math.min(1, (double) busy.sum() / elapsed);
+    }
+
+    private static double averageUtilization(LongAdder[] busy, long elapsed) {
+        double total = 0;
+        for (LongAdder adder : busy) {
+            total += utilization(adder, elapsed);
+        }
+        return busy.length == 0 ? 0 : total / busy.length;
+    }
+
+    private static double perHour(long count, double hours) {
+        return hours == 0 ? 0 : count / hours;
+    }
+
+    private static LongAdder[] adders(int length) {
+        LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
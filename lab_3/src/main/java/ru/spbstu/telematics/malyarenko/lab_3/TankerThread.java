@@ -0,0 +1,60 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import java.util.concurrent.BlockingQueue;
+
+public class TankerThread implements Runnable {
+
+    /** Резервуары, подавшие сигнал о необходимости бензовоза, в порядке сигналов */
+    private BlockingQueue<FuelTank> _requests;
+
+    /** Параметры станции */
+    private StationConfig _config;
+
+    /** Среда выполнения участников */
+    private StationRuntime _runtime;
+
+    /** Журнал событий станции */
+    private EventLog _log;
+
+    /** Номер бензовоза */
+    private int _id;
+
+    /**
+     * Конструктор потока бензовоза
+     *
+     * @param requests - резервуары, подавшие сигнал о необходимости бензовоза, общие для бензовозов
+     * @param config   - параметры станции
+     * @param runtime  - среда выполнения участников
+     * @param log      - журнал событий станции
+     * @param id       - номер бензовоза
+     */
+    public TankerThread(BlockingQueue<FuelTank> requests, StationConfig config, StationRuntime runtime,
+                        EventLog log, int id) {
+        _requests = requests;
+        _config = config;
+        _runtime = runtime;
+        _log = log;
+        _id = id;
+    }
+
+    @Override
+    public void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                // Бензовоз ждёт сигнала резервуара и едет к станции
+                FuelTank tank = _requests.take();
+                _runtime.sleep(_config.getTankerLeadMillis());
+
+                // Пока топливо сливается, тип топлива не продаётся
+                tank.close();
+                _log.log(EventLog.Event.TANKER_ARRIVED, _id, tank.getFuelType(), EventLog.NONE, (int) tank.getLevel());
+                _runtime.sleep(_config.getTankerRefillMillis());
+
+                int delivered = (int) tank.refill();
+                _log.log(EventLog.Event.TANKER_REFILLED, _id, tank.getFuelType(), EventLog.NONE, delivered);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+}
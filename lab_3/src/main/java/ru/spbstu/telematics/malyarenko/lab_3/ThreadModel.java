@@ -0,0 +1,89 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Способ выполнения участников станции
+ */
+public enum ThreadModel {
+
+    /** Отдельный поток платформы на каждого участника */
+    PLATFORM,
+
+    /**
+     * Отдельный виртуальный поток на каждого участника. Ожидание на семафорах и очередях
+     * {@code java.util.concurrent} не занимает поток платформы. Требуется JDK 21 или новее
+     */
+    VIRTUAL,
+
+    /**
+     * Пул потоков фиксированного размера. Каждый приезд клиента выполняется отдельной
+     * задачей, а между приездами клиент не занимает потока. Кассир и насосы работают
+     * в отдельных потоках
+     */
+    POOL,
+
+    /**
+     * То же, что {@link #POOL}, но на {@link java.util.concurrent.ForkJoinPool}: на время
+     * ожидания клиента пул запускает ограниченное количество компенсирующих потоков
+     */
+    FORK_JOIN;
+
+    /** Создание виртуального потока или {@code null}, если виртуальные потоки недоступны */
+    private static final MethodHandle NEW_VIRTUAL_THREAD = findVirtualThreadFactory();
+
+    /**
+     * Проверить, доступен ли способ выполнения в текущей JVM
+     *
+     * @return boolean {@code true}, если способ доступен
+     */
+    public boolean isAvailable() {
+        return this != VIRTUAL || NEW_VIRTUAL_THREAD != null;
+    }
+
+    /**
+     * Создать незапущенный виртуальный поток
+     *
+     * @param task - задача потока
+     * @return Thread виртуальный поток
+     * @throws UnsupportedOperationException если виртуальные потоки недоступны
+     */
+    static Thread newVirtualThread(Runnable task) {
+        if (NEW_VIRTUAL_THREAD == null) {
+            throw new UnsupportedOperationException("Virtual threads require JDK 21 or newer");
+        }
+        try {
+            return (Thread) NEW_VIRTUAL_THREAD.invoke(task);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Поиск {@code Thread.ofVirtual().unstarted(Runnable)}. Проект собирается для Java 14,
+     * поэтому метод вызывается через {@link MethodHandle}
+     */
+    private static MethodHandle findVirtualThreadFactory() {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            MethodHandle ofVirtual = lookup.findStatic(Thread.class, "ofVirtual",
+                MethodType.methodType(Class.forName("java.lang.Thread$Builder$OfVirtual")));
+            MethodHandle unstarted = lookup.findVirtual(builder, "unstarted",
+                MethodType.methodType(Thread.class, Runnable.class));
+
+            // Проверка, что виртуальные потоки не отключены (preview в JDK 19 и 20)
+            ofVirtual.invoke();
+
+            // (Runnable) -> Thread.ofVirtual().unstarted(Runnable)
+            return MethodHandles.foldArguments(unstarted.asType(
+                MethodType.methodType(Thread.class, ofVirtual.type().returnType(), Runnable.class)), ofVirtual);
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+}
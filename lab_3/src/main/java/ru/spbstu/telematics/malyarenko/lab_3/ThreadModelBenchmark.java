@@ -0,0 +1,134 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сравнение способов выполнения участников станции {@link ThreadModel} при 1K, 10K и 100K
+ * клиентов: время запуска, пропускная способность, количество потоков и объём памяти.
+ * <p>
+ * Каждое сочетание запускается в отдельной JVM, чтобы измерения памяти не влияли друг
+ * на друга, а неудачное создание потоков платформы не нарушало работу остальных.
+ * Вывод участников на время измерения отключается
+ * <p>
+ * Запуск: {@code ThreadModelBenchmark [seconds] [timeScale]}
+ */
+public class ThreadModelBenchmark {
+
+    /** Количества клиентов */
+    private static final int[] CUSTOMERS = {1_000, 10_000, 100_000};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 4) {
+            measure(ThreadModel.valueOf(args[0]), Integer.parseInt(args[1]),
+                Long.parseLong(args[2]), Double.parseDouble(args[3]));
+            return;
+        }
+
+        String seconds = (args.length > 0) ? args[0] : "10";
+        String timeScale = (args.length > 1) ? args[1] : "100";
+
+        System.out.printf("%-10s %9s %10s %12s %10s %10s %10s%n",
+            "model", "customers", "start, ms", "served/hour", "threads", "heap, MB", "rss, MB");
+
+        for (ThreadModel model : ThreadModel.values()) {
+            for (int customers : CUSTOMERS) {
+                if (!model.isAvailable()) {
+                    System.out.printf("%-10s %9d %s%n", model, customers, "not available in this JVM");
+                    continue;
+                }
+                System.out.println(fork(model, customers, seconds, timeScale));
+            }
+        }
+    }
+
+    /**
+     * Запуск измерения в отдельной JVM
+     *
+     * @return String строка результата
+     */
+    private static String fork(ThreadModel model, int customers, String seconds, String timeScale)
+        throws Exception {
+
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path"),
+            ThreadModelBenchmark.class.getName(), model.name(), Integer.toString(customers), seconds, timeScale));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String last = "";
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                last = line;
+            }
+        }
+        process.waitFor();
+
+        return last;
+    }
+
+    /**
+     * Измерение одного сочетания в текущей JVM
+     */
+    private static void measure(ThreadModel model, int customers, long seconds, double timeScale)
+        throws InterruptedException {
+
+        StationConfig config = new StationConfig()
+            .setCustomers(customers)
+            .setTimeScale(timeScale)
+            .setThreadModel(model)
+            .setLogLevel(EventLog.Level.OFF);
+        GasStation station = new GasStation(config);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        long start = System.nanoTime();
+        try {
+            station.start();
+        } catch (OutOfMemoryError e) {
+            System.out.printf("%-10s %9d failed to start: %s%n", model, customers, e.getMessage());
+            System.out.flush();
+            Runtime.getRuntime().halt(1);
+        }
+        long startMillis = (System.nanoTime() - start) / 1_000_000;
+
+        Thread.sleep(seconds * 1000);
+
+        long elapsed = station.getElapsed();
+        long visits = station.getStatistics().getVisits();
+        int threadCount = threads.getPeakThreadCount();
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        long heap = runtime.totalMemory() - runtime.freeMemory();
+
+        System.out.printf("%-10s %9d %10d %12.0f %10d %10d %10s%n", model, customers, startMillis,
+            visits / (elapsed / 3_600_000.0), threadCount, heap >> 20, residentMegabytes());
+        System.out.flush();
+
+        // Остановка сотен тысяч потоков платформы занимает больше времени, чем измерение
+        Runtime.getRuntime().halt(0);
+    }
+
+    /**
+     * Объём резидентной памяти процесса по {@code /proc/self/status}
+     *
+     * @return String объём в мегабайтах или {@code "-"}, если недоступен
+     */
+    private static String residentMegabytes() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.toString(Long.parseLong(line.replaceAll("\\D", "")) >> 10);
+                }
+            }
+        } catch (Exception e) {
+            // Не Linux
+        }
+        return "-";
+    }
+}
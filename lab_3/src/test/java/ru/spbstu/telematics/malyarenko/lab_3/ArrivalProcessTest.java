@@ -0,0 +1,98 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ArrivalProcessTest
+{
+    private static final long ON = 10_000;
+    private static final long OFF = 20_000;
+    private static final long PERIOD = ON + OFF;
+
+    @Test
+    public void onOffWithinBurstsTest() {
+        // Один приезд в секунду во время пачки
+        ArrivalProcess process = ArrivalProcess.onOff(3600, ON, OFF);
+        Random random = new Random(1);
+        int periods = 1000;
+        int arrivals = 0;
+
+        // Приезды не убывают и попадают только в пачки
+        long time = 0;
+        while (true) {
+            long next = process.nextArrival(time, random);
+            assertTrue(next >= time);
+            if (next >= periods * PERIOD) {
+                break;
+            }
+            assertTrue(next + " is outside of a burst", next % PERIOD < ON);
+            time = next;
+            arrivals++;
+        }
+
+        // Интенсивность во время пачки сохраняется: около ON / 1000 приездов за пачку
+        assertEquals(periods * ON / 1000.0, arrivals, periods * ON / 1000.0 * 0.05);
+    }
+
+    @Test
+    public void onOffFromPauseTest() {
+        ArrivalProcess process = ArrivalProcess.onOff(3600, ON, OFF);
+
+        // Приезд после паузы или на границе пачки переносится в следующую пачку
+        for (long now : new long[] {ON, ON + 1, PERIOD - 1, 5 * PERIOD + ON}) {
+            Random random = new Random(now);
+            for (int i = 0; i < 100; i++) {
+                long next = process.nextArrival(now, random);
+                long start = now - now % PERIOD + PERIOD;
+                assertTrue(next >= start);
+                assertTrue(next % PERIOD < ON);
+            }
+        }
+    }
+
+    @Test
+    public void onOffWithoutPauseTest() {
+        ArrivalProcess process = ArrivalProcess.onOff(3600, ON, 0);
+        Random random = new Random(2);
+
+        // Без паузы пачки следуют одна за другой: поток остаётся пуассоновским
+        long time = 0;
+        int arrivals = 0;
+        while ((time = process.nextArrival(time, random)) < 1000 * ON) {
+            arrivals++;
+        }
+        assertEquals(10_000, arrivals, 500);
+    }
+
+    @Test
+    public void invalidOnOffTest() {
+        long[][] periods = {{0, OFF}, {-1, OFF}, {ON, -1}};
+        for (long[] invalid : periods) {
+            try {
+                ArrivalProcess.onOff(3600, invalid[0], invalid[1]);
+                fail(invalid[0] + "/" + invalid[1]);
+            } catch (IllegalArgumentException e) {
+                // Ожидаемое исключение
+            }
+        }
+    }
+
+    @Test
+    public void traceTest() {
+        ArrivalProcess process = ArrivalProcess.trace(5, 5, 40);
+        Random random = new Random();
+
+        assertEquals(5, process.nextArrival(0, random));
+        assertEquals(5, process.nextArrival(5, random));
+        assertEquals(40, process.nextArrival(5, random));
+        assertEquals(-1, process.nextArrival(40, random));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decreasingTraceTest() {
+        ArrivalProcess.trace(10, 5);
+    }
+}
@@ -0,0 +1,139 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class EventLogTest
+{
+    private static final StationClock CLOCK = () -> 0;
+
+    /** Приёмник, запоминающий своё закрытие */
+    private static class ClosingWriter extends StringWriter {
+        volatile boolean _closed;
+
+        @Override
+        public void close() throws IOException {
+            _closed = true;
+            super.close();
+        }
+    }
+
+    /** Приёмник, первая запись в который ожидает разрешения теста */
+    private static class BlockingWriter extends StringWriter {
+        final CountDownLatch _entered = new CountDownLatch(1);
+        final CountDownLatch _released = new CountDownLatch(1);
+
+        @Override
+        public void write(String str) {
+            _entered.countDown();
+            try {
+                _released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.write(str);
+        }
+    }
+
+    private static String[] lines(StringWriter writer) {
+        String text = writer.toString();
+        return text.isEmpty() ? new String[0] : text.split(System.lineSeparator());
+    }
+
+    @Test
+    public void dropOnFullTest() throws Exception {
+        BlockingWriter writer = new BlockingWriter();
+        EventLog log = new EventLog(EventLog.Level.INFO, CLOCK, writer, false, 4);
+
+        // Писатель забрал первое событие и занят записью, буфер свободен
+        log.log(EventLog.Event.CUSTOMER_PAID, 0);
+        writer._entered.await();
+
+        // Буфер на 4 события заполняется, остальные события отбрасываются без ожидания
+        for (int i = 1; i <= 7; i++) {
+            log.log(EventLog.Event.CUSTOMER_PAID, i);
+        }
+        assertEquals(3, log.getDropped());
+
+        writer._released.countDown();
+        log.close();
+
+        String[] lines = lines(writer);
+        assertEquals(6, lines.length);
+        for (int i = 0; i < 5; i++) {
+            assertEquals("[0 ms] Customer-" + i + " has paid for fuel", lines[i]);
+        }
+        assertEquals("Event log buffer full: 3 events dropped", lines[5]);
+    }
+
+    @Test
+    public void perProducerOrderTest() throws Exception {
+        StringWriter writer = new StringWriter();
+        EventLog log = new EventLog(EventLog.Level.INFO, CLOCK, writer, false, EventLog.DEFAULT_CAPACITY);
+        int producers = 4;
+        int events = 5000;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int actor = p;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < events; i++) {
+                    log.log(EventLog.Event.CUSTOMER_PAID, actor, null, i, EventLog.NONE);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        log.close();
+
+        // События каждого производителя записаны все и в порядке записи
+        assertEquals(0, log.getDropped());
+        Pattern pattern = Pattern.compile("Customer-(\\d+) has paid for fuel; Sum (\\d+)");
+        int[] next = new int[producers];
+        for (String line : lines(writer)) {
+            Matcher matcher = pattern.matcher(line);
+            assertTrue(line, matcher.find());
+            int actor = Integer.parseInt(matcher.group(1));
+            assertEquals(next[actor]++, Integer.parseInt(matcher.group(2)));
+        }
+        for (int p = 0; p < producers; p++) {
+            assertEquals(events, next[p]);
+        }
+    }
+
+    @Test
+    public void drainOnCloseTest() throws Exception {
+        ClosingWriter writer = new ClosingWriter();
+        EventLog log = new EventLog(EventLog.Level.INFO, CLOCK, writer, true, EventLog.DEFAULT_CAPACITY);
+
+        // События уровня выше уровня журнала отсекаются
+        assertFalse(log.isEnabled(EventLog.Level.DEBUG));
+        for (int i = 0; i < 3000; i++) {
+            log.log(EventLog.Event.CUSTOMER_VACATED, i);
+            log.log(EventLog.Event.PUMP_STARTED, i);
+        }
+
+        // Закрытие дописывает все события из буфера и закрывает собственный приёмник
+        log.close();
+        assertTrue(writer._closed);
+        String[] lines = lines(writer);
+        assertEquals(3000, lines.length);
+        assertEquals("[0 ms] Customer-2999 has vacated the fuel pump", lines[2999]);
+
+        // Повторное закрытие ничего не делает
+        log.close();
+    }
+}
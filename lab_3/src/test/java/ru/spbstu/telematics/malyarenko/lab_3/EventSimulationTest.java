@@ -0,0 +1,155 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class EventSimulationTest
+{
+    @Test
+    public void eventOrderTest() {
+        EventSimulation simulation = new EventSimulation();
+        List<String> events = new ArrayList<>();
+
+        simulation.schedule(20, () -> events.add("b@" + simulation.now()));
+        simulation.schedule(10, () -> events.add("a@" + simulation.now()));
+        simulation.schedule(20, () -> events.add("c@" + simulation.now()));
+        simulation.schedule(30, () -> events.add("d@" + simulation.now()));
+
+        // События с одинаковым временем выполняются в порядке планирования
+        simulation.run(25);
+        assertEquals(Arrays.asList("a@10", "b@20", "c@20"), events);
+        assertEquals(25, simulation.now());
+        assertEquals(3, simulation.getProcessedEvents());
+
+        simulation.run(100);
+        assertEquals("d@30", events.get(3));
+        assertEquals(100, simulation.now());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeDelayTest() {
+        new EventSimulation().schedule(-1, () -> { });
+    }
+
+    @Test
+    public void semaphoreFifoTest() {
+        EventSimulation simulation = new EventSimulation();
+        EventSimulation.SimSemaphore semaphore = simulation.newSemaphore(1);
+        List<Integer> acquired = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            int id = i;
+            semaphore.acquire(() -> acquired.add(id));
+        }
+        simulation.run(0);
+        assertEquals(Arrays.asList(0), acquired);
+        assertEquals(2, semaphore.getQueueLength());
+
+        // Возвращённое разрешение сразу передаётся первому ожидающему
+        semaphore.release();
+        simulation.run(0);
+        assertEquals(Arrays.asList(0, 1), acquired);
+        assertEquals(1, semaphore.getQueueLength());
+
+        semaphore.release();
+        semaphore.release();
+        simulation.run(0);
+        assertEquals(Arrays.asList(0, 1, 2), acquired);
+        assertEquals(0, semaphore.getQueueLength());
+    }
+
+    @Test
+    public void semaphoreTimeoutTest() {
+        EventSimulation simulation = new EventSimulation();
+        EventSimulation.SimSemaphore semaphore = simulation.newSemaphore(0);
+        List<String> events = new ArrayList<>();
+
+        semaphore.tryAcquire(10, () -> events.add("a"), () -> events.add("a timed out"));
+        semaphore.tryAcquire(50, () -> events.add("b"), () -> events.add("b timed out"));
+        simulation.schedule(20, semaphore::release);
+        simulation.schedule(60, semaphore::release);
+        simulation.run(100);
+
+        // Разрешение получает ожидающий, время которого ещё не истекло, и его
+        // истечение уже ничего не делает
+        assertEquals(Arrays.asList("a timed out", "b"), events);
+        assertEquals(1, semaphore.availablePermits());
+        assertEquals(0, semaphore.getQueueLength());
+    }
+
+    @Test
+    public void semaphoreWaiterIdentityTest() {
+        EventSimulation simulation = new EventSimulation();
+        EventSimulation.SimSemaphore semaphore = simulation.newSemaphore(0);
+        List<String> events = new ArrayList<>();
+        Runnable first = () -> events.add("first");
+
+        // То же продолжение ждёт дважды: по истечении времени удаляется второе ожидание
+        semaphore.acquire(first);
+        semaphore.acquire(() -> events.add("second"));
+        semaphore.tryAcquire(10, first, () -> events.add("timed out"));
+        simulation.run(20);
+        semaphore.release();
+        simulation.run(20);
+
+        assertEquals(Arrays.asList("timed out", "first"), events);
+        assertEquals(1, semaphore.getQueueLength());
+    }
+
+    @Test
+    public void queueFifoTest() {
+        EventSimulation simulation = new EventSimulation();
+        EventSimulation.SimQueue<Integer> queue = simulation.newQueue(2);
+        List<String> events = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            int item = i;
+            queue.put(item, () -> events.add("put " + item));
+        }
+        simulation.run(0);
+        assertEquals(Arrays.asList("put 0", "put 1"), events);
+        assertEquals(2, queue.size());
+
+        // Освободившееся место занимает ожидающий добавления
+        queue.take(item -> events.add("took " + item));
+        simulation.run(0);
+        assertEquals(Arrays.asList("put 0", "put 1", "put 2", "took 0"), events);
+        assertEquals(2, queue.size());
+
+        queue.take(item -> events.add("took " + item));
+        queue.take(item -> events.add("took " + item));
+        queue.take(item -> events.add("took " + item));
+        simulation.run(0);
+        assertEquals("took 2", events.get(5));
+        assertEquals(0, queue.size());
+
+        // Ожидающий извлечения получает элемент, минуя очередь
+        queue.put(3, () -> events.add("put 3"));
+        simulation.run(0);
+        assertEquals(Arrays.asList("took 3", "put 3"), events.subList(6, 8));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void queueOfferTimeoutTest() {
+        EventSimulation simulation = new EventSimulation();
+        EventSimulation.SimQueue<String> queue = simulation.newQueue(1);
+        List<String> events = new ArrayList<>();
+
+        queue.put("a", () -> { });
+        queue.offer("b", 10, () -> events.add("put b"), () -> events.add("b timed out"));
+        queue.offer("c", 50, () -> events.add("put c"), () -> events.add("c timed out"));
+        simulation.schedule(20, () -> queue.take(item -> events.add("took " + item)));
+        simulation.schedule(30, () -> queue.take(item -> events.add("took " + item)));
+        simulation.run(100);
+
+        // Элемент, время ожидания которого истекло, не попадает в очередь
+        assertEquals(Arrays.asList("b timed out", "put c", "took a", "took c"), events);
+        assertEquals(0, queue.size());
+    }
+}
@@ -0,0 +1,114 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class FuelTankTest
+{
+    @Test
+    public void reserveCommitRefillTest() {
+        StationConfig config = new StationConfig().setTankCapacity(FuelType.FUEL_92, 100);
+        StationStatistics statistics = new StationStatistics(config);
+        long[] now = {0};
+        List<FuelTank> alarms = new ArrayList<>();
+        FuelTank tank = new FuelTank(FuelType.FUEL_92, 100, 20, statistics, () -> now[0], alarms::add);
+
+        assertTrue(tank.reserve(50));
+        assertEquals(50, tank.getAvailable());
+        assertEquals(100, tank.getLevel());
+        assertTrue(alarms.isEmpty());
+
+        // Доступный объём ниже нижнего уровня: один сигнал до пополнения
+        assertTrue(tank.reserve(40));
+        assertEquals(1, alarms.size());
+
+        now[0] = 5;
+        assertFalse(tank.reserve(20));
+        assertEquals(1, alarms.size());
+        assertEquals(10, tank.getAvailable());
+
+        // Невыданный остаток резерва снова доступен
+        tank.commit(50, 30);
+        tank.commit(40, 40);
+        assertEquals(30, tank.getLevel());
+        assertEquals(30, tank.getAvailable());
+
+        now[0] = 10;
+        tank.close();
+        assertFalse(tank.isOpen());
+        assertFalse(tank.reserve(1));
+
+        now[0] = 25;
+        assertEquals(70, tank.refill());
+        assertTrue(tank.isOpen());
+        assertEquals(100, tank.getLevel());
+        assertEquals(100, tank.getAvailable());
+        assertEquals(1, statistics.getRefills(FuelType.FUEL_92));
+        assertEquals(20, statistics.getDryMillis(FuelType.FUEL_92, 100));
+
+        assertTrue(tank.reserve(85));
+        assertEquals(2, alarms.size());
+    }
+
+    @Test
+    public void refillKeepsReservationTest() {
+        StationConfig config = new StationConfig().setTankCapacity(FuelType.FUEL_95, 100);
+        StationStatistics statistics = new StationStatistics(config);
+        FuelTank tank = new FuelTank(FuelType.FUEL_95, 100, 0, statistics, () -> 0, t -> { });
+
+        // Заправка идёт во время пополнения: резерв не возвращается в доступный объём
+        assertTrue(tank.reserve(60));
+        tank.close();
+        tank.refill();
+        assertEquals(40, tank.getAvailable());
+
+        tank.commit(60, 60);
+        assertEquals(40, tank.getLevel());
+        assertEquals(40, tank.getAvailable());
+    }
+
+    @Test
+    public void unlimitedTest() {
+        StationStatistics statistics = new StationStatistics(new StationConfig());
+        FuelTank tank = new FuelTank(FuelType.FUEL_DIESEL, StationConfig.UNLIMITED, 0, statistics,
+            () -> 0, t -> fail());
+
+        assertTrue(tank.reserve(Integer.MAX_VALUE));
+        tank.commit(Integer.MAX_VALUE, 100);
+        assertEquals(StationConfig.UNLIMITED, tank.getLevel());
+    }
+
+    @Test
+    public void concurrentReserveTest() throws InterruptedException {
+        StationConfig config = new StationConfig().setTankCapacity(FuelType.FUEL_92, 10_000);
+        StationStatistics statistics = new StationStatistics(config);
+        FuelTank tank = new FuelTank(FuelType.FUEL_92, 10_000, 0, statistics, () -> 0, t -> { });
+        int[] reserved = new int[4];
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < reserved.length; i++) {
+            int id = i;
+            threads.add(new Thread(() -> {
+                while (tank.reserve(7)) {
+                    reserved[id] += 7;
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Резервы потоков не пересекаются и не превышают запас
+        int total = 0;
+        for (int r : reserved) {
+            total += r;
+        }
+        assertEquals(10_000 - 10_000 % 7, total);
+        assertEquals(10_000 % 7, tank.getAvailable());
+    }
+}
@@ -0,0 +1,58 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest
+{
+    @Test
+    public void smallValuesExactTest() {
+        for (long value = 0; value < 64; value++) {
+            int index = LatencyHistogram.index(value);
+            assertEquals(value, index);
+            assertEquals(value, LatencyHistogram.highestEquivalent(index));
+        }
+    }
+
+    @Test
+    public void indexBoundsTest() {
+        // Наибольшее значение интервала принадлежит ему, а следующее значение - следующему интервалу
+        int last = LatencyHistogram.index(Long.MAX_VALUE);
+        for (int index = 0; index < last; index++) {
+            long highest = LatencyHistogram.highestEquivalent(index);
+            assertEquals(index, LatencyHistogram.index(highest));
+            assertEquals(index + 1, LatencyHistogram.index(highest + 1));
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestEquivalent(last));
+    }
+
+    @Test
+    public void relativeErrorTest() {
+        for (long value = 1; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+            long highest = LatencyHistogram.highestEquivalent(LatencyHistogram.index(value));
+            assertTrue(highest >= value);
+            assertTrue(highest - value <= value / 32);
+        }
+    }
+
+    @Test
+    public void percentileTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(50));
+
+        for (int value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+        histogram.record(-5);
+
+        assertEquals(1001, histogram.getCount());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500500 / 1001.0, histogram.getMean(), 1e-9);
+        assertEquals(0, histogram.getPercentile(0));
+        assertEquals(1000, histogram.getPercentile(100));
+
+        long median = histogram.getPercentile(50);
+        assertTrue(median >= 500 && median <= 500 + 500 / 32);
+    }
+}
@@ -0,0 +1,122 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+
+public class OrderIntakeTest
+{
+    @Test
+    public void queueCapacityTest() {
+        assertEquals(10, OrderIntake.queueCapacity(10, 1, 4));
+        assertEquals(6, OrderIntake.queueCapacity(10, 2, 3));
+
+        // Пачка уменьшается, чтобы в общей очереди осталось место
+        assertEquals(1, OrderIntake.queueCapacity(3, 2, 5));
+        assertEquals(1, OrderIntake.queueCapacity(1, 3, 2));
+    }
+
+    @Test
+    public void stealTest() throws InterruptedException {
+        int capacity = 10;
+        BlockingQueue<Order> cashboxQueue = new ArrayBlockingQueue<>(OrderIntake.queueCapacity(capacity, 2, 3));
+        OrderIntake intake = new OrderIntake(cashboxQueue, capacity, 2, 3);
+        Order[] orders = new Order[3];
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = new Order(FuelType.FUEL_92, 100 + i);
+            cashboxQueue.add(orders[i]);
+        }
+
+        // Первый кассир забирает пачку, второй перехватывает заказ с её конца
+        assertSame(orders[0], intake.take(0));
+        assertEquals(2, intake.getBacklog());
+        assertSame(orders[2], intake.take(1));
+        assertSame(orders[1], intake.take(0));
+        assertEquals(0, intake.getBacklog());
+    }
+
+    @Test
+    public void capacityTest() throws InterruptedException {
+        int capacity = 8;
+        int cashiers = 2;
+        BlockingQueue<Order> cashboxQueue = new ArrayBlockingQueue<>(OrderIntake.queueCapacity(capacity, cashiers, 3));
+        OrderIntake intake = new OrderIntake(cashboxQueue, capacity, cashiers, 3);
+        Random random = new Random(1);
+
+        // Клиенты занимают все свободные места, а кассиры забирают заказы в случайном порядке:
+        // заказы в очередях кассиров занимают места очереди в кассу
+        int waiting = 0;
+        for (int step = 0; step < 1000; step++) {
+            while (cashboxQueue.offer(new Order(FuelType.FUEL_95, 100))) {
+                waiting++;
+            }
+            assertTrue(waiting <= capacity);
+            assertEquals(waiting, cashboxQueue.size() + intake.getBacklog());
+
+            intake.take(random.nextInt(cashiers));
+            waiting--;
+        }
+    }
+
+    @Test
+    public void noOrderLossTest() throws InterruptedException {
+        int cashiers = 3;
+        int producers = 3;
+        int orders = 10_000;
+        BlockingQueue<Order> cashboxQueue = new ArrayBlockingQueue<>(OrderIntake.queueCapacity(16, cashiers, 4));
+        OrderIntake intake = new OrderIntake(cashboxQueue, 16, cashiers, 4);
+        Set<Order> taken = ConcurrentHashMap.newKeySet();
+        Set<Order> sent = ConcurrentHashMap.newKeySet();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < cashiers; c++) {
+            int cashier = c;
+            threads.add(new Thread(() -> {
+                try {
+                    while (true) {
+                        assertTrue(taken.add(intake.take(cashier)));
+                    }
+                } catch (InterruptedException e) {
+                    // Приём заказов остановлен
+                }
+            }));
+        }
+        for (int p = 0; p < producers; p++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < orders; i++) {
+                        Order order = new Order(FuelType.FUEL_DIESEL, i);
+                        sent.add(order);
+                        cashboxQueue.put(order);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+
+        // Каждый заказ обслужен ровно один раз
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (taken.size() < producers * orders && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        for (Thread thread : threads) {
+            thread.interrupt();
+            thread.join();
+        }
+
+        assertEquals(producers * orders, sent.size());
+        assertEquals(sent, taken);
+        assertEquals(0, intake.getBacklog());
+        assertTrue(cashboxQueue.isEmpty());
+    }
+}
@@ -0,0 +1,71 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class OrderTest
+{
+    @Test
+    public void refuelingAfterBothTest() throws InterruptedException {
+        Order order = new Order(FuelType.FUEL_DIESEL, 500);
+
+        // Клиент ждёт и сообщения кассира, и выдачи топлива насосом
+        order.notifyCustomer();
+        assertFalse(order.getRefueling().isDone());
+        order.completeFueling(10);
+        assertTrue(order.getRefueling().isDone());
+        assertEquals(10, order.awaitRefueling());
+
+        // Насос может выдать топливо раньше, чем кассир сообщит клиенту
+        Order early = new Order(FuelType.FUEL_DIESEL, 500);
+        early.completeFueling(0);
+        assertFalse(early.getRefueling().isDone());
+        early.notifyCustomer();
+        assertEquals(0, early.awaitRefueling());
+    }
+
+    @Test
+    public void ordersIndependentTest() throws InterruptedException {
+        Order first = new Order(FuelType.FUEL_DIESEL, 100);
+        Order second = new Order(FuelType.FUEL_DIESEL, 200);
+
+        // Завершение одного заказа не завершает другой
+        second.notifyCustomer();
+        second.completeFueling(20);
+        assertFalse(first.getRefueling().isDone());
+        assertEquals(20, second.awaitRefueling());
+
+        // Повторная выдача топлива не меняет выданный объём
+        first.completeFueling(10);
+        first.completeFueling(30);
+        first.notifyCustomer();
+        assertEquals(10, first.awaitRefueling());
+    }
+
+    @Test
+    public void awaitRefuelingTest() throws InterruptedException {
+        Order order = new Order(FuelType.FUEL_DIESEL, 500);
+        AtomicInteger volume = new AtomicInteger(-1);
+
+        Thread customer = new Thread(() -> {
+            try {
+                volume.set(order.awaitRefueling());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        customer.start();
+
+        // Клиент ожидает, пока заказ не завершён
+        order.notifyCustomer();
+        customer.join(50);
+        assertTrue(customer.isAlive());
+
+        order.completeFueling(25);
+        customer.join();
+        assertEquals(25, volume.get());
+    }
+}
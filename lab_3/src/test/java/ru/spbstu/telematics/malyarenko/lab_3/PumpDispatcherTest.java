@@ -0,0 +1,177 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class PumpDispatcherTest
+{
+    /**
+     * Насос, который получает заказы в очередь, не запуская заправку
+     */
+    private static class RecordingPump extends FuelPumpThread {
+        final BlockingQueue<Order> _assigned = new LinkedBlockingQueue<>();
+
+        RecordingPump(PumpDispatcher dispatcher, StationConfig config, int id) {
+            super(dispatcher, null, config, null, null, null, id);
+        }
+
+        @Override
+        public void assign(Order order) {
+            _assigned.add(order);
+        }
+    }
+
+    private static StationConfig mixedConfig() {
+        return new StationConfig()
+            .setPumps(4)
+            .setPumpFuelTypes(1, FuelType.FUEL_92, FuelType.FUEL_95)
+            .setPumpFuelTypes(2, FuelType.FUEL_95, FuelType.FUEL_DIESEL)
+            .setPumpFuelTypes(3, FuelType.FUEL_92, FuelType.FUEL_DIESEL)
+            .setPumpFuelTypes(4, FuelType.FUEL_DIESEL);
+    }
+
+    private static List<RecordingPump> register(PumpDispatcher dispatcher, StationConfig config) {
+        List<RecordingPump> pumps = new ArrayList<>();
+        for (int id = 1; id <= config.getPumps(); id++) {
+            RecordingPump pump = new RecordingPump(dispatcher, config, id);
+            dispatcher.register(pump);
+            pumps.add(pump);
+        }
+        return pumps;
+    }
+
+    @Test
+    public void noHeadOfLineBlockingTest() {
+        StationConfig config = new StationConfig()
+            .setPumps(2)
+            .setPumpFuelTypes(1, FuelType.FUEL_DIESEL)
+            .setPumpFuelTypes(2, FuelType.FUEL_92, FuelType.FUEL_95);
+        PumpDispatcher dispatcher = new PumpDispatcher(config);
+        List<RecordingPump> pumps = register(dispatcher, config);
+        dispatcher.pumpIdle(pumps.get(1));
+
+        // Насос дизельного топлива занят: заказ ждёт его, не задерживая отправителя
+        CompletableFuture<FuelPumpThread> diesel = dispatcher.dispatch(new Order(FuelType.FUEL_DIESEL, 100));
+        assertFalse(diesel.isDone());
+        assertEquals(1, dispatcher.getPendingOrders(FuelType.FUEL_DIESEL));
+
+        Order petrol = new Order(FuelType.FUEL_95, 100);
+        assertSame(pumps.get(1), dispatcher.dispatch(petrol).getNow(null));
+        assertSame(petrol, pumps.get(1)._assigned.poll());
+
+        dispatcher.pumpIdle(pumps.get(0));
+        assertSame(pumps.get(0), diesel.getNow(null));
+        assertEquals(0, dispatcher.getPendingOrders(FuelType.FUEL_DIESEL));
+    }
+
+    @Test
+    public void oldestOrderFirstTest() {
+        StationConfig config = new StationConfig()
+            .setPumps(2)
+            .setPumpFuelTypes(1, FuelType.FUEL_92, FuelType.FUEL_95)
+            .setPumpFuelTypes(2, FuelType.FUEL_DIESEL);
+        PumpDispatcher dispatcher = new PumpDispatcher(config);
+        RecordingPump pump = register(dispatcher, config).get(0);
+
+        Order first = new Order(FuelType.FUEL_95, 100);
+        Order second = new Order(FuelType.FUEL_92, 100);
+        Order third = new Order(FuelType.FUEL_95, 100);
+        dispatcher.dispatch(first);
+        dispatcher.dispatch(second);
+        dispatcher.dispatch(third);
+
+        // Насос выдаёт оба типа топлива и берёт заказы в порядке отправки
+        for (Order order : new Order[] {first, second, third}) {
+            dispatcher.pumpIdle(pump);
+            assertSame(order, pump._assigned.poll());
+        }
+        dispatcher.pumpIdle(pump);
+        assertNull(pump._assigned.poll());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingFuelTypeTest() {
+        new PumpDispatcher(new StationConfig()
+            .setPumps(2)
+            .setPumpFuelTypes(1, FuelType.FUEL_92)
+            .setPumpFuelTypes(2, FuelType.FUEL_95));
+    }
+
+    @Test
+    public void mixedPumpsStressTest() throws InterruptedException {
+        int senders = 6;
+        int ordersPerSender = 20000;
+
+        StationConfig config = mixedConfig();
+        PumpDispatcher dispatcher = new PumpDispatcher(config);
+        List<RecordingPump> pumps = register(dispatcher, config);
+        AtomicInteger served = new AtomicInteger();
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        // Насос сообщает о готовности, получает заказ и проверяет его тип топлива
+        List<Thread> threads = new ArrayList<>();
+        for (RecordingPump pump : pumps) {
+            threads.add(new Thread(() -> {
+                try {
+                    while (true) {
+                        dispatcher.pumpIdle(pump);
+                        Order order = pump._assigned.take();
+                        if (!config.getPumpFuelTypes(pump.getId()).contains(order.getFuelType())) {
+                            failure.compareAndSet(null, "Pump " + pump.getId() + " got " + order.getFuelType());
+                        }
+                        served.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    // Тест окончен
+                }
+            }));
+        }
+
+        List<Thread> senderThreads = new ArrayList<>();
+        for (int i = 0; i < senders; i++) {
+            long seed = i;
+            senderThreads.add(new Thread(() -> {
+                Random random = new Random(seed);
+                FuelType[] types = FuelType.values();
+                for (int j = 0; j < ordersPerSender; j++) {
+                    dispatcher.dispatch(new Order(types[random.nextInt(types.length)], 100));
+                }
+            }));
+        }
+        threads.addAll(senderThreads);
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        // Заказ, насос которого потерял пробуждение, ждал бы вечно
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (served.get() < senders * ordersPerSender && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        int pending = 0;
+        for (FuelType type : FuelType.values()) {
+            pending += dispatcher.getPendingOrders(type);
+        }
+
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals("orders left pending: " + pending, senders * ordersPerSender, served.get());
+    }
+}
@@ -0,0 +1,110 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class RingBufferQueueTest
+{
+    @Test
+    public void fifoTest() {
+        RingBufferQueue<Integer> queue = new RingBufferQueue<>(3, RingBufferQueue.WaitStrategy.PARK);
+
+        // Позиции многократно проходят по кольцу
+        for (int round = 0; round < 10; round++) {
+            assertTrue(queue.offer(round));
+            assertTrue(queue.offer(round + 100));
+            assertEquals(2, queue.size());
+            assertEquals(Integer.valueOf(round), queue.peek());
+            assertEquals(Integer.valueOf(round), queue.poll());
+            assertEquals(Integer.valueOf(round + 100), queue.poll());
+            assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    public void capacityTest() {
+        RingBufferQueue<Integer> queue = new RingBufferQueue<>(2, RingBufferQueue.WaitStrategy.YIELD);
+
+        assertEquals(2, queue.remainingCapacity());
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertFalse(queue.offer(3));
+        assertEquals(0, queue.remainingCapacity());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, queue.drainTo(drained));
+        assertEquals(List.of(1, 2), drained);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroCapacityTest() {
+        new RingBufferQueue<Integer>(0, RingBufferQueue.WaitStrategy.SPIN);
+    }
+
+    @Test
+    public void timedOperationsTest() throws InterruptedException {
+        RingBufferQueue<Integer> queue = new RingBufferQueue<>(1, RingBufferQueue.WaitStrategy.PARK);
+
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        assertTrue(queue.offer(1, 10, TimeUnit.MILLISECONDS));
+
+        // Очередь на один элемент заполнена: добавление ждёт до истечения времени
+        long start = System.nanoTime();
+        assertFalse(queue.offer(2, 20, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertEquals(Integer.valueOf(1), queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void handoffTest() throws InterruptedException {
+        // Активное ожидание без уступки процессора не проверяется: потокам может не хватить ядер
+        for (RingBufferQueue.WaitStrategy strategy
+                : new RingBufferQueue.WaitStrategy[] {RingBufferQueue.WaitStrategy.YIELD, RingBufferQueue.WaitStrategy.PARK}) {
+            RingBufferQueue<Integer> queue = new RingBufferQueue<>(4, strategy);
+            int producers = 3;
+            int items = 10_000;
+            long[] sums = new long[producers];
+            int[] last = new int[producers];
+
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                threads.add(new Thread(() -> {
+                    try {
+                        for (int i = 1; i <= items; i++) {
+                            queue.put(producer * items + i);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+
+            // Элементы каждого производителя извлекаются по порядку, без потерь и повторов
+            for (int n = 0; n < producers * items; n++) {
+                int item = queue.take();
+                int producer = (item - 1) / items;
+                int i = item - producer * items;
+                assertTrue(i > last[producer]);
+                last[producer] = i;
+                sums[producer] += i;
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            for (int p = 0; p < producers; p++) {
+                assertEquals((long) items * (items + 1) / 2, sums[p]);
+            }
+            assertTrue(queue.isEmpty());
+        }
+    }
+}
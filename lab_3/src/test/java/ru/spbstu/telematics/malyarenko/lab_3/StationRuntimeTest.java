@@ -0,0 +1,107 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class StationRuntimeTest
+{
+    /** Клиент пула, который только занимает насос и учитывает исход приезда */
+    private static class CountingCustomer extends CustomerThread {
+        final Semaphore _pumps;
+        final StationRuntime _runtime;
+        final AtomicInteger _served = new AtomicInteger();
+        final AtomicInteger _reneged = new AtomicInteger();
+
+        CountingCustomer(Semaphore pumps, StationConfig config, StationRuntime runtime, int id) {
+            super(pumps, null, config, null, runtime, null, id, false);
+            _pumps = pumps;
+            _runtime = runtime;
+        }
+
+        @Override
+        public boolean arrive() {
+            return true;
+        }
+
+        @Override
+        public void renege() {
+            _reneged.incrementAndGet();
+        }
+
+        @Override
+        public boolean serve() {
+            _served.incrementAndGet();
+            try {
+                _runtime.sleep(1);
+            } catch (InterruptedException e) {
+                return false;
+            } finally {
+                _pumps.release();
+                _runtime.pumpReleased();
+            }
+            return true;
+        }
+
+        int outcomes() {
+            return _served.get() + _reneged.get();
+        }
+    }
+
+    private static void renegeRace(ThreadModel model) throws InterruptedException {
+        StationConfig config = new StationConfig()
+            .setThreadModel(model)
+            .setPumps(1)
+            .setPoolSize(2)
+            .setPatienceMillis(20);
+        Semaphore pumps = new Semaphore(config.getPumps(), true);
+        StationRuntime runtime = new StationRuntime(config, pumps);
+        List<CountingCustomer> customers = new ArrayList<>();
+
+        // Клиенты приезжают быстрее, чем обслуживаются, поэтому уход из очереди по таймеру
+        // соревнуется с передачей насоса освободившим его клиентом
+        for (int i = 0; i < 600; i++) {
+            CountingCustomer customer = new CountingCustomer(pumps, config, runtime, i + 1);
+            customers.add(customer);
+            runtime.startCustomer(customer);
+            if (i % 2 == 1) {
+                Thread.sleep(1);
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + 30_000;
+        int resolved = 0;
+        while (resolved < customers.size() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            resolved = customers.stream().mapToInt(CountingCustomer::outcomes).sum();
+        }
+        runtime.stop();
+
+        // Каждый клиент либо обслужен, либо ушёл из очереди, и ни одно разрешение не потеряно
+        int served = 0;
+        int reneged = 0;
+        for (CountingCustomer customer : customers) {
+            assertEquals(1, customer.outcomes());
+            served += customer._served.get();
+            reneged += customer._reneged.get();
+        }
+        assertTrue(served > 0);
+        assertTrue(reneged > 0);
+        assertEquals(config.getPumps(), pumps.availablePermits());
+    }
+
+    @Test
+    public void poolRenegeRaceTest() throws InterruptedException {
+        renegeRace(ThreadModel.POOL);
+    }
+
+    @Test
+    public void forkJoinRenegeRaceTest() throws InterruptedException {
+        renegeRace(ThreadModel.FORK_JOIN);
+    }
+}
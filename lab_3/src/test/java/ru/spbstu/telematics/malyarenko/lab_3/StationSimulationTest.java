@@ -0,0 +1,49 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class StationSimulationTest
+{
+    private static final long DAY = 24 * 3_600_000L;
+
+    private static StationConfig config() {
+        return new StationConfig()
+            .setCashiers(2)
+            .setPumpFuelTypes(1, FuelType.FUEL_DIESEL);
+    }
+
+    @Test
+    public void sameSeedTest() {
+        StationConfig config = config().setTankCapacity(FuelType.FUEL_DIESEL, 2_000);
+        StationStatistics first = new StationSimulation(config, 7).run(DAY);
+        StationStatistics second = new StationSimulation(config, 7).run(DAY);
+
+        // Модель детерминирована: одинаковое зерно даёт одинаковую статистику
+        assertTrue(first.getVisits() > 0);
+        assertEquals(first.report(DAY), second.report(DAY));
+    }
+
+    @Test
+    public void seedsComparableTest() {
+        StationStatistics first = new StationSimulation(config(), 1).run(DAY);
+        StationStatistics second = new StationSimulation(config(), 2).run(DAY);
+
+        // Разные зерна меняют выбор топлива, но не пропускную способность станции за сутки
+        assertNotEquals(first.report(DAY), second.report(DAY));
+        assertEquals(1.0, (double) second.getVisits() / first.getVisits(), 0.1);
+    }
+
+    @Test
+    public void closedModelTest() {
+        StationConfig config = new StationConfig().setCustomers(3);
+        StationSimulation simulation = new StationSimulation(config, 1);
+        StationStatistics statistics = simulation.run(DAY);
+
+        // Каждый клиент замкнутой модели обслуживается по очереди, заказы не теряются
+        assertTrue(statistics.getVisits() > 0);
+        assertEquals(0, statistics.getLost());
+        assertEquals(DAY, simulation.getSimulation().now());
+    }
+}
@@ -0,0 +1,49 @@
+package ru.spbstu.telematics.malyarenko.lab_3;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class ThreadModelTest
+{
+    private static StationConfig config(ThreadModel model) {
+        return new StationConfig()
+            .setThreadModel(model)
+            .setPoolSize(2)
+            .setTimeScale(1000)
+            .setLogLevel(EventLog.Level.OFF);
+    }
+
+    @Test(timeout = 60_000)
+    public void modelsServeAndStopTest() throws InterruptedException {
+        for (ThreadModel model : ThreadModel.values()) {
+            if (!model.isAvailable()) {
+                continue;
+            }
+            GasStation station = new GasStation(config(model));
+
+            // Станция обслуживает клиентов любым способом выполнения и останавливается
+            station.start();
+            Thread.sleep(500);
+            station.stop();
+            assertTrue(model.name(), station.getStatistics().getVisits() > 0);
+        }
+    }
+
+    @Test
+    public void unavailableModelTest() {
+        for (ThreadModel model : ThreadModel.values()) {
+            if (model.isAvailable()) {
+                continue;
+            }
+
+            // Недоступный в текущей JVM способ выполнения отклоняется до запуска участников
+            try {
+                new GasStation(config(model)).start();
+                fail(model.name());
+            } catch (UnsupportedOperationException e) {
+                assertTrue(e.getMessage().contains(model.name()));
+            }
+        }
+    }
+}